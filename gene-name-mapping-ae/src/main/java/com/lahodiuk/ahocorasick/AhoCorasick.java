@@ -0,0 +1,40 @@
+package com.lahodiuk.ahocorasick;
+
+import com.lahodiuk.ahocorasick.AhoCorasickOptimized.MatchCallback;
+
+/**
+ * The matching operations shared by the Aho-Corasick automaton implementations
+ * {@link AhoCorasickOptimized} and {@link AhoCorasickDoubleArray}. For the same
+ * patterns, all implementations report the same matches in the same order.
+ */
+public interface AhoCorasick {
+
+	/**
+	 * Reports all occurrences of the patterns in the given text to the callback.
+	 *
+	 * @param text
+	 * @param callback
+	 */
+	void match(String text, MatchCallback callback);
+
+	/**
+	 * Like {@link #match(String, MatchCallback)} but for a part of a character
+	 * array. The positions passed to the callback are relative to
+	 * <tt>offset</tt>.
+	 *
+	 * @param text
+	 * @param offset
+	 * @param length
+	 * @param callback
+	 */
+	void match(char[] text, int offset, int length, MatchCallback callback);
+
+	/**
+	 * Checks if the given string is a strict prefix of at least one pattern.
+	 *
+	 * @param text
+	 * @return
+	 * @see AhoCorasickOptimized#isEntryPrefix(String)
+	 */
+	boolean isEntryPrefix(String text);
+}
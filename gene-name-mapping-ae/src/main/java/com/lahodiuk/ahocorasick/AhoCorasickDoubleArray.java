@@ -0,0 +1,635 @@
+package com.lahodiuk.ahocorasick;
+
+// As in AhoCorasickOptimized, Java Collections are used only during the
+// building of the automaton. The automaton itself consists of a few flat
+// primitive arrays.
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import com.lahodiuk.ahocorasick.AhoCorasickOptimized.MatchCallback;
+
+/**
+ * <p>
+ * An Aho-Corasick automaton with the same matching behavior as
+ * {@link AhoCorasickOptimized} but a compact representation that scales to
+ * dictionary-sized pattern sets.
+ * </p>
+ * <p>
+ * {@link AhoCorasickOptimized} stores a dense transition row of the size of the
+ * alphabet for each state, finds the index of each input character by binary
+ * search and keeps a list of strings as the output of each state. This class
+ * instead
+ * <ul>
+ * <li>maps characters to character classes through a direct table over the
+ * character range of the patterns,</li>
+ * <li>stores the transitions as a double-array trie: the child of state
+ * <tt>s</tt> for character class <tt>c</tt> is <tt>t = base[s] + c</tt> if
+ * <tt>check[t] == s</tt>,</li>
+ * <li>stores the outputs as pattern IDs - the index of the pattern in the
+ * constructor argument - in a single array, delimited per state by an offset
+ * array.</li>
+ * </ul>
+ * The pattern IDs of the matches can be retrieved with
+ * {@link #matchPatternIds(String, PatternIdCallback)}.
+ * </p>
+ * <p>
+ * Since the automaton consists of flat arrays only, it can be written to a file
+ * with {@link #write(File)} and loaded with {@link #read(File)} much faster
+ * than it can be built.
+ * </p>
+ */
+public class AhoCorasickDoubleArray implements AhoCorasick {
+
+	private static final int INITIAL_STATE = 0;
+	private static final int FAIL = -1;
+	// the character class of all characters that do not occur in the patterns
+	private static final int ABSENT_CHAR_CLASS = 0;
+	// "ACDA"
+	private static final int FILE_MAGIC = 0x41434441;
+	private static final int FILE_FORMAT_VERSION = 1;
+	private static final int FILE_HEADER_SIZE = 7;
+	// the maximum number of ints or chars mapped at once
+	private static final int MAX_MAPPED_ELEMENTS = 1 << 28;
+
+	private final String[] patterns;
+	private final int[] patternLengths;
+
+	// mapping: "character" -> "character class"; characters beyond the end of
+	// the table are absent from the patterns
+	private final char[] charClasses;
+
+	// the double-array transitions; base is FAIL for states without children
+	// and check is FAIL for unused slots
+	private int[] base;
+	private int[] check;
+	// table of the fail transitions of the automaton
+	private int[] fail;
+	// the output pattern IDs of state s are
+	// outputIds[outputOffsets[s]] to outputIds[outputOffsets[s + 1] - 1]
+	private int[] outputOffsets;
+	private int[] outputIds;
+
+	public AhoCorasickDoubleArray(String... patterns) {
+		this(Arrays.asList(patterns));
+	}
+
+	public AhoCorasickDoubleArray(List<String> patterns) {
+		this.patterns = patterns.toArray(new String[0]);
+		this.patternLengths = new int[this.patterns.length];
+		for (int i = 0; i < this.patterns.length; i++) {
+			this.patternLengths[i] = this.patterns[i].length();
+		}
+		this.charClasses = this.createCharClasses();
+
+		Trie trie = new Trie();
+		for (int id = 0; id < this.patterns.length; id++) {
+			trie.add(this.patterns[id], id);
+		}
+		int[] trieStateToIndex = this.buildDoubleArray(trie);
+		this.calculateFailureTransitionsAndOutputs(trie, trieStateToIndex);
+	}
+
+	private AhoCorasickDoubleArray(String[] patterns, char[] charClasses, int[] base, int[] check, int[] fail,
+			int[] outputOffsets, int[] outputIds) {
+		this.patterns = patterns;
+		this.patternLengths = new int[patterns.length];
+		for (int i = 0; i < patterns.length; i++) {
+			this.patternLengths[i] = patterns[i].length();
+		}
+		this.charClasses = charClasses;
+		this.base = base;
+		this.check = check;
+		this.fail = fail;
+		this.outputOffsets = outputOffsets;
+		this.outputIds = outputIds;
+	}
+
+	/**
+	 * <p>
+	 * Reads an automaton written by {@link #write(File)}. The file is memory
+	 * mapped and its sections are copied into the arrays of the automaton in
+	 * bulk, without any parsing.
+	 * </p>
+	 *
+	 * @param file
+	 * @return The automaton stored in the file.
+	 * @throws IOException
+	 *             If the file cannot be read or is not an automaton file of the
+	 *             current format.
+	 */
+	public static AhoCorasickDoubleArray read(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			int[] header = new int[FILE_HEADER_SIZE];
+			if (channel.size() < 4L * FILE_HEADER_SIZE) {
+				throw new IOException("The file " + file + " is too short to be an automaton file.");
+			}
+			long position = readInts(channel, 0, header);
+			if (header[0] != FILE_MAGIC) {
+				throw new IOException("The file " + file + " is not an automaton file.");
+			}
+			if (header[1] != FILE_FORMAT_VERSION) {
+				throw new IOException("The automaton file " + file + " has format version " + header[1]
+						+ " but version " + FILE_FORMAT_VERSION + " is required.");
+			}
+			int numPatterns = header[2];
+			int numPatternChars = header[3];
+			int numCharClasses = header[4];
+			int size = header[5];
+			int numOutputs = header[6];
+			long expectedSize = 4L * FILE_HEADER_SIZE + 4L * (numPatterns + 1) + 4L * 3 * size + 4L * (size + 1)
+					+ 4L * numOutputs + 2L * numCharClasses + 2L * numPatternChars;
+			if (channel.size() != expectedSize) {
+				throw new IOException("The automaton file " + file + " has " + channel.size() + " bytes but "
+						+ expectedSize + " bytes were expected.");
+			}
+
+			int[] patternOffsets = new int[numPatterns + 1];
+			int[] base = new int[size];
+			int[] check = new int[size];
+			int[] fail = new int[size];
+			int[] outputOffsets = new int[size + 1];
+			int[] outputIds = new int[numOutputs];
+			char[] charClasses = new char[numCharClasses];
+			char[] patternChars = new char[numPatternChars];
+			position = readInts(channel, position, patternOffsets);
+			position = readInts(channel, position, base);
+			position = readInts(channel, position, check);
+			position = readInts(channel, position, fail);
+			position = readInts(channel, position, outputOffsets);
+			position = readInts(channel, position, outputIds);
+			position = readChars(channel, position, charClasses);
+			readChars(channel, position, patternChars);
+
+			String[] patterns = new String[numPatterns];
+			for (int i = 0; i < numPatterns; i++) {
+				patterns[i] = new String(patternChars, patternOffsets[i], patternOffsets[i + 1] - patternOffsets[i]);
+			}
+			return new AhoCorasickDoubleArray(patterns, charClasses, base, check, fail, outputOffsets, outputIds);
+		}
+	}
+
+	private static long readInts(FileChannel channel, long position, int[] target) throws IOException {
+		for (int offset = 0; offset < target.length;) {
+			int length = Math.min(target.length - offset, MAX_MAPPED_ELEMENTS);
+			channel.map(MapMode.READ_ONLY, position, 4L * length).asIntBuffer().get(target, offset, length);
+			position += 4L * length;
+			offset += length;
+		}
+		return position;
+	}
+
+	private static long readChars(FileChannel channel, long position, char[] target) throws IOException {
+		for (int offset = 0; offset < target.length;) {
+			int length = Math.min(target.length - offset, MAX_MAPPED_ELEMENTS);
+			channel.map(MapMode.READ_ONLY, position, 2L * length).asCharBuffer().get(target, offset, length);
+			position += 2L * length;
+			offset += length;
+		}
+		return position;
+	}
+
+	/**
+	 * <p>
+	 * Writes this automaton to the given file. The file consists of a header
+	 * and the arrays of the automaton in big-endian byte order: first all int
+	 * arrays, then the char arrays. Thus, all sections are aligned to their
+	 * element size and can be mapped directly, see {@link #read(File)}.
+	 * </p>
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		int numPatternChars = 0;
+		for (int length : this.patternLengths) {
+			numPatternChars += length;
+		}
+		try (DataOutputStream dos = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+			dos.writeInt(FILE_MAGIC);
+			dos.writeInt(FILE_FORMAT_VERSION);
+			dos.writeInt(this.patterns.length);
+			dos.writeInt(numPatternChars);
+			dos.writeInt(this.charClasses.length);
+			dos.writeInt(this.base.length);
+			dos.writeInt(this.outputIds.length);
+			int patternOffset = 0;
+			dos.writeInt(patternOffset);
+			for (int length : this.patternLengths) {
+				patternOffset += length;
+				dos.writeInt(patternOffset);
+			}
+			writeInts(dos, this.base);
+			writeInts(dos, this.check);
+			writeInts(dos, this.fail);
+			writeInts(dos, this.outputOffsets);
+			writeInts(dos, this.outputIds);
+			for (char c : this.charClasses) {
+				dos.writeChar(c);
+			}
+			for (String pattern : this.patterns) {
+				dos.writeChars(pattern);
+			}
+		}
+	}
+
+	private static void writeInts(DataOutputStream dos, int[] ints) throws IOException {
+		for (int i : ints) {
+			dos.writeInt(i);
+		}
+	}
+
+	@Override
+	public final void match(final String text, MatchCallback callback) {
+
+		int state = INITIAL_STATE;
+
+		for (int ci = 0; ci < text.length(); ci++) {
+
+			state = this.nextState(state, this.charClass(text.charAt(ci)));
+
+			for (int j = this.outputOffsets[state]; j < this.outputOffsets[state + 1]; j++) {
+				String found = this.patterns[this.outputIds[j]];
+				callback.onMatch((ci - found.length()) + 1, ci, found);
+			}
+		}
+	}
+
+	@Override
+	public final void match(final char[] text, final int offset, final int length, MatchCallback callback) {
+
+		int state = INITIAL_STATE;
+
+		for (int ci = 0; ci < length; ci++) {
+
+			state = this.nextState(state, this.charClass(text[offset + ci]));
+
+			for (int j = this.outputOffsets[state]; j < this.outputOffsets[state + 1]; j++) {
+				String found = this.patterns[this.outputIds[j]];
+				callback.onMatch((ci - found.length()) + 1, ci, found);
+			}
+		}
+	}
+
+	/**
+	 * Like {@link #match(String, MatchCallback)} but reports the IDs of the
+	 * matched patterns, i.e. their index in the list of patterns that this
+	 * automaton was built from.
+	 *
+	 * @param text
+	 * @param callback
+	 */
+	public final void matchPatternIds(final String text, PatternIdCallback callback) {
+
+		int state = INITIAL_STATE;
+
+		for (int ci = 0; ci < text.length(); ci++) {
+
+			state = this.nextState(state, this.charClass(text.charAt(ci)));
+
+			for (int j = this.outputOffsets[state]; j < this.outputOffsets[state + 1]; j++) {
+				int id = this.outputIds[j];
+				callback.onMatch((ci - this.patternLengths[id]) + 1, ci, id);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the given string is a strict prefix of at least one pattern
+	 * with the same semantics as {@link AhoCorasickOptimized#isEntryPrefix(String)}.
+	 *
+	 * @param text
+	 * @return
+	 */
+	@Override
+	public final boolean isEntryPrefix(final String text) {
+
+		int state = INITIAL_STATE;
+
+		for (int ci = 0; ci < text.length(); ci++) {
+
+			int next = this.child(state, this.charClass(text.charAt(ci)));
+
+			if (next == FAIL) {
+				// the initial state never fails, it stays in itself
+				if (state == INITIAL_STATE) {
+					continue;
+				}
+				state = FAIL;
+				break;
+			}
+
+			state = next;
+		}
+		if (state >= 0 && this.hasOutput(state)) {
+			// the initial state has a transition for every character
+			if (state == INITIAL_STATE || this.base[state] != FAIL) {
+				return true;
+			}
+		}
+		return state != INITIAL_STATE && state != FAIL && !this.hasOutput(state);
+	}
+
+	/**
+	 * @param id
+	 * @return The pattern with the given ID.
+	 */
+	public String getPattern(int id) {
+		return this.patterns[id];
+	}
+
+	public int getNumPatterns() {
+		return this.patterns.length;
+	}
+
+	private int charClass(char chr) {
+		return chr < this.charClasses.length ? this.charClasses[chr] : ABSENT_CHAR_CLASS;
+	}
+
+	private int child(int state, int charClass) {
+		if (charClass == ABSENT_CHAR_CLASS) {
+			return FAIL;
+		}
+		int next = this.base[state] + charClass;
+		return next >= 0 && next < this.check.length && this.check[next] == state ? next : FAIL;
+	}
+
+	private int nextState(int state, int charClass) {
+		int next;
+		while ((next = this.child(state, charClass)) == FAIL) {
+			if (state == INITIAL_STATE) {
+				return INITIAL_STATE;
+			}
+			state = this.fail[state];
+		}
+		return next;
+	}
+
+	private boolean hasOutput(int state) {
+		return this.outputOffsets[state] < this.outputOffsets[state + 1];
+	}
+
+	private char[] createCharClasses() {
+		int maxChar = -1;
+		for (String pattern : this.patterns) {
+			for (int i = 0; i < pattern.length(); i++) {
+				maxChar = Math.max(maxChar, pattern.charAt(i));
+			}
+		}
+		// the classes are assigned in the order of the characters, just as the
+		// alphabet of AhoCorasickOptimized is sorted
+		char[] classes = new char[maxChar + 1];
+		for (String pattern : this.patterns) {
+			for (int i = 0; i < pattern.length(); i++) {
+				classes[pattern.charAt(i)] = 1;
+			}
+		}
+		int numClasses = 0;
+		for (int c = 0; c < classes.length; c++) {
+			if (classes[c] != ABSENT_CHAR_CLASS) {
+				if (numClasses == Character.MAX_VALUE - 1) {
+					throw new IllegalArgumentException("The patterns consist of more than " + (Character.MAX_VALUE - 1)
+							+ " distinct characters.");
+				}
+				classes[c] = (char) ++numClasses;
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * Places the trie states into the double array in breadth-first order.
+	 *
+	 * @param trie
+	 * @return The mapping from the trie states to the double array indices.
+	 */
+	private int[] buildDoubleArray(Trie trie) {
+		int[] trieStateToIndex = new int[trie.numStates];
+		int capacity = Math.max(16, trie.numStates + trie.numStates / 4);
+		this.base = new int[capacity];
+		this.check = new int[capacity];
+		Arrays.fill(this.base, FAIL);
+		Arrays.fill(this.check, FAIL);
+		// the initial state occupies index 0; since character classes are
+		// positive, no transition can lead to it
+		this.check[INITIAL_STATE] = INITIAL_STATE;
+		trieStateToIndex[INITIAL_STATE] = INITIAL_STATE;
+		int size = 1;
+		// all indices below this one are in use
+		int firstFree = 1;
+		int[] searchStart = new int[32];
+
+		Queue<Integer> queue = new LinkedList<>();
+		queue.add(INITIAL_STATE);
+		while (!queue.isEmpty()) {
+			int trieState = queue.remove();
+			int numChildren = trie.numChildren[trieState];
+			if (numChildren == 0) {
+				continue;
+			}
+			int[] childClasses = trie.childClasses[trieState];
+			int[] children = trie.children[trieState];
+			int minClass = childClasses[0];
+			int maxClass = childClasses[numChildren - 1];
+
+			// find the first base for which the slots of all children are free;
+			// only bases that place the first child onto a free slot are tried.
+			// States with many children rarely fit into the gaps left by the
+			// previous states, thus the search continues where the last state
+			// with the same number of children was placed.
+			int searchStartIndex = Math.min(numChildren, searchStart.length - 1);
+			int pos = Math.max(Math.max(firstFree, searchStart[searchStartIndex]), minClass);
+			int b;
+			while (true) {
+				if (pos - minClass + maxClass >= this.check.length) {
+					this.grow(pos - minClass + maxClass + 1);
+				}
+				if (this.check[pos] == FAIL) {
+					b = pos - minClass;
+					boolean free = true;
+					for (int i = 1; i < numChildren && free; i++) {
+						free = this.check[b + childClasses[i]] == FAIL;
+					}
+					if (free) {
+						break;
+					}
+				}
+				pos++;
+			}
+			searchStart[searchStartIndex] = pos;
+
+			int index = trieStateToIndex[trieState];
+			this.base[index] = b;
+			for (int i = 0; i < numChildren; i++) {
+				int childIndex = b + childClasses[i];
+				this.check[childIndex] = index;
+				trieStateToIndex[children[i]] = childIndex;
+				size = Math.max(size, childIndex + 1);
+				queue.add(children[i]);
+			}
+			while (firstFree < this.check.length && this.check[firstFree] != FAIL) {
+				firstFree++;
+			}
+		}
+
+		this.base = Arrays.copyOf(this.base, size);
+		this.check = Arrays.copyOf(this.check, size);
+		return trieStateToIndex;
+	}
+
+	private void grow(int minCapacity) {
+		int capacity = Math.max(minCapacity, this.check.length + this.check.length / 2);
+		int oldCapacity = this.check.length;
+		this.base = Arrays.copyOf(this.base, capacity);
+		this.check = Arrays.copyOf(this.check, capacity);
+		Arrays.fill(this.base, oldCapacity, capacity, FAIL);
+		Arrays.fill(this.check, oldCapacity, capacity, FAIL);
+	}
+
+	// Calculation of the failure transitions using BFS, in the same order as
+	// AhoCorasickOptimized so that the outputs are reported in the same order
+	private void calculateFailureTransitionsAndOutputs(Trie trie, int[] trieStateToIndex) {
+		int size = this.check.length;
+		this.fail = new int[size];
+		Arrays.fill(this.fail, FAIL);
+		this.fail[INITIAL_STATE] = INITIAL_STATE;
+
+		// the outputs per double array index, with the own patterns first
+		int[][] outputs = new int[size][];
+		for (int trieState = 0; trieState < trie.numStates; trieState++) {
+			outputs[trieStateToIndex[trieState]] = trie.outputs[trieState];
+		}
+
+		Queue<Integer> queue = new LinkedList<>();
+
+		// all states of depth 1 (counting from the initial state)
+		// have failure transition to the initial state
+		for (int i = 0; i < trie.numChildren[INITIAL_STATE]; i++) {
+			int stateReachableFromInitial = trie.children[INITIAL_STATE][i];
+			queue.add(stateReachableFromInitial);
+			this.fail[trieStateToIndex[stateReachableFromInitial]] = INITIAL_STATE;
+		}
+
+		while (!queue.isEmpty()) {
+			int currTrieState = queue.remove();
+			int curr = trieStateToIndex[currTrieState];
+
+			for (int i = 0; i < trie.numChildren[currTrieState]; i++) {
+				int charClass = trie.childClasses[currTrieState][i];
+				int trieStateReachableFromCurr = trie.children[currTrieState][i];
+				int stateReachableFromCurr = trieStateToIndex[trieStateReachableFromCurr];
+				queue.add(trieStateReachableFromCurr);
+
+				int state = this.nextState(this.fail[curr], charClass);
+				this.fail[stateReachableFromCurr] = state;
+				outputs[stateReachableFromCurr] = concat(outputs[stateReachableFromCurr], outputs[state]);
+			}
+		}
+
+		this.outputOffsets = new int[size + 1];
+		int numOutputs = 0;
+		for (int i = 0; i < size; i++) {
+			this.outputOffsets[i] = numOutputs;
+			if (outputs[i] != null) {
+				numOutputs += outputs[i].length;
+			}
+		}
+		this.outputOffsets[size] = numOutputs;
+		this.outputIds = new int[numOutputs];
+		for (int i = 0; i < size; i++) {
+			if (outputs[i] != null) {
+				System.arraycopy(outputs[i], 0, this.outputIds, this.outputOffsets[i], outputs[i].length);
+			}
+		}
+	}
+
+	private static int[] concat(int[] first, int[] second) {
+		if (second == null || second.length == 0) {
+			return first;
+		}
+		if (first == null || first.length == 0) {
+			return second;
+		}
+		int[] concatenated = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, concatenated, first.length, second.length);
+		return concatenated;
+	}
+
+	public static interface PatternIdCallback {
+
+		void onMatch(int startPosition, int endPosition, int patternId);
+	}
+
+	/**
+	 * The pointer-based trie the double array is built from. The children of
+	 * each state are kept sorted by character class.
+	 */
+	private class Trie {
+		private int numStates = 1;
+		private int[][] childClasses = new int[16][];
+		private int[][] children = new int[16][];
+		private int[] numChildren = new int[16];
+		private int[][] outputs = new int[16][];
+
+		private void add(String pattern, int id) {
+			int state = INITIAL_STATE;
+			for (int ci = 0; ci < pattern.length(); ci++) {
+				int charClass = AhoCorasickDoubleArray.this.charClass(pattern.charAt(ci));
+				int pos = this.numChildren[state] == 0 ? -1
+						: Arrays.binarySearch(this.childClasses[state], 0, this.numChildren[state], charClass);
+				if (pos >= 0) {
+					state = this.children[state][pos];
+				} else {
+					int newState = this.newState();
+					this.insertChild(state, pos < 0 ? -pos - 1 : 0, charClass, newState);
+					state = newState;
+				}
+			}
+			int[] output = this.outputs[state];
+			if (output == null) {
+				this.outputs[state] = new int[] { id };
+			} else {
+				output = Arrays.copyOf(output, output.length + 1);
+				output[output.length - 1] = id;
+				this.outputs[state] = output;
+			}
+		}
+
+		private int newState() {
+			if (this.numStates == this.numChildren.length) {
+				int capacity = this.numStates * 2;
+				this.childClasses = Arrays.copyOf(this.childClasses, capacity);
+				this.children = Arrays.copyOf(this.children, capacity);
+				this.numChildren = Arrays.copyOf(this.numChildren, capacity);
+				this.outputs = Arrays.copyOf(this.outputs, capacity);
+			}
+			return this.numStates++;
+		}
+
+		private void insertChild(int state, int pos, int charClass, int child) {
+			int n = this.numChildren[state];
+			if (n == 0) {
+				this.childClasses[state] = new int[2];
+				this.children[state] = new int[2];
+			} else if (n == this.childClasses[state].length) {
+				this.childClasses[state] = Arrays.copyOf(this.childClasses[state], n * 2);
+				this.children[state] = Arrays.copyOf(this.children[state], n * 2);
+			}
+			System.arraycopy(this.childClasses[state], pos, this.childClasses[state], pos + 1, n - pos);
+			System.arraycopy(this.children[state], pos, this.children[state], pos + 1, n - pos);
+			this.childClasses[state][pos] = charClass;
+			this.children[state][pos] = child;
+			this.numChildren[state] = n + 1;
+		}
+	}
+}
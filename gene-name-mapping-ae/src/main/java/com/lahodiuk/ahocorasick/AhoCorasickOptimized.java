@@ -28,8 +28,9 @@ import java.util.stream.Stream;
  * @author of the implementation is Yurii Lahodiuk (yura.lagodiuk@gmail.com)
  * @author 2017-11-11: Erik Faessler from the JULIE Lab added the method
  *         {@link #isEntryPrefix(String)}.
+ * @see AhoCorasickDoubleArray
  */
-public class AhoCorasickOptimized {
+public class AhoCorasickOptimized implements AhoCorasick {
 
 	private static final int INITIAL_STATE = 0;
 	private static final int FAIL = -1;
@@ -107,6 +108,7 @@ public class AhoCorasickOptimized {
 		this.goTo = adjustedGoTo;
 	}
 
+	@Override
 	public final void match(final String text, MatchCallback callback) {
 
 		int state = INITIAL_STATE;
@@ -131,6 +133,41 @@ public class AhoCorasickOptimized {
 		}
 	}
 
+	/**
+	 * Like {@link #match(String, MatchCallback)} but for a part of a character
+	 * array. The positions passed to the callback are relative to
+	 * <tt>offset</tt>.
+	 * 
+	 * @param text
+	 * @param offset
+	 * @param length
+	 * @param callback
+	 */
+	@Override
+	public final void match(final char[] text, final int offset, final int length, MatchCallback callback) {
+
+		int state = INITIAL_STATE;
+
+		for (int ci = 0; ci < length; ci++) {
+
+			char chr = text[offset + ci];
+			int char2IntMappingIndex = Arrays.binarySearch(this.charToIntMapping, chr);
+			int chrInt = char2IntMappingIndex < 0 ? this.absentCharInt : char2IntMappingIndex;
+
+			while (this.goTo[state][chrInt] == FAIL) {
+				state = this.fail[state];
+			}
+
+			state = this.goTo[state][chrInt];
+
+			List<String> matched = this.output[state];
+			for (int j = 0; j < matched.size(); j++) {
+				String found = matched.get(j);
+				callback.onMatch((ci - found.length()) + 1, ci, found);
+			}
+		}
+	}
+
 	/**
 	 * Added by Erik Faessler, 2017-11-11: This method does not find dictionary
 	 * entries in the given string but just checks if the given string is a
@@ -141,6 +178,7 @@ public class AhoCorasickOptimized {
 	 * @param text
 	 * @return
 	 */
+	@Override
 	public final boolean isEntryPrefix(final String text) {
 
 		int state = INITIAL_STATE;
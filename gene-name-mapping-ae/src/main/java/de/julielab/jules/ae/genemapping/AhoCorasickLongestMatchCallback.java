@@ -6,8 +6,8 @@ import org.apache.commons.lang3.Range;
 import java.util.TreeMap;
 
 /**
- * To be used with an instance of {@link com.lahodiuk.ahocorasick.AhoCorasickOptimized}. Collects all matches
- * made by {@link com.lahodiuk.ahocorasick.AhoCorasickOptimized#match(String, MatchCallback)} but only keeps
+ * To be used with an instance of {@link com.lahodiuk.ahocorasick.AhoCorasick}. Collects all matches
+ * made by {@link com.lahodiuk.ahocorasick.AhoCorasick#match(String, MatchCallback)} but only keeps
  * the longest match in case of overlapping matches.
  */
 public class AhoCorasickLongestMatchCallback implements MatchCallback {
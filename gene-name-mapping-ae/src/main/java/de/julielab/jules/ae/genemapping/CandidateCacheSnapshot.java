@@ -0,0 +1,124 @@
+package de.julielab.jules.ae.genemapping;
+
+import de.julielab.jules.ae.genemapping.genemodel.GeneName;
+import de.julielab.jules.ae.genemapping.index.IndexFingerprint;
+import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
+import org.apache.lucene.store.Directory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Writes the contents of a candidate cache of {@link LuceneCandidateRetrieval} to a file and reads them back so
+ * that a new JVM can start with a warm cache.</p>
+ * <p>Each snapshot carries a fingerprint of the mention index commit and of the scoring configuration the cached
+ * candidates were created with. A snapshot whose fingerprint does not match the current one is discarded on
+ * reading.</p>
+ */
+class CandidateCacheSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(CandidateCacheSnapshot.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private CandidateCacheSnapshot() {
+    }
+
+    /**
+     * Creates a fingerprint of the latest commit of the mention index - its ID and the IDs of its segments, which
+     * change whenever the index is recreated or modified - and the given scoring configuration.
+     *
+     * @param mentionIndexDirectory The mention index directory.
+     * @param scoringConfiguration  A description of everything else that influences the candidates and their scores.
+     * @return The fingerprint.
+     * @throws IOException If the commit of the index cannot be read.
+     */
+    static String createFingerprint(Directory mentionIndexDirectory, String scoringConfiguration) throws IOException {
+        return IndexFingerprint.of(mentionIndexDirectory) + ";" + scoringConfiguration;
+    }
+
+    static void write(File file, String fingerprint, Map<CandidateCacheKey, List<CandidateRecord>> candidates) throws IOException {
+        File tmpFile = new File(file.getAbsolutePath() + ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmpFile))))) {
+            dos.writeInt(FORMAT_VERSION);
+            dos.writeUTF(fingerprint);
+            dos.writeInt(candidates.size());
+            for (Map.Entry<CandidateCacheKey, List<CandidateRecord>> entry : candidates.entrySet()) {
+                CandidateCacheKey key = entry.getKey();
+                dos.writeUTF(key.geneName.getText());
+                dos.writeBoolean(key.taxId != null);
+                if (key.taxId != null)
+                    dos.writeUTF(key.taxId);
+                dos.writeInt(entry.getValue().size());
+                for (CandidateRecord record : entry.getValue()) {
+                    dos.writeUTF(record.getSynonym());
+                    dos.writeDouble(record.getMentionScore());
+                    dos.writeUTF(record.getSource());
+                    dos.writeInt(record.getIds().size());
+                    for (int i = 0; i < record.getIds().size(); i++) {
+                        dos.writeUTF(record.getIds().get(i));
+                        dos.writeUTF(record.getTaxIds().get(i));
+                        dos.writeInt(record.getSynonymPriorities().get(i).intValue());
+                    }
+                }
+            }
+        }
+        // replace the old snapshot only when the new one is complete
+        if (file.exists() && !file.delete())
+            throw new IOException("Could not delete the old candidate cache snapshot " + file);
+        if (!tmpFile.renameTo(file))
+            throw new IOException("Could not rename " + tmpFile + " to " + file);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(File, String, Map)}.
+     *
+     * @param file        The snapshot file.
+     * @param fingerprint The fingerprint of the current index and configuration.
+     * @param normalizer  The normalizer to set to the gene names of the cache keys.
+     * @return The cache contents or an empty map if the snapshot belongs to a different index or configuration.
+     * @throws IOException If reading the file fails.
+     */
+    static Map<CandidateCacheKey, List<CandidateRecord>> read(File file, String fingerprint, TermNormalizer normalizer) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            int version = dis.readInt();
+            if (version != FORMAT_VERSION) {
+                log.info("Discarding candidate cache snapshot {} because it has format version {} instead of {}", file, version, FORMAT_VERSION);
+                return Collections.emptyMap();
+            }
+            String snapshotFingerprint = dis.readUTF();
+            if (!snapshotFingerprint.equals(fingerprint)) {
+                log.info("Discarding candidate cache snapshot {} because it has been created for a different mention index or scorer configuration", file);
+                return Collections.emptyMap();
+            }
+            int numKeys = dis.readInt();
+            Map<CandidateCacheKey, List<CandidateRecord>> candidates = new HashMap<>(numKeys * 4 / 3 + 1);
+            for (int k = 0; k < numKeys; k++) {
+                GeneName geneName = new GeneName(dis.readUTF(), normalizer);
+                String taxId = dis.readBoolean() ? dis.readUTF() : null;
+                String mappedMention = geneName.getText().toLowerCase();
+                int numRecords = dis.readInt();
+                List<CandidateRecord> records = new ArrayList<>(numRecords);
+                for (int r = 0; r < numRecords; r++) {
+                    String synonym = dis.readUTF();
+                    double mentionScore = dis.readDouble();
+                    String source = dis.readUTF();
+                    int numIds = dis.readInt();
+                    List<String> ids = new ArrayList<>(numIds);
+                    List<String> taxIds = new ArrayList<>(numIds);
+                    List<Number> priorities = new ArrayList<>(numIds);
+                    for (int i = 0; i < numIds; i++) {
+                        ids.add(dis.readUTF());
+                        taxIds.add(dis.readUTF());
+                        priorities.add(dis.readInt());
+                    }
+                    records.add(new CandidateRecord(synonym, mentionScore, ids, source, taxIds, priorities, mappedMention, geneName));
+                }
+                candidates.put(new CandidateCacheKey(geneName, taxId), Collections.unmodifiableList(records));
+            }
+            return candidates;
+        }
+    }
+}
@@ -27,7 +27,7 @@ import java.io.InputStreamReader;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -36,11 +36,13 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Multisets;
 
-import de.julielab.jules.ae.genemapping.utils.Utils;
 import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
 
 public class CandidateFilter {
@@ -72,6 +74,11 @@ public class CandidateFilter {
 
 	public static String NON_DESCRIPTIVE = "(constructs?|fragments?|antigens?|precursors?|proteins?|genes?|chains?|domains?|kinases?|homologues?|homologs?|isoforms?|isologs?|isotypes?|motifs?|orthologues?|orthologs?|products?|sequences?|subtypes?|subunits?)";
 
+	/**
+	 * the classes of the tokens, compiled from the word lists above
+	 */
+	private static final TokenClasses TOKEN_CLASSES = new TokenClasses();
+
 	public static String AMINO_ACIDS = "(alanine|arginine|asparagine|aspartic|cysteine|glutamine|glutamic|glycine|histidine|isoleucine|leucine|lysine|methionine|phenylalanine|proline|serine|threonine|tryptophan|tyrosine|valine)";
 
 	public String NON_DESC = "(promoter|onco protein|oncoprotein|proto oncogene|protooncogene|protease|binding site|transcript|element|construct|si rna|prem rna|pre m rna|m rna ?s?|rna|locus|gene product|product|reporter gene|reporter|gene|protein|c dna|molecule|pseudogene|autoantigen|peptide|polypeptide|enzyme)$";
@@ -108,11 +115,10 @@ public class CandidateFilter {
 
 	public Pattern patternPreMods;
 
-	private Pattern num;
-
-	private Pattern singChar;
-
-	private Pattern specWords;
+	/**
+	 * the compiled patterns of the type expressions passed to the rule methods
+	 */
+	private final Map<String, Pattern> typePatterns = new ConcurrentHashMap<>();
 
 	public CandidateFilter() throws IOException {
 
@@ -121,9 +127,6 @@ public class CandidateFilter {
 		patternDomainFamilies = Pattern.compile(DOMAIN_FAMILIES);
 		patternNonDesc = Pattern.compile(".* " + NON_DESC);
 		matcherNonDesc = patternNonDesc.matcher("");
-		num = Pattern.compile("[0-9]*");
-		singChar = Pattern.compile("([a-z]|[0-9])");
-		specWords = Pattern.compile("(" + GREEK_REGEX + "|" + MODIFIER + "|" + "|" + NON_DESCRIPTIVE + ")");
 	}
 
 	public static void main(String[] args) throws IOException {
@@ -141,73 +144,88 @@ public class CandidateFilter {
 	/**
 	 * checks whether both terms differ only in the type, i.e. one has an
 	 * instance of that type, and the other doesn't
-	 * 
+	 *
+	 * @return the token classes of the only distinct token of the search term
+	 *         that the found term doesn't have if the search term has exactly
+	 *         one distinct token more than the found term, 0 otherwise
 	 */
-	private boolean differInTypeOfOneTerm(String searchTerm, String foundTerm, String type) {
+	private int getClassesOfOnlyDifference(String searchTerm, String[] searchTokens, String foundTerm,
+			String[] foundTokens) {
 		if (searchTerm.equals(foundTerm)) {
-			return false;
+			return 0;
 		}
-		TreeSet<String> s1 = getSet(searchTerm.split("\\s+"));
-		TreeSet<String> s2 = getSet(foundTerm.split("\\s+"));
-		TreeSet<String> diff = new TreeSet<String>();
-
-		if (s1.size() == s2.size() + 1) {
-			diff = s1;
-			diff.removeAll(s2);
-		} else if (s1.size() == s2.size() + 1) {
-			diff = s2;
-			diff.removeAll(s1);
-		}
-		if (diff.size() == 1) {
-			String diffToken = diff.first();
-			Pattern pat = Pattern.compile(type);
-			Matcher m = pat.matcher(diffToken);
-			// System.out.println("difftoken: " + diffToken);
-			if (m.matches()) {
-				// System.out.println("difference in type");
-				return true;
-			} else {
-				// System.out.println("difference NOT in type");
-				return false;
+		int searchSize = 0;
+		int diffSize = 0;
+		String diffToken = null;
+		for (int i = 0; i < searchTokens.length; i++) {
+			if (indexOf(searchTokens, i, searchTokens[i]) < 0) {
+				searchSize++;
+				if (indexOf(foundTokens, foundTokens.length, searchTokens[i]) < 0) {
+					diffSize++;
+					diffToken = searchTokens[i];
+				}
 			}
+		}
+		int foundSize = 0;
+		for (int i = 0; i < foundTokens.length; i++) {
+			if (indexOf(foundTokens, i, foundTokens[i]) < 0)
+				foundSize++;
+		}
+		if (searchSize == foundSize + 1 && diffSize == 1)
+			return TOKEN_CLASSES.get(diffToken);
+		return 0;
+	}
 
+	private static int indexOf(String[] tokens, int size, String token) {
+		for (int i = 0; i < size; i++) {
+			if (tokens[i].equals(token))
+				return i;
 		}
-		return false;
+		return -1;
+	}
 
+	/**
+	 * @return <tt>term.split("\\s+")</tt>, which are the given tokens split at
+	 *         single spaces unless the term contains other whitespace or
+	 *         consecutive spaces
+	 */
+	private static String[] splitAtWhitespace(String term, String[] spaceTokens) {
+		if (term.contains("  ") || containsOtherWhitespace(term))
+			return term.split("\\s+");
+		return spaceTokens;
 	}
 
-	private TreeSet<String> getSet(String[] array) {
-		TreeSet<String> mySet = new TreeSet<String>();
-		for (int i = 0; i < array.length; i++) {
-			mySet.add(array[i]);
+	/**
+	 * @return whether the term contains whitespace other than spaces
+	 */
+	private static boolean containsOtherWhitespace(String term) {
+		for (int i = 0; i < term.length(); i++) {
+			char c = term.charAt(i);
+			if (c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r')
+				return true;
 		}
-		return mySet;
+		return false;
 	}
 
-	private int getNumberOfOccurrences(String term, String occurrence) {
-		String[] tokens = term.split("\\s+");
-		int num = 0;
-		Pattern p = Pattern.compile(occurrence);
-		for (int i = 0; i < tokens.length; i++) {
-			Matcher m = p.matcher(tokens[i]);
-			if (m.matches()) {
-				num++;
-			}
-		}
-		return num;
+	private Pattern getPattern(String regex) {
+		return typePatterns.computeIfAbsent(regex, Pattern::compile);
 	}
 
 	/**
 	 * checks whether two terms differ in everything except a type. Such a type
 	 * may only occure once in each term. A type is e.g.: "([0-9]+)"
-	 * 
+	 *
 	 * It is important to put square brackets around the type!
+	 *
+	 * The number of occurrences of the type in each term is given by the
+	 * caller from the token classes, so the expression is only matched if the
+	 * type occurs once in both terms.
 	 */
-	private boolean onlyDifferentTypes(String searchTerm, String foundTerm, String type) {
-		String query = "([a-z0-9 ]*?) ?" + type + " ?([a-z0-9 ]*?)";
-		Pattern num = Pattern.compile(query);
-
-		if (getNumberOfOccurrences(searchTerm, type) == 1 && getNumberOfOccurrences(foundTerm, type) == 1) {
+	private boolean onlyDifferentTypes(String searchTerm, int searchOccurrences, String foundTerm,
+			int foundOccurrences, String type) {
+		if (searchOccurrences == 1 && foundOccurrences == 1) {
+			String query = "([a-z0-9 ]*?) ?" + type + " ?([a-z0-9 ]*?)";
+			Pattern num = getPattern(query);
 			Matcher m1 = num.matcher(searchTerm);
 			Matcher m2 = num.matcher(foundTerm);
 			if (m1.matches() && m2.matches()) {
@@ -223,67 +241,91 @@ public class CandidateFilter {
 
 	/**
 	 * method to filtered out some hits by some rules
-	 * 
+	 *
 	 * rule 1: if overlap is only constituted by numbers
-	 * 
+	 *
 	 * @return
 	 */
 	public boolean filterOut(String searchTerm, String foundTerm) {
-		TreeSet<String> commonWords = Utils.getCommonWords(searchTerm.split(" "), foundTerm.split(" "));
-
-		boolean allNumbers = true;
-		for (String c : commonWords) {
-			Matcher m = num.matcher(c);
-			if (!m.matches()) {
-				allNumbers = false;
-				break;
-			}
-		}
-		if (allNumbers) {
-			LOGGER.debug("filtered out because: overlap only numbers: '" + searchTerm + "' <-> '" + foundTerm + "'");
-			return allNumbers;
+		String[] searchTokens = searchTerm.split(" ");
+		String[] foundTokens = foundTerm.split(" ");
+		// the classes all common words have
+		int commonClasses = TokenClasses.ALL;
+		for (int i = 0; i < searchTokens.length; i++) {
+			if (indexOf(foundTokens, foundTokens.length, searchTokens[i]) >= 0)
+				commonClasses &= TOKEN_CLASSES.get(searchTokens[i]);
 		}
+		if (filterOutByCommonWords(searchTerm, foundTerm, commonClasses))
+			return true;
 
-		boolean singleCharDigits = true;
-		for (String c : commonWords) {
-			Matcher m = singChar.matcher(c);
-			if (!m.matches()) {
-				singleCharDigits = false;
-				break;
-			}
+		searchTokens = splitAtWhitespace(searchTerm, searchTokens);
+		foundTokens = splitAtWhitespace(foundTerm, foundTokens);
+		int[] searchCounts = new int[2];
+		int[] foundCounts = new int[2];
+		for (int i = 0; i < searchTokens.length; i++)
+			countNumbersAndGreeks(TOKEN_CLASSES.get(searchTokens[i]), searchCounts);
+		for (int i = 0; i < foundTokens.length; i++)
+			countNumbersAndGreeks(TOKEN_CLASSES.get(foundTokens[i]), foundCounts);
+		int diffClasses = getClassesOfOnlyDifference(searchTerm, searchTokens, foundTerm, foundTokens);
+		return filterOut(searchTerm, searchCounts, foundTerm, foundCounts, diffClasses);
+	}
+
+	private static void countNumbersAndGreeks(int classes, int[] counts) {
+		if ((classes & TokenClasses.NUMBER) != 0)
+			counts[0]++;
+		if ((classes & TokenClasses.GREEK) != 0)
+			counts[1]++;
+	}
+
+	/**
+	 * the rules on the common words of both terms
+	 *
+	 * @param commonClasses
+	 *            the token classes all common words have
+	 */
+	private boolean filterOutByCommonWords(String searchTerm, String foundTerm, int commonClasses) {
+		if ((commonClasses & TokenClasses.DIGITS) != 0) {
+			LOGGER.debug("filtered out because: overlap only numbers: '" + searchTerm + "' <-> '" + foundTerm + "'");
+			return true;
 		}
 
-		if (singleCharDigits) {
+		if ((commonClasses & TokenClasses.SINGLE_CHAR) != 0) {
 			LOGGER.debug("filtered out because: overlap only single characters or single digits: '" + searchTerm
 					+ "' <-> '" + foundTerm + "'");
-			return singleCharDigits;
-		}
-
-		boolean onlySpecialWords = true;
-		for (String c : commonWords) {
-			Matcher m = specWords.matcher(c);
-			if (!m.matches()) {
-				onlySpecialWords = false;
-				break;
-			}
+			return true;
 		}
 
-		if (onlySpecialWords) {
+		if ((commonClasses & TokenClasses.SPECIAL_WORD) != 0) {
 			LOGGER.debug(
 					"filtered out because: overlap consists only of special words (greek, modifiers, non-descriptive): '"
 							+ searchTerm + "' <-> '" + foundTerm + "'");
-			return onlySpecialWords;
+			return true;
 		}
+		return false;
+	}
 
+	/**
+	 * the rules on the differences of both terms
+	 *
+	 * @param searchCounts
+	 *            the number of numbers and greek letters in the search term
+	 * @param foundCounts
+	 *            the number of numbers and greek letters in the found term
+	 * @param diffClasses
+	 *            the token classes of the only token the search term has in
+	 *            addition to the found term, 0 if there is no such token
+	 */
+	private boolean filterOut(String searchTerm, int[] searchCounts, String foundTerm, int[] foundCounts,
+			int diffClasses) {
 		// check whether difference is only in different numbers
-		if (onlyDifferentTypes(searchTerm, foundTerm, "([0-9]+)") == true) {
+		if (onlyDifferentTypes(searchTerm, searchCounts[0], foundTerm, foundCounts[0], "([0-9]+)") == true) {
 			LOGGER.debug("filtered out because: terms differ in one number only: '" + searchTerm + "' <-> '" + foundTerm
 					+ "'");
 			return true;
 		}
 
 		// check whether difference is only in different GREEKs
-		if (onlyDifferentTypes(searchTerm, foundTerm, GREEK_REGEX) == true) {
+		if (onlyDifferentTypes(searchTerm, searchCounts[1], foundTerm, foundCounts[1], GREEK_REGEX) == true) {
 			LOGGER.debug("filtered out because: terms differ in one greek token only: '" + searchTerm + "' <-> '"
 					+ foundTerm + "'");
 			return true;
@@ -291,7 +333,7 @@ public class CandidateFilter {
 
 		// only difference: one has a number and the other doesn't (1 is
 		// excluded)
-		if (differInTypeOfOneTerm(searchTerm, foundTerm, "([02-9]|[1-9]{2,})") == true) {
+		if ((diffClasses & TokenClasses.NUMBER_EXCEPT_ONE) != 0) {
 			LOGGER.debug("filtered out because: one has a number and the other doesn't (1 is excluded): '" + searchTerm
 					+ "' <-> '" + foundTerm + "'");
 			return true;
@@ -299,14 +341,14 @@ public class CandidateFilter {
 
 		// only difference: one has a greek and the other doesn't (alpha is
 		// excluded)
-		if (differInTypeOfOneTerm(searchTerm, foundTerm, SUB_GREEK) == true) {
+		if ((diffClasses & TokenClasses.SUB_GREEK) != 0) {
 			LOGGER.debug("filtered out because: one has a greek and the other doesn't (alpha is excluded): '"
 					+ searchTerm + "' <-> '" + foundTerm + "'");
 			return true;
 		}
 
 		// only difference: one has a modifier and the other doesn't
-		if (differInTypeOfOneTerm(searchTerm, foundTerm, MODIFIER) == true) {
+		if ((diffClasses & TokenClasses.MODIFIER) != 0) {
 			LOGGER.debug("filtered out because: one has a modifier and the other doesn't: '" + searchTerm + "' <-> '"
 					+ foundTerm + "'");
 			return true;
@@ -418,7 +460,7 @@ public class CandidateFilter {
 	public static Multiset<String> getNumbers(String[] tokens) {
 		Multiset<String> numberTokens = HashMultiset.create();
 		for (String token : tokens) {
-			if (token.matches("[0-9]+"))
+			if ((TOKEN_CLASSES.get(token) & TokenClasses.NUMBER) != 0)
 				numberTokens.add(token);
 		}
 		return numberTokens;
@@ -432,7 +474,7 @@ public class CandidateFilter {
 	public static Multiset<String> getSingleSymbols(String[] tokens) {
 		Multiset<String> singleLetterTokens = HashMultiset.create();
 		for (String token : tokens) {
-			if (token.matches("[a-zA-Z]|[0-9]+|"+GREEK_REGEX))
+			if ((TOKEN_CLASSES.get(token) & TokenClasses.SINGLE_SYMBOL) != 0)
 				singleLetterTokens.add(token);
 		}
 		return singleLetterTokens;
@@ -442,7 +484,7 @@ public class CandidateFilter {
 	public static Multiset<String> getContentTokens(String[] tokens) {
 		Multiset<String> contentTokens = HashMultiset.create();
 		for (String token : tokens) {
-			if (!token.matches("[a-zA-Z]|[0-9]+|"+GREEK_REGEX))
+			if ((TOKEN_CLASSES.get(token) & TokenClasses.SINGLE_SYMBOL) == 0)
 				contentTokens.add(token);
 		}
 		return contentTokens;
@@ -471,4 +513,66 @@ public class CandidateFilter {
 	public boolean isNonDescriptive(String word) {
 		return matcherNonDesc.reset(word).matches();
 	}
+
+	/**
+	 * <p>
+	 * Classifies tokens by all the expressions the rules test a single token
+	 * against. Each expression is matched once per token, the classes are
+	 * remembered as a bit mask for the token strings.
+	 * </p>
+	 * <p>
+	 * The expressions are compiled from the word lists as they are when this
+	 * class is initialized.
+	 * </p>
+	 */
+	private static final class TokenClasses {
+		/**
+		 * <tt>[0-9]*</tt>, which includes the empty token
+		 */
+		private static final int DIGITS = 1 << 0;
+		private static final int SINGLE_CHAR = 1 << 1;
+		/**
+		 * greek letters, modifiers and non-descriptive words; includes the empty
+		 * token
+		 */
+		private static final int SPECIAL_WORD = 1 << 2;
+		private static final int NUMBER = 1 << 3;
+		private static final int GREEK = 1 << 4;
+		private static final int NUMBER_EXCEPT_ONE = 1 << 5;
+		private static final int SUB_GREEK = 1 << 6;
+		private static final int MODIFIER = 1 << 7;
+		/**
+		 * single characters, numbers and greek letters as selected by
+		 * {@link CandidateFilter#getSingleSymbols(String[])}
+		 */
+		private static final int SINGLE_SYMBOL = 1 << 8;
+		private static final int ALL = (1 << 9) - 1;
+
+		/**
+		 * the expression of each class, indexed by its bit
+		 */
+		private final Pattern[] patterns = new Pattern[] { Pattern.compile("[0-9]*"),
+				Pattern.compile("([a-z]|[0-9])"),
+				Pattern.compile(
+						"(" + GREEK_REGEX + "|" + CandidateFilter.MODIFIER + "|" + "|" + NON_DESCRIPTIVE + ")"),
+				Pattern.compile("([0-9]+)"), Pattern.compile(GREEK_REGEX), Pattern.compile("([02-9]|[1-9]{2,})"),
+				Pattern.compile(CandidateFilter.SUB_GREEK), Pattern.compile(CandidateFilter.MODIFIER),
+				Pattern.compile("[a-zA-Z]|[0-9]+|" + GREEK_REGEX) };
+
+		private final LoadingCache<String, Integer> tokenClasses = CacheBuilder.newBuilder().maximumSize(100000)
+				.build(CacheLoader.from(this::classify));
+
+		private int classify(String token) {
+			int classes = 0;
+			for (int i = 0; i < patterns.length; i++) {
+				if (patterns[i].matcher(token).matches())
+					classes |= 1 << i;
+			}
+			return classes;
+		}
+
+		private int get(String token) {
+			return tokenClasses.getUnchecked(token);
+		}
+	}
 }
@@ -0,0 +1,79 @@
+package de.julielab.jules.ae.genemapping;
+
+import de.julielab.jules.ae.genemapping.genemodel.GeneName;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>An immutable gene candidate as it is stored in the candidate cache of {@link LuceneCandidateRetrieval}.</p>
+ * <p>Since the mapping cores change the candidates they receive - e.g. by setting a taxonomy ID, a gene ID or a
+ * semantic score - the cache does not hand out the records themselves but {@link SynHit} instances created by
+ * {@link #toSynHit()}. Those share the unmodifiable lists of the record and only hold their own values for the
+ * fields that are set later on.</p>
+ */
+public class CandidateRecord {
+    private final String synonym;
+    private final double mentionScore;
+    private final List<String> ids;
+    private final String source;
+    private final List<String> taxIds;
+    private final List<Number> synonymPriorities;
+    private final String mappedMention;
+    private final GeneName mappedGeneName;
+
+    public CandidateRecord(String synonym, double mentionScore, List<String> ids, String source, List<String> taxIds, List<Number> synonymPriorities, String mappedMention, GeneName mappedGeneName) {
+        this.synonym = synonym;
+        this.mentionScore = mentionScore;
+        this.ids = Collections.unmodifiableList(ids);
+        this.source = source;
+        this.taxIds = Collections.unmodifiableList(taxIds);
+        this.synonymPriorities = Collections.unmodifiableList(synonymPriorities);
+        this.mappedMention = mappedMention;
+        this.mappedGeneName = mappedGeneName;
+    }
+
+    public String getSynonym() {
+        return synonym;
+    }
+
+    public double getMentionScore() {
+        return mentionScore;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<String> getTaxIds() {
+        return taxIds;
+    }
+
+    public List<Number> getSynonymPriorities() {
+        return synonymPriorities;
+    }
+
+    public String getMappedMention() {
+        return mappedMention;
+    }
+
+    public GeneName getMappedGeneName() {
+        return mappedGeneName;
+    }
+
+    /**
+     * @return A new, mutable candidate for this record that does not copy the record's lists.
+     */
+    public SynHit toSynHit() {
+        return new SynHit(this);
+    }
+
+    @Override
+    public String toString() {
+        return "syn=" + synonym + "\tid=" + ids + "\tscore=" + mentionScore + "\ttaxId=" + taxIds;
+    }
+}
@@ -22,6 +22,18 @@ public interface CandidateRetrieval {
 	List<SynHit> getCandidates(String geneMentionText, Collection<String> organism)
 			throws GeneCandidateRetrievalException;
 
+	/**
+	 * Retrieves the candidates for a whole batch of gene mentions, typically all mentions of a document. Gene names
+	 * and taxonomy IDs occurring multiple times in the batch are only looked up once.
+	 * 
+	 * @param geneMentions
+	 *            The gene mentions to retrieve candidates for.
+	 * @return One candidate list for each gene mention, in the iteration order of <tt>geneMentions</tt>.
+	 * @throws GeneCandidateRetrievalException
+	 *             If the candidate retrieval fails.
+	 */
+	List<List<SynHit>> getCandidates(Collection<GeneMention> geneMentions) throws GeneCandidateRetrievalException;
+
 	String mapGeneIdToTaxId(String geneId) throws IOException;
 
 	/**
@@ -14,7 +14,13 @@ import java.util.List;
 public class DocumentMappingResult {
 	public String docId;
 	public List<MentionMappingResult> mentionResults = new ArrayList<>();
+	/**
+	 * The time in nanoseconds spent for retrieving the candidates of all mentions of the document.
+	 */
 	public long candidateRetrievalTime;
+	/**
+	 * The time in nanoseconds spent for disambiguating the mentions of the document.
+	 */
 	public long disambiguationTime;
 
 	/**
@@ -0,0 +1,97 @@
+package de.julielab.jules.ae.genemapping;
+
+import de.julielab.jules.ae.genemapping.index.SynonymIndexFieldNames;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * <p>Passes the hits of each index segment to a delegate collector until a given number of exact or near-exact hits
+ * has been seen in the segment. A hit is near-exact if its synonym contains all tokens of one of the given names, i.e.
+ * the normalized mention or one of its normalized variants; an exact hit is a special case. Then, the collection is
+ * terminated for the current segment and continues with the next one.</p>
+ * <p>This is meant for mention indexes that are sorted by synonym priority and length, see
+ * {@link LuceneCandidateRetrieval#MENTION_INDEX_SORT}. The index sort orders the documents within each segment, thus
+ * the documents visited first in a segment are its synonyms with the highest priority so that the hits found until
+ * termination are the most reliable ones of the segment. Hits with a higher score but a lower priority that come
+ * later in a segment are missed.</p>
+ */
+class EarlyTerminatingCollector extends FilterCollector {
+    /**
+     * The UTF-8 bytes of the tokens of each name.
+     */
+    private final byte[][][] names;
+    private final int numNearExactHits;
+
+    /**
+     * @param in               The collector to pass the hits to.
+     * @param names            The normalized names whose tokens a near-exact hit contains.
+     * @param numNearExactHits The number of near-exact hits in a segment after which collection is terminated for the
+     *                         segment.
+     */
+    EarlyTerminatingCollector(Collector in, Collection<String> names, int numNearExactHits) {
+        super(in);
+        this.names = names.stream()
+                .map(name -> Stream.of(name.split(" ")).filter(token -> !token.isEmpty()).map(token -> token.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new))
+                .filter(tokens -> tokens.length > 0)
+                .toArray(byte[][][]::new);
+        this.numNearExactHits = numNearExactHits;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        final BinaryDocValues synonymValues = DocValues.getBinary(context.reader(), SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+        return new FilterLeafCollector(super.getLeafCollector(context)) {
+            private int nearExactHits;
+
+            @Override
+            public void collect(int doc) throws IOException {
+                super.collect(doc);
+                if (synonymValues.advanceExact(doc) && isNearExact(synonymValues.binaryValue())) {
+                    if (++nearExactHits >= numNearExactHits)
+                        throw new CollectionTerminatedException();
+                }
+            }
+        };
+    }
+
+    private boolean isNearExact(BytesRef synonym) {
+        for (byte[][] tokens : names) {
+            boolean containsAll = true;
+            for (int i = 0; containsAll && i < tokens.length; i++)
+                containsAll = containsToken(synonym, tokens[i]);
+            if (containsAll)
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean containsToken(BytesRef synonym, byte[] token) {
+        int end = synonym.offset + synonym.length;
+        int begin = synonym.offset;
+        while (begin < end) {
+            int tokenEnd = begin;
+            while (tokenEnd < end && synonym.bytes[tokenEnd] != ' ')
+                tokenEnd++;
+            if (tokenEnd - begin == token.length && regionEquals(synonym.bytes, begin, token))
+                return true;
+            begin = tokenEnd + 1;
+        }
+        return false;
+    }
+
+    private static boolean regionEquals(byte[] bytes, int begin, byte[] token) {
+        for (int i = 0; i < token.length; i++) {
+            if (bytes[begin + i] != token[i])
+                return false;
+        }
+        return true;
+    }
+}
@@ -33,6 +33,8 @@ import org.slf4j.LoggerFactory;
 
 import de.julielab.jules.ae.genemapping.genemodel.GeneDocument;
 import de.julielab.jules.ae.genemapping.genemodel.GeneMention;
+import de.julielab.jules.ae.genemapping.stats.MappingStage;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
 import de.julielab.jules.ae.genemapping.utils.GeneCandidateRetrievalException;
 import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
 import de.julielab.jules.ae.genemapping.utils.SynHitUtils;
@@ -140,12 +142,14 @@ public class GeneMapping {
 		// 1. get the candidates from the dictionary and score them
 		List<SynHit> allHits = mappingCore.getCandidateRetrieval().getCandidates(normalizedSearchTerm);
 		ArrayList<SynHit> topNHits = new ArrayList<SynHit>();
+		long time = MappingStatistics.start();
 		for (int i = 0; i < Math.min(allHits.size(), topN); i++) {
 			SynHit synHit = allHits.get(i);
 			if (!candidateFilter.filterOut(normalizedSearchTerm, synHit.getSynonym())) {
 				topNHits.add(allHits.get(i));
 			}
 		}
+		MappingStatistics.record(MappingStage.FILTERING, time);
 		LOGGER.info("topN mapping found > " + topNHits.size() + " <  for candidate '" + searchTerm + "': "
 				+ SynHitUtils.showHitIDs(topNHits));
 		return topNHits;
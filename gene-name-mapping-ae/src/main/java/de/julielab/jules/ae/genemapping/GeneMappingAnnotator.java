@@ -6,6 +6,7 @@ import de.julielab.jcore.utility.JCoReTools;
 import de.julielab.jules.ae.genemapping.genemodel.GeneDocument;
 import de.julielab.jules.ae.genemapping.genemodel.GeneDocumentFactory;
 import de.julielab.jules.ae.genemapping.genemodel.GeneMention;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
 import de.julielab.jules.ae.genemapping.utils.ContextUtils;
 import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
 import de.julielab.jules.ae.genemapping.utils.GeneMapperRuntimeException;
@@ -83,6 +84,8 @@ public class GeneMappingAnnotator extends JCasAnnotator_ImplBase {
             log.error("Could not initialize the GeneDocumentFactory", e);
             throw new ResourceInitializationException(e);
         }
+        // expose the stage latencies and cache statistics of the mapping components via JMX
+        MappingStatistics.registerMBean();
 
         logConfigurationParameters();
     }
@@ -22,6 +22,97 @@ public class GeneMappingConfiguration extends Properties {
 	public static final String APPROX_SCORER_TYPE = "approx_scorer_type";
 	public static final String SPELLING_INDEX = "spelling_index";
 	public static final String MENTION_INDEX = "mention_index";
+	/**
+	 * Whether to look up exact matches of normalized mentions in an in-memory
+	 * dictionary of the mention index before querying Lucene. If the dictionary
+	 * has an entry for a mention, only this entry is returned as candidate.
+	 * Defaults to <tt>false</tt>.
+	 */
+	public static final String EXACT_MATCH_DICTIONARY = "exact_match_dictionary";
+	/**
+	 * A file to which the candidate cache is written when the JVM shuts down
+	 * and from which it is filled again on startup. Snapshots that have been
+	 * created for another mention index or scorer configuration are ignored.
+	 */
+	public static final String CANDIDATE_CACHE_SNAPSHOT = "candidate_cache_snapshot";
+	/**
+	 * Whether the candidates of a gene name for multiple taxonomy IDs should be
+	 * searched with a single query that collects the hits of each taxonomy ID
+	 * separately. Requires a mention index with taxonomy ID DocValues and is
+	 * not used together with {@link #EARLY_TERMINATION_HITS}, otherwise there is
+	 * one search per taxonomy ID. Defaults to <tt>true</tt>.
+	 */
+	public static final String TAXONOMY_BUCKET_SEARCH = "taxonomy_bucket_search";
+	/**
+	 * The maximum number of hits retrieved from the mention index for a gene
+	 * name. Defaults to {@link LuceneCandidateRetrieval#DEFAULT_LUCENE_MAX_HITS}.
+	 */
+	public static final String LUCENE_MAX_HITS = "lucene_max_hits";
+	/**
+	 * The number of exact or near-exact hits, i.e. hits whose synonym contains
+	 * all tokens of the normalized gene name or of one of its normalized
+	 * variants, after which a mention index search is terminated for the
+	 * current index segment. Only used for indexes sorted by
+	 * <tt>LuceneCandidateRetrieval#MENTION_INDEX_SORT</tt> where the first hits
+	 * of each segment are those with the highest priority. Defaults to 0 which
+	 * means that searches are not terminated early.
+	 */
+	public static final String EARLY_TERMINATION_HITS = "early_termination_hits";
+	/**
+	 * The maximum number of raw texts whose normalized form and normalized
+	 * variants are kept in the JVM-wide normalization cache. 0 disables the
+	 * cache. Since the cache is shared, the size of the first configuration
+	 * in the JVM is used. Defaults to {@link de.julielab.jules.ae.genemapping.utils.norm.NormalizationCache#DEFAULT_MAXIMUM_SIZE}.
+	 */
+	public static final String NORMALIZATION_CACHE_SIZE = "normalization_cache_size";
+	/**
+	 * Whether gene mentions are normalized by the single-pass
+	 * {@link de.julielab.jules.ae.genemapping.utils.norm.FastTermNormalizer}
+	 * instead of the regular expression based
+	 * {@link de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer}. Both
+	 * produce the same normalized texts. Defaults to <tt>false</tt>.
+	 */
+	public static final String FAST_NORMALIZATION = "fast_normalization";
+	/**
+	 * Whether candidates are scored by the token IDs of the token dictionary
+	 * that the index generator writes into the mention index directory. Only
+	 * token-based scorers make use of the IDs, the scores are the same. Has no
+	 * effect for mention indexes without token dictionary. Defaults to
+	 * <tt>true</tt>.
+	 */
+	public static final String TOKEN_ID_SCORING = "token_id_scoring";
+	/**
+	 * The maximum number of pairs of normalized mentions and synonyms whose
+	 * approximate scores are cached. The cache is shared by all instances with
+	 * the same mention index and approximate scorer configuration. It is
+	 * independent from the candidate cache and thus still serves pairs whose
+	 * candidates have been evicted. Not used if the approximate scorer or a
+	 * stage of the cascade is the Levenshtein scorer and
+	 * {@link #LEVENSHTEIN_PRUNE_TO_BEST_CANDIDATE} is set. Defaults to 0 which
+	 * disables the cache.
+	 */
+	public static final String SCORE_CACHE_SIZE = "score_cache_size";
+	/**
+	 * A cascade of scorers for the approximate matches that replaces the
+	 * {@link #APPROX_SCORER_TYPE}: a comma-separated list of scorer types, each
+	 * but the last followed by a colon and the minimum score a candidate needs
+	 * to be passed to the next scorer, e.g. <tt>4:0.5,2</tt> to score only the
+	 * candidates with a Levenshtein score of at least 0.5 with the MaxEnt
+	 * scorer. Candidates pruned by a scorer rank below all others, see
+	 * {@link de.julielab.jules.ae.genemapping.scoring.CascadeScorer}. Not set
+	 * by default.
+	 */
+	public static final String APPROX_SCORER_CASCADE = "approx_scorer_cascade";
+	/**
+	 * Whether the Levenshtein scorer limits the distance it computes for a
+	 * candidate to the maximum distance at which the candidate could still
+	 * reach the score of the best candidate so far. Candidates exceeding the
+	 * distance get an upper bound of their score that is lower than the best
+	 * score; the scores of the best candidates are exact. See
+	 * {@link de.julielab.jules.ae.genemapping.scoring.LevenshteinScorer#LevenshteinScorer(boolean)}.
+	 * Defaults to <tt>false</tt>.
+	 */
+	public static final String LEVENSHTEIN_PRUNE_TO_BEST_CANDIDATE = "levenshtein_prune_to_best_candidate";
 	public GeneMappingConfiguration() {
 	}
 	
@@ -6,11 +6,18 @@ import com.google.common.cache.LoadingCache;
 import de.julielab.jules.ae.genemapping.SynHit.CompareType;
 import de.julielab.jules.ae.genemapping.genemodel.GeneMention;
 import de.julielab.jules.ae.genemapping.genemodel.GeneName;
+import de.julielab.jules.ae.genemapping.index.ExactSynonymDictionary;
+import de.julielab.jules.ae.genemapping.index.TokenDictionary;
+import de.julielab.jules.ae.genemapping.index.GeneEntriesCodec;
 import de.julielab.jules.ae.genemapping.index.SynonymIndexFieldNames;
 import de.julielab.jules.ae.genemapping.scoring.Scorer;
 import de.julielab.jules.ae.genemapping.scoring.*;
+import de.julielab.jules.ae.genemapping.stats.MappingStage;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
 import de.julielab.jules.ae.genemapping.utils.GeneCandidateRetrievalException;
 import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
+import de.julielab.jules.ae.genemapping.utils.norm.FastTermNormalizer;
+import de.julielab.jules.ae.genemapping.utils.norm.NormalizationCache;
 import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.document.Document;
@@ -19,7 +26,9 @@ import org.apache.lucene.search.*;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.similarities.ClassicSimilarity;
 import org.apache.lucene.search.spell.SpellChecker;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,6 +45,13 @@ import java.util.stream.Stream;
 
 public class LuceneCandidateRetrieval implements CandidateRetrieval {
     public static final String NAME_PRIO_DELIMITER = "__";
+    /**
+     * The sort of the mention index written by the synonym index generators: by the highest priority of a synonym and
+     * then by the synonym length. Thus, the official symbols and short names are visited first by a search which
+     * allows to terminate the search early, see {@link GeneMappingConfiguration#EARLY_TERMINATION_HITS}.
+     */
+    public static final Sort MENTION_INDEX_SORT = new Sort(new SortField(SynonymIndexFieldNames.PRIORITY, SortField.Type.INT),
+            new SortField(SynonymIndexFieldNames.SYNONYM_LENGTH, SortField.Type.INT));
 
     public static final String LOGGER_NAME_CANDIDATES = "de.julielab.jules.ae.genemapper.candidates";
     public static final int SIMPLE_SCORER = 0;
@@ -52,9 +68,9 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
     public static final Logger candidateLog = LoggerFactory.getLogger(LOGGER_NAME_CANDIDATES);
     private static final Logger log = LoggerFactory.getLogger(LuceneCandidateRetrieval.class);
     /**
-     * the maximal number of hits lucene returns for a query
+     * the default maximal number of hits lucene returns for a query
      */
-    private static final int LUCENE_MAX_HITS = 20;
+    public static final int DEFAULT_LUCENE_MAX_HITS = 20;
 
 
     /**
@@ -63,21 +79,75 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
      * use multiple gene-mapper instances in the same pipeline. It can save a
      * lot of time and also space.
      */
-    private static ConcurrentHashMap<String, LoadingCache<CandidateCacheKey, List<SynHit>>> caches = new ConcurrentHashMap<>();
+    private static ConcurrentHashMap<String, LoadingCache<CandidateCacheKey, List<CandidateRecord>>> caches = new ConcurrentHashMap<>();
+    /**
+     * The exact synonym dictionaries, shared across instances like the candidate caches.
+     */
+    private static ConcurrentHashMap<String, ExactSynonymDictionary> exactSynonymDictionaries = new ConcurrentHashMap<>();
+    /**
+     * The token dictionaries, shared across instances like the candidate caches. Maps to <tt>null</tt> for mention
+     * indexes without token dictionary.
+     */
+    private static final Map<String, TokenDictionary> tokenDictionaries = new HashMap<>();
+    /**
+     * The caching scorers for the approximate matches, shared across instances like the candidate caches. The keys
+     * consist of the mention index and the configuration of the approximate scorer.
+     */
+    private static ConcurrentHashMap<String, CachingScorer> scoreCaches = new ConcurrentHashMap<>();
     // the model to be loaded for MaxEnt scorer
     // (can be specified in properties file)
     private String maxEntModel = MAXENT_SCORER_MODEL;
     private TermNormalizer normalizer;
+    /**
+     * The path of the mention index as given in the configuration; <tt>null</tt> for the deprecated constructor.
+     */
+    private String mentionIndex;
     private IndexSearcher mentionIndexSearcher;
+    private Directory mentionIndexDirectory;
     private Scorer exactScorer;
     private Scorer approxScorer;
-    private LoadingCache<CandidateCacheKey, List<SynHit>> candidateCache;
+    /**
+     * The value of {@link GeneMappingConfiguration#APPROX_SCORER_CASCADE}, <tt>null</tt> if not set.
+     */
+    private String approxScorerCascade;
+    /**
+     * The value of {@link GeneMappingConfiguration#LEVENSHTEIN_PRUNE_TO_BEST_CANDIDATE}.
+     */
+    private boolean levenshteinPruning;
+    private LoadingCache<CandidateCacheKey, List<CandidateRecord>> candidateCache;
     private SpellChecker spellingChecker;
+    /**
+     * Whether the mention index has the DocValues fields to read the hits without loading stored fields.
+     */
+    private boolean indexEntryDocValues;
+    /**
+     * Whether the candidates for multiple taxonomy IDs of the same gene name are collected in a single search.
+     */
+    private boolean taxonomyBucketSearch;
+    /**
+     * the maximal number of hits lucene returns for a query
+     */
+    private int luceneMaxHits = DEFAULT_LUCENE_MAX_HITS;
+    /**
+     * The number of exact or variant hits after which a search is terminated for the current index segment; 0 if
+     * searches should not terminate early.
+     */
+    private int earlyTerminationHits;
+    /**
+     * Serves exact matches of the normalized mentions without Lucene search; <tt>null</tt> if not activated.
+     */
+    private ExactSynonymDictionary exactSynonymDictionary;
+    /**
+     * Maps the tokens of the mentions and hits to the IDs given to the scorers; <tt>null</tt> if not activated or
+     * not available for the mention index.
+     */
+    private TokenDictionary tokenDictionary;
 
     @Deprecated
     public LuceneCandidateRetrieval(IndexSearcher mentionIndexSearcher, Scorer scorer) throws IOException {
         this.mentionIndexSearcher = mentionIndexSearcher;
         this.exactScorer = scorer;
+        this.indexEntryDocValues = hasIndexEntryDocValues(mentionIndexSearcher.getIndexReader());
         normalizer = new TermNormalizer();
     }
 
@@ -91,14 +161,38 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
 
         try {
 
-            IndexReader reader = DirectoryReader.open(FSDirectory.open(Paths.get(mentionIndex)));
+            mentionIndexDirectory = FSDirectory.open(Paths.get(mentionIndex));
+            IndexReader reader = DirectoryReader.open(mentionIndexDirectory);
             mentionIndexSearcher = new IndexSearcher(reader);
             // The default since Lucene 5 is BM25. But for our purposes, the
             // classic
             // Lucene Similarit works better (checked with IGN train).
             mentionIndexSearcher.setSimilarity(new ClassicSimilarity());
+            indexEntryDocValues = hasIndexEntryDocValues(reader);
+            if (!indexEntryDocValues)
+                log.info("The mention index does not have the {} DocValues field, search hits will be read from the stored fields. Recreate the index for faster hit retrieval.", SynonymIndexFieldNames.GENE_ENTRIES);
+            taxonomyBucketSearch = Boolean.parseBoolean(config.getProperty(GeneMappingConfiguration.TAXONOMY_BUCKET_SEARCH, "true"));
+            if (taxonomyBucketSearch && !hasTaxonomyDocValues(reader)) {
+                log.info("The mention index does not have DocValues for the {} field, candidates for multiple taxonomy IDs are searched one taxonomy ID at a time.", SynonymIndexFieldNames.TAX_ID_FIELD);
+                taxonomyBucketSearch = false;
+            }
+            luceneMaxHits = Integer.parseInt(config.getProperty(GeneMappingConfiguration.LUCENE_MAX_HITS, String.valueOf(DEFAULT_LUCENE_MAX_HITS)));
+            earlyTerminationHits = Integer.parseInt(config.getProperty(GeneMappingConfiguration.EARLY_TERMINATION_HITS, "0"));
+            if (earlyTerminationHits > 0 && !indexEntryDocValues) {
+                log.warn("Early search termination has been configured but the mention index does not have DocValues for the {} field. Searches are not terminated early.", SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+                earlyTerminationHits = 0;
+            } else if (earlyTerminationHits > 0 && !hasMentionIndexSort(reader)) {
+                log.warn("Early search termination has been configured but the mention index is not sorted by {}. Searches are not terminated early.", MENTION_INDEX_SORT);
+                earlyTerminationHits = 0;
+            }
             log.debug("mention index loaded.");
 
+            this.mentionIndex = mentionIndex;
+            if (Boolean.parseBoolean(config.getProperty(GeneMappingConfiguration.EXACT_MATCH_DICTIONARY, "false")))
+                exactSynonymDictionary = getExactSynonymDictionary();
+            if (Boolean.parseBoolean(config.getProperty(GeneMappingConfiguration.TOKEN_ID_SCORING, "true")))
+                tokenDictionary = getTokenDictionary();
+
             String spellingIndexPath = config.getProperty(GeneMappingConfiguration.SPELLING_INDEX);
             if (spellingIndexPath != null) {
                 File spellingIndex = new File(spellingIndexPath);
@@ -110,24 +204,42 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
                         "Spelling index was not given or file does not exist. No spelling correction can be done. Specified spelling index: {}",
                         spellingIndexPath);
 
+            // maxent model, needed by the scorers
+            String maxEntModel = config.getProperty("maxent_model");
+            if (maxEntModel != null) {
+                this.maxEntModel = maxEntModel;
+            }
+
             // scorer types
+            levenshteinPruning = Boolean.parseBoolean(config.getProperty(GeneMappingConfiguration.LEVENSHTEIN_PRUNE_TO_BEST_CANDIDATE, "false"));
             String scorerType = config.getProperty(GeneMappingConfiguration.EXACT_SCORER_TYPE);
             if (scorerType == null)
                 throw new GeneMappingException("No configuration value given for " + GeneMappingConfiguration.EXACT_SCORER_TYPE);
             exactScorer = setScorerType(Integer.valueOf(scorerType));
 
-            scorerType = config.getProperty(GeneMappingConfiguration.APPROX_SCORER_TYPE);
-            if (scorerType == null)
-                throw new GeneMappingException("No configuration value given for " + GeneMappingConfiguration.APPROX_SCORER_TYPE);
-            approxScorer = setScorerType(Integer.valueOf(scorerType));
+            approxScorerCascade = config.getProperty(GeneMappingConfiguration.APPROX_SCORER_CASCADE);
+            if (approxScorerCascade != null) {
+                approxScorer = createCascadeScorer(approxScorerCascade);
+            } else {
+                scorerType = config.getProperty(GeneMappingConfiguration.APPROX_SCORER_TYPE);
+                if (scorerType == null)
+                    throw new GeneMappingException("No configuration value given for " + GeneMappingConfiguration.APPROX_SCORER_TYPE);
+                approxScorer = setScorerType(Integer.valueOf(scorerType));
+            }
 
-            // maxent model
-            String maxEntModel = config.getProperty("maxent_model");
-            if (maxEntModel != null) {
-                this.maxEntModel = maxEntModel;
+            long scoreCacheSize = Long.parseLong(config.getProperty(GeneMappingConfiguration.SCORE_CACHE_SIZE, "0"));
+            if (scoreCacheSize > 0 && approxScorer.getScorerType() != LUCENE_SCORER) {
+                if (CachingScorer.isCacheable(approxScorer))
+                    approxScorer = getCachingScorer(approxScorer, scoreCacheSize);
+                else
+                    log.warn("The approximate scores are not cached because the Levenshtein scorer prunes to the best candidate ({} is set).", GeneMappingConfiguration.LEVENSHTEIN_PRUNE_TO_BEST_CANDIDATE);
             }
 
-            this.normalizer = new TermNormalizer();
+            if (Boolean.parseBoolean(config.getProperty(GeneMappingConfiguration.FAST_NORMALIZATION, "false")))
+                this.normalizer = new FastTermNormalizer();
+            else
+                this.normalizer = new TermNormalizer();
+            NormalizationCache.configureMaximumSize(Long.parseLong(config.getProperty(GeneMappingConfiguration.NORMALIZATION_CACHE_SIZE, String.valueOf(NormalizationCache.DEFAULT_MAXIMUM_SIZE))));
         } catch (IOException e) {
             throw new GeneMappingException(e);
         }
@@ -143,22 +255,121 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
             candidateCache = caches.get(mentionIndex);
             if (null == candidateCache) {
                 log.info("Creating new gene candidate cache for index {}", mentionIndex);
-                candidateCache = CacheBuilder.newBuilder().maximumSize(1000000).expireAfterWrite(60, TimeUnit.MINUTES)
+                candidateCache = CacheBuilder.newBuilder().maximumSize(1000000).expireAfterWrite(60, TimeUnit.MINUTES).recordStats()
                         .build(new CacheLoader<>() {
-                            public List<SynHit> load(CandidateCacheKey key)
+                            public List<CandidateRecord> load(CandidateCacheKey key)
                                     throws IOException, BooleanQuery.TooManyClauses {
                                 return Collections.unmodifiableList(getCandidatesFromIndexWithoutCache(key));
                             }
+
+                            @Override
+                            public Map<CandidateCacheKey, List<CandidateRecord>> loadAll(Iterable<? extends CandidateCacheKey> keys)
+                                    throws IOException, BooleanQuery.TooManyClauses {
+                                return getCandidatesFromIndexWithoutCache(keys);
+                            }
                         });
                 if (null != caches.put(mentionIndex, candidateCache))
                     throw new IllegalStateException("There already is a candidate index for " + mentionIndex
                             + " which points to a faulty concurrency implementation");
+                MappingStatistics.registerCache("candidates " + mentionIndex, candidateCache);
+                String snapshotPath = config.getProperty(GeneMappingConfiguration.CANDIDATE_CACHE_SNAPSHOT);
+                if (snapshotPath != null)
+                    setupCandidateCacheSnapshot(new File(snapshotPath));
             } else {
                 log.info("Using existing gene candidate cache for index {}", mentionIndex);
             }
         }
     }
 
+    /**
+     * Fills the newly created candidate cache from the given snapshot file, if it exists and matches the mention
+     * index and the scorers, and registers a shutdown hook that writes the cache back to the file.
+     *
+     * @param snapshotFile The candidate cache snapshot file.
+     * @throws GeneMappingException If the snapshot cannot be read.
+     */
+    private void setupCandidateCacheSnapshot(File snapshotFile) throws GeneMappingException {
+        try {
+            String fingerprint = getCandidateCacheFingerprint();
+            if (snapshotFile.exists()) {
+                long time = System.currentTimeMillis();
+                Map<CandidateCacheKey, List<CandidateRecord>> snapshot = CandidateCacheSnapshot.read(snapshotFile, fingerprint, normalizer);
+                candidateCache.putAll(snapshot);
+                log.info("Loaded {} candidate cache entries from snapshot {} in {}ms", snapshot.size(), snapshotFile, System.currentTimeMillis() - time);
+            }
+            final LoadingCache<CandidateCacheKey, List<CandidateRecord>> cache = candidateCache;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    CandidateCacheSnapshot.write(snapshotFile, fingerprint, cache.asMap());
+                    log.info("Wrote {} candidate cache entries to snapshot {}", cache.size(), snapshotFile);
+                } catch (IOException e) {
+                    log.error("Could not write the candidate cache snapshot to {}", snapshotFile, e);
+                }
+            }, "CandidateCacheSnapshotWriter"));
+        } catch (IOException e) {
+            throw new GeneMappingException(e);
+        }
+    }
+
+    /**
+     * @return The fingerprint that identifies the mention index commit and the scorer configuration of this
+     * instance in candidate cache snapshots.
+     * @throws IOException If the index commit cannot be read.
+     */
+    private String getCandidateCacheFingerprint() throws IOException {
+        return CandidateCacheSnapshot.createFingerprint(mentionIndexDirectory, exactScorer.getScorerType() + ","
+                + (approxScorerCascade != null ? approxScorerCascade : approxScorer.getScorerType()) + "," + maxEntModel + "," + (spellingChecker != null) + "," + luceneMaxHits
+                + "," + earlyTerminationHits + "," + levenshteinPruning);
+    }
+
+    /**
+     * Writes the current contents of the candidate cache to the given file. The snapshot can be loaded on startup
+     * by specifying it with {@link GeneMappingConfiguration#CANDIDATE_CACHE_SNAPSHOT}.
+     *
+     * @param snapshotFile The file to write.
+     * @throws IOException If writing fails.
+     */
+    public void writeCandidateCacheSnapshot(File snapshotFile) throws IOException {
+        CandidateCacheSnapshot.write(snapshotFile, getCandidateCacheFingerprint(), candidateCache.asMap());
+    }
+
+    /**
+     * Returns the exact synonym dictionary of the mention index, loading it if this has not yet happened in this
+     * JVM. The dictionary is returned independently of {@link GeneMappingConfiguration#EXACT_MATCH_DICTIONARY},
+     * which only determines whether the candidate retrieval of this instance uses it.
+     *
+     * @return The exact synonym dictionary of the mention index.
+     * @throws IOException If the dictionary cannot be read.
+     */
+    public ExactSynonymDictionary getExactSynonymDictionary() throws IOException {
+        if (mentionIndex == null)
+            throw new IllegalStateException("The mention index directory is unknown because this instance has been created without a configuration.");
+        synchronized (exactSynonymDictionaries) {
+            ExactSynonymDictionary dictionary = exactSynonymDictionaries.get(mentionIndex);
+            if (dictionary == null) {
+                dictionary = ExactSynonymDictionary.load(new File(mentionIndex), mentionIndexSearcher.getIndexReader());
+                exactSynonymDictionaries.put(mentionIndex, dictionary);
+            }
+            return dictionary;
+        }
+    }
+
+    /**
+     * Returns the token dictionary of the mention index, reading it if this has not yet happened in this JVM.
+     *
+     * @return The token dictionary of the mention index or <tt>null</tt> if the index has none.
+     * @throws IOException If the dictionary cannot be read.
+     */
+    public TokenDictionary getTokenDictionary() throws IOException {
+        if (mentionIndex == null)
+            throw new IllegalStateException("The mention index directory is unknown because this instance has been created without a configuration.");
+        synchronized (tokenDictionaries) {
+            if (!tokenDictionaries.containsKey(mentionIndex))
+                tokenDictionaries.put(mentionIndex, TokenDictionary.load(new File(mentionIndex), mentionIndexSearcher.getIndexReader()));
+            return tokenDictionaries.get(mentionIndex);
+        }
+    }
+
     public TermNormalizer getNormalizer() {
         return normalizer;
     }
@@ -179,6 +390,14 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
         return spellingChecker;
     }
 
+    /**
+     * Removes all entries from the candidate cache of the mention index used by this instance. Note that the cache
+     * is shared by all instances that use the same mention index.
+     */
+    public void invalidateCandidateCache() {
+        candidateCache.invalidateAll();
+    }
+
     public Scorer setScorerType(int type) throws GeneMappingException {
         Scorer scorer;
         if (type == SIMPLE_SCORER) {
@@ -197,13 +416,59 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
         } else if (type == LUCENE_SCORER) {
             scorer = new LuceneScorer();
         } else if (type == LEVENSHTEIN_SCORER) {
-            scorer = new LevenshteinScorer();
+            scorer = new LevenshteinScorer(levenshteinPruning);
         }  else {
             throw new GeneMappingException("Unknown mention scorer type: " + type);
         }
         return scorer;
     }
 
+    /**
+     * Creates the scorer cascade given by {@link GeneMappingConfiguration#APPROX_SCORER_CASCADE}.
+     *
+     * @param cascade The comma-separated scorer types, each but the last followed by a colon and its threshold.
+     * @return The cascade scorer.
+     * @throws GeneMappingException If the cascade is malformed or contains an unknown scorer or the Lucene scorer.
+     */
+    private Scorer createCascadeScorer(String cascade) throws GeneMappingException {
+        String[] stages = cascade.split(",");
+        Scorer[] scorers = new Scorer[stages.length];
+        double[] thresholds = new double[stages.length - 1];
+        try {
+            for (int i = 0; i < stages.length; i++) {
+                String[] stage = stages[i].trim().split(":");
+                if (stage.length != (i < thresholds.length ? 2 : 1))
+                    throw new GeneMappingException("Malformed stage '" + stages[i] + "' in the scorer cascade '" + cascade + "': all stages but the last need a threshold.");
+                int type = Integer.parseInt(stage[0].trim());
+                if (type == LUCENE_SCORER)
+                    throw new GeneMappingException("The Lucene scorer cannot be part of the scorer cascade '" + cascade + "'.");
+                scorers[i] = setScorerType(type);
+                if (i < thresholds.length)
+                    thresholds[i] = Double.parseDouble(stage[1].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new GeneMappingException("Malformed scorer cascade '" + cascade + "'.", e);
+        }
+        return new CascadeScorer(scorers, thresholds);
+    }
+
+    /**
+     * Returns the {@link CachingScorer} for the mention index and the configuration of the approximate scorer or
+     * wraps the given approximate scorer into a new one. The cache statistics of a new caching scorer are registered
+     * with the {@link MappingStatistics}. As for the candidate caches, the cache size of the first instance applies.
+     * The exact scorer is not wrapped since exact matches are scored cheaply.
+     */
+    private Scorer getCachingScorer(Scorer approxScorer, long cacheSize) {
+        String key = mentionIndex + " " + (approxScorerCascade != null ? approxScorerCascade : approxScorer.getScorerType())
+                + "," + maxEntModel + "," + levenshteinPruning;
+        return scoreCaches.computeIfAbsent(key, k -> {
+            log.info("Creating new score cache for {}", k);
+            CachingScorer cachingScorer = new CachingScorer(approxScorer, cacheSize);
+            MappingStatistics.registerCache("approximate scores " + k, cachingScorer.getCache());
+            return cachingScorer;
+        });
+    }
+
     public String getScorerInfo() {
         if (exactScorer == null) {
             return "Lucene Score (unnormalized)";
@@ -230,28 +495,24 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
     @Override
     public List<SynHit> getCandidates(GeneMention geneMention, Collection<String> organisms)
             throws GeneCandidateRetrievalException {
+        long time = MappingStatistics.start();
         try {
             List<SynHit> hits = new ArrayList<>();
-            CandidateCacheKey key = new CandidateCacheKey(geneMention.getGeneName());
-            if (organisms.isEmpty()) {
-                hits = getCandidatesFromIndex(key);
-                if (log.isDebugEnabled()) {
-                    int geneBegin = geneMention.getOffsets() != null ? geneMention.getBegin() : -1;
-                    int geneEnd = geneMention.getOffsets() != null ? geneMention.getEnd() : -1;
-                    log.debug("Returning {} candidates for gene mention {}[{}-{}]", hits.size(), key.geneName.getText(), geneBegin, geneEnd);
-                }
+            Map<CandidateCacheKey, List<CandidateRecord>> candidates = new LinkedHashMap<>();
+            List<CandidateCacheKey> keysForIndex = new ArrayList<>();
+            for (CandidateCacheKey key : getCacheKeys(geneMention.getGeneName(), organisms)) {
+                List<CandidateRecord> exactHits = getExactCandidates(key);
+                candidates.put(key, exactHits);
+                if (exactHits == null)
+                    keysForIndex.add(key);
             }
-            for (String taxonomyId : organisms) {
-                key.taxId = taxonomyId;
-                hits.addAll(getCandidatesFromIndex(key));
-                // TopDocs foundDocs = getCandidatesFromIndex(key);
-                // 2. assign score
-                // List<SynHit> scoredHits = new ArrayList<SynHit>();
-                // scoredHits = scoreHits(foundDocs, key.geneName);
-                // 3. combine single hits to candidate clusters
-                // ArrayList<SynHit> hits = combineHits(scoredHits);
-                // 4. sort by SynHit's score (lucene score)
-
+            // All keys missing from the cache are loaded at once which allows a single search for all taxonomy IDs
+            if (keysForIndex.size() > 1)
+                candidates.putAll(candidateCache.getAll(keysForIndex));
+            else if (keysForIndex.size() == 1)
+                candidates.put(keysForIndex.get(0), candidateCache.get(keysForIndex.get(0)));
+            for (CandidateCacheKey key : candidates.keySet()) {
+                hits.addAll(toSynHits(candidates.get(key)));
                 if (log.isDebugEnabled()) {
                     int begin = -1;
                     int end = -1;
@@ -260,46 +521,232 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
                         end = geneMention.getEnd();
                     }
                     log.debug("Returning {} candidates for gene mention {}[{}-{}] for taxonomy ID {}",
-                            hits.size(), key.geneName.getText(), begin, end, organisms);
+                            hits.size(), key.geneName.getText(), begin, end, key.taxId);
+                }
+            }
+            return sortCandidates(hits);
+        } catch (ExecutionException e) {
+            throw new GeneCandidateRetrievalException(e);
+        } finally {
+            MappingStatistics.record(MappingStage.CANDIDATE_RETRIEVAL, time);
+        }
+    }
+
+    @Override
+    public List<List<SynHit>> getCandidates(Collection<GeneMention> geneMentions) throws GeneCandidateRetrievalException {
+        long time = MappingStatistics.start();
+        try {
+            // Collect the cache keys of all mentions first. Since the keys are only distinguished by gene name text
+            // and taxonomy ID, repeated mentions in the batch result in the same keys and are looked up only once.
+            List<List<CandidateCacheKey>> keysPerMention = new ArrayList<>(geneMentions.size());
+            Set<CandidateCacheKey> distinctKeys = new LinkedHashSet<>();
+            Map<CandidateCacheKey, List<CandidateRecord>> exactCandidates = new HashMap<>();
+            for (GeneMention geneMention : geneMentions) {
+                List<CandidateCacheKey> keys = getCacheKeys(geneMention.getGeneName(), geneMention.getTaxonomyIds());
+                keysPerMention.add(keys);
+                for (CandidateCacheKey key : keys) {
+                    List<CandidateRecord> exactHits = getExactCandidates(key);
+                    if (exactHits != null)
+                        exactCandidates.put(key, exactHits);
+                    else
+                        distinctKeys.add(key);
+                }
+            }
+            // The cache passes all keys it doesn't have to the loadAll() method of the loader at once. They are then
+            // resolved in a single pass over the index.
+            Map<CandidateCacheKey, List<CandidateRecord>> cachedCandidates = candidateCache.getAll(distinctKeys);
+            List<List<SynHit>> candidates = new ArrayList<>(keysPerMention.size());
+            for (List<CandidateCacheKey> keys : keysPerMention) {
+                List<SynHit> hits = new ArrayList<>();
+                for (CandidateCacheKey key : keys) {
+                    List<CandidateRecord> exactHits = exactCandidates.get(key);
+                    hits.addAll(toSynHits(exactHits != null ? exactHits : cachedCandidates.get(key)));
                 }
+                candidates.add(sortCandidates(hits));
             }
-            //hits = combineHits(hits);
-            hits.stream().forEach(h -> h.setCompareType(CompareType.SCORE));
-            List<SynHit> sortedHits = hits.stream().sorted().collect(Collectors.toList());
-            return sortedHits;
+            log.debug("Returning candidates for {} gene mentions using {} distinct gene name and taxonomy ID combinations", geneMentions.size(), distinctKeys.size());
+            return candidates;
         } catch (ExecutionException e) {
             throw new GeneCandidateRetrievalException(e);
+        } finally {
+            MappingStatistics.record(MappingStage.CANDIDATE_RETRIEVAL, time);
         }
     }
 
+    /**
+     * Creates the cache keys for the given gene name. If no organisms are given, a single key without taxonomy ID
+     * is returned. Otherwise, there is one key per organism.
+     *
+     * @param geneName  The gene name to get candidates for.
+     * @param organisms The taxonomy IDs to restrict the candidates to, may be empty.
+     * @return The cache keys for the gene name and organisms.
+     */
+    private List<CandidateCacheKey> getCacheKeys(GeneName geneName, Collection<String> organisms) {
+        if (organisms.isEmpty())
+            return Collections.singletonList(new CandidateCacheKey(geneName));
+        List<CandidateCacheKey> keys = new ArrayList<>(organisms.size());
+        for (String taxonomyId : organisms)
+            keys.add(new CandidateCacheKey(geneName, taxonomyId));
+        return keys;
+    }
 
     /**
-     * This is the method that access the cache. This is important because before the SynHits are returned,
-     * they must be cloned or changed on them will write back into the cache.
+     * Looks up the normalized gene name of the key in the exact synonym dictionary, if it is activated. An exact
+     * match receives the score the exact scorer would give it after a Lucene search.
      *
      * @param key The cache key.
-     * @return A new list that contains copies of the cached SynHits.
-     * @throws ExecutionException If there is an issue with the cache.
-     */
-    private List<SynHit> getCandidatesFromIndex(CandidateCacheKey key) throws ExecutionException {
-        return candidateCache.get(key).stream().map((SynHit synHit) -> {
-            try {
-                return synHit.clone();
-            } catch (CloneNotSupportedException e) {
-                log.error("Could not clone a cached SynHit: {}", synHit, e);
-                throw new RuntimeException(e);
-            }
-        }).collect(Collectors.toList());
+     * @return A list with the single exact match or <tt>null</tt> if there is no exact match for the key.
+     */
+    private List<CandidateRecord> getExactCandidates(CandidateCacheKey key) {
+        if (exactSynonymDictionary == null)
+            return null;
+        String normalizedMention = key.geneName.getNormalizedText();
+        int synonymIndex = exactSynonymDictionary.lookup(normalizedMention);
+        if (synonymIndex < 0 || (!StringUtils.isBlank(key.taxId) && !exactSynonymDictionary.hasTaxId(synonymIndex, key.taxId)))
+            return null;
+        IndexEntry entry = new IndexEntry(normalizedMention);
+        exactSynonymDictionary.getEntries(synonymIndex, entry.ids, entry.priorities, entry.taxIds);
+        double score = exactScorer.getScorerType() == GeneMapping.LUCENE_SCORER ? Scorer.PERFECT_SCORE : exactScorer.getScore(normalizedMention, normalizedMention);
+        return Collections.singletonList(new CandidateRecord(normalizedMention, score, entry.ids, GeneMapping.SOURCE_DEFINITION,
+                entry.taxIds, entry.priorities, key.geneName.getText().toLowerCase(), key.geneName));
+    }
+
+    private List<SynHit> sortCandidates(List<SynHit> hits) {
+        hits.forEach(h -> h.setCompareType(CompareType.SCORE));
+        hits.sort(null);
+        return hits;
+    }
+
+    /**
+     * The cache holds immutable {@link CandidateRecord}s; the returned SynHits are new objects on top of them so
+     * that changes to the SynHits do not write back into the cache.
+     *
+     * @param records Cached candidate records.
+     * @return A new list that contains SynHits for the cached candidates.
+     */
+    private List<SynHit> toSynHits(List<CandidateRecord> records) {
+        List<SynHit> hits = new ArrayList<>(records.size());
+        for (CandidateRecord record : records)
+            hits.add(record.toSynHit());
+        return hits;
     }
 
-    private ArrayList<SynHit> getCandidatesFromIndexWithoutCache(CandidateCacheKey key)
+    private ArrayList<CandidateRecord> getCandidatesFromIndexWithoutCache(CandidateCacheKey key)
             throws IOException, BooleanQuery.TooManyClauses {
+        long time = MappingStatistics.start();
         Query searchQuery = QueryGenerator.makeDisjunctionMaxQuery(key, spellingChecker);
-        TopDocs foundDocs = mentionIndexSearcher.search(searchQuery, LUCENE_MAX_HITS);
+        time += MappingStatistics.record(MappingStage.QUERY_CONSTRUCTION, time);
+        TopScoreDocCollector collector = TopScoreDocCollector.create(getNumHits());
+        mentionIndexSearcher.search(searchQuery, wrapCollector(collector, key.geneName));
+        TopDocs foundDocs = collector.topDocs();
+        MappingStatistics.record(MappingStage.LUCENE_SEARCH, time);
         log.debug("searching with query: " + searchQuery + "; found hits: " + foundDocs.totalHits);
         return scoreHits(foundDocs, key.geneName);
     }
 
+    /**
+     * <p>Resolves multiple cache keys with a single pass over the index segments. Each segment is visited once and
+     * all key queries are evaluated on it while it is hot, each query feeding its own top hits collector. The
+     * results are exactly those of searching each key query on its own.</p>
+     * <p>If {@link #taxonomyBucketSearch} is active, the keys of the same gene name with different taxonomy IDs are
+     * searched with a single query filtered for all of the taxonomy IDs. A {@link TaxonomyBucketCollector} then
+     * collects the top hits for each taxonomy ID. This is not done if early termination is active since the
+     * taxonomy IDs would then share the budget of near-exact hits; each key is searched on its own instead.</p>
+     *
+     * @param keys The cache keys to get the candidates for.
+     * @return The scored candidates for each key.
+     * @throws IOException If reading the index fails.
+     */
+    private Map<CandidateCacheKey, List<CandidateRecord>> getCandidatesFromIndexWithoutCache(Iterable<? extends CandidateCacheKey> keys)
+            throws IOException, BooleanQuery.TooManyClauses {
+        // one search per list of keys; a list has multiple elements only for taxonomy bucket searches
+        Collection<List<CandidateCacheKey>> searches;
+        if (taxonomyBucketSearch && earlyTerminationHits <= 0) {
+            Map<GeneName, List<CandidateCacheKey>> keysByGeneName = new LinkedHashMap<>();
+            List<List<CandidateCacheKey>> singleSearches = new ArrayList<>();
+            for (CandidateCacheKey key : keys) {
+                if (StringUtils.isBlank(key.taxId))
+                    singleSearches.add(Collections.singletonList(key));
+                else
+                    keysByGeneName.computeIfAbsent(key.geneName, k -> new ArrayList<>()).add(key);
+            }
+            searches = new ArrayList<>(keysByGeneName.values());
+            searches.addAll(singleSearches);
+        } else {
+            searches = new ArrayList<>();
+            for (CandidateCacheKey key : keys)
+                searches.add(Collections.singletonList(key));
+        }
+        int numHits = getNumHits();
+        List<List<CandidateCacheKey>> searchKeys = new ArrayList<>(searches);
+        Weight[] weights = new Weight[searchKeys.size()];
+        Collector[] collectors = new Collector[searchKeys.size()];
+        Collector[] searchCollectors = new Collector[searchKeys.size()];
+        Query[] searchQueries = new Query[searchKeys.size()];
+        long time = MappingStatistics.start();
+        for (int i = 0; i < searchKeys.size(); i++) {
+            List<CandidateCacheKey> keyList = searchKeys.get(i);
+            Query searchQuery;
+            if (keyList.size() == 1) {
+                searchQuery = QueryGenerator.makeDisjunctionMaxQuery(keyList.get(0), spellingChecker);
+                collectors[i] = TopScoreDocCollector.create(numHits);
+            } else {
+                List<String> taxIds = keyList.stream().map(k -> k.taxId).collect(Collectors.toList());
+                searchQuery = QueryGenerator.makeDisjunctionMaxQuery(keyList.get(0), taxIds, spellingChecker);
+                collectors[i] = new TaxonomyBucketCollector(taxIds, numHits);
+            }
+            searchCollectors[i] = wrapCollector(collectors[i], keyList.get(0).geneName);
+            searchQueries[i] = searchQuery;
+        }
+        time += MappingStatistics.record(MappingStage.QUERY_CONSTRUCTION, time);
+        for (int i = 0; i < searchKeys.size(); i++)
+            weights[i] = mentionIndexSearcher.createWeight(mentionIndexSearcher.rewrite(searchQueries[i]), true, 1f);
+        for (LeafReaderContext leaf : mentionIndexSearcher.getIndexReader().leaves()) {
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            for (int i = 0; i < weights.length; i++) {
+                BulkScorer bulkScorer = weights[i].bulkScorer(leaf);
+                if (bulkScorer == null)
+                    continue;
+                try {
+                    bulkScorer.score(searchCollectors[i].getLeafCollector(leaf), liveDocs);
+                } catch (CollectionTerminatedException e) {
+                    // the collector does not need further hits from this segment
+                }
+            }
+        }
+        MappingStatistics.record(MappingStage.LUCENE_SEARCH, time);
+        Map<CandidateCacheKey, List<CandidateRecord>> candidates = new HashMap<>();
+        for (int i = 0; i < searchKeys.size(); i++) {
+            List<CandidateCacheKey> keyList = searchKeys.get(i);
+            for (int j = 0; j < keyList.size(); j++) {
+                TopDocs foundDocs = collectors[i] instanceof TaxonomyBucketCollector ? ((TaxonomyBucketCollector) collectors[i]).topDocs(j) : ((TopScoreDocCollector) collectors[i]).topDocs();
+                log.debug("batch searching for key: " + keyList.get(j) + "; found hits: " + foundDocs.totalHits);
+                candidates.put(keyList.get(j), Collections.unmodifiableList(scoreHits(foundDocs, keyList.get(j).geneName)));
+            }
+        }
+        return candidates;
+    }
+
+    private int getNumHits() {
+        return Math.max(1, Math.min(luceneMaxHits, mentionIndexSearcher.getIndexReader().maxDoc()));
+    }
+
+    /**
+     * Wraps the given collector into an {@link EarlyTerminatingCollector} if early termination is active.
+     *
+     * @param collector The collector to wrap.
+     * @param geneName  The searched gene name; hits containing all tokens of its normalized text or of one of its
+     *                  variants are the near-exact hits.
+     * @return The collector to search with.
+     */
+    private Collector wrapCollector(Collector collector, GeneName geneName) {
+        if (earlyTerminationHits <= 0)
+            return collector;
+        List<String> names = new ArrayList<>(geneName.getNormalizedTextVariant());
+        names.add(geneName.getNormalizedText());
+        return new EarlyTerminatingCollector(collector, names, earlyTerminationHits);
+    }
+
     /**
      * calculate score for each hit
      *
@@ -309,9 +756,9 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
      * @throws CorruptIndexException
      * @throws Exception
      */
-    private ArrayList<SynHit> scoreHits(TopDocs foundDocs, GeneName geneName)
+    private ArrayList<CandidateRecord> scoreHits(TopDocs foundDocs, GeneName geneName)
             throws CorruptIndexException, IOException {
-        ArrayList<SynHit> allHits = new ArrayList<>();
+        ArrayList<CandidateRecord> allHits = new ArrayList<>();
 
         String originalMention = geneName.getText().toLowerCase();
         String normalizedMention = geneName.getNormalizedText();
@@ -320,51 +767,168 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
         log.debug("ordering candidates for best match to this reference term: " + originalMention + " for top "
                 + scoredDocs.length + " candidates");
         candidateLog.trace("Search term: " + normalizedMention);
+        long time = MappingStatistics.start();
+        IndexEntry[] indexEntries = readIndexEntries(scoredDocs);
+        time += MappingStatistics.record(MappingStage.HIT_MATERIALIZATION, time);
+        // the exact and the approximate matches are each scored in one batch
+        double[] scores = new double[scoredDocs.length];
+        int[] exactHits = new int[scoredDocs.length];
+        int[] approxHits = new int[scoredDocs.length];
+        int numExactHits = 0;
+        int numApproxHits = 0;
         for (int i = 0; i < scoredDocs.length; i++) {
-            int docID = scoredDocs[i].doc;
-            Document d = mentionIndexSearcher.doc(docID);
-            String indexNormalizedName = d.getField(SynonymIndexFieldNames.LOOKUP_SYN_FIELD).stringValue();
-            List<String> ids = new ArrayList<>();
-            List<Number> priorities = new ArrayList<>();
-            Arrays.stream(d.getFields(SynonymIndexFieldNames.ID_FIELD)).map(IndexableField::stringValue).map(idAndSyn -> idAndSyn.split(NAME_PRIO_DELIMITER)).forEach(split -> {
-                ids.add(split[0]);
-                priorities.add(Integer.valueOf(split[1]));
-            });
-            List<String> taxIds = Arrays.stream(d.getFields(SynonymIndexFieldNames.TAX_ID_FIELD)).map(IndexableField::stringValue).collect(Collectors.toList());
-
-
-            double score = 0;
-            Scorer scorer = indexNormalizedName.equals(normalizedMention) ? exactScorer : approxScorer;
-            if (scorer.getScorerType() == GeneMapping.LUCENE_SCORER) {
-                // use Lucene scoring
-                if (indexNormalizedName.equals(normalizedMention)) {
-                    // exact matches get perfect score
-                    score = Scorer.PERFECT_SCORE;
-                    // score = scoredDocs[i].score;
-                } else {
-                    // approximate matches get lucene score
-                    score = scoredDocs[i].score;
-                }
-                // Actually, using the DisMax query, another index field might
-                // have given the best hit; but we can't say which. The
-                // normalized mention is a reasonable choice because the very
-                // most good hits stem from normalized variants.
-            } else {
-                // use external scoring
-                score = scorer.getScore(normalizedMention, indexNormalizedName);
-            }
-            // now make a new synhit object
+            if (indexEntries[i].synonym.equals(normalizedMention))
+                exactHits[numExactHits++] = i;
+            else
+                approxHits[numApproxHits++] = i;
+        }
+        int[] mentionTokenIds = tokenDictionary != null ? tokenDictionary.encode(normalizedMention) : null;
+        scoreHits(exactScorer, true, normalizedMention, mentionTokenIds, exactHits, numExactHits, scoredDocs, indexEntries, scores);
+        scoreHits(approxScorer, false, normalizedMention, mentionTokenIds, approxHits, numApproxHits, scoredDocs, indexEntries, scores);
+        for (int i = 0; i < scoredDocs.length; i++) {
+            // now make a new candidate record
             // TODO write source into the index (NCBI Gene or UniProt)
-            SynHit m = new SynHit(indexNormalizedName, score, ids, GeneMapping.SOURCE_DEFINITION, taxIds);
-            m.setMappedMention(originalMention);
-            m.setMappedGeneName(geneName);
-            m.setSynonymPriorities(priorities);
-            allHits.add(m);
+            allHits.add(new CandidateRecord(indexEntries[i].synonym, scores[i], indexEntries[i].ids, GeneMapping.SOURCE_DEFINITION,
+                    indexEntries[i].taxIds, indexEntries[i].priorities, originalMention, geneName));
         }
+        MappingStatistics.record(MappingStage.SCORING, time);
 
         return allHits;
     }
 
+    /**
+     * Scores the given hits with a single {@link Scorer#scoreAll(String, List, double[])} call.
+     *
+     * @param scorer            The scorer for the hits.
+     * @param exact             Whether the hits are exact matches of the normalized mention.
+     * @param normalizedMention The normalized mention.
+     * @param mentionTokenIds   The token IDs of the normalized mention, <tt>null</tt> without token dictionary.
+     * @param hits              The positions of the hits to score in <tt>scoredDocs</tt>.
+     * @param numHits           The number of hits to score.
+     * @param scoredDocs        All hits.
+     * @param indexEntries      The index entries of all hits.
+     * @param scores            Receives the score of each hit at its position.
+     */
+    private void scoreHits(Scorer scorer, boolean exact, String normalizedMention, int[] mentionTokenIds, int[] hits, int numHits, ScoreDoc[] scoredDocs, IndexEntry[] indexEntries, double[] scores) {
+        if (numHits == 0)
+            return;
+        if (scorer.getScorerType() == GeneMapping.LUCENE_SCORER) {
+            // use Lucene scoring: exact matches get perfect score, approximate matches get lucene score
+            for (int i = 0; i < numHits; i++)
+                scores[hits[i]] = exact ? Scorer.PERFECT_SCORE : scoredDocs[hits[i]].score;
+            // Actually, using the DisMax query, another index field might
+            // have given the best hit; but we can't say which. The
+            // normalized mention is a reasonable choice because the very
+            // most good hits stem from normalized variants.
+            return;
+        }
+        // use external scoring
+        List<String> candidates = new ArrayList<>(numHits);
+        for (int i = 0; i < numHits; i++)
+            candidates.add(indexEntries[hits[i]].synonym);
+        double[] candidateScores = new double[numHits];
+        if (mentionTokenIds != null) {
+            // the scorers read the token IDs of the hits from the shared array of the dictionary
+            int[] candidateBegins = new int[numHits];
+            int[] candidateEnds = new int[numHits];
+            for (int i = 0; i < numHits; i++) {
+                candidateBegins[i] = tokenDictionary.getSynonymTokenIdsBegin(scoredDocs[hits[i]].doc);
+                candidateEnds[i] = tokenDictionary.getSynonymTokenIdsEnd(scoredDocs[hits[i]].doc);
+            }
+            scorer.scoreAll(normalizedMention, mentionTokenIds, candidates, tokenDictionary.getSynonymTokenIds(), candidateBegins, candidateEnds, candidateScores);
+        } else {
+            scorer.scoreAll(normalizedMention, candidates, candidateScores);
+        }
+        for (int i = 0; i < numHits; i++)
+            scores[hits[i]] = candidateScores[i];
+    }
+
+    /**
+     * <p>Reads the synonym, the gene IDs, the priorities and the taxonomy IDs of the given hits. If the index has
+     * the respective DocValues fields, they are used and visited in docID order as required by the DocValues
+     * iterators. Otherwise, the stored fields are loaded.</p>
+     *
+     * @param scoredDocs The hits to read.
+     * @return The index entries, in the order of <tt>scoredDocs</tt>.
+     * @throws IOException If reading the index fails.
+     */
+    private IndexEntry[] readIndexEntries(ScoreDoc[] scoredDocs) throws IOException {
+        IndexEntry[] indexEntries = new IndexEntry[scoredDocs.length];
+        if (!indexEntryDocValues) {
+            for (int i = 0; i < scoredDocs.length; i++)
+                indexEntries[i] = readIndexEntryFromStoredFields(scoredDocs[i].doc);
+        } else {
+            readIndexEntriesFromDocValues(scoredDocs, indexEntries);
+        }
+        return indexEntries;
+    }
+
+    private void readIndexEntriesFromDocValues(ScoreDoc[] scoredDocs, IndexEntry[] indexEntries) throws IOException {
+        // sort the hit positions by docID; the docID goes into the upper bits, the hit position into the lower bits
+        long[] docOrder = new long[scoredDocs.length];
+        for (int i = 0; i < scoredDocs.length; i++)
+            docOrder[i] = ((long) scoredDocs[i].doc << 32) | i;
+        Arrays.sort(docOrder);
+        List<LeafReaderContext> leaves = mentionIndexSearcher.getIndexReader().leaves();
+        LeafReaderContext leaf = null;
+        BinaryDocValues synonymValues = null;
+        BinaryDocValues entryValues = null;
+        for (long docAndPosition : docOrder) {
+            int docID = (int) (docAndPosition >>> 32);
+            int position = (int) docAndPosition;
+            if (leaf == null || docID >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(docID, leaves));
+                synonymValues = DocValues.getBinary(leaf.reader(), SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+                entryValues = DocValues.getBinary(leaf.reader(), SynonymIndexFieldNames.GENE_ENTRIES);
+            }
+            int leafDocID = docID - leaf.docBase;
+            if (synonymValues.advanceExact(leafDocID) && entryValues.advanceExact(leafDocID)) {
+                IndexEntry entry = new IndexEntry(synonymValues.binaryValue().utf8ToString());
+                GeneEntriesCodec.decode(entryValues.binaryValue(), entry.ids, entry.priorities, entry.taxIds);
+                indexEntries[position] = entry;
+            } else {
+                // a document without DocValues, e.g. from an index segment that has been added later
+                indexEntries[position] = readIndexEntryFromStoredFields(docID);
+            }
+        }
+    }
+
+    private IndexEntry readIndexEntryFromStoredFields(int docID) throws IOException {
+        Document d = mentionIndexSearcher.doc(docID);
+        IndexEntry entry = new IndexEntry(d.getField(SynonymIndexFieldNames.LOOKUP_SYN_FIELD).stringValue());
+        Arrays.stream(d.getFields(SynonymIndexFieldNames.ID_FIELD)).map(IndexableField::stringValue).map(idAndSyn -> idAndSyn.split(NAME_PRIO_DELIMITER)).forEach(split -> {
+            entry.ids.add(split[0]);
+            entry.priorities.add(Integer.valueOf(split[1]));
+        });
+        Arrays.stream(d.getFields(SynonymIndexFieldNames.TAX_ID_FIELD)).map(IndexableField::stringValue).forEach(entry.taxIds::add);
+        return entry;
+    }
+
+    /**
+     * @param reader A mention index reader.
+     * @return Whether all segments of the index are sorted by synonym priority first.
+     */
+    private static boolean hasMentionIndexSort(IndexReader reader) {
+        for (LeafReaderContext leaf : reader.leaves()) {
+            if (!MENTION_INDEX_SORT.equals(leaf.reader().getMetaData().getSort()))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean hasTaxonomyDocValues(IndexReader reader) {
+        final FieldInfo taxInfo = MultiFields.getMergedFieldInfos(reader).fieldInfo(SynonymIndexFieldNames.TAX_ID_FIELD);
+        return taxInfo != null && taxInfo.getDocValuesType() == DocValuesType.SORTED_SET;
+    }
+
+    private static boolean hasIndexEntryDocValues(IndexReader reader) {
+        final FieldInfos fieldInfos = MultiFields.getMergedFieldInfos(reader);
+        final FieldInfo synonymInfo = fieldInfos.fieldInfo(SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+        final FieldInfo entriesInfo = fieldInfos.fieldInfo(SynonymIndexFieldNames.GENE_ENTRIES);
+        return synonymInfo != null && synonymInfo.getDocValuesType() == DocValuesType.BINARY
+                && entriesInfo != null && entriesInfo.getDocValuesType() == DocValuesType.BINARY;
+    }
+
     @Override
     public List<SynHit> getCandidates(GeneMention geneMention, String organism) throws GeneCandidateRetrievalException {
         return getCandidates(geneMention, Arrays.asList(organism));
@@ -482,4 +1046,18 @@ public class LuceneCandidateRetrieval implements CandidateRetrieval {
         return builder.build().flatMap(Collection::stream).collect(Collectors.toList());
     }
 
+    /**
+     * The data of a synonym index document that is required to create a {@link SynHit}.
+     */
+    private static class IndexEntry {
+        private final String synonym;
+        private final List<String> ids = new ArrayList<>();
+        private final List<Number> priorities = new ArrayList<>();
+        private final List<String> taxIds = new ArrayList<>();
+
+        private IndexEntry(String synonym) {
+            this.synonym = synonym;
+        }
+    }
+
 }
@@ -51,7 +51,16 @@ public class MentionMappingResult implements Comparable<MentionMappingResult> {
      */
     public List<SynHit> bestCandidate = REJECTION;
     public double confidence;
+    /**
+     * The time in nanoseconds spent for retrieving the candidates of this mention.
+     * If the candidates of all mentions of a document are retrieved at once, this
+     * is the time of the document's retrieval divided by its number of mentions.
+     */
     private long candidateRetrievalTime;
+    /**
+     * The time in nanoseconds spent for disambiguating this mention, 0 if the
+     * mapping core does not disambiguate.
+     */
     private long disambiguationTime;
 
     /**
@@ -19,8 +19,11 @@ package de.julielab.jules.ae.genemapping;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -31,8 +34,10 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.BooleanQuery.Builder;
 import org.apache.lucene.search.DisjunctionMaxQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.spell.SpellChecker;
+import org.apache.lucene.util.BytesRef;
 
 import de.julielab.jules.ae.genemapping.index.SynonymIndexFieldNames;
 
@@ -69,6 +74,32 @@ public class QueryGenerator {
 
     public static Query makeDisjunctionMaxQuery(CandidateCacheKey key, SpellChecker spellingChecker)
             throws BooleanQuery.TooManyClauses, IOException {
+        Builder builder = makeDisjunctionMaxQueryBuilder(key, spellingChecker);
+        if (!StringUtils.isBlank(key.taxId)) {
+            builder.add(new TermQuery(new Term(SynonymIndexFieldNames.TAX_ID_FIELD, key.taxId)), Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the query of {@link #makeDisjunctionMaxQuery(CandidateCacheKey, SpellChecker)} for the gene name of
+     * the key but filtered for any of the given taxonomy IDs instead of the single taxonomy ID of the key.
+     *
+     * @param key             The cache key whose gene name should be searched; its taxonomy ID is ignored.
+     * @param taxIds          The taxonomy IDs of which at least one must be associated with a hit.
+     * @param spellingChecker The spelling checker, currently unused.
+     * @return The query.
+     */
+    public static Query makeDisjunctionMaxQuery(CandidateCacheKey key, Collection<String> taxIds, SpellChecker spellingChecker)
+            throws BooleanQuery.TooManyClauses, IOException {
+        Builder builder = makeDisjunctionMaxQueryBuilder(key, spellingChecker);
+        List<BytesRef> taxIdTerms = taxIds.stream().map(BytesRef::new).collect(Collectors.toList());
+        builder.add(new TermInSetQuery(SynonymIndexFieldNames.TAX_ID_FIELD, taxIdTerms), Occur.FILTER);
+        return builder.build();
+    }
+
+    private static Builder makeDisjunctionMaxQueryBuilder(CandidateCacheKey key, SpellChecker spellingChecker)
+            throws BooleanQuery.TooManyClauses, IOException {
         String originalName = key.geneName.getText().toLowerCase();
         String normalizedName = key.geneName.getNormalizedText();
         List<String> nameVariant = key.geneName.getNormalizedTextVariant();
@@ -80,8 +111,12 @@ public class QueryGenerator {
                 SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
         disjuncts.add(originalNameQueryDisjunctive);
         disjuncts.add(normalizedNameQueryDisjunctive);
+        // equal variants would only add identical disjuncts
+        Set<String> variants = new HashSet<>(nameVariant);
+        variants.remove(originalName);
+        variants.remove(normalizedName);
         for (String variant : nameVariant) {
-            if (!variant.equals(originalName) && !variant.equals(normalizedName))
+            if (variants.remove(variant))
                 disjuncts.add(makeDisjunctiveQuery(variant, SynonymIndexFieldNames.VARIANT_NAME));
         }
 
@@ -92,11 +127,7 @@ public class QueryGenerator {
         //new BooleanClause(IntPoint.newExactQuery(SynonymIndexFieldNames.FILTERED, 0), Occur.FILTER);
         if (fc != null)
             builder.add(fc);
-
-        if (!StringUtils.isBlank(key.taxId)) {
-            builder.add(new TermQuery(new Term(SynonymIndexFieldNames.TAX_ID_FIELD, key.taxId)), Occur.FILTER).build();
-        }
-        return builder.build();
+        return builder;
     }
 
     private static String applySpellingCorrection(String name, SpellChecker spellingChecker) throws IOException {
@@ -37,7 +37,10 @@ public class SynHit implements Comparable<SynHit>, Cloneable {
     private double mentionScore;
     private double semanticScore;
     private double overallScore;
-    private Map<String, Double> speciesMentionScores = new HashMap<>();
+    /**
+     * Created on the first call to {@link #setSpeciesMentionScore(String, double)}.
+     */
+    private Map<String, Double> speciesMentionScores;
     /**
      * All known Entrez Gene IDs for this synonym.
      */
@@ -66,6 +69,24 @@ public class SynHit implements Comparable<SynHit>, Cloneable {
         this.taxIds = taxIds;
     }
 
+    /**
+     * Creates a candidate for the given cached record. The lists of the record are shared, not copied; they are
+     * unmodifiable and replaced, not changed, by the setters of this class.
+     *
+     * @param record The cached candidate record.
+     * @see CandidateRecord#toSynHit()
+     */
+    public SynHit(CandidateRecord record) {
+        this.synonym = record.getSynonym();
+        this.mentionScore = record.getMentionScore();
+        this.ids = record.getIds();
+        this.source = record.getSource();
+        this.taxIds = record.getTaxIds();
+        this.synonymPriorities = record.getSynonymPriorities();
+        this.mappedMention = record.getMappedMention();
+        this.mappedGeneName = record.getMappedGeneName();
+    }
+
     /**
      * @param syn
      * @param score
@@ -80,14 +101,16 @@ public class SynHit implements Comparable<SynHit>, Cloneable {
     }
 
     public Map<String, Double> getSpeciesMentionScores() {
-        return speciesMentionScores;
+        return speciesMentionScores != null ? speciesMentionScores : Collections.emptyMap();
     }
 
     public Double getSpeciesMentionScore(String taxId) {
-        return speciesMentionScores.get(taxId);
+        return speciesMentionScores != null ? speciesMentionScores.get(taxId) : null;
     }
 
     public void setSpeciesMentionScore(String taxId, double speciesMentionScore) {
+        if (speciesMentionScores == null)
+            speciesMentionScores = new HashMap<>();
         speciesMentionScores.put(taxId, speciesMentionScore);
     }
 
@@ -208,7 +231,8 @@ public class SynHit implements Comparable<SynHit>, Cloneable {
 
     public SynHit clone() throws CloneNotSupportedException {
         SynHit h = (SynHit) super.clone();
-        h.speciesMentionScores = new HashMap<>(speciesMentionScores);
+        if (speciesMentionScores != null)
+            h.speciesMentionScores = new HashMap<>(speciesMentionScores);
         h.ids = new ArrayList<>(ids);
         h.taxIds = new ArrayList<>(getTaxIds());
         h.synonymPriorities = new ArrayList<>(synonymPriorities);
@@ -0,0 +1,111 @@
+package de.julielab.jules.ae.genemapping;
+
+import de.julielab.jules.ae.genemapping.index.SynonymIndexFieldNames;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>Collects the top hits of a single query separately for each of a number of taxonomy IDs. A hit is put into
+ * the bucket of each requested taxonomy ID that it has in the sorted set DocValues of
+ * {@link SynonymIndexFieldNames#TAX_ID_FIELD}.</p>
+ * <p>Each bucket keeps the hits that a {@link TopScoreDocCollector} would have collected for the same query with an
+ * additional filter on the bucket's taxonomy ID: the highest scores first and, for equal scores, the lower docID
+ * first. One search with this collector thus replaces one search per taxonomy ID.</p>
+ */
+class TaxonomyBucketCollector implements Collector {
+    private final BytesRef[] taxIds;
+    private final int numHits;
+    private final List<PriorityQueue<ScoreDoc>> buckets;
+    private final int[] totalHits;
+
+    /**
+     * @param taxIds  The taxonomy IDs to collect hits for.
+     * @param numHits The maximum number of hits per taxonomy ID.
+     */
+    TaxonomyBucketCollector(List<String> taxIds, int numHits) {
+        this.taxIds = taxIds.stream().map(BytesRef::new).toArray(BytesRef[]::new);
+        this.numHits = numHits;
+        // the heads of the queues are the worst hits, i.e. the ones to be replaced first
+        Comparator<ScoreDoc> worstFirst = (d1, d2) -> {
+            int c = Float.compare(d1.score, d2.score);
+            return c != 0 ? c : Integer.compare(d2.doc, d1.doc);
+        };
+        this.buckets = new ArrayList<>(taxIds.size());
+        for (int i = 0; i < taxIds.size(); i++)
+            buckets.add(new PriorityQueue<>(numHits, worstFirst));
+        this.totalHits = new int[taxIds.size()];
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        final SortedSetDocValues taxValues = DocValues.getSortedSet(context.reader(), SynonymIndexFieldNames.TAX_ID_FIELD);
+        final long[] ords = new long[taxIds.length];
+        boolean anyTaxIdInSegment = false;
+        for (int i = 0; i < taxIds.length; i++) {
+            ords[i] = taxValues.lookupTerm(taxIds[i]);
+            anyTaxIdInSegment |= ords[i] >= 0;
+        }
+        if (!anyTaxIdInSegment)
+            throw new CollectionTerminatedException();
+        final int docBase = context.docBase;
+        return new LeafCollector() {
+            private Scorer scorer;
+
+            @Override
+            public void setScorer(Scorer scorer) {
+                this.scorer = scorer;
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                if (!taxValues.advanceExact(doc))
+                    return;
+                float score = Float.NaN;
+                for (long ord = taxValues.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = taxValues.nextOrd()) {
+                    for (int i = 0; i < ords.length; i++) {
+                        if (ords[i] != ord)
+                            continue;
+                        if (Float.isNaN(score))
+                            score = scorer.score();
+                        ++totalHits[i];
+                        PriorityQueue<ScoreDoc> bucket = buckets.get(i);
+                        if (bucket.size() < numHits) {
+                            bucket.add(new ScoreDoc(docBase + doc, score));
+                        } else if (score > bucket.peek().score) {
+                            // for equal scores, the hit already in the bucket has the lower docID and wins
+                            bucket.poll();
+                            bucket.add(new ScoreDoc(docBase + doc, score));
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean needsScores() {
+        return true;
+    }
+
+    /**
+     * @param taxIdIndex The position of the taxonomy ID in the list passed to the constructor.
+     * @return The top hits of the taxonomy ID, best first.
+     */
+    TopDocs topDocs(int taxIdIndex) {
+        PriorityQueue<ScoreDoc> bucket = buckets.get(taxIdIndex);
+        ScoreDoc[] scoreDocs = new ScoreDoc[bucket.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--)
+            scoreDocs[i] = bucket.poll();
+        float maxScore = scoreDocs.length > 0 ? scoreDocs[0].score : Float.NaN;
+        return new TopDocs(totalHits[taxIdIndex], scoreDocs, maxScore);
+    }
+}
@@ -24,6 +24,7 @@ import de.julielab.jules.ae.genemapping.ContextItemsCacheKey;
 import de.julielab.jules.ae.genemapping.GeneMappingConfiguration;
 import de.julielab.jules.ae.genemapping.SynHit;
 import de.julielab.jules.ae.genemapping.index.ContextIndexFieldNames;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
 import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.*;
@@ -74,7 +75,7 @@ public class ContextItemsIndex implements SemanticIndex {
                 geneContextCache = caches.get(indexPath);
                 if (geneContextCache == null) {
                     LOGGER.info("Creating new gene context cache for index {}", indexPath);
-                    geneContextCache = CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(10, TimeUnit.MINUTES)
+                    geneContextCache = CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(10, TimeUnit.MINUTES).recordStats()
                             .build(new CacheLoader<>() {
                                 @Override
                                 public Collection<String> load(ContextItemsCacheKey contextItemsCacheKey) throws Exception {
@@ -84,6 +85,7 @@ public class ContextItemsIndex implements SemanticIndex {
                     if (null != caches.put(indexPath, geneContextCache))
                         throw new IllegalStateException("There already is a candidate index for " + indexPath
                                 + " which points to a faulty concurrency implementation");
+                    MappingStatistics.registerCache("contextItems " + indexPath, geneContextCache);
                 } else {
                     LOGGER.info("Using existing gene context cache for index {}", indexPath);
                 }
@@ -54,6 +54,7 @@ import com.wcohen.ss.Jaccard;
 
 import de.julielab.jules.ae.genemapping.SynHit;
 import de.julielab.jules.ae.genemapping.index.ContextIndexFieldNames;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
 import de.julielab.jules.ae.genemapping.utils.ContextUtils;
 
 public class SemanticContextIndex implements  SemanticIndex{
@@ -86,10 +87,11 @@ public class SemanticContextIndex implements  SemanticIndex{
 			if (geneContextCache == null) {
 				LOGGER.info("Creating new gene context cache for index {}", indexPath);
 				geneContextCache = CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(10, TimeUnit.MINUTES)
-						.build();
+						.recordStats().build();
 				if (null != caches.put(indexPath, geneContextCache))
 					throw new IllegalStateException("There already is a candidate index for " + indexPath
 							+ " which points to a faulty concurrency implementation");
+				MappingStatistics.registerCache("semanticContext " + indexPath, geneContextCache);
 			} else {
 				LOGGER.info("Using existing gene context cache for index {}", indexPath);
 			}
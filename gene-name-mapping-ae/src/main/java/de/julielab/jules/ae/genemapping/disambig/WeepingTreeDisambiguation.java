@@ -63,7 +63,9 @@ public class WeepingTreeDisambiguation implements SemanticDisambiguation {
         final DocumentMappingResult documentMappingResult = new DocumentMappingResult();
         documentMappingResult.docId = disambiguationData.getDocument().getId();
         for (GeneMention gm : disambiguationData.getDocument().getGenesIterable()) {
-            disambiguateMention(new WeepingTreeMentionDisambiguationData(gm, ((WeepingTreeDocumentDisambiguationData) disambiguationData).getTaxonomyIds()));
+            long time = System.nanoTime();
+            final MentionMappingResult mmr = disambiguateMention(new WeepingTreeMentionDisambiguationData(gm, ((WeepingTreeDocumentDisambiguationData) disambiguationData).getTaxonomyIds()));
+            mmr.setDisambiguationTime(System.nanoTime() - time);
         }
         documentMappingResult.mentionResults = disambiguationData.getDocument().getGenes().map(GeneMention::getMentionMappingResult).collect(Collectors.toList());
         return documentMappingResult;
@@ -4,6 +4,8 @@ import com.fulmicoton.multiregexp.MultiPatternSearcher;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.TreeMultimap;
+import com.lahodiuk.ahocorasick.AhoCorasick;
+import com.lahodiuk.ahocorasick.AhoCorasickDoubleArray;
 import com.lahodiuk.ahocorasick.AhoCorasickOptimized;
 import de.julielab.java.utilities.FileUtilities;
 import de.julielab.java.utilities.IOStreamUtilities;
@@ -66,6 +68,7 @@ public class GeneDocument {
     private OffsetSet sentences;
     private SpeciesCandidates species;
     private AhoCorasickOptimized geneNameDictionary;
+    private AhoCorasick geneNameAutomaton;
     private TermNormalizer termNormalizer;
     private Map<String, String> taxId2Prefix;
     private Map<String, String> prefix2TaxId;
@@ -122,6 +125,7 @@ public class GeneDocument {
         sentences = template.sentences;
         species = template.species;
         geneNameDictionary = template.geneNameDictionary;
+        geneNameAutomaton = template.geneNameAutomaton;
         termNormalizer = template.termNormalizer;
     }
 
@@ -959,6 +963,10 @@ public class GeneDocument {
             getGeneMap().remove(gm.getOffsets());
     }
 
+    /**
+     * @deprecated Use {@link #getGeneNameAutomaton()}.
+     */
+    @Deprecated
     public AhoCorasickOptimized getGeneNameDictionary() {
         return geneNameDictionary;
     }
@@ -970,13 +978,34 @@ public class GeneDocument {
      *
      * @return A trie dictionary compiled from the names (text occurrence) of all
      * selected genes.
+     * @deprecated Use {@link #buildGeneNameAutomaton()} which finds the same
+     * matches with a fraction of the memory.
      */
+    @Deprecated
     public AhoCorasickOptimized buildGeneNameTrie() {
         geneNameDictionary = new AhoCorasickOptimized(
                 getGenes().map(GeneMention::getText).collect(Collectors.toList()));
         return geneNameDictionary;
     }
 
+    public AhoCorasick getGeneNameAutomaton() {
+        return geneNameAutomaton;
+    }
+
+    /**
+     * Builds an instance of {@link AhoCorasickDoubleArray} from the currently
+     * selected genes. The instance is stored internally and can also be retrieved
+     * by {@link #getGeneNameAutomaton()}.
+     *
+     * @return An automaton compiled from the names (text occurrence) of all
+     * selected genes.
+     */
+    public AhoCorasick buildGeneNameAutomaton() {
+        geneNameAutomaton = new AhoCorasickDoubleArray(
+                getGenes().map(GeneMention::getText).collect(Collectors.toList()));
+        return geneNameAutomaton;
+    }
+
     /**
      * Merges those gene sets that are connected via acronym resolution or, for gene
      * mentions that are not covered by any acronym, merges by name.
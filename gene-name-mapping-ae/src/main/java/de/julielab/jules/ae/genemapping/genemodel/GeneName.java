@@ -1,8 +1,9 @@
 package de.julielab.jules.ae.genemapping.genemodel;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
+import de.julielab.jules.ae.genemapping.stats.MappingStage;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
 import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
 
 public class GeneName {
@@ -38,14 +39,18 @@ public class GeneName {
 	public String getNormalizedText() {
 
 		if (null == normalizedText) {
+			long time = MappingStatistics.start();
 			normalizedText = getNormalizer().normalize(text);
+			MappingStatistics.record(MappingStage.NORMALIZATION, time);
 		}
 		return normalizedText;
 	}
 
 	public List<String> getNormalizedTextVariant() {
 		if (null == normalizedTextVariant) {
-			normalizedTextVariant = getNormalizer().generateVariants(text).stream().map(getNormalizer()::normalize).collect(Collectors.toList());
+			long time = MappingStatistics.start();
+			normalizedTextVariant = getNormalizer().normalizeVariants(text);
+			MappingStatistics.record(MappingStage.NORMALIZATION, time);
 		}
 		return normalizedTextVariant;
 	}
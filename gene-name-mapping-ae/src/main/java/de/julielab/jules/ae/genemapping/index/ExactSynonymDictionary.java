@@ -0,0 +1,395 @@
+package de.julielab.jules.ae.genemapping.index;
+
+import de.julielab.jules.ae.genemapping.LuceneCandidateRetrieval;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.*;
+import org.apache.lucene.util.Bits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * <p>An immutable in-memory map from the normalized synonyms of the mention index - including the normalized
+ * variants, since those are indexed as synonyms of their own - to the gene IDs, synonym priorities and taxonomy IDs
+ * of the respective index document.</p>
+ * <p>This dictionary serves the exact matches of normalized gene mentions without a Lucene query. The data is kept
+ * compact: all synonyms share a single character array addressed by an open addressing hash table and the gene
+ * entries are packed into an int array referring to pools of distinct gene and taxonomy IDs.</p>
+ * <p>The dictionary can be created from a mention index or read from the file {@link #SIDECAR_FILE_NAME} that the
+ * <tt>NameCentricSynonymIndexGenerator</tt> writes into the index directory.</p>
+ */
+public class ExactSynonymDictionary {
+    /**
+     * The name of the dictionary file within the mention index directory.
+     */
+    public static final String SIDECAR_FILE_NAME = "exactSynonymDictionary.bin";
+    private static final Logger log = LoggerFactory.getLogger(ExactSynonymDictionary.class);
+    private static final int FORMAT_VERSION = 2;
+    /**
+     * The number of ints per entry in {@link #entries}: the gene ID index, the taxonomy ID index and the priority.
+     */
+    private static final int ENTRY_SIZE = 3;
+
+    /**
+     * The number of documents in the index this dictionary was created from.
+     */
+    private final int indexMaxDoc;
+    /**
+     * The {@link IndexFingerprint} of the index commit this dictionary was created from, <tt>null</tt> if unknown.
+     */
+    private final String indexFingerprint;
+    private final char[] synonymChars;
+    /**
+     * The start of synonym <tt>i</tt> in {@link #synonymChars}; has one more element than there are synonyms.
+     */
+    private final int[] synonymOffsets;
+    /**
+     * The start of the entries of synonym <tt>i</tt> in {@link #entries}; has one more element than there are
+     * synonyms.
+     */
+    private final int[] entryOffsets;
+    private final int[] entries;
+    private final String[] geneIds;
+    private final String[] taxIds;
+    /**
+     * Open addressing hash table of synonym indices plus one; 0 marks an empty slot.
+     */
+    private final int[] table;
+
+    private ExactSynonymDictionary(int indexMaxDoc, String indexFingerprint, char[] synonymChars, int[] synonymOffsets, int[] entryOffsets, int[] entries, String[] geneIds, String[] taxIds) {
+        this.indexMaxDoc = indexMaxDoc;
+        this.indexFingerprint = indexFingerprint;
+        this.synonymChars = synonymChars;
+        this.synonymOffsets = synonymOffsets;
+        this.entryOffsets = entryOffsets;
+        this.entries = entries;
+        this.geneIds = geneIds;
+        this.taxIds = taxIds;
+        int numSynonyms = synonymOffsets.length - 1;
+        table = new int[Integer.highestOneBit(Math.max(2, numSynonyms) * 2 - 1) << 1];
+        for (int i = 0; i < numSynonyms; i++) {
+            int slot = hash(synonymChars, synonymOffsets[i], synonymOffsets[i + 1]) & (table.length - 1);
+            while (table[slot] != 0)
+                slot = (slot + 1) & (table.length - 1);
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Reads the whole mention index into a dictionary. The gene entries are taken from the DocValues if the index
+     * has them and from the stored fields otherwise.
+     *
+     * @param reader A reader of the mention index.
+     * @return The dictionary of the index.
+     * @throws IOException If reading the index fails.
+     */
+    public static ExactSynonymDictionary fromIndex(IndexReader reader) throws IOException {
+        Builder builder = new Builder(reader.maxDoc(), IndexFingerprint.of(reader));
+        List<String> ids = new ArrayList<>();
+        List<Integer> priorities = new ArrayList<>();
+        List<String> taxIds = new ArrayList<>();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            LeafReader leafReader = leaf.reader();
+            Bits liveDocs = leafReader.getLiveDocs();
+            FieldInfo entriesInfo = leafReader.getFieldInfos().fieldInfo(SynonymIndexFieldNames.GENE_ENTRIES);
+            BinaryDocValues synonymValues = null;
+            BinaryDocValues entryValues = null;
+            if (entriesInfo != null && entriesInfo.getDocValuesType() == DocValuesType.BINARY) {
+                synonymValues = DocValues.getBinary(leafReader, SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+                entryValues = DocValues.getBinary(leafReader, SynonymIndexFieldNames.GENE_ENTRIES);
+            }
+            for (int doc = 0; doc < leafReader.maxDoc(); doc++) {
+                if (liveDocs != null && !liveDocs.get(doc))
+                    continue;
+                ids.clear();
+                priorities.clear();
+                taxIds.clear();
+                String synonym;
+                if (synonymValues != null && synonymValues.advanceExact(doc) && entryValues.advanceExact(doc)) {
+                    synonym = synonymValues.binaryValue().utf8ToString();
+                    GeneEntriesCodec.decode(entryValues.binaryValue(), ids, priorities, taxIds);
+                } else {
+                    Document d = leafReader.document(doc);
+                    synonym = d.get(SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+                    for (IndexableField idField : d.getFields(SynonymIndexFieldNames.ID_FIELD)) {
+                        String[] split = idField.stringValue().split(LuceneCandidateRetrieval.NAME_PRIO_DELIMITER);
+                        ids.add(split[0]);
+                        priorities.add(Integer.valueOf(split[1]));
+                    }
+                    for (IndexableField taxField : d.getFields(SynonymIndexFieldNames.TAX_ID_FIELD))
+                        taxIds.add(taxField.stringValue());
+                }
+                if (synonym != null)
+                    builder.add(synonym, ids, priorities, taxIds);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the dictionary of the given mention index from its {@link #SIDECAR_FILE_NAME} file if it exists and
+     * was created from the commit of the index the reader is opened on, as identified by the
+     * {@link IndexFingerprint}. Otherwise, the dictionary is created from the index.
+     *
+     * @param indexDirectory The mention index directory.
+     * @param reader         A reader of the mention index.
+     * @return The dictionary of the index.
+     * @throws IOException If reading the file or the index fails.
+     */
+    public static ExactSynonymDictionary load(File indexDirectory, IndexReader reader) throws IOException {
+        File sidecarFile = new File(indexDirectory, SIDECAR_FILE_NAME);
+        if (sidecarFile.exists()) {
+            ExactSynonymDictionary dictionary = readIfCurrent(sidecarFile, reader);
+            if (dictionary != null) {
+                log.info("Read exact synonym dictionary with {} synonyms from {}", dictionary.size(), sidecarFile);
+                return dictionary;
+            }
+        }
+        long time = System.currentTimeMillis();
+        ExactSynonymDictionary dictionary = fromIndex(reader);
+        log.info("Created exact synonym dictionary with {} synonyms from index {} in {}ms", dictionary.size(), indexDirectory, System.currentTimeMillis() - time);
+        return dictionary;
+    }
+
+    /**
+     * @return The dictionary in the given file or <tt>null</tt> if it cannot be read or has not been created from
+     * the index commit the given reader is opened on.
+     */
+    private static ExactSynonymDictionary readIfCurrent(File file, IndexReader reader) throws IOException {
+        ExactSynonymDictionary dictionary;
+        try {
+            dictionary = read(file);
+        } catch (IOException e) {
+            log.warn("Could not read the exact synonym dictionary {}. The dictionary is created from the index instead.", file, e);
+            return null;
+        }
+        String indexFingerprint = IndexFingerprint.of(reader);
+        if (dictionary.indexMaxDoc != reader.maxDoc() || indexFingerprint == null || !indexFingerprint.equals(dictionary.indexFingerprint)) {
+            log.warn("The exact synonym dictionary {} was not created from the current commit of its index. The dictionary is created from the index instead.", file);
+            return null;
+        }
+        return dictionary;
+    }
+
+    public static ExactSynonymDictionary read(File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = dis.readInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException("The exact synonym dictionary " + file + " has format version " + version + " but version " + FORMAT_VERSION + " is required.");
+            int indexMaxDoc = dis.readInt();
+            String indexFingerprint = dis.readBoolean() ? dis.readUTF() : null;
+            String[] geneIds = readStrings(dis);
+            String[] taxIds = readStrings(dis);
+            char[] synonymChars = new char[dis.readInt()];
+            for (int i = 0; i < synonymChars.length; i++)
+                synonymChars[i] = dis.readChar();
+            int[] synonymOffsets = readInts(dis);
+            int[] entryOffsets = readInts(dis);
+            int[] entries = readInts(dis);
+            return new ExactSynonymDictionary(indexMaxDoc, indexFingerprint, synonymChars, synonymOffsets, entryOffsets, entries, geneIds, taxIds);
+        }
+    }
+
+    private static String[] readStrings(DataInputStream dis) throws IOException {
+        String[] strings = new String[dis.readInt()];
+        for (int i = 0; i < strings.length; i++)
+            strings[i] = dis.readUTF();
+        return strings;
+    }
+
+    private static int[] readInts(DataInputStream dis) throws IOException {
+        int[] ints = new int[dis.readInt()];
+        for (int i = 0; i < ints.length; i++)
+            ints[i] = dis.readInt();
+        return ints;
+    }
+
+    private static int hash(char[] chars, int begin, int end) {
+        int h = 0;
+        for (int i = begin; i < end; i++)
+            h = 31 * h + chars[i];
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(String s) {
+        int h = s.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dos.writeInt(FORMAT_VERSION);
+            dos.writeInt(indexMaxDoc);
+            dos.writeBoolean(indexFingerprint != null);
+            if (indexFingerprint != null)
+                dos.writeUTF(indexFingerprint);
+            writeStrings(dos, geneIds);
+            writeStrings(dos, taxIds);
+            dos.writeInt(synonymChars.length);
+            for (char c : synonymChars)
+                dos.writeChar(c);
+            writeInts(dos, synonymOffsets);
+            writeInts(dos, entryOffsets);
+            writeInts(dos, entries);
+        }
+    }
+
+    private void writeStrings(DataOutputStream dos, String[] strings) throws IOException {
+        dos.writeInt(strings.length);
+        for (String s : strings)
+            dos.writeUTF(s);
+    }
+
+    private void writeInts(DataOutputStream dos, int[] ints) throws IOException {
+        dos.writeInt(ints.length);
+        for (int i : ints)
+            dos.writeInt(i);
+    }
+
+    /**
+     * @param synonym A normalized synonym.
+     * @return The index of the synonym in this dictionary or -1 if the synonym is not contained.
+     */
+    public int lookup(String synonym) {
+        int slot = hash(synonym) & (table.length - 1);
+        int synonymIndex;
+        while ((synonymIndex = table[slot] - 1) >= 0) {
+            if (equals(synonymIndex, synonym))
+                return synonymIndex;
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    private boolean equals(int synonymIndex, String synonym) {
+        int begin = synonymOffsets[synonymIndex];
+        int length = synonymOffsets[synonymIndex + 1] - begin;
+        if (length != synonym.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (synonymChars[begin + i] != synonym.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param synonymIndex The index of a synonym, between 0 and {@link #size()} - 1.
+     * @return The normalized synonym with the given index.
+     */
+    public String getSynonym(int synonymIndex) {
+        return new String(synonymChars, synonymOffsets[synonymIndex], synonymOffsets[synonymIndex + 1] - synonymOffsets[synonymIndex]);
+    }
+
+    /**
+     * Adds the gene entries of the synonym with the given index to the passed lists, in the order of the index
+     * document.
+     *
+     * @param synonymIndex The synonym index as returned by {@link #lookup(String)}.
+     * @param ids          The list to add the gene IDs to.
+     * @param priorities   The list to add the priorities to.
+     * @param taxIds       The list to add the taxonomy IDs to.
+     */
+    public void getEntries(int synonymIndex, List<String> ids, List<? super Integer> priorities, List<String> taxIds) {
+        for (int i = entryOffsets[synonymIndex]; i < entryOffsets[synonymIndex + 1]; i += ENTRY_SIZE) {
+            ids.add(geneIds[entries[i]]);
+            taxIds.add(this.taxIds[entries[i + 1]]);
+            priorities.add(entries[i + 2]);
+        }
+    }
+
+    /**
+     * @param synonymIndex The synonym index as returned by {@link #lookup(String)}.
+     * @param taxId        A taxonomy ID.
+     * @return Whether at least one gene of the synonym belongs to the given taxonomy ID.
+     */
+    public boolean hasTaxId(int synonymIndex, String taxId) {
+        for (int i = entryOffsets[synonymIndex]; i < entryOffsets[synonymIndex + 1]; i += ENTRY_SIZE) {
+            if (taxIds[entries[i + 1]].equals(taxId))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of synonyms in this dictionary.
+     */
+    public int size() {
+        return synonymOffsets.length - 1;
+    }
+
+    /**
+     * Collects the synonyms and their entries and packs them into an {@link ExactSynonymDictionary}. Entries that are
+     * added for an already known synonym are appended to the existing entries of the synonym.
+     */
+    public static class Builder {
+        private final int indexMaxDoc;
+        private final String indexFingerprint;
+        private final Map<String, Integer> synonyms = new LinkedHashMap<>();
+        private final List<int[]> synonymEntries = new ArrayList<>();
+        private final Map<String, Integer> geneIds = new LinkedHashMap<>();
+        private final Map<String, Integer> taxIds = new LinkedHashMap<>();
+
+        /**
+         * @param indexMaxDoc The number of documents of the index the dictionary is created for.
+         */
+        public Builder(int indexMaxDoc) {
+            this(indexMaxDoc, null);
+        }
+
+        /**
+         * @param indexMaxDoc      The number of documents of the index the dictionary is created for.
+         * @param indexFingerprint The {@link IndexFingerprint} of the index commit the dictionary is created for,
+         *                         <tt>null</tt> if unknown. A dictionary file without a fingerprint is never used for
+         *                         an index.
+         */
+        public Builder(int indexMaxDoc, String indexFingerprint) {
+            this.indexMaxDoc = indexMaxDoc;
+            this.indexFingerprint = indexFingerprint;
+        }
+
+        public Builder add(String synonym, List<String> ids, List<? extends Number> priorities, List<String> taxIds) {
+            if (ids.size() != priorities.size() || ids.size() != taxIds.size())
+                throw new IllegalArgumentException("The number of IDs, priorities and taxonomy IDs must be equal but was " + ids.size() + ", " + priorities.size() + " and " + taxIds.size());
+            int[] packed = new int[ids.size() * ENTRY_SIZE];
+            for (int i = 0; i < ids.size(); i++) {
+                packed[i * ENTRY_SIZE] = geneIds.computeIfAbsent(ids.get(i), k -> geneIds.size());
+                packed[i * ENTRY_SIZE + 1] = this.taxIds.computeIfAbsent(taxIds.get(i), k -> this.taxIds.size());
+                packed[i * ENTRY_SIZE + 2] = priorities.get(i).intValue();
+            }
+            Integer synonymIndex = synonyms.get(synonym);
+            if (synonymIndex == null) {
+                synonyms.put(synonym, synonymEntries.size());
+                synonymEntries.add(packed);
+            } else {
+                int[] existing = synonymEntries.get(synonymIndex);
+                int[] merged = Arrays.copyOf(existing, existing.length + packed.length);
+                System.arraycopy(packed, 0, merged, existing.length, packed.length);
+                synonymEntries.set(synonymIndex, merged);
+            }
+            return this;
+        }
+
+        public ExactSynonymDictionary build() {
+            int numChars = synonyms.keySet().stream().mapToInt(String::length).sum();
+            int numEntryInts = synonymEntries.stream().mapToInt(e -> e.length).sum();
+            char[] synonymChars = new char[numChars];
+            int[] synonymOffsets = new int[synonyms.size() + 1];
+            int[] entryOffsets = new int[synonyms.size() + 1];
+            int[] entries = new int[numEntryInts];
+            int i = 0;
+            for (String synonym : synonyms.keySet()) {
+                synonym.getChars(0, synonym.length(), synonymChars, synonymOffsets[i]);
+                synonymOffsets[i + 1] = synonymOffsets[i] + synonym.length();
+                int[] packed = synonymEntries.get(i);
+                System.arraycopy(packed, 0, entries, entryOffsets[i], packed.length);
+                entryOffsets[i + 1] = entryOffsets[i] + packed.length;
+                ++i;
+            }
+            return new ExactSynonymDictionary(indexMaxDoc, indexFingerprint, synonymChars, synonymOffsets, entryOffsets, entries,
+                    geneIds.keySet().toArray(new String[0]), taxIds.keySet().toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.julielab.jules.ae.genemapping.index;
+
+import org.apache.lucene.util.BytesRef;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * <p>Encodes and decodes the gene entries of a synonym index document - the gene IDs with their synonym priorities
+ * and taxonomy IDs - into the single binary DocValues value stored in {@link SynonymIndexFieldNames#GENE_ENTRIES}.</p>
+ * <p>The entries are kept in one value instead of multi-valued DocValues fields because the latter sort and
+ * deduplicate their values which would break the correspondence between an ID and its taxonomy ID.</p>
+ */
+public class GeneEntriesCodec {
+
+    private GeneEntriesCodec() {
+    }
+
+    /**
+     * Encodes the given entries. All lists must have the same size, the i-th elements belong to the same entry.
+     *
+     * @param ids        The gene IDs.
+     * @param priorities The priorities the synonym has for each gene.
+     * @param taxIds     The taxonomy IDs of the genes, may contain empty strings.
+     * @return The binary representation of the entries.
+     * @throws IOException Should not happen since the data is written to memory.
+     */
+    public static BytesRef encode(List<String> ids, List<? extends Number> priorities, List<String> taxIds) throws IOException {
+        if (ids.size() != priorities.size() || ids.size() != taxIds.size())
+            throw new IllegalArgumentException("The number of IDs, priorities and taxonomy IDs must be equal but was " + ids.size() + ", " + priorities.size() + " and " + taxIds.size());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            dos.writeInt(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                dos.writeUTF(ids.get(i));
+                dos.writeInt(priorities.get(i).intValue());
+                dos.writeUTF(taxIds.get(i));
+            }
+        }
+        return new BytesRef(baos.toByteArray());
+    }
+
+    /**
+     * Decodes entries written by {@link #encode(List, List, List)} and adds them to the passed lists.
+     *
+     * @param bytes      The encoded entries.
+     * @param ids        The list to add the gene IDs to.
+     * @param priorities The list to add the priorities to.
+     * @param taxIds     The list to add the taxonomy IDs to.
+     * @throws IOException If the bytes are not in the expected format.
+     */
+    public static void decode(BytesRef bytes, List<String> ids, List<? super Integer> priorities, List<String> taxIds) throws IOException {
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes.bytes, bytes.offset, bytes.length));
+        int numEntries = dis.readInt();
+        for (int i = 0; i < numEntries; i++) {
+            ids.add(dis.readUTF());
+            priorities.add(dis.readInt());
+            taxIds.add(dis.readUTF());
+        }
+    }
+}
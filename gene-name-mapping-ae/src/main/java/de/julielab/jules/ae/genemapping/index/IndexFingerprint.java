@@ -0,0 +1,53 @@
+package de.julielab.jules.ae.genemapping.index;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.StringHelper;
+
+import java.io.IOException;
+
+/**
+ * <p>Identifies a commit of the mention index by its ID and the IDs of its segments, which change whenever the index
+ * is recreated or modified. Files derived from the index, like the {@link ExactSynonymDictionary} and the
+ * {@link TokenDictionary}, store the fingerprint of the commit they were created from and are only used for an index
+ * with the same fingerprint.</p>
+ */
+public class IndexFingerprint {
+
+    private IndexFingerprint() {
+    }
+
+    /**
+     * @param directory An index directory.
+     * @return The fingerprint of the latest commit in the directory.
+     * @throws IOException If the commit cannot be read.
+     */
+    public static String of(Directory directory) throws IOException {
+        return of(SegmentInfos.readLatestCommit(directory));
+    }
+
+    /**
+     * @param reader An index reader.
+     * @return The fingerprint of the commit the reader has been opened on or <tt>null</tt> if the reader is not a
+     * {@link DirectoryReader} and thus has no commit.
+     * @throws IOException If the commit cannot be read.
+     */
+    public static String of(IndexReader reader) throws IOException {
+        if (!(reader instanceof DirectoryReader))
+            return null;
+        IndexCommit commit = ((DirectoryReader) reader).getIndexCommit();
+        return of(SegmentInfos.readCommit(commit.getDirectory(), commit.getSegmentsFileName()));
+    }
+
+    private static String of(SegmentInfos segmentInfos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(StringHelper.idToString(segmentInfos.getId()));
+        for (SegmentCommitInfo segmentCommitInfo : segmentInfos)
+            sb.append(",").append(StringHelper.idToString(segmentCommitInfo.info.getId()));
+        return sb.toString();
+    }
+}
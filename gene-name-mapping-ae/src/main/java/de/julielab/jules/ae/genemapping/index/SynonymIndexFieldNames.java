@@ -9,6 +9,15 @@ public class SynonymIndexFieldNames {
 	 * The index field name for the normalized gene / protein name.
 	 */
 	public static final String LOOKUP_SYN_FIELD = "indexed_syn";
+	/**
+	 * The binary DocValues field holding the gene IDs, synonym priorities and
+	 * taxonomy IDs of a synonym document in a single value, encoded by
+	 * {@link GeneEntriesCodec}. Together with the binary DocValues of the
+	 * {@link #LOOKUP_SYN_FIELD}, this allows to read search hits without
+	 * loading stored fields. Indexes created before the introduction of this
+	 * field are read from the stored fields.
+	 */
+	public static final String GENE_ENTRIES = "gene_entries";
 	/**
 	 * The index field name for the original, unnormalized (however, lower-cased)
 	 * gene / protein name.
@@ -24,12 +33,24 @@ public class SynonymIndexFieldNames {
 	 * protein name.
 	 */
 	public static final String STEMMED_NORMALIZED_NAME = "stemmed_normalized_name";
+	/**
+	 * The index field name for the taxonomy IDs of the genes of a synonym. Also
+	 * has sorted set DocValues in newer indexes which are used to collect the
+	 * hits of multiple taxonomy IDs in a single search.
+	 */
 	public static final String TAX_ID_FIELD = "tax_id";
 	/**
 	 * A numerical priority where 1 is the highest priority. The highest priority is
-	 * given to official symbols, preferred names etc.
+	 * given to official symbols, preferred names etc. Also a numeric DocValues
+	 * field holding the highest priority (i.e. lowest number) of the synonym which
+	 * the index is sorted by.
 	 */
 	public static final String PRIORITY = "priority";
+	/**
+	 * A numeric DocValues field holding the length of the synonym. The index is
+	 * sorted by this field after the {@link #PRIORITY}.
+	 */
+	public static final String SYNONYM_LENGTH = "synonym_length";
 	/**
 	 * A boolean-numerical (0 or 1) value to indicate whether the value was
 	 * recognized as being unspecific or otherwise non-helpful. For experimental
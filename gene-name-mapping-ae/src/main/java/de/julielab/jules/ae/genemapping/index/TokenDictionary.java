@@ -0,0 +1,400 @@
+package de.julielab.jules.ae.genemapping.index;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.*;
+import org.apache.lucene.util.Bits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Maps the tokens of the normalized synonyms of the mention index to int IDs and holds the token ID array of the
+ * synonym of each index document. The scorers and the candidate filter compare names by these IDs instead of
+ * splitting and hashing the token strings for each candidate.</p>
+ * <p>Tokens are the non-empty parts of a normalized name between single spaces. Tokens that do not occur in the
+ * index get negative IDs by {@link #encode(String)}: -1 for the first distinct unknown token of the name, -2 for the
+ * second and so on. Thus, equal tokens of the same name always have equal IDs.</p>
+ * <p>The dictionary is created by the <tt>NameCentricSynonymIndexGenerator</tt> and written to the file
+ * {@link #SIDECAR_FILE_NAME} into the index directory. Like the {@link ExactSynonymDictionary}, the file is only
+ * used for the index it was created for.</p>
+ */
+public class TokenDictionary {
+    /**
+     * The name of the dictionary file within the mention index directory.
+     */
+    public static final String SIDECAR_FILE_NAME = "tokenDictionary.bin";
+    private static final Logger log = LoggerFactory.getLogger(TokenDictionary.class);
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * The number of documents in the index this dictionary was created from.
+     */
+    private final int indexMaxDoc;
+    /**
+     * The {@link IndexFingerprint} of the index commit this dictionary was created from, <tt>null</tt> if unknown.
+     */
+    private final String indexFingerprint;
+    private final char[] tokenChars;
+    /**
+     * The start of token <tt>i</tt> in {@link #tokenChars}; has one more element than there are tokens.
+     */
+    private final int[] tokenOffsets;
+    /**
+     * The start of the token IDs of the synonym of document <tt>i</tt> in {@link #synonymTokenIds}; has one more
+     * element than the index has documents.
+     */
+    private final int[] synonymOffsets;
+    private final int[] synonymTokenIds;
+    /**
+     * Open addressing hash table of token IDs plus one; 0 marks an empty slot.
+     */
+    private final int[] table;
+
+    private TokenDictionary(int indexMaxDoc, String indexFingerprint, char[] tokenChars, int[] tokenOffsets, int[] synonymOffsets, int[] synonymTokenIds) {
+        this.indexMaxDoc = indexMaxDoc;
+        this.indexFingerprint = indexFingerprint;
+        this.tokenChars = tokenChars;
+        this.tokenOffsets = tokenOffsets;
+        this.synonymOffsets = synonymOffsets;
+        this.synonymTokenIds = synonymTokenIds;
+        int numTokens = tokenOffsets.length - 1;
+        table = new int[Integer.highestOneBit(Math.max(2, numTokens) * 2 - 1) << 1];
+        for (int i = 0; i < numTokens; i++) {
+            int slot = hash(tokenChars, tokenOffsets[i], tokenOffsets[i + 1]) & (table.length - 1);
+            while (table[slot] != 0)
+                slot = (slot + 1) & (table.length - 1);
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Assigns IDs to the tokens of all synonyms of the mention index. The synonyms are taken from the DocValues if
+     * the index has them and from the stored fields otherwise.
+     *
+     * @param reader A reader of the mention index.
+     * @return The token dictionary of the index.
+     * @throws IOException If reading the index fails.
+     */
+    public static TokenDictionary fromIndex(IndexReader reader) throws IOException {
+        Builder builder = new Builder(reader.maxDoc(), IndexFingerprint.of(reader));
+        for (LeafReaderContext leaf : reader.leaves()) {
+            LeafReader leafReader = leaf.reader();
+            Bits liveDocs = leafReader.getLiveDocs();
+            FieldInfo synonymInfo = leafReader.getFieldInfos().fieldInfo(SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+            BinaryDocValues synonymValues = null;
+            if (synonymInfo != null && synonymInfo.getDocValuesType() == DocValuesType.BINARY)
+                synonymValues = DocValues.getBinary(leafReader, SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+            for (int doc = 0; doc < leafReader.maxDoc(); doc++) {
+                if (liveDocs != null && !liveDocs.get(doc))
+                    continue;
+                String synonym;
+                if (synonymValues != null && synonymValues.advanceExact(doc)) {
+                    synonym = synonymValues.binaryValue().utf8ToString();
+                } else {
+                    Document d = leafReader.document(doc);
+                    synonym = d.get(SynonymIndexFieldNames.LOOKUP_SYN_FIELD);
+                }
+                if (synonym != null)
+                    builder.add(leaf.docBase + doc, synonym);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the token dictionary of the given mention index from its {@link #SIDECAR_FILE_NAME} file. In contrast
+     * to the {@link ExactSynonymDictionary}, the dictionary is not created from the index if the file is missing,
+     * cannot be read or has not been created from the commit of the index the reader is opened on, as identified by
+     * the {@link IndexFingerprint}, because the scorers also work without it.
+     *
+     * @param indexDirectory The mention index directory.
+     * @param reader         A reader of the mention index.
+     * @return The dictionary of the index or <tt>null</tt> if the index has no matching dictionary file.
+     * @throws IOException If reading the index commit fails.
+     */
+    public static TokenDictionary load(File indexDirectory, IndexReader reader) throws IOException {
+        File sidecarFile = new File(indexDirectory, SIDECAR_FILE_NAME);
+        if (!sidecarFile.exists()) {
+            log.info("The mention index at {} has no token dictionary. Candidates are scored by their token strings.", indexDirectory);
+            return null;
+        }
+        TokenDictionary dictionary;
+        try {
+            dictionary = read(sidecarFile);
+        } catch (IOException e) {
+            log.warn("Could not read the token dictionary {}. Candidates are scored by their token strings.", sidecarFile, e);
+            return null;
+        }
+        String indexFingerprint = IndexFingerprint.of(reader);
+        if (dictionary.indexMaxDoc != reader.maxDoc() || indexFingerprint == null || !indexFingerprint.equals(dictionary.indexFingerprint)) {
+            log.warn("The token dictionary {} was not created from the current commit of its index. Candidates are scored by their token strings.", sidecarFile);
+            return null;
+        }
+        log.info("Read token dictionary with {} tokens from {}", dictionary.size(), sidecarFile);
+        return dictionary;
+    }
+
+    public static TokenDictionary read(File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = dis.readInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException("The token dictionary " + file + " has format version " + version + " but version " + FORMAT_VERSION + " is required.");
+            int indexMaxDoc = dis.readInt();
+            String indexFingerprint = dis.readBoolean() ? dis.readUTF() : null;
+            char[] tokenChars = new char[dis.readInt()];
+            for (int i = 0; i < tokenChars.length; i++)
+                tokenChars[i] = dis.readChar();
+            int[] tokenOffsets = readInts(dis);
+            int[] synonymOffsets = readInts(dis);
+            int[] synonymTokenIds = readInts(dis);
+            return new TokenDictionary(indexMaxDoc, indexFingerprint, tokenChars, tokenOffsets, synonymOffsets, synonymTokenIds);
+        }
+    }
+
+    private static int[] readInts(DataInputStream dis) throws IOException {
+        int[] ints = new int[dis.readInt()];
+        for (int i = 0; i < ints.length; i++)
+            ints[i] = dis.readInt();
+        return ints;
+    }
+
+    private static int hash(char[] chars, int begin, int end) {
+        int h = 0;
+        for (int i = begin; i < end; i++)
+            h = 31 * h + chars[i];
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(String s, int begin, int end) {
+        int h = 0;
+        for (int i = begin; i < end; i++)
+            h = 31 * h + s.charAt(i);
+        return h ^ (h >>> 16);
+    }
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dos.writeInt(FORMAT_VERSION);
+            dos.writeInt(indexMaxDoc);
+            dos.writeBoolean(indexFingerprint != null);
+            if (indexFingerprint != null)
+                dos.writeUTF(indexFingerprint);
+            dos.writeInt(tokenChars.length);
+            for (char c : tokenChars)
+                dos.writeChar(c);
+            writeInts(dos, tokenOffsets);
+            writeInts(dos, synonymOffsets);
+            writeInts(dos, synonymTokenIds);
+        }
+    }
+
+    private void writeInts(DataOutputStream dos, int[] ints) throws IOException {
+        dos.writeInt(ints.length);
+        for (int i : ints)
+            dos.writeInt(i);
+    }
+
+    /**
+     * @param token A token of a normalized name.
+     * @return The ID of the token or -1 if the token does not occur in the index.
+     */
+    public int getId(String token) {
+        return getId(token, 0, token.length());
+    }
+
+    private int getId(String name, int begin, int end) {
+        int slot = hash(name, begin, end) & (table.length - 1);
+        int tokenId;
+        while ((tokenId = table[slot] - 1) >= 0) {
+            if (equals(tokenId, name, begin, end))
+                return tokenId;
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    private boolean equals(int tokenId, String name, int begin, int end) {
+        int tokenBegin = tokenOffsets[tokenId];
+        if (tokenOffsets[tokenId + 1] - tokenBegin != end - begin)
+            return false;
+        for (int i = 0; i < end - begin; i++) {
+            if (tokenChars[tokenBegin + i] != name.charAt(begin + i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param tokenId A token ID between 0 and {@link #size()} - 1.
+     * @return The token with the given ID.
+     */
+    public String getToken(int tokenId) {
+        return new String(tokenChars, tokenOffsets[tokenId], tokenOffsets[tokenId + 1] - tokenOffsets[tokenId]);
+    }
+
+    /**
+     * Maps the tokens of a normalized name to their IDs. Tokens that do not occur in the index get negative IDs,
+     * see the class description.
+     *
+     * @param normalizedName A normalized name.
+     * @return The IDs of the tokens of the name.
+     */
+    public int[] encode(String normalizedName) {
+        int[] tokenIds = new int[numTokens(normalizedName)];
+        // the begin and end offsets of the distinct unknown tokens, created on demand
+        int[] unknownTokens = null;
+        int numUnknownTokens = 0;
+        int numTokens = 0;
+        int begin = 0;
+        while (begin < normalizedName.length()) {
+            int end = normalizedName.indexOf(' ', begin);
+            if (end < 0)
+                end = normalizedName.length();
+            if (end > begin) {
+                int tokenId = getId(normalizedName, begin, end);
+                if (tokenId < 0) {
+                    if (unknownTokens == null)
+                        unknownTokens = new int[tokenIds.length * 2];
+                    int unknownToken = 0;
+                    while (unknownToken < numUnknownTokens && !regionEquals(normalizedName, unknownTokens[2 * unknownToken], unknownTokens[2 * unknownToken + 1], begin, end))
+                        unknownToken++;
+                    if (unknownToken == numUnknownTokens) {
+                        unknownTokens[2 * numUnknownTokens] = begin;
+                        unknownTokens[2 * numUnknownTokens + 1] = end;
+                        numUnknownTokens++;
+                    }
+                    tokenId = -1 - unknownToken;
+                }
+                tokenIds[numTokens++] = tokenId;
+            }
+            begin = end + 1;
+        }
+        return tokenIds;
+    }
+
+    private static int numTokens(String name) {
+        int numTokens = 0;
+        boolean inToken = false;
+        for (int i = 0; i < name.length(); i++) {
+            boolean space = name.charAt(i) == ' ';
+            if (!space && !inToken)
+                numTokens++;
+            inToken = !space;
+        }
+        return numTokens;
+    }
+
+    private static boolean regionEquals(String s, int begin1, int end1, int begin2, int end2) {
+        return end1 - begin1 == end2 - begin2 && s.regionMatches(begin1, s, begin2, end1 - begin1);
+    }
+
+    /**
+     * @return The token IDs of the synonyms of all documents. The IDs of the synonym of a document range from
+     * {@link #getSynonymTokenIdsBegin(int)} to {@link #getSynonymTokenIdsEnd(int)}. The array is shared and must not
+     * be modified.
+     */
+    public int[] getSynonymTokenIds() {
+        return synonymTokenIds;
+    }
+
+    /**
+     * @param docID A document ID of the mention index.
+     * @return The position of the first token ID of the synonym of the document in {@link #getSynonymTokenIds()}.
+     */
+    public int getSynonymTokenIdsBegin(int docID) {
+        return synonymOffsets[docID];
+    }
+
+    /**
+     * @param docID A document ID of the mention index.
+     * @return The position after the last token ID of the synonym of the document in {@link #getSynonymTokenIds()};
+     * equal to the begin for a deleted document.
+     */
+    public int getSynonymTokenIdsEnd(int docID) {
+        return synonymOffsets[docID + 1];
+    }
+
+    /**
+     * @return The number of distinct tokens in this dictionary.
+     */
+    public int size() {
+        return tokenOffsets.length - 1;
+    }
+
+    /**
+     * Assigns the token IDs in the order in which the tokens are first seen and collects the token IDs of the
+     * synonyms of the index documents.
+     */
+    public static class Builder {
+        private final int indexMaxDoc;
+        private final String indexFingerprint;
+        private final Map<String, Integer> tokens = new LinkedHashMap<>();
+        private final int[][] documentTokenIds;
+
+        /**
+         * @param indexMaxDoc The number of documents of the index the dictionary is created for.
+         */
+        public Builder(int indexMaxDoc) {
+            this(indexMaxDoc, null);
+        }
+
+        /**
+         * @param indexMaxDoc      The number of documents of the index the dictionary is created for.
+         * @param indexFingerprint The {@link IndexFingerprint} of the index commit the dictionary is created for,
+         *                         <tt>null</tt> if unknown. A dictionary file without a fingerprint is never used for
+         *                         an index.
+         */
+        public Builder(int indexMaxDoc, String indexFingerprint) {
+            this.indexMaxDoc = indexMaxDoc;
+            this.indexFingerprint = indexFingerprint;
+            this.documentTokenIds = new int[indexMaxDoc][];
+        }
+
+        /**
+         * Adds the synonym of an index document.
+         *
+         * @param docID   The document ID.
+         * @param synonym The normalized synonym of the document.
+         * @return This builder.
+         */
+        public Builder add(int docID, String synonym) {
+            int[] tokenIds = new int[numTokens(synonym)];
+            int numTokens = 0;
+            int begin = 0;
+            while (begin < synonym.length()) {
+                int end = synonym.indexOf(' ', begin);
+                if (end < 0)
+                    end = synonym.length();
+                if (end > begin)
+                    tokenIds[numTokens++] = tokens.computeIfAbsent(synonym.substring(begin, end), k -> tokens.size());
+                begin = end + 1;
+            }
+            documentTokenIds[docID] = tokenIds;
+            return this;
+        }
+
+        public TokenDictionary build() {
+            int numChars = tokens.keySet().stream().mapToInt(String::length).sum();
+            char[] tokenChars = new char[numChars];
+            int[] tokenOffsets = new int[tokens.size() + 1];
+            int i = 0;
+            for (String token : tokens.keySet()) {
+                token.getChars(0, token.length(), tokenChars, tokenOffsets[i]);
+                tokenOffsets[i + 1] = tokenOffsets[i] + token.length();
+                ++i;
+            }
+            int[] synonymOffsets = new int[indexMaxDoc + 1];
+            for (int doc = 0; doc < indexMaxDoc; doc++)
+                synonymOffsets[doc + 1] = synonymOffsets[doc] + (documentTokenIds[doc] != null ? documentTokenIds[doc].length : 0);
+            int[] synonymTokenIds = new int[synonymOffsets[indexMaxDoc]];
+            for (int doc = 0; doc < indexMaxDoc; doc++) {
+                if (documentTokenIds[doc] != null)
+                    System.arraycopy(documentTokenIds[doc], 0, synonymTokenIds, synonymOffsets[doc], documentTokenIds[doc].length);
+            }
+            return new TokenDictionary(indexMaxDoc, indexFingerprint, tokenChars, tokenOffsets, synonymOffsets, synonymTokenIds);
+        }
+    }
+}
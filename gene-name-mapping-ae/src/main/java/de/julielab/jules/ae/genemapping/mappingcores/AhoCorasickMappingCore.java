@@ -0,0 +1,383 @@
+package de.julielab.jules.ae.genemapping.mappingcores;
+
+import com.lahodiuk.ahocorasick.AhoCorasickDoubleArray;
+import de.julielab.jules.ae.genemapping.*;
+import de.julielab.jules.ae.genemapping.disambig.SemanticDisambiguation;
+import de.julielab.jules.ae.genemapping.genemodel.GeneDocument;
+import de.julielab.jules.ae.genemapping.genemodel.GeneMention;
+import de.julielab.jules.ae.genemapping.index.ExactSynonymDictionary;
+import de.julielab.jules.ae.genemapping.scoring.Scorer;
+import de.julielab.jules.ae.genemapping.stats.MappingStage;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
+import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
+import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>A high-throughput mapping for jobs that only need the dictionary synonyms found in the gene mentions. All
+ * normalized synonyms of the mention index - as given by its {@link ExactSynonymDictionary} - are compiled into a
+ * single Aho-Corasick automaton. The normalized text of each gene mention is scanned with this automaton and the
+ * longest synonym found is resolved directly to the gene and taxonomy IDs of the dictionary, without any Lucene
+ * query. Thus, mapping is linear in the length of the mention texts.</p>
+ * <p>By default, only synonyms that cover the whole normalized mention are accepted. With {@link #PARTIAL_MATCHES},
+ * the longest synonym consisting of whole tokens of the mention is accepted, too. With {@link #DOCUMENT_SCAN}, the
+ * distinct normalized mention texts of a document are concatenated and scanned in a single pass.</p>
+ * <p>Mentions without a synonym match are mapped with the best-scoring candidates of the
+ * {@link LuceneCandidateRetrieval} unless {@link #LUCENE_FALLBACK} is switched off. The result entries of a mention
+ * are all genes of the found synonym that belong to one of the taxonomy IDs of the mention or, if the mention has
+ * none, to one of the taxonomy IDs given by {@link WeepingTreeMappingCore#TAX_IDS}, if any. There is no further
+ * disambiguation.</p>
+ * <p>The automaton is shared by all instances using the same mention index. It is read from the file
+ * {@link #AUTOMATON_FILE_NAME} in the mention index directory if it exists and matches the synonym dictionary of the
+ * index. Otherwise, it is compiled from the dictionary.</p>
+ */
+public class AhoCorasickMappingCore implements MappingCore {
+    /**
+     * Configuration parameter. Whether all gene mention texts of a document should be scanned in a single pass
+     * instead of one scan per mention. Defaults to <tt>false</tt>.
+     */
+    public static final String DOCUMENT_SCAN = "aho_corasick_document_scan";
+    /**
+     * Configuration parameter. Whether synonyms that only cover some of the tokens of a normalized mention are
+     * accepted. Defaults to <tt>false</tt>.
+     */
+    public static final String PARTIAL_MATCHES = "aho_corasick_partial_matches";
+    /**
+     * Configuration parameter. Whether mentions without a synonym match are mapped by a Lucene search. Defaults to
+     * <tt>true</tt>.
+     */
+    public static final String LUCENE_FALLBACK = "aho_corasick_lucene_fallback";
+    /**
+     * The name of the file in the mention index directory that stores the compiled synonym automaton.
+     */
+    public static final String AUTOMATON_FILE_NAME = "synonymAutomaton.bin";
+    private static final Logger log = LoggerFactory.getLogger(AhoCorasickMappingCore.class);
+    /**
+     * Separates the mention texts for the document scan. Normalized texts never contain it since normalization
+     * splits at whitespace.
+     */
+    private static final char TEXT_SEPARATOR = '\n';
+    /**
+     * The synonym automata by mention index. The ID of a synonym in the automaton is its index in the exact synonym
+     * dictionary of the mention index.
+     */
+    private static final Map<String, AhoCorasickDoubleArray> automata = new HashMap<>();
+    private final Set<String> filterTaxIds;
+    private final boolean documentScan;
+    private final boolean partialMatches;
+    private final boolean luceneFallback;
+    private final TermNormalizer normalizer;
+    private final LuceneCandidateRetrieval candidateRetrieval;
+    private final ExactSynonymDictionary dictionary;
+    private final AhoCorasickDoubleArray automaton;
+
+    public AhoCorasickMappingCore(GeneMappingConfiguration configuration) throws GeneMappingException {
+        this.candidateRetrieval = new LuceneCandidateRetrieval(configuration);
+        this.normalizer = candidateRetrieval.getNormalizer();
+        filterTaxIds = Stream.of(configuration.getProperty(WeepingTreeMappingCore.TAX_IDS, "").split(",")).map(String::trim).filter(Predicate.not(String::isBlank)).collect(Collectors.toSet());
+        documentScan = Boolean.parseBoolean(configuration.getProperty(DOCUMENT_SCAN, "false"));
+        partialMatches = Boolean.parseBoolean(configuration.getProperty(PARTIAL_MATCHES, "false"));
+        luceneFallback = Boolean.parseBoolean(configuration.getProperty(LUCENE_FALLBACK, "true"));
+        try {
+            dictionary = candidateRetrieval.getExactSynonymDictionary();
+        } catch (IOException e) {
+            throw new GeneMappingException(e);
+        }
+        automaton = getAutomaton(configuration.getProperty(GeneMappingConfiguration.MENTION_INDEX), dictionary);
+    }
+
+    private static AhoCorasickDoubleArray getAutomaton(String mentionIndex, ExactSynonymDictionary dictionary) {
+        synchronized (automata) {
+            AhoCorasickDoubleArray automaton = automata.get(mentionIndex);
+            if (automaton == null) {
+                automaton = readAutomaton(new File(mentionIndex, AUTOMATON_FILE_NAME), dictionary);
+                if (automaton == null) {
+                    long time = System.currentTimeMillis();
+                    automaton = createAutomaton(dictionary);
+                    log.info("Compiled {} synonyms of index {} into an Aho-Corasick automaton in {}ms", dictionary.size(), mentionIndex, System.currentTimeMillis() - time);
+                }
+                automata.put(mentionIndex, automaton);
+            }
+            return automaton;
+        }
+    }
+
+    /**
+     * Reads the automaton from the given file if it exists and its patterns are exactly the synonyms of the
+     * dictionary.
+     *
+     * @param automatonFile The automaton file.
+     * @param dictionary    The synonym dictionary of the mention index.
+     * @return The automaton or <tt>null</tt> if the file does not exist, cannot be read or does not match the
+     * dictionary.
+     */
+    private static AhoCorasickDoubleArray readAutomaton(File automatonFile, ExactSynonymDictionary dictionary) {
+        if (!automatonFile.exists())
+            return null;
+        long time = System.currentTimeMillis();
+        AhoCorasickDoubleArray automaton;
+        try {
+            automaton = AhoCorasickDoubleArray.read(automatonFile);
+        } catch (IOException e) {
+            log.warn("Could not read the synonym automaton {}. The automaton is compiled from the synonym dictionary instead.", automatonFile, e);
+            return null;
+        }
+        boolean matchesDictionary = automaton.getNumPatterns() == dictionary.size();
+        for (int i = 0; matchesDictionary && i < dictionary.size(); i++)
+            matchesDictionary = automaton.getPattern(i).equals(dictionary.getSynonym(i));
+        if (!matchesDictionary) {
+            log.warn("The synonym automaton {} does not match the synonym dictionary of its index. The automaton is compiled from the synonym dictionary instead.", automatonFile);
+            return null;
+        }
+        log.info("Read the Aho-Corasick automaton of {} synonyms from {} in {}ms", automaton.getNumPatterns(), automatonFile, System.currentTimeMillis() - time);
+        return automaton;
+    }
+
+    /**
+     * Compiles the synonyms of the given dictionary into an automaton. The ID of each synonym in the automaton is its
+     * index in the dictionary.
+     *
+     * @param dictionary A synonym dictionary.
+     * @return The automaton of all synonyms of the dictionary.
+     */
+    public static AhoCorasickDoubleArray createAutomaton(ExactSynonymDictionary dictionary) {
+        List<String> synonyms = new ArrayList<>(dictionary.size());
+        for (int i = 0; i < dictionary.size(); i++)
+            synonyms.add(dictionary.getSynonym(i));
+        return new AhoCorasickDoubleArray(synonyms);
+    }
+
+    @Override
+    public MentionMappingResult map(GeneMention geneMention) throws GeneMappingException {
+        long time = System.nanoTime();
+        List<SynHit> hits = Collections.emptyList();
+        String normalizedText = geneMention.getNormalizedText();
+        if (!normalizedText.isEmpty()) {
+            int synonymIndex = scan(Collections.singletonList(normalizedText))[0];
+            if (synonymIndex >= 0)
+                hits = resolve(synonymIndex, geneMention);
+        }
+        if (hits.isEmpty() && luceneFallback)
+            hits = resolve(candidateRetrieval.getCandidates(geneMention), geneMention);
+        time = System.nanoTime() - time;
+        MentionMappingResult mappingResult = createMappingResult(geneMention, hits);
+        mappingResult.setCandidateRetrievalTime(time);
+        return mappingResult;
+    }
+
+    @Override
+    public DocumentMappingResult map(GeneDocument document) throws GeneMappingException {
+        List<GeneMention> genes = new ArrayList<>();
+        for (GeneMention gm : document.getGenesIterable()) {
+            gm.setNormalizer(normalizer);
+            genes.add(gm);
+        }
+        long time = System.nanoTime();
+        // repeated mentions of the same name are scanned once
+        Map<String, Integer> textIndices = new LinkedHashMap<>();
+        for (GeneMention gm : genes) {
+            if (!gm.getNormalizedText().isEmpty())
+                textIndices.putIfAbsent(gm.getNormalizedText(), textIndices.size());
+        }
+        List<String> texts = new ArrayList<>(textIndices.keySet());
+        int[] synonymIndices;
+        if (documentScan) {
+            synonymIndices = scan(texts);
+        } else {
+            synonymIndices = new int[texts.size()];
+            for (int i = 0; i < texts.size(); i++)
+                synonymIndices[i] = scan(Collections.singletonList(texts.get(i)))[0];
+        }
+
+        List<List<SynHit>> hits = new ArrayList<>(genes.size());
+        List<GeneMention> unmatchedGenes = new ArrayList<>();
+        for (GeneMention gm : genes) {
+            Integer textIndex = textIndices.get(gm.getNormalizedText());
+            List<SynHit> geneHits = textIndex != null && synonymIndices[textIndex] >= 0 ? resolve(synonymIndices[textIndex], gm) : Collections.emptyList();
+            hits.add(geneHits);
+            if (geneHits.isEmpty())
+                unmatchedGenes.add(gm);
+        }
+        if (luceneFallback && !unmatchedGenes.isEmpty()) {
+            List<List<SynHit>> candidates = candidateRetrieval.getCandidates(unmatchedGenes);
+            for (int i = 0, j = 0; i < genes.size(); i++) {
+                if (hits.get(i).isEmpty())
+                    hits.set(i, resolve(candidates.get(j++), genes.get(i)));
+            }
+        }
+        long candidateRetrievalTime = System.nanoTime() - time;
+
+        DocumentMappingResult documentMappingResult = new DocumentMappingResult();
+        documentMappingResult.docId = document.getId();
+        for (int i = 0; i < genes.size(); i++) {
+            MentionMappingResult mappingResult = createMappingResult(genes.get(i), hits.get(i));
+            mappingResult.setCandidateRetrievalTime(candidateRetrievalTime / genes.size());
+            documentMappingResult.mentionResults.add(mappingResult);
+        }
+        documentMappingResult.candidateRetrievalTime = candidateRetrievalTime;
+        return documentMappingResult;
+    }
+
+    /**
+     * Scans the given normalized texts in a single pass.
+     *
+     * @param texts Non-empty normalized texts.
+     * @return For each text, the dictionary index of the longest accepted synonym found in it or -1 if there is
+     * none.
+     */
+    private int[] scan(List<String> texts) {
+        long time = MappingStatistics.start();
+        String text;
+        int[] segmentStarts = new int[texts.size() + 1];
+        if (texts.size() == 1) {
+            text = texts.get(0);
+        } else {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < texts.size(); i++) {
+                segmentStarts[i] = sb.length();
+                sb.append(texts.get(i)).append(TEXT_SEPARATOR);
+            }
+            text = sb.toString();
+        }
+        // the start of the text following the last segment and its separator
+        segmentStarts[texts.size()] = texts.size() == 1 ? text.length() + 1 : text.length();
+        LongestMatchCollector collector = new LongestMatchCollector(text, segmentStarts);
+        automaton.matchPatternIds(text, collector);
+        MappingStatistics.record(MappingStage.DICTIONARY_SCAN, time);
+        return collector.synonymIndices;
+    }
+
+    /**
+     * Creates one hit for each gene of the synonym with the given index that is compatible with the taxonomy IDs
+     * for the mention.
+     */
+    private List<SynHit> resolve(int synonymIndex, GeneMention geneMention) {
+        List<String> ids = new ArrayList<>();
+        List<Integer> priorities = new ArrayList<>();
+        List<String> taxIds = new ArrayList<>();
+        dictionary.getEntries(synonymIndex, ids, priorities, taxIds);
+        String synonym = dictionary.getSynonym(synonymIndex);
+        String normalizedText = geneMention.getNormalizedText();
+        Scorer scorer = candidateRetrieval.getScorer();
+        double score = synonym.equals(normalizedText) || scorer.getScorerType() == GeneMapping.LUCENE_SCORER ? Scorer.PERFECT_SCORE : scorer.getScore(normalizedText, synonym);
+        return resolve(synonym, score, ids, taxIds, priorities, geneMention);
+    }
+
+    /**
+     * Creates one hit for each gene of the best-scoring candidates that is compatible with the taxonomy IDs for the
+     * mention.
+     */
+    private List<SynHit> resolve(List<SynHit> candidates, GeneMention geneMention) {
+        if (candidates.isEmpty())
+            return Collections.emptyList();
+        List<SynHit> hits = new ArrayList<>();
+        double bestScore = candidates.get(0).getMentionScore();
+        for (int i = 0; i < candidates.size() && candidates.get(i).getMentionScore() == bestScore; i++) {
+            SynHit candidate = candidates.get(i);
+            hits.addAll(resolve(candidate.getSynonym(), candidate.getMentionScore(), candidate.getIds(), candidate.getTaxIds(), candidate.getSynonymPriorities(), geneMention));
+        }
+        return hits;
+    }
+
+    private List<SynHit> resolve(String synonym, double score, List<String> ids, List<String> taxIds, List<? extends Number> priorities, GeneMention geneMention) {
+        Set<String> allowedTaxIds = geneMention.getTaxonomyIds().isEmpty() ? filterTaxIds : geneMention.getTaxonomyIds();
+        List<SynHit> hits = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String taxId = taxIds.get(i);
+            if (!allowedTaxIds.isEmpty() && !allowedTaxIds.contains(taxId))
+                continue;
+            SynHit hit = new SynHit(synonym, score, Collections.singletonList(ids.get(i)), GeneMapping.SOURCE_DEFINITION, Collections.singletonList(taxId));
+            hit.setSynonymPriorities(Collections.singletonList(priorities.get(i)));
+            hit.setMappedMention(geneMention.getText());
+            hit.setMappedGeneName(geneMention.getGeneName());
+            hit.setTaxId(taxId);
+            hits.add(hit);
+        }
+        hits.sort(Comparator.comparingInt(SynHit::getSynonymPriority));
+        return hits;
+    }
+
+    private MentionMappingResult createMappingResult(GeneMention geneMention, List<SynHit> hits) {
+        MentionMappingResult mappingResult = new MentionMappingResult();
+        mappingResult.mappedMention = geneMention;
+        mappingResult.originalCandidates = hits;
+        if (hits.isEmpty()) {
+            mappingResult.resultEntries = MentionMappingResult.REJECTION;
+        } else {
+            mappingResult.bestCandidate = hits;
+            mappingResult.resultEntries = hits;
+            mappingResult.ambiguityDegree = hits.size();
+            mappingResult.matchType = hits.get(0).isExactMatch() ? MentionMappingResult.MatchType.EXACT : MentionMappingResult.MatchType.APPROX;
+        }
+        geneMention.setMentionMappingResult(mappingResult);
+        return mappingResult;
+    }
+
+    @Override
+    public SemanticDisambiguation getSemanticDisambiguation() {
+        return null;
+    }
+
+    @Override
+    public CandidateRetrieval getCandidateRetrieval() {
+        return candidateRetrieval;
+    }
+
+    @Override
+    public TermNormalizer getTermNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Keeps the longest accepted match for each text segment of the scanned text. The segments are delimited by
+     * {@link #TEXT_SEPARATOR}.
+     */
+    private class LongestMatchCollector implements AhoCorasickDoubleArray.PatternIdCallback {
+        private final String text;
+        /**
+         * The start of each segment; the last element is the position after the last separator.
+         */
+        private final int[] segmentStarts;
+        private final int[] synonymIndices;
+        private final int[] matchLengths;
+        private int segment;
+
+        private LongestMatchCollector(String text, int[] segmentStarts) {
+            this.text = text;
+            this.segmentStarts = segmentStarts;
+            synonymIndices = new int[segmentStarts.length - 1];
+            matchLengths = new int[segmentStarts.length - 1];
+            Arrays.fill(synonymIndices, -1);
+        }
+
+        @Override
+        public void onMatch(int startPosition, int endPosition, int patternId) {
+            // the matches are reported in the order of their end positions
+            while (endPosition >= segmentStarts[segment + 1])
+                ++segment;
+            int segmentStart = segmentStarts[segment];
+            // the position of the separator or the end of the text
+            int segmentEnd = segmentStarts[segment + 1] - 1;
+            if (startPosition < segmentStart || endPosition >= segmentEnd)
+                return;
+            boolean accepted;
+            if (partialMatches)
+                accepted = (startPosition == segmentStart || text.charAt(startPosition - 1) == ' ') && (endPosition + 1 == segmentEnd || text.charAt(endPosition + 1) == ' ');
+            else
+                accepted = startPosition == segmentStart && endPosition + 1 == segmentEnd;
+            int length = endPosition - startPosition + 1;
+            if (accepted && length > matchLengths[segment]) {
+                matchLengths[segment] = length;
+                synonymIndices[segment] = patternId;
+            }
+        }
+    }
+}
@@ -6,6 +6,8 @@ import de.julielab.jules.ae.genemapping.disambig.WeepingTreeDisambiguation;
 import de.julielab.jules.ae.genemapping.disambig.WeepingTreeDocumentDisambiguationData;
 import de.julielab.jules.ae.genemapping.genemodel.GeneDocument;
 import de.julielab.jules.ae.genemapping.genemodel.GeneMention;
+import de.julielab.jules.ae.genemapping.stats.MappingStage;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
 import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
 import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
 
@@ -31,8 +33,8 @@ public class WeepingTreeMappingCore implements MappingCore {
     private LuceneCandidateRetrieval candidateRetrieval;
 
     public WeepingTreeMappingCore(GeneMappingConfiguration configuration) throws GeneMappingException {
-        this.normalizer = new TermNormalizer();
         this.candidateRetrieval = new LuceneCandidateRetrieval(configuration);
+        this.normalizer = candidateRetrieval.getNormalizer();
         filterTaxIds = Stream.of(configuration.getProperty(TAX_IDS, "").split(",")).map(String::trim).filter(Predicate.not(String::isBlank)).collect(Collectors.toSet());
         if (filterTaxIds.isEmpty())
             throw new GeneMappingException("Missing configuration property '" + TAX_IDS + "'. You must specify at least one taxonomy ID to which all gene mentions should be mapped. You can specify multiple possibilities by providing a comma separated list of tax IDs.");
@@ -41,10 +43,20 @@ public class WeepingTreeMappingCore implements MappingCore {
 
     @Override
     public MentionMappingResult map(GeneMention geneMention) throws GeneMappingException {
-        final List<SynHit> candidates = candidateRetrieval.getCandidates(geneMention);
+        long time = System.nanoTime();
+        List<SynHit> candidates = candidateRetrieval.getCandidates(geneMention);
+        time = System.nanoTime() - time;
+        MentionMappingResult mappingResult = map(geneMention, candidates);
+        mappingResult.setCandidateRetrievalTime(time);
+        return mappingResult;
+    }
+
+    private MentionMappingResult map(GeneMention geneMention, List<SynHit> candidates) {
         final MentionMappingResult mappingResult = new MentionMappingResult();
         mappingResult.originalCandidates = candidates;
+        long time = MappingStatistics.start();
         mappingResult.bestCandidate = getBestSynonyms(candidates, filterTaxIds);
+        MappingStatistics.record(MappingStage.CANDIDATE_SELECTION, time);
         mappingResult.mappedMention = geneMention;
         mappingResult.resultEntries = MentionMappingResult.REJECTION;
         geneMention.setMentionMappingResult(mappingResult);
@@ -113,10 +125,21 @@ public class WeepingTreeMappingCore implements MappingCore {
     @Override
     public DocumentMappingResult map(GeneDocument document) throws GeneMappingException {
 
+        List<GeneMention> genes = new ArrayList<>();
         for (GeneMention gm : document.getGenesIterable()) {
             gm.setNormalizer(normalizer);
-            map(gm);
+            genes.add(gm);
         }
-        return disambiguation.disambiguateDocument(new WeepingTreeDocumentDisambiguationData(document, filterTaxIds));
+        // retrieve the candidates for all genes of the document at once to avoid repeated lookups of the same names
+        long time = System.nanoTime();
+        final List<List<SynHit>> candidates = candidateRetrieval.getCandidates(genes);
+        long candidateRetrievalTime = System.nanoTime() - time;
+        for (int i = 0; i < genes.size(); i++)
+            map(genes.get(i), candidates.get(i)).setCandidateRetrievalTime(candidateRetrievalTime / genes.size());
+        time = MappingStatistics.start();
+        final DocumentMappingResult documentMappingResult = disambiguation.disambiguateDocument(new WeepingTreeDocumentDisambiguationData(document, filterTaxIds));
+        documentMappingResult.disambiguationTime = MappingStatistics.record(MappingStage.DISAMBIGUATION, time);
+        documentMappingResult.candidateRetrievalTime = candidateRetrievalTime;
+        return documentMappingResult;
     }
 }
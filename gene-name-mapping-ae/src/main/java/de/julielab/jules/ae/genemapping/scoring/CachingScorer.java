@@ -0,0 +1,200 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * <p>
+ * Remembers the scores of another scorer for pairs of normalized mentions
+ * and normalized synonyms. The scores of all scorers only depend on the two
+ * terms, thus the same pair - which is frequent since gene names follow a
+ * Zipf distribution - needs to be scored only once, even if the candidates of
+ * the mention have been evicted from the candidate cache.
+ * </p>
+ * <p>
+ * The cache holds at most the given number of pairs. Its hit rate can be
+ * obtained by {@link #getStats()} or by registering the cache with the
+ * <tt>MappingStatistics</tt>. The size is configured via
+ * <tt>GeneMappingConfiguration#SCORE_CACHE_SIZE</tt>.
+ * </p>
+ * <p>
+ * Scorers whose scores depend on the other candidates of a batch, like a
+ * {@link LevenshteinScorer} that prunes to the best candidate, are rejected.
+ * </p>
+ */
+public class CachingScorer extends Scorer {
+
+	private final Scorer scorer;
+	private final Cache<ScoredPair, Double> scores;
+
+	/**
+	 * @param scorer
+	 *            the scorer whose scores are cached
+	 * @param maximumSize
+	 *            the maximum number of cached pairs
+	 * @throws IllegalArgumentException
+	 *             if the scores of the scorer cannot be cached, see
+	 *             {@link #isCacheable(Scorer)}
+	 */
+	public CachingScorer(Scorer scorer, long maximumSize) {
+		if (!isCacheable(scorer))
+			throw new IllegalArgumentException("The scores of " + scorer.info()
+					+ " depend on the other candidates of a batch and cannot be cached.");
+		this.scorer = scorer;
+		this.scores = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+	}
+
+	@Override
+	public double getScore(String term1, String term2) throws RuntimeException {
+		if (term1 == null || term2 == null)
+			return scorer.getScore(term1, term2);
+		ScoredPair pair = new ScoredPair(term1, term2);
+		Double score = scores.getIfPresent(pair);
+		if (score == null) {
+			// concurrent misses for the same pair may compute the score twice,
+			// which is cheaper than locking
+			score = scorer.getScore(term1, term2);
+			scores.put(pair, score);
+		}
+		return score;
+	}
+
+	/**
+	 * the candidates that are not in the cache are scored in one batch by the
+	 * wrapped scorer
+	 */
+	@Override
+	public void scoreAll(String mention, List<String> candidates, double[] scores) throws RuntimeException {
+		scoreAll(mention, null, candidates, null, null, null, scores);
+	}
+
+	@Override
+	public void scoreAll(String mention, int[] mentionTokenIds, List<String> candidates, int[] tokenIds,
+			int[] candidateBegins, int[] candidateEnds, double[] scores) throws RuntimeException {
+		if (mention == null || candidates.contains(null)) {
+			if (mentionTokenIds != null)
+				scorer.scoreAll(mention, mentionTokenIds, candidates, tokenIds, candidateBegins, candidateEnds, scores);
+			else
+				scorer.scoreAll(mention, candidates, scores);
+			return;
+		}
+		List<Integer> misses = new ArrayList<>();
+		for (int i = 0; i < candidates.size(); i++) {
+			Double score = this.scores.getIfPresent(new ScoredPair(mention, candidates.get(i)));
+			if (score != null)
+				scores[i] = score;
+			else
+				misses.add(i);
+		}
+		if (misses.isEmpty())
+			return;
+		List<String> missedCandidates = new ArrayList<>(misses.size());
+		int[] missedBegins = mentionTokenIds != null ? new int[misses.size()] : null;
+		int[] missedEnds = mentionTokenIds != null ? new int[misses.size()] : null;
+		for (int i = 0; i < misses.size(); i++) {
+			missedCandidates.add(candidates.get(misses.get(i)));
+			if (mentionTokenIds != null) {
+				missedBegins[i] = candidateBegins[misses.get(i)];
+				missedEnds[i] = candidateEnds[misses.get(i)];
+			}
+		}
+		double[] missedScores = new double[misses.size()];
+		if (mentionTokenIds != null)
+			scorer.scoreAll(mention, mentionTokenIds, missedCandidates, tokenIds, missedBegins, missedEnds, missedScores);
+		else
+			scorer.scoreAll(mention, missedCandidates, missedScores);
+		for (int i = 0; i < misses.size(); i++) {
+			scores[misses.get(i)] = missedScores[i];
+			this.scores.put(new ScoredPair(mention, missedCandidates.get(i)), missedScores[i]);
+		}
+	}
+
+	/**
+	 * @return the hit and miss counts of the cache
+	 */
+	public CacheStats getStats() {
+		return scores.stats();
+	}
+
+	/**
+	 * @return the cache, e.g. for registering it with the
+	 *         <tt>MappingStatistics</tt>
+	 */
+	public Cache<?, ?> getCache() {
+		return scores;
+	}
+
+	public void invalidateAll() {
+		scores.invalidateAll();
+	}
+
+	/**
+	 * @param scorer
+	 *            a scorer, possibly a {@link CascadeScorer}
+	 * @return <tt>false</tt> if the scorer or a stage of the cascade is a
+	 *         {@link LevenshteinScorer} that prunes to the best candidate
+	 */
+	public static boolean isCacheable(Scorer scorer) {
+		if (scorer instanceof LevenshteinScorer)
+			return !((LevenshteinScorer) scorer).isPruneToBestCandidate();
+		if (scorer instanceof CascadeScorer) {
+			for (Scorer stage : ((CascadeScorer) scorer).getScorers()) {
+				if (!isCacheable(stage))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the scorer whose scores are cached
+	 */
+	public Scorer getScorer() {
+		return scorer;
+	}
+
+	@Override
+	public String info() {
+		return scorer.info();
+	}
+
+	@Override
+	public int getScorerType() {
+		return scorer.getScorerType();
+	}
+
+	/**
+	 * A pair of terms. The hash code is computed once since each pair is hashed
+	 * for the lookup and again for a possible insertion.
+	 */
+	private static class ScoredPair {
+		private final String term1;
+		private final String term2;
+		private final int hashCode;
+
+		private ScoredPair(String term1, String term2) {
+			this.term1 = term1;
+			this.term2 = term2;
+			this.hashCode = 31 * term1.hashCode() + term2.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof ScoredPair))
+				return false;
+			ScoredPair other = (ScoredPair) obj;
+			return hashCode == other.hashCode && term1.equals(other.term1) && term2.equals(other.term2);
+		}
+	}
+}
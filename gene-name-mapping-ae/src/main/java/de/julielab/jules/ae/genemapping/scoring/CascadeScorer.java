@@ -0,0 +1,145 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Scores candidates with a sequence of scorers, typically cheap scorers
+ * followed by an expensive one like the {@link MaxEntScorer}. Each stage but
+ * the last has a threshold; only the candidates that score at least the
+ * threshold are passed to the next stage. The candidates that reach the last
+ * stage get its score.
+ * </p>
+ * <p>
+ * A candidate that is pruned by a stage gets the score of this stage minus
+ * its threshold. This score is negative, thus the pruned candidates rank below
+ * all candidates that reach the last stage, whose scores are non-negative for
+ * all scorers, and in the order of the stage that pruned them.
+ * </p>
+ * <p>
+ * The cascade is configured via
+ * <tt>GeneMappingConfiguration#APPROX_SCORER_CASCADE</tt>.
+ * </p>
+ */
+public class CascadeScorer extends Scorer {
+
+	private final Scorer[] scorers;
+	private final double[] thresholds;
+
+	/**
+	 * @param scorers
+	 *            the scorers of the stages in the order they are applied
+	 * @param thresholds
+	 *            the minimum score of each stage but the last for a candidate
+	 *            to be passed to the next stage
+	 */
+	public CascadeScorer(Scorer[] scorers, double[] thresholds) {
+		if (scorers.length == 0 || thresholds.length != scorers.length - 1)
+			throw new IllegalArgumentException("A cascade of " + scorers.length + " scorers requires "
+					+ (scorers.length - 1) + " thresholds but got " + thresholds.length);
+		this.scorers = scorers.clone();
+		this.thresholds = thresholds.clone();
+	}
+
+	@Override
+	public double getScore(String term1, String term2) throws RuntimeException {
+		for (int stage = 0; stage < thresholds.length; stage++) {
+			double score = scorers[stage].getScore(term1, term2);
+			if (score < thresholds[stage])
+				return score - thresholds[stage];
+		}
+		return scorers[thresholds.length].getScore(term1, term2);
+	}
+
+	/**
+	 * each stage scores the candidates that survived the previous stage in one
+	 * batch
+	 */
+	@Override
+	public void scoreAll(String mention, List<String> candidates, double[] scores) throws RuntimeException {
+		scoreAll(mention, null, candidates, null, null, null, scores);
+	}
+
+	@Override
+	public void scoreAll(String mention, int[] mentionTokenIds, List<String> candidates, int[] tokenIds,
+			int[] candidateBegins, int[] candidateEnds, double[] scores) throws RuntimeException {
+		// the positions of the candidates of the current stage in candidates
+		int[] positions = new int[candidates.size()];
+		for (int i = 0; i < positions.length; i++)
+			positions[i] = i;
+		int numCandidates = positions.length;
+		List<String> stageCandidates = candidates;
+		int[] stageBegins = candidateBegins;
+		int[] stageEnds = candidateEnds;
+		double[] stageScores = scores;
+		for (int stage = 0; stage < scorers.length; stage++) {
+			if (numCandidates == 0)
+				return;
+			if (stage > 0) {
+				stageCandidates = new ArrayList<>(numCandidates);
+				for (int i = 0; i < numCandidates; i++)
+					stageCandidates.add(candidates.get(positions[i]));
+				if (mentionTokenIds != null) {
+					stageBegins = new int[numCandidates];
+					stageEnds = new int[numCandidates];
+					for (int i = 0; i < numCandidates; i++) {
+						stageBegins[i] = candidateBegins[positions[i]];
+						stageEnds[i] = candidateEnds[positions[i]];
+					}
+				}
+				stageScores = new double[numCandidates];
+			}
+			if (mentionTokenIds != null)
+				scorers[stage].scoreAll(mention, mentionTokenIds, stageCandidates, tokenIds, stageBegins, stageEnds,
+						stageScores);
+			else
+				scorers[stage].scoreAll(mention, stageCandidates, stageScores);
+			boolean lastStage = stage == thresholds.length;
+			int numSurvivors = 0;
+			for (int i = 0; i < numCandidates; i++) {
+				if (lastStage || stageScores[i] >= thresholds[stage]) {
+					scores[positions[i]] = stageScores[i];
+					positions[numSurvivors++] = positions[i];
+				} else {
+					scores[positions[i]] = stageScores[i] - thresholds[stage];
+				}
+			}
+			numCandidates = numSurvivors;
+		}
+	}
+
+	/**
+	 * @return the scorers of the stages
+	 */
+	public Scorer[] getScorers() {
+		return scorers.clone();
+	}
+
+	/**
+	 * @return the thresholds of all stages but the last
+	 */
+	public double[] getThresholds() {
+		return thresholds.clone();
+	}
+
+	@Override
+	public String info() {
+		StringBuilder sb = new StringBuilder("CascadeScorer[");
+		for (int stage = 0; stage < scorers.length; stage++) {
+			sb.append(scorers[stage].info());
+			if (stage < thresholds.length)
+				sb.append(" >= ").append(thresholds[stage]).append(", ");
+		}
+		return sb.append("]").toString();
+	}
+
+	/**
+	 * @return the type of the last scorer which determines the scores of the
+	 *         candidates that are not pruned
+	 */
+	@Override
+	public int getScorerType() {
+		return scorers[thresholds.length].getScorerType();
+	}
+}
@@ -17,7 +17,10 @@
 
 package de.julielab.jules.ae.genemapping.scoring;
 
+import java.util.List;
+
 import com.wcohen.ss.JaroWinkler;
+import com.wcohen.ss.api.StringWrapper;
 
 import de.julielab.jules.ae.genemapping.GeneMapping;
 import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
@@ -34,6 +37,17 @@ public class JaroWinklerScorer extends Scorer {
 		return jaroWinkler.score(term1, term2);
 	}
 
+	/**
+	 * the mention is prepared only once
+	 */
+	@Override
+	public void scoreAll(String mention, List<String> candidates, double[] scores) {
+		StringWrapper preparedMention = jaroWinkler.prepare(mention);
+		for (int i = 0; i < candidates.size(); i++) {
+			scores[i] = jaroWinkler.score(preparedMention, jaroWinkler.prepare(candidates.get(i)));
+		}
+	}
+
 	public String info() {
 		return "JaroWinklerScorer";
 	}
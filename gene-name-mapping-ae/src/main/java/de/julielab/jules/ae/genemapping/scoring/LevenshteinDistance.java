@@ -0,0 +1,215 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+/**
+ * <p>
+ * Computes the Levenshtein distance between a fixed pattern and arbitrary
+ * texts. The distances are the same as those of
+ * <tt>StringUtils#getLevenshteinDistance(String, String)</tt>.
+ * </p>
+ * <p>
+ * Patterns of up to 64 characters are matched with the bit-parallel
+ * algorithm of Myers in the formulation of Hyyro, which processes one
+ * character of the text per step. For longer patterns, a dynamic programming
+ * band around the diagonal is computed whose width is doubled until it
+ * contains the distance.
+ * </p>
+ * <p>
+ * A maximum distance may be given to stop as soon as the distance is known
+ * to exceed it. Instances are not thread-safe.
+ * </p>
+ */
+public class LevenshteinDistance {
+
+	/**
+	 * The maximum pattern length for the bit-parallel algorithm.
+	 */
+	public static final int MAX_BIT_PARALLEL_LENGTH = 64;
+
+	private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+	private String pattern;
+	/**
+	 * The bit-parallel pattern: bit i of the mask of a character is set if
+	 * the character occurs at position i of the pattern.
+	 */
+	private final long[] asciiMasks = new long[128];
+	private char[] otherChars = new char[MAX_BIT_PARALLEL_LENGTH];
+	private long[] otherMasks = new long[MAX_BIT_PARALLEL_LENGTH];
+	private int numOtherChars;
+	private int[] previousRow = new int[0];
+	private int[] currentRow = new int[0];
+
+	public LevenshteinDistance() {
+	}
+
+	public LevenshteinDistance(String pattern) {
+		setPattern(pattern);
+	}
+
+	/**
+	 * Sets the pattern the following texts are compared to.
+	 *
+	 * @param pattern
+	 */
+	public void setPattern(String pattern) {
+		if (this.pattern != null && this.pattern.length() <= MAX_BIT_PARALLEL_LENGTH) {
+			for (int i = 0; i < this.pattern.length(); i++) {
+				char c = this.pattern.charAt(i);
+				if (c < asciiMasks.length)
+					asciiMasks[c] = 0;
+			}
+		}
+		numOtherChars = 0;
+		this.pattern = pattern;
+		if (pattern.length() <= MAX_BIT_PARALLEL_LENGTH) {
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+				if (c < asciiMasks.length) {
+					asciiMasks[c] |= 1L << i;
+				} else {
+					int j = 0;
+					while (j < numOtherChars && otherChars[j] != c)
+						j++;
+					if (j == numOtherChars) {
+						otherChars[j] = c;
+						otherMasks[j] = 0;
+						numOtherChars++;
+					}
+					otherMasks[j] |= 1L << i;
+				}
+			}
+		}
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @param text
+	 * @return the Levenshtein distance between the pattern and
+	 *         <tt>text</tt>
+	 */
+	public int distance(String text) {
+		return distance(text, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Computes the Levenshtein distance between the pattern and
+	 * <tt>text</tt> if it does not exceed <tt>maxDistance</tt>.
+	 *
+	 * @param text
+	 * @param maxDistance
+	 *            a non-negative distance limit
+	 * @return the Levenshtein distance if it is at most <tt>maxDistance</tt>,
+	 *         <tt>maxDistance + 1</tt> otherwise
+	 */
+	public int distance(String text, int maxDistance) {
+		int m = pattern.length();
+		int n = text.length();
+		// the distance is never larger than the length of the longer string
+		if (maxDistance >= Math.max(m, n))
+			maxDistance = Math.max(m, n);
+		if (Math.abs(m - n) > maxDistance)
+			return maxDistance + 1;
+		if (m == 0)
+			return n;
+		if (n == 0)
+			return m;
+		if (m <= MAX_BIT_PARALLEL_LENGTH)
+			return bitParallelDistance(text, maxDistance);
+		int band = Math.max(Math.abs(m - n), 1);
+		while (band < maxDistance) {
+			int distance = bandedDistance(text, band);
+			if (distance <= band)
+				return distance;
+			band *= 2;
+		}
+		return bandedDistance(text, maxDistance);
+	}
+
+	private int bitParallelDistance(String text, int maxDistance) {
+		int n = text.length();
+		long lastBit = 1L << (pattern.length() - 1);
+		// the vertical deltas of the current column; all +1 in the first
+		// column
+		long positiveVertical = -1L;
+		long negativeVertical = 0;
+		int distance = pattern.length();
+		for (int j = 0; j < n; j++) {
+			long equal = mask(text.charAt(j));
+			long x = equal | negativeVertical;
+			long horizontal = (((equal & positiveVertical) + positiveVertical) ^ positiveVertical) | equal;
+			long positiveHorizontal = negativeVertical | ~(horizontal | positiveVertical);
+			long negativeHorizontal = positiveVertical & horizontal;
+			if ((positiveHorizontal & lastBit) != 0)
+				distance++;
+			else if ((negativeHorizontal & lastBit) != 0)
+				distance--;
+			// the first row of the distance matrix increases by one in each
+			// column
+			positiveHorizontal = (positiveHorizontal << 1) | 1;
+			negativeHorizontal <<= 1;
+			positiveVertical = negativeHorizontal | ~(x | positiveHorizontal);
+			negativeVertical = positiveHorizontal & x;
+			// each remaining character decreases the distance by at most one
+			if (distance - (n - j - 1) > maxDistance)
+				return maxDistance + 1;
+		}
+		return distance;
+	}
+
+	private long mask(char c) {
+		if (c < asciiMasks.length)
+			return asciiMasks[c];
+		for (int i = 0; i < numOtherChars; i++) {
+			if (otherChars[i] == c)
+				return otherMasks[i];
+		}
+		return 0;
+	}
+
+	/**
+	 * Computes the cells of the distance matrix whose row and column differ
+	 * by at most <tt>band</tt>.
+	 *
+	 * @return the distance if it is at most <tt>band</tt>,
+	 *         <tt>band + 1</tt> otherwise
+	 */
+	private int bandedDistance(String text, int band) {
+		int n = pattern.length();
+		int m = text.length();
+		if (previousRow.length < n + 1) {
+			previousRow = new int[n + 1];
+			currentRow = new int[n + 1];
+		}
+		int[] previous = previousRow;
+		int[] current = currentRow;
+		for (int j = 0; j <= Math.min(n, band); j++)
+			previous[j] = j;
+		if (band < n)
+			previous[band + 1] = INFINITY;
+		for (int i = 1; i <= m; i++) {
+			char textChar = text.charAt(i - 1);
+			int from = Math.max(1, i - band);
+			int to = Math.min(n, i + band);
+			current[from - 1] = from == 1 && i <= band ? i : INFINITY;
+			int rowMinimum = current[from - 1];
+			for (int j = from; j <= to; j++) {
+				int cost = pattern.charAt(j - 1) == textChar ? 0 : 1;
+				int value = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+				current[j] = value;
+				if (value < rowMinimum)
+					rowMinimum = value;
+			}
+			if (to < n)
+				current[to + 1] = INFINITY;
+			if (rowMinimum > band)
+				return band + 1;
+			int[] row = previous;
+			previous = current;
+			current = row;
+		}
+		return Math.min(previous[n], band + 1);
+	}
+}
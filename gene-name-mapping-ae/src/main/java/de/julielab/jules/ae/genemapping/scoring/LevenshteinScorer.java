@@ -1,11 +1,42 @@
 package de.julielab.jules.ae.genemapping.scoring;
 
-import org.apache.commons.lang.StringUtils;
+import java.util.List;
 
 import de.julielab.jules.ae.genemapping.GeneMapping;
 
+/**
+ * Scores by the Levenshtein distance normalized by the length of the longer
+ * term. The distances are computed by {@link LevenshteinDistance}.
+ */
 public class LevenshteinScorer extends Scorer {
 
+	private final boolean pruneToBestCandidate;
+	private final ThreadLocal<LevenshteinDistance> distances = ThreadLocal.withInitial(LevenshteinDistance::new);
+
+	public LevenshteinScorer() {
+		this(false);
+	}
+
+	/**
+	 * @param pruneToBestCandidate
+	 *            If <tt>true</tt>, {@link #scoreAll(String, List, double[])}
+	 *            stops computing the distance to a candidate as soon as it is
+	 *            clear that the candidate scores lower than the best
+	 *            candidate so far. Such candidates get an upper bound of their
+	 *            score that is still lower than the score of the best
+	 *            candidate. The scores of the best candidates are exact.
+	 */
+	public LevenshteinScorer(boolean pruneToBestCandidate) {
+		this.pruneToBestCandidate = pruneToBestCandidate;
+	}
+
+	/**
+	 * @return whether the scores of a batch are pruned to the best candidate
+	 */
+	public boolean isPruneToBestCandidate() {
+		return pruneToBestCandidate;
+	}
+
 	@Override
 	public double getScore(String term1, String term2) throws RuntimeException {
 		
@@ -13,11 +44,58 @@ public class LevenshteinScorer extends Scorer {
 			return PERFECT_SCORE;
 		}
 		
-		double distance = StringUtils.getLevenshteinDistance(term1, term2);
+		LevenshteinDistance levenshtein = distances.get();
+		// the distance is symmetric; the bit-parallel algorithm requires the
+		// pattern to be short
+		boolean firstIsPattern = term1.length() <= term2.length();
+		levenshtein.setPattern(firstIsPattern ? term1 : term2);
+		double distance = levenshtein.distance(firstIsPattern ? term2 : term1);
 		double normalizedDistance = distance / Math.max((double) term1.length(), (double) term2.length());
 		return 1 - normalizedDistance;
 	}
 
+	/**
+	 * the mention is prepared as the pattern of the distance computation only
+	 * once for all candidates
+	 */
+	@Override
+	public void scoreAll(String mention, List<String> candidates, double[] scores) {
+		LevenshteinDistance levenshtein = distances.get();
+		levenshtein.setPattern(mention);
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < candidates.size(); i++) {
+			String candidate = candidates.get(i);
+			if (isPerfectMatch(mention, candidate)) {
+				scores[i] = PERFECT_SCORE;
+				bestScore = PERFECT_SCORE;
+				continue;
+			}
+			double maxLength = Math.max((double) mention.length(), (double) candidate.length());
+			int maxDistance = pruneToBestCandidate ? getMaxDistance(bestScore, maxLength) : Integer.MAX_VALUE;
+			double distance = levenshtein.distance(candidate, maxDistance);
+			double normalizedDistance = distance / maxLength;
+			scores[i] = 1 - normalizedDistance;
+			if (scores[i] > bestScore)
+				bestScore = scores[i];
+		}
+	}
+
+	/**
+	 * @return the largest distance for which the score is at least
+	 *         <tt>bestScore</tt>, at least 0
+	 */
+	private static int getMaxDistance(double bestScore, double maxLength) {
+		if (bestScore == Double.NEGATIVE_INFINITY)
+			return Integer.MAX_VALUE;
+		int maxDistance = (int) Math.max(0, Math.min(maxLength, Math.floor((1 - bestScore) * maxLength)));
+		// correct rounding errors with the expression that computes the scores
+		while (maxDistance < maxLength && 1 - (maxDistance + 1) / maxLength >= bestScore)
+			maxDistance++;
+		while (maxDistance > 0 && 1 - maxDistance / maxLength < bestScore)
+			maxDistance--;
+		return maxDistance;
+	}
+
 	@Override
 	public String info() {
 		return "Normalized Levenshtein Similarity Scorer";
@@ -26,6 +26,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import org.slf4j.Logger;
@@ -40,7 +41,6 @@ import cc.mallet.pipe.SerialPipes;
 import cc.mallet.types.Alphabet;
 import cc.mallet.types.Instance;
 import cc.mallet.types.InstanceList;
-import cc.mallet.types.InstanceList.CrossValidationIterator;
 import de.julielab.jules.ae.genemapping.GeneMapping;
 
 public class MaxEntScorer extends Scorer {
@@ -49,6 +49,17 @@ public class MaxEntScorer extends Scorer {
 
 	private Classifier myModel;
 
+	/**
+	 * the weights of myModel for the inference without the Mallet pipe, null
+	 * if the model cannot be compiled
+	 */
+	private MaxEntScorerCompiledModel compiledModel;
+
+	/**
+	 * the number of threads for training and cross-validation
+	 */
+	private int trainingThreads = Runtime.getRuntime().availableProcessors();
+
 	MaxEntScorer() {
 		// explicitely set
 		myModel = null;
@@ -56,10 +67,12 @@ public class MaxEntScorer extends Scorer {
 
 	public MaxEntScorer(InputStream is) {
 		this.myModel = loadModel(is);
+		this.compiledModel = MaxEntScorerCompiledModel.compile(myModel);
 	}
 
 	public MaxEntScorer(File modelFile) {
 		this.myModel = loadModel(modelFile);
+		this.compiledModel = MaxEntScorerCompiledModel.compile(myModel);
 	}
 
 	/**
@@ -84,14 +97,17 @@ public class MaxEntScorer extends Scorer {
 		// get base score
 		// double baseScore = (new SimpleScorer()).getScore(term1, term2);
 
-		MaxEntScorerML maxEntML = new MaxEntScorerML();
-
 		if (this.myModel == null) {
 			RuntimeException e = new IllegalStateException("Model not initialised!");
 			LOGGER.error("",e);
 			throw (e);
 		}
 
+		if (compiledModel != null) {
+			return compiledModel.getTrueProbability(term1, term2);
+		}
+
+		MaxEntScorerML maxEntML = new MaxEntScorerML();
 		Instance inst = this.myModel.getInstancePipe().instanceFrom(
 						new Instance(new String[] { term1, term2, "FALSE" }, "", "", ""));
 		double predValue = maxEntML.predict(inst, myModel);
@@ -106,6 +122,24 @@ public class MaxEntScorer extends Scorer {
 
 	}
 
+	/**
+	 * with a compiled model, the features of the mention are computed only
+	 * once for all candidates
+	 */
+	@Override
+	public void scoreAll(String mention, List<String> candidates, double[] scores) throws RuntimeException {
+		if (compiledModel == null || mention == null || candidates.contains(null)) {
+			super.scoreAll(mention, candidates, scores);
+			return;
+		}
+		compiledModel.getTrueProbabilities(mention, candidates, scores);
+		for (int i = 0; i < candidates.size(); i++) {
+			if (isPerfectMatch(mention, candidates.get(i))) {
+				scores[i] = PERFECT_SCORE;
+			}
+		}
+	}
+
 	/*
 	 * helper functions
 	 */
@@ -124,7 +158,10 @@ public class MaxEntScorer extends Scorer {
 		MaxEntScorerML ml = new MaxEntScorerML();
 		ArrayList<String[]> pairs = pairEx.getPairs(trueList, completeList, amountTrue, ratioFalse);
 
-		InstanceList iList = ml.makeInstances(pairs);
+		InstanceList iList;
+		try (MaxEntScorerTrainer trainer = newTrainer()) {
+			iList = trainer.makeInstances(pairs);
+		}
 		Classifier model = ml.train(iList);
 		writeModel(model, modelFile);
 	}
@@ -134,13 +171,13 @@ public class MaxEntScorer extends Scorer {
 	 * 
 	 * @param list
 	 *            list with training examples (pairs and their label)
+	 * @throws IOException
 	 */
-	void trainModel(File list, String modelFile) {
-		MaxEntScorerPairExtractor pairEx = new MaxEntScorerPairExtractor();
-		MaxEntScorerML ml = new MaxEntScorerML();
-		ArrayList<String[]> pairs = pairEx.readList(list);
-		InstanceList iList = ml.makeInstances(pairs);
-		Classifier model = ml.train(iList);
+	void trainModel(File list, String modelFile) throws IOException {
+		Classifier model;
+		try (MaxEntScorerTrainer trainer = newTrainer()) {
+			model = trainer.train(list);
+		}
 		writeModel(model, modelFile);
 	}
 
@@ -148,13 +185,13 @@ public class MaxEntScorer extends Scorer {
 	 * train model only
 	 * 
 	 * @param list
+	 * @throws IOException
 	 */
-	void trainModel(File list) {
-		MaxEntScorerPairExtractor pairEx = new MaxEntScorerPairExtractor();
-		MaxEntScorerML ml = new MaxEntScorerML();
-		ArrayList<String[]> pairs = pairEx.readList(list);
-		InstanceList iList = ml.makeInstances(pairs);
-		myModel = ml.train(iList);
+	void trainModel(File list) throws IOException {
+		try (MaxEntScorerTrainer trainer = newTrainer()) {
+			myModel = trainer.train(list);
+		}
+		compiledModel = MaxEntScorerCompiledModel.compile(myModel);
 	}
 
 	/**
@@ -168,10 +205,8 @@ public class MaxEntScorer extends Scorer {
 	 */
 	void pairsOut(File trueList, int amountTrue, File completeList, float ratioFalse, String pairFile) {
 		MaxEntScorerPairExtractor pairEx = new MaxEntScorerPairExtractor();
-		ArrayList<String[]> pairs = pairEx.getPairs(trueList, completeList, amountTrue, ratioFalse);
-
 		try {
-			pairEx.storePairs(pairs, new File(pairFile));
+			pairEx.writePairs(trueList, completeList, amountTrue, ratioFalse, new File(pairFile));
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -185,50 +220,49 @@ public class MaxEntScorer extends Scorer {
 	 *            data to train the model
 	 * @param testFile
 	 *            data to test the model
+	 * @throws IOException
 	 */
-	void getConfusionMatrix(File trainFile, File testFile) {
+	void getConfusionMatrix(File trainFile, File testFile) throws IOException {
 		trainModel(trainFile);
 
-		MaxEntScorerPairExtractor pairEx = new MaxEntScorerPairExtractor();
-		MaxEntScorerML ml = new MaxEntScorerML();
-
-		ArrayList<String[]> list = pairEx.readList(testFile);
-		InstanceList iList = ml.makeInstances(list, myModel.getInstancePipe());
+		InstanceList iList;
+		try (MaxEntScorerTrainer trainer = newTrainer()) {
+			iList = trainer.makeInstances(testFile, myModel.getInstancePipe());
+		}
 
 		Trial trial = new Trial(myModel, iList);
 		ConfusionMatrix c = new ConfusionMatrix(trial);
 		System.out.println(c.toString());
 	}
 
-	void crossValidation(File list, int folds) {
+	/**
+	 * do a cross-validation; the folds are trained and tested concurrently
+	 * 
+	 * @param list
+	 *            list with training examples (pairs and their label)
+	 * @param folds
+	 * @throws IOException
+	 */
+	void crossValidation(File list, int folds) throws IOException {
 		System.out.println("doing cross-validation with " + folds + " folds");
 		double[] acc = new double[folds];
 		double accSum = 0;
 
-		MaxEntScorerPairExtractor pairEx = new MaxEntScorerPairExtractor();
-		MaxEntScorerML ml = new MaxEntScorerML();
-		ArrayList<String[]> pairs = pairEx.readList(list);
-		InstanceList iList = ml.makeInstances(pairs);
-		CrossValidationIterator cross = iList.crossValidationIterator(folds, (new Random(System.currentTimeMillis()))
-						.nextInt());
+		Trial[] trials;
+		try (MaxEntScorerTrainer trainer = newTrainer()) {
+			InstanceList iList = trainer.makeInstances(list);
+			trials = trainer.crossValidate(iList, folds, (new Random(System.currentTimeMillis())).nextInt());
+		}
 
-		int round = 0;
-		while (cross.hasNext()) {
+		for (int round = 0; round < trials.length; round++) {
 			System.out.println("@ round: " + round);
 
-			InstanceList[] crossLists = cross.nextSplit();
-			InstanceList train = crossLists[0];
-			InstanceList test = crossLists[1];
-
-			Classifier model = ml.train(train);
-			Trial trial = new Trial(model, test);
+			Trial trial = trials[round];
 			acc[round] = trial.getAccuracy();
 			accSum += trial.getAccuracy();
 
 			ConfusionMatrix confMatrix = new ConfusionMatrix(trial);
 			System.out.println(confMatrix.toString());
-
-			round++;
 		}
 
 		DecimalFormat df = new DecimalFormat("0.000");
@@ -247,14 +281,16 @@ public class MaxEntScorer extends Scorer {
 	 * 
 	 * @param modelFile
 	 * @param testList
+	 * @throws IOException
 	 */
-	void evalModel(File modelFile, File testList) {
+	void evalModel(File modelFile, File testList) throws IOException {
 		MaxEntScorerML ml = new MaxEntScorerML();
-		MaxEntScorerPairExtractor pairEx = new MaxEntScorerPairExtractor();
 
 		Classifier model = loadModel(modelFile);
-		ArrayList<String[]> list = pairEx.readList(testList);
-		InstanceList iList = ml.makeInstances(list, model.getInstancePipe());
+		InstanceList iList;
+		try (MaxEntScorerTrainer trainer = newTrainer()) {
+			iList = trainer.makeInstances(testList, model.getInstancePipe());
+		}
 		ml.eval(model, iList);
 	}
 
@@ -274,6 +310,13 @@ public class MaxEntScorer extends Scorer {
 	 * return bestValues; }
 	 */
 
+	/**
+	 * @return a new trainer which must be closed after use
+	 */
+	private MaxEntScorerTrainer newTrainer() {
+		return new MaxEntScorerTrainer(trainingThreads);
+	}
+
 	/**
 	 * store the model in a file
 	 * 
@@ -338,7 +381,7 @@ public class MaxEntScorer extends Scorer {
 		return model;
 	}
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		MaxEntScorer scorer = new MaxEntScorer();
 
 		if (args.length==0) {
@@ -356,9 +399,11 @@ public class MaxEntScorer extends Scorer {
 
 			// train
 			if (args[0].equals("-train")) {
-				if (args.length == 3) {
+				if (args.length == 3 || args.length == 4) {
 					File list = new File(args[1]);
 					String modelFile = args[2];
+					if (args.length == 4)
+						scorer.trainingThreads = Integer.parseInt(args[3]);
 					if (list.isFile()) {
 						scorer.trainModel(list, modelFile);
 					} else {
@@ -366,7 +411,7 @@ public class MaxEntScorer extends Scorer {
 					}
 				} else {
 					System.err.println("Too many/few parameters: " + args.length);
-					System.err.println("Usage: <trainDataFile> <modelOutFile>");
+					System.err.println("Usage: <trainDataFile> <modelOutFile> [<threads>]");
 
 				}
 
@@ -382,23 +427,27 @@ public class MaxEntScorer extends Scorer {
 				}
 				// confusion matrix
 			} else if (args[0].equals("-conf")) {
-				if (args.length == 3) {
+				if (args.length == 3 || args.length == 4) {
 					File trainList = new File(args[1]);
 					File testList = new File(args[2]);
+					if (args.length == 4)
+						scorer.trainingThreads = Integer.parseInt(args[3]);
 					scorer.getConfusionMatrix(trainList, testList);
 				} else {
 					System.err.println("Too many/few parameters: " + args.length);
-					System.err.println("Usage: <training data> <test data>");
+					System.err.println("Usage: <training data> <test data> [<threads>]");
 				}
 				// cross validation
 			} else if (args[0].equals("-xval")) {
-				if (args.length == 3) {
+				if (args.length == 3 || args.length == 4) {
 					File list = new File(args[1]);
 					int folds = (new Integer(args[2])).intValue();
+					if (args.length == 4)
+						scorer.trainingThreads = Integer.parseInt(args[3]);
 					scorer.crossValidation(list, folds);
 				} else {
 					System.err.println("Too many/few parameters: " + args.length);
-					System.err.println("Usagee: <data file> <folds>");
+					System.err.println("Usagee: <data file> <folds> [<threads>]");
 				}
 				// score single pair
 			} else if (args[0].equals("-score")) {
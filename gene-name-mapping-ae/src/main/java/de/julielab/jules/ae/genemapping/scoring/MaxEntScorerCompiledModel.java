@@ -0,0 +1,901 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cc.mallet.classify.Classifier;
+import cc.mallet.classify.MaxEnt;
+import cc.mallet.pipe.Pipe;
+import cc.mallet.pipe.SerialPipes;
+import cc.mallet.pipe.Token2FeatureVector;
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.LabelAlphabet;
+
+/**
+ * <p>
+ * Inference for a MaxEnt model trained on the features of
+ * {@link MaxEntScorerFeaturePipe}, without the Mallet pipe. The weights of the
+ * model are extracted once into a flat array indexed by a hash table of the
+ * feature names. For a pair of terms, the features of the pipe are computed
+ * with precompiled matchers into reusable per-thread buffers, looked up in the
+ * table and summed up in the order of the feature indices, as Mallet does.
+ * Thus, {@link #getTrueProbability(String, String)} returns the same
+ * probabilities as classifying the instance created by the pipe.
+ * </p>
+ * <p>
+ * Only models whose instance pipe consists of a
+ * {@link MaxEntScorerFeaturePipe} followed by a {@link Token2FeatureVector} -
+ * as created by {@link MaxEntScorerML#makeInstances(java.util.ArrayList)} - can
+ * be compiled, see {@link #compile(Classifier)}.
+ * </p>
+ */
+public class MaxEntScorerCompiledModel {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MaxEntScorerCompiledModel.class);
+
+	private static final Pattern WORD_ALTERNATION = Pattern.compile("\\(([a-z]+(\\|[a-z]+)*)\\)");
+
+	private static final int OTHER = 0;
+	private static final int NUMBER = 1;
+	private static final int GREEK = 2;
+	private static final int CHAR = 3;
+	private static final int ALPHA = 4;
+	private static final int MODIFIER = 5;
+	private static final int NON_DESCRIPTIVE = 6;
+
+	/**
+	 * The feature names by feature index. Features that do not contribute to
+	 * the scores are <tt>null</tt>.
+	 */
+	private final String[] featureNames;
+	/**
+	 * Open addressing hash table of the feature indices + 1, 0 marks empty
+	 * slots.
+	 */
+	private final int[] featureTable;
+	private final int featureTableMask;
+	/**
+	 * The weights of all labels for a feature are stored consecutively:
+	 * <tt>weights[featureIndex * numLabels + label]</tt>.
+	 */
+	private final double[] weights;
+	private final double[] biases;
+	private final int numLabels;
+	private final int trueLabel;
+	private final String[] greekWords;
+	private final String[] modifierWords;
+	private final String[] nonDescriptiveWords;
+	private final ThreadLocal<Features> features;
+
+	private MaxEntScorerCompiledModel(String[] featureNames, double[] weights, double[] biases, int trueLabel,
+			String[] greekWords, String[] modifierWords, String[] nonDescriptiveWords) {
+		this.featureNames = featureNames;
+		this.weights = weights;
+		this.biases = biases;
+		this.numLabels = biases.length;
+		this.trueLabel = trueLabel;
+		this.greekWords = greekWords;
+		this.modifierWords = modifierWords;
+		this.nonDescriptiveWords = nonDescriptiveWords;
+		int tableSize = Integer.highestOneBit(Math.max(featureNames.length, 1)) * 4;
+		this.featureTable = new int[tableSize];
+		this.featureTableMask = tableSize - 1;
+		for (int i = 0; i < featureNames.length; i++) {
+			if (featureNames[i] != null) {
+				int slot = mix(featureNames[i].hashCode()) & featureTableMask;
+				while (featureTable[slot] != 0)
+					slot = (slot + 1) & featureTableMask;
+				featureTable[slot] = i + 1;
+			}
+		}
+		this.features = ThreadLocal.withInitial(() -> new Features(numLabels));
+	}
+
+	/**
+	 * Extracts the weights of the given model.
+	 *
+	 * @param model
+	 *            A MaxEnt model trained on the features of
+	 *            {@link MaxEntScorerFeaturePipe}.
+	 * @return The compiled model or <tt>null</tt> if the model cannot be
+	 *         compiled, e.g. because it uses a different instance pipe.
+	 */
+	public static MaxEntScorerCompiledModel compile(Classifier model) {
+		if (!(model instanceof MaxEnt)) {
+			LOGGER.info("The model of type {} is not a MaxEnt model and cannot be compiled.", model.getClass().getName());
+			return null;
+		}
+		MaxEnt maxEnt = (MaxEnt) model;
+		MaxEntScorerFeaturePipe featurePipe = getFeaturePipe(maxEnt.getInstancePipe());
+		if (featurePipe == null) {
+			LOGGER.info("The instance pipe of the MaxEnt model is not supported by the compiled model.");
+			return null;
+		}
+		if (maxEnt.getFeatureSelection() != null || maxEnt.getPerClassFeatureSelection() != null) {
+			LOGGER.info("The MaxEnt model uses a feature selection which is not supported by the compiled model.");
+			return null;
+		}
+		String[] greekWords = getWords(featurePipe.getGreekPattern());
+		String[] modifierWords = getWords(featurePipe.getModifierPattern());
+		String[] nonDescriptiveWords = getWords(featurePipe.getNonDescriptivePattern());
+		if (greekWords == null || modifierWords == null || nonDescriptiveWords == null) {
+			LOGGER.info("The word lists of the feature pipe of the MaxEnt model are not supported by the compiled model.");
+			return null;
+		}
+		Alphabet dataAlphabet = maxEnt.getAlphabet();
+		LabelAlphabet labelAlphabet = maxEnt.getLabelAlphabet();
+		int numLabels = labelAlphabet.size();
+		int numFeatures = dataAlphabet.size() + 1;
+		int defaultFeatureIndex = maxEnt.getDefaultFeatureIndex();
+		int trueLabel = labelAlphabet.lookupIndex("TRUE", false);
+		double[] parameters = maxEnt.getParameters();
+		if (trueLabel < 0 || parameters.length != numLabels * numFeatures) {
+			LOGGER.info("The labels or parameters of the MaxEnt model are not supported by the compiled model.");
+			return null;
+		}
+
+		String[] featureNames = new String[dataAlphabet.size()];
+		double[] weights = new double[featureNames.length * numLabels];
+		double[] biases = new double[numLabels];
+		for (int label = 0; label < numLabels; label++)
+			biases[label] = parameters[label * numFeatures + defaultFeatureIndex];
+		// like MatrixOps.rowDotProduct, ignore features from the default feature index on
+		for (int feature = 0; feature < featureNames.length && feature < defaultFeatureIndex; feature++) {
+			Object entry = dataAlphabet.lookupObject(feature);
+			if (entry instanceof String) {
+				featureNames[feature] = (String) entry;
+				for (int label = 0; label < numLabels; label++)
+					weights[feature * numLabels + label] = parameters[label * numFeatures + feature];
+			}
+		}
+		return new MaxEntScorerCompiledModel(featureNames, weights, biases, trueLabel, greekWords, modifierWords,
+				nonDescriptiveWords);
+	}
+
+	private static MaxEntScorerFeaturePipe getFeaturePipe(Pipe pipe) {
+		if (!(pipe instanceof SerialPipes))
+			return null;
+		SerialPipes serialPipes = (SerialPipes) pipe;
+		if (serialPipes.size() != 2 || !(serialPipes.getPipe(0) instanceof MaxEntScorerFeaturePipe)
+				|| !(serialPipes.getPipe(1) instanceof Token2FeatureVector))
+			return null;
+		MaxEntScorerFeaturePipe featurePipe = (MaxEntScorerFeaturePipe) serialPipes.getPipe(0);
+		return featurePipe.isLexicalize() ? featurePipe : null;
+	}
+
+	/**
+	 * @param pattern
+	 *            A pattern of the form <tt>(word1|word2|...)</tt>.
+	 * @return The sorted words of the pattern or <tt>null</tt> if the pattern
+	 *         has a different form.
+	 */
+	private static String[] getWords(String pattern) {
+		Matcher matcher = WORD_ALTERNATION.matcher(pattern);
+		if (!matcher.matches())
+			return null;
+		String[] words = matcher.group(1).split("\\|");
+		Arrays.sort(words);
+		return words;
+	}
+
+	/**
+	 * Returns the probability of the label <tt>TRUE</tt> for the given terms,
+	 * i.e. the probability that they are synonyms. The terms must not be a
+	 * perfect match in the sense of {@link Scorer#isPerfectMatch(String, String)}
+	 * since {@link MaxEntScorer} does not score those.
+	 *
+	 * @param term1
+	 * @param term2
+	 * @return The probability of the label <tt>TRUE</tt>.
+	 */
+	public double getTrueProbability(String term1, String term2) {
+		Features features = this.features.get();
+		features.setFirstTerm(this, term1);
+		features.extract(this, term2);
+		return features.score(this);
+	}
+
+	/**
+	 * Like {@link #getTrueProbability(String, String)} for many second terms.
+	 * The features that only depend on the first term are computed once.
+	 *
+	 * @param term1
+	 * @param terms2
+	 * @param probabilities
+	 *            Receives the probability for each of the second terms.
+	 */
+	public void getTrueProbabilities(String term1, List<String> terms2, double[] probabilities) {
+		Features features = this.features.get();
+		features.setFirstTerm(this, term1);
+		for (int i = 0; i < terms2.size(); i++) {
+			features.extract(this, terms2.get(i));
+			probabilities[i] = features.score(this);
+		}
+	}
+
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private int lookupFeature(char[] name, int length) {
+		int hash = 0;
+		for (int i = 0; i < length; i++)
+			hash = 31 * hash + name[i];
+		for (int slot = mix(hash) & featureTableMask;; slot = (slot + 1) & featureTableMask) {
+			int entry = featureTable[slot];
+			if (entry == 0)
+				return -1;
+			String featureName = featureNames[entry - 1];
+			if (featureName.length() == length) {
+				int i = 0;
+				while (i < length && featureName.charAt(i) == name[i])
+					i++;
+				if (i == length)
+					return entry - 1;
+			}
+		}
+	}
+
+	private int getTokenClass(Tokens tokens, int token) {
+		String text = tokens.text;
+		int start = tokens.starts[token];
+		int end = tokens.ends[token];
+		if (start == end)
+			return OTHER;
+		boolean digits = true;
+		boolean lowerCase = true;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			digits &= c >= '0' && c <= '9';
+			lowerCase &= c >= 'a' && c <= 'z';
+		}
+		if (digits)
+			return NUMBER;
+		if (containsWord(greekWords, text, start, end))
+			return GREEK;
+		if (lowerCase)
+			return end - start == 1 ? CHAR : ALPHA;
+		if (containsWord(modifierWords, text, start, end))
+			return MODIFIER;
+		if (containsWord(nonDescriptiveWords, text, start, end))
+			return NON_DESCRIPTIVE;
+		return OTHER;
+	}
+
+	private static boolean containsWord(String[] sortedWords, String text, int start, int end) {
+		int low = 0;
+		int high = sortedWords.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(sortedWords[middle], text, start, end);
+			if (comparison < 0)
+				low = middle + 1;
+			else if (comparison > 0)
+				high = middle - 1;
+			else
+				return true;
+		}
+		return false;
+	}
+
+	private static int compare(String word, String text, int start, int end) {
+		int length = Math.min(word.length(), end - start);
+		for (int i = 0; i < length; i++) {
+			int difference = word.charAt(i) - text.charAt(start + i);
+			if (difference != 0)
+				return difference;
+		}
+		return word.length() - (end - start);
+	}
+
+	/**
+	 * The tokens of a term as created by <tt>String#split(" ")</tt>.
+	 */
+	private static class Tokens {
+		private String text;
+		private int[] starts = new int[16];
+		private int[] ends = new int[16];
+		private int size;
+
+		private void split(String text) {
+			this.text = text;
+			size = 0;
+			int offset = 0;
+			int next;
+			while ((next = text.indexOf(' ', offset)) != -1) {
+				add(offset, next);
+				offset = next + 1;
+			}
+			add(offset, text.length());
+			// trailing empty tokens are removed unless there is no separator at all
+			while (offset > 0 && size > 0 && starts[size - 1] == ends[size - 1])
+				size--;
+		}
+
+		private void add(int start, int end) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			size++;
+		}
+
+		private int length(int token) {
+			return ends[token] - starts[token];
+		}
+
+		private boolean equals(int token, Tokens other, int otherToken) {
+			return length(token) == other.length(otherToken)
+					&& text.regionMatches(starts[token], other.text, other.starts[otherToken], length(token));
+		}
+
+		private boolean contains(Tokens other, int otherToken) {
+			for (int i = 0; i < size; i++) {
+				if (equals(i, other, otherToken))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * @return The index of the first token that is equal to the given
+		 *         token.
+		 */
+		private int firstIndexOf(int token) {
+			int i = 0;
+			while (!equals(i, this, token))
+				i++;
+			return i;
+		}
+	}
+
+	/**
+	 * The trimmed word n-grams of a term, see
+	 * <tt>MaxEntScorerFeaturePipe#makeBigrams</tt>.
+	 */
+	private static class NGrams {
+		private char[] chars = new char[64];
+		private int[] starts = new int[16];
+		private int[] ends = new int[16];
+		private int size;
+
+		private void create(Tokens tokens, int n) {
+			size = 0;
+			int length = 0;
+			for (int last = n - 1; last < tokens.size; last++) {
+				int start = length;
+				for (int token = last - n + 1; token <= last; token++) {
+					int tokenLength = tokens.length(token);
+					if (length + tokenLength + 1 > chars.length)
+						chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + tokenLength + 1));
+					if (token > last - n + 1)
+						chars[length++] = ' ';
+					tokens.text.getChars(tokens.starts[token], tokens.ends[token], chars, length);
+					length += tokenLength;
+				}
+				int end = length;
+				while (start < end && chars[start] <= ' ')
+					start++;
+				while (end > start && chars[end - 1] <= ' ')
+					end--;
+				if (size == starts.length) {
+					starts = Arrays.copyOf(starts, size * 2);
+					ends = Arrays.copyOf(ends, size * 2);
+				}
+				starts[size] = start;
+				ends[size] = end;
+				size++;
+			}
+		}
+
+		private boolean equals(int ngram, NGrams other, int otherNGram) {
+			int length = ends[ngram] - starts[ngram];
+			if (length != other.ends[otherNGram] - other.starts[otherNGram])
+				return false;
+			for (int i = 0; i < length; i++) {
+				if (chars[starts[ngram] + i] != other.chars[other.starts[otherNGram] + i])
+					return false;
+			}
+			return true;
+		}
+
+		private boolean contains(NGrams other, int otherNGram) {
+			for (int i = 0; i < size; i++) {
+				if (equals(i, other, otherNGram))
+					return true;
+			}
+			return false;
+		}
+
+		private int firstIndexOf(int ngram) {
+			int i = 0;
+			while (!equals(i, this, ngram))
+				i++;
+			return i;
+		}
+
+		/**
+		 * Whether the n-gram matches <tt>p [0-9][0-9]?</tt>.
+		 */
+		private boolean isMolecularWeight(int ngram) {
+			int start = starts[ngram];
+			int length = ends[ngram] - start;
+			return (length == 3 || length == 4) && chars[start] == 'p' && chars[start + 1] == ' '
+					&& isDigit(chars[start + 2]) && (length == 3 || isDigit(chars[start + 3]));
+		}
+
+		private boolean containsMolecularWeight() {
+			for (int i = 0; i < size; i++) {
+				if (isMolecularWeight(i))
+					return true;
+			}
+			return false;
+		}
+
+		private static boolean isDigit(char c) {
+			return c >= '0' && c <= '9';
+		}
+	}
+
+	/**
+	 * The per-thread buffers for the feature extraction and the scoring.
+	 */
+	private static class Features {
+		private String term1;
+		private final Tokens tokens1 = new Tokens();
+		private final Tokens tokens2 = new Tokens();
+		private final NGrams bigrams1 = new NGrams();
+		private final NGrams bigrams2 = new NGrams();
+		private final NGrams trigrams1 = new NGrams();
+		private final NGrams trigrams2 = new NGrams();
+		private boolean molecularWeight1;
+		private boolean[] distinct1 = new boolean[16];
+		private int numDistinct1;
+		private int[] tokenClasses1 = new int[16];
+		private int[] tokenIds1 = new int[16];
+		private int tokenIdLength1;
+		private int lastTokenId1;
+		private int[] tokenIds2 = new int[16];
+		private char[] tokenIdChars1 = new char[64];
+		private char[] tokenIdChars2 = new char[64];
+		private char[] tokenIdCharsCopy = new char[64];
+		private char[] commonChars1 = new char[64];
+		private char[] commonChars2 = new char[64];
+		private char[] name = new char[64];
+		private int nameLength;
+		private final int[] diffCounts = new int[NON_DESCRIPTIVE + 1];
+		private int[] featureIndices = new int[64];
+		private int numFeatures;
+		private final double[] scores;
+
+		private Features(int numLabels) {
+			scores = new double[numLabels];
+		}
+
+		/**
+		 * Prepares everything that only depends on the first term.
+		 */
+		private void setFirstTerm(MaxEntScorerCompiledModel model, String term1) {
+			this.term1 = term1;
+			tokens1.split(term1);
+			bigrams1.create(tokens1, 2);
+			trigrams1.create(tokens1, 3);
+			molecularWeight1 = bigrams1.containsMolecularWeight();
+			if (distinct1.length < tokens1.size) {
+				distinct1 = new boolean[tokens1.size];
+				tokenClasses1 = new int[tokens1.size];
+				tokenIds1 = new int[tokens1.size];
+			}
+			numDistinct1 = 0;
+			for (int i = 0; i < tokens1.size; i++) {
+				distinct1[i] = tokens1.firstIndexOf(i) == i;
+				if (distinct1[i])
+					numDistinct1++;
+				tokenClasses1[i] = model.getTokenClass(tokens1, i);
+			}
+
+			// the token IDs of TokenJaroSimilarity#getTokenTranspositions start at 2
+			int replacement = 1;
+			int length1 = 1;
+			tokenIdChars1[0] = '0';
+			for (int i = 0; i < tokens1.size; i++) {
+				int first = tokens1.firstIndexOf(i);
+				tokenIds1[i] = first == i ? ++replacement : tokenIds1[first];
+				tokenIdChars1 = ensureCapacity(tokenIdChars1, length1 + 11);
+				length1 = appendInt(tokenIdChars1, length1, tokenIds1[i]);
+			}
+			tokenIdLength1 = length1;
+			lastTokenId1 = replacement;
+		}
+
+		/**
+		 * Collects the indices of the features that
+		 * {@link MaxEntScorerFeaturePipe#pipe(cc.mallet.types.Instance)} sets for
+		 * the first term and the given second term. A feature that is set
+		 * multiple times, like <tt>DIFF_MOL_WEIGHT</tt>, is collected multiple
+		 * times.
+		 */
+		private void extract(MaxEntScorerCompiledModel model, String term2) {
+			numFeatures = 0;
+			tokens2.split(term2);
+			bigrams2.create(tokens2, 2);
+			trigrams2.create(tokens2, 3);
+
+			// molecular weights and common n-grams
+			if (molecularWeight1 && bigrams2.containsMolecularWeight()) {
+				for (int i = 0; i < bigrams1.size; i++) {
+					if (!bigrams2.contains(bigrams1, i) && bigrams1.isMolecularWeight(i))
+						setFeature(model, "DIFF_MOL_WEIGHT");
+				}
+				for (int i = 0; i < bigrams2.size; i++) {
+					if (!bigrams1.contains(bigrams2, i) && bigrams2.firstIndexOf(i) == i
+							&& bigrams2.isMolecularWeight(i))
+						setFeature(model, "DIFF_MOL_WEIGHT");
+				}
+			}
+			for (int i = 0; i < bigrams1.size; i++) {
+				if (bigrams2.contains(bigrams1, i)) {
+					startName("COMMON_BIGRAM=");
+					append(bigrams1.chars, bigrams1.starts[i], bigrams1.ends[i]);
+					setFeature(model);
+					if (bigrams1.isMolecularWeight(i))
+						setFeature(model, "SAME_MOL_WEIGHT");
+				}
+			}
+			for (int i = 0; i < trigrams1.size; i++) {
+				if (trigrams2.contains(trigrams1, i)) {
+					startName("COMMON_TRIGRAM=");
+					append(trigrams1.chars, trigrams1.starts[i], trigrams1.ends[i]);
+					setFeature(model);
+				}
+			}
+
+			// distinct tokens, as in SimpleScorer and MaxEntScorerPairExtractor#compareStrings
+			int numSames = 0;
+			int lastSame = -1;
+			int numDiffs = 0;
+			int lastDiff1 = -1;
+			int lastDiff2 = -1;
+			for (int i = 0; i < tokens1.size; i++) {
+				if (distinct1[i]) {
+					if (tokens2.contains(tokens1, i)) {
+						numSames++;
+						lastSame = i;
+					} else {
+						numDiffs++;
+						lastDiff1 = i;
+					}
+				}
+			}
+			int numDistinct2 = 0;
+			for (int i = 0; i < tokens2.size; i++) {
+				if (tokens2.firstIndexOf(i) == i) {
+					numDistinct2++;
+					if (!tokens1.contains(tokens2, i)) {
+						numDiffs++;
+						lastDiff2 = i;
+					}
+				}
+			}
+
+			// the simple score, the terms are no perfect match
+			double simpleScore = (numSames / (double) numDistinct1) * (numSames / (double) numDistinct2);
+			if (simpleScore == 1) {
+				setFeature(model, "SIMPLESCORE=1");
+			} else if (simpleScore >= 0.9) {
+				setFeature(model, "SIMPLESCORE>=0.9");
+			} else if (simpleScore >= 0.8) {
+				setFeature(model, "SIMPLESCORE>=0.8");
+			} else if (simpleScore >= 0.7) {
+				setFeature(model, "SIMPLESCORE>=0.7");
+			} else if (simpleScore >= 0.6) {
+				setFeature(model, "SIMPLESCORE>=0.6");
+			} else if (simpleScore >= 0.5) {
+				setFeature(model, "SIMPLESCORE>=0.5");
+			} else if (simpleScore >= 0.3) {
+				setFeature(model, "SIMPLESCORE>=0.3");
+			}
+
+			if (term1.contains(term2) || term2.contains(term1))
+				setFeature(model, "SUBSTRING");
+
+			setFeature(model, "TRANSPOSITIONS=", getTokenTranspositions());
+
+			// same tokens
+			int sameNum = 0;
+			int sameGreek = 0;
+			int sameAlpha = 0;
+			int sameModifier = 0;
+			for (int i = 0; i < tokens1.size; i++) {
+				if (distinct1[i] && tokens2.contains(tokens1, i)) {
+					switch (tokenClasses1[i]) {
+					case NUMBER:
+						sameNum++;
+						break;
+					case GREEK:
+						sameGreek++;
+						break;
+					case ALPHA:
+						sameAlpha++;
+						break;
+					case MODIFIER:
+						sameModifier++;
+						break;
+					case OTHER:
+						startName("SAME_STRING=");
+						append(tokens1, i);
+						append("=1");
+						setFeature(model);
+						break;
+					default:
+						break;
+					}
+				}
+			}
+			setCountFeature(model, "SAME_NUM=", sameNum);
+			setCountFeature(model, "SAME_GREEK=", sameGreek);
+			setCountFeature(model, "SAME_ALPHA=", sameAlpha);
+			setCountFeature(model, "SAME_MODIFIER=", sameModifier);
+			setFeature(model, "NUM_OF_SAMES=", numSames);
+			if (numSames == 1) {
+				switch (tokenClasses1[lastSame]) {
+				case NUMBER:
+					setFeature(model, "ONLY_SAME_NUMBER");
+					break;
+				case GREEK:
+					setFeature(model, "ONLY_SAME_GREEK");
+					break;
+				case CHAR:
+					setFeature(model, "ONLY_SAME_CHAR");
+					break;
+				case ALPHA:
+					setFeature(model, "ONLY_SAME_ALPHA");
+					break;
+				default:
+					break;
+				}
+			}
+
+			// different tokens
+			Arrays.fill(diffCounts, 0);
+			for (int i = 0; i < tokens1.size; i++) {
+				if (distinct1[i] && !tokens2.contains(tokens1, i))
+					countDiff(model, tokens1, i, tokenClasses1[i]);
+			}
+			for (int i = 0; i < tokens2.size; i++) {
+				if (tokens2.firstIndexOf(i) == i && !tokens1.contains(tokens2, i))
+					countDiff(model, tokens2, i, model.getTokenClass(tokens2, i));
+			}
+			setCountFeature(model, "DIFF_NUM=", diffCounts[NUMBER]);
+			setCountFeature(model, "DIFF_GREEK=", diffCounts[GREEK]);
+			setCountFeature(model, "DIFF_CHAR=", diffCounts[CHAR]);
+			setCountFeature(model, "DIFF_ALPHA=", diffCounts[ALPHA]);
+			setCountFeature(model, "DIFF_MODIFIER=", diffCounts[MODIFIER]);
+			setFeature(model, "NUM_OF_DIFFS=", numDiffs);
+			if (numDiffs == 1) {
+				Tokens tokens = lastDiff1 >= 0 ? tokens1 : tokens2;
+				int onlyDiff = lastDiff1 >= 0 ? lastDiff1 : lastDiff2;
+				int tokenClass = lastDiff1 >= 0 ? tokenClasses1[onlyDiff] : model.getTokenClass(tokens, onlyDiff);
+				if (tokens.length(onlyDiff) == 1 && tokens.text.charAt(tokens.starts[onlyDiff]) == '1')
+					setFeature(model, "ONLY_DIFF_ONE");
+				else if (tokenClass == NUMBER)
+					setFeature(model, "ONLY_DIFF_NUMBER");
+				else if (tokens.length(onlyDiff) == 5 && tokens.text.startsWith("alpha", tokens.starts[onlyDiff]))
+					setFeature(model, "ONLY_DIFF_GREEK_ALPHA");
+				else if (tokenClass == GREEK)
+					setFeature(model, "ONLY_DIFF_GREEK");
+				else if (tokenClass == CHAR || tokenClass == ALPHA)
+					setFeature(model, "ONLY_DIFF_ALPHA");
+				else if (tokenClass == MODIFIER)
+					setFeature(model, "ONLY_DIFF_MODIFIER");
+				else if (tokenClass == NON_DESCRIPTIVE)
+					setFeature(model, "ONLY_DIFF_NON_DESCRIPTIVE");
+			}
+
+			// term lengths
+			int lenDiff = Math.abs(tokens1.size - tokens2.size);
+			setFeature(model, "LENGTHDIFF=", lenDiff);
+			int maxLen = Math.max(tokens1.size, tokens2.size);
+			double relLenDiff = 1 - lenDiff / (double) maxLen;
+			if (relLenDiff >= 0.9) {
+				setFeature(model, "RELLENGTHDIFF>=0.9");
+			} else if (relLenDiff >= 0.7) {
+				setFeature(model, "RELLENGTHDIFF>=0.7");
+			} else if (relLenDiff >= 0.5) {
+				setFeature(model, "RELLENGTHDIFF>=0.5");
+			} else {
+				setFeature(model, "RELLENGTHDIFF<0.5");
+			}
+		}
+
+		private void countDiff(MaxEntScorerCompiledModel model, Tokens tokens, int token, int tokenClass) {
+			if (tokenClass == OTHER) {
+				startName("DIFF_STRING=");
+				append(tokens, token);
+				append("=1");
+				setFeature(model);
+			} else {
+				diffCounts[tokenClass]++;
+			}
+		}
+
+		/**
+		 * Computes
+		 * {@link TokenJaroSimilarity#getTokenTranspositions(String, String)}
+		 * for the current tokens.
+		 */
+		private int getTokenTranspositions() {
+			if (tokenIds2.length < tokens2.size)
+				tokenIds2 = new int[tokens2.size];
+			int replacement = lastTokenId1;
+			int length1 = tokenIdLength1;
+			int length2 = 1;
+			tokenIdChars2[0] = '0';
+			for (int i = 0; i < tokens2.size; i++) {
+				int id = 0;
+				for (int j = 0; j < tokens1.size && id == 0; j++) {
+					if (tokens1.equals(j, tokens2, i))
+						id = tokenIds1[j];
+				}
+				for (int j = 0; j < i && id == 0; j++) {
+					if (tokens2.equals(j, tokens2, i))
+						id = tokenIds2[j];
+				}
+				tokenIds2[i] = id != 0 ? id : ++replacement;
+				tokenIdChars2 = ensureCapacity(tokenIdChars2, length2 + 11);
+				length2 = appendInt(tokenIdChars2, length2, tokenIds2[i]);
+			}
+
+			int halflen = (length1 > length2) ? length2 / 2 + 1 : length1 / 2 + 1;
+			commonChars1 = ensureCapacity(commonChars1, length1);
+			commonChars2 = ensureCapacity(commonChars2, length2);
+			int common1 = commonChars(tokenIdChars1, length1, tokenIdChars2, length2, halflen, commonChars1);
+			int common2 = commonChars(tokenIdChars2, length2, tokenIdChars1, length1, halflen, commonChars2);
+			int transpositions = 0;
+			for (int i = 0; i < Math.min(common1, common2); i++) {
+				if (commonChars1[i] != commonChars2[i])
+					transpositions++;
+			}
+			transpositions /= 2;
+			// the Jaro score is 0 exactly if the numbers of common characters differ or are 0
+			boolean zeroScore = common1 != common2 || common1 == 0;
+			return zeroScore && transpositions == 0 ? -1 : transpositions;
+		}
+
+		private int commonChars(char[] s, int sLength, char[] t, int tLength, int halflen, char[] common) {
+			tokenIdCharsCopy = ensureCapacity(tokenIdCharsCopy, tLength);
+			char[] copy = tokenIdCharsCopy;
+			System.arraycopy(t, 0, copy, 0, tLength);
+			int numCommon = 0;
+			for (int i = 0; i < sLength; i++) {
+				char ch = s[i];
+				boolean foundIt = false;
+				for (int j = Math.max(0, i - halflen); !foundIt && j < Math.min(i + halflen, tLength); j++) {
+					if (copy[j] == ch) {
+						foundIt = true;
+						common[numCommon++] = ch;
+						copy[j] = '*';
+					}
+				}
+			}
+			return numCommon;
+		}
+
+		private static char[] ensureCapacity(char[] chars, int capacity) {
+			return chars.length >= capacity ? chars : Arrays.copyOf(chars, Math.max(chars.length * 2, capacity));
+		}
+
+		private static int appendInt(char[] chars, int length, int value) {
+			if (value < 0) {
+				chars[length++] = '-';
+				value = -value;
+			}
+			int start = length;
+			do {
+				chars[length++] = (char) ('0' + value % 10);
+				value /= 10;
+			} while (value > 0);
+			for (int i = start, j = length - 1; i < j; i++, j--) {
+				char c = chars[i];
+				chars[i] = chars[j];
+				chars[j] = c;
+			}
+			return length;
+		}
+
+		private void startName(String prefix) {
+			nameLength = 0;
+			append(prefix);
+		}
+
+		private void append(String s) {
+			name = ensureCapacity(name, nameLength + s.length());
+			s.getChars(0, s.length(), name, nameLength);
+			nameLength += s.length();
+		}
+
+		private void append(Tokens tokens, int token) {
+			name = ensureCapacity(name, nameLength + tokens.length(token));
+			tokens.text.getChars(tokens.starts[token], tokens.ends[token], name, nameLength);
+			nameLength += tokens.length(token);
+		}
+
+		private void append(char[] chars, int start, int end) {
+			name = ensureCapacity(name, nameLength + end - start);
+			System.arraycopy(chars, start, name, nameLength, end - start);
+			nameLength += end - start;
+		}
+
+		private void append(int value) {
+			name = ensureCapacity(name, nameLength + 11);
+			nameLength = appendInt(name, nameLength, value);
+		}
+
+		/**
+		 * Sets the feature of a token counter, which only exists for counts
+		 * greater than 0.
+		 */
+		private void setCountFeature(MaxEntScorerCompiledModel model, String prefix, int count) {
+			if (count > 0)
+				setFeature(model, prefix, count);
+		}
+
+		private void setFeature(MaxEntScorerCompiledModel model, String prefix, int value) {
+			startName(prefix);
+			append(value);
+			setFeature(model);
+		}
+
+		private void setFeature(MaxEntScorerCompiledModel model, String name) {
+			startName(name);
+			setFeature(model);
+		}
+
+		private void setFeature(MaxEntScorerCompiledModel model) {
+			int feature = model.lookupFeature(name, nameLength);
+			if (feature >= 0) {
+				if (numFeatures == featureIndices.length)
+					featureIndices = Arrays.copyOf(featureIndices, numFeatures * 2);
+				featureIndices[numFeatures++] = feature;
+			}
+		}
+
+		/**
+		 * Computes the probability of the label <tt>TRUE</tt> like
+		 * <tt>MaxEnt#getClassificationScores</tt>: the weighted features are
+		 * added in the order of their indices. A feature that is set multiple
+		 * times counts once since the <tt>PropertyList</tt> of the Mallet token
+		 * only returns the latest value of a key, which is always 1.
+		 */
+		private double score(MaxEntScorerCompiledModel model) {
+			int numLabels = model.numLabels;
+			double[] weights = model.weights;
+			Arrays.sort(featureIndices, 0, numFeatures);
+			Arrays.fill(scores, 0);
+			for (int i = 0; i < numFeatures; i++) {
+				int feature = featureIndices[i];
+				if (i > 0 && featureIndices[i - 1] == feature)
+					continue;
+				for (int label = 0; label < numLabels; label++)
+					scores[label] += weights[feature * numLabels + label];
+			}
+			double max = Double.NEGATIVE_INFINITY;
+			for (int label = 0; label < numLabels; label++) {
+				scores[label] = model.biases[label] + scores[label];
+				if (scores[label] > max)
+					max = scores[label];
+			}
+			double sum = 0;
+			for (int label = 0; label < numLabels; label++)
+				sum += (scores[label] = Math.exp(scores[label] - max));
+			return scores[model.trueLabel] / sum;
+		}
+	}
+}
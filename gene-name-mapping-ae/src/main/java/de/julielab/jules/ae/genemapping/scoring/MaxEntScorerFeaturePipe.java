@@ -73,6 +73,22 @@ public class MaxEntScorerFeaturePipe extends Pipe implements Serializable {
 	}
 
 
+	boolean isLexicalize() {
+		return lexicalize;
+	}
+
+	String getGreekPattern() {
+		return GREEK;
+	}
+
+	String getModifierPattern() {
+		return MODIFIER;
+	}
+
+	String getNonDescriptivePattern() {
+		return NON_DESCRIPTIVE;
+	}
+
 	/**
 	 * the main function of a pipe used to acutally build the features
 	 */
@@ -23,9 +23,12 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.TreeSet;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -121,17 +124,70 @@ public class MaxEntScorerPairExtractor {
 		FileWriter fw = new FileWriter(filename);
 
 		for (int i = 0; i < pairs.size(); i++) {
-			StringBuffer pair = new StringBuffer();
-			String[] l = (String[]) pairs.get(i);
-			for (int j = 0; j < l.length; j++) {
-				pair.append(l[j] + "\t");
-			}
-			fw.write(pair.toString() + "\n");
+			writePair(pairs.get(i), fw);
 		}
 
 		fw.close();
 	}
 
+	/**
+	 * Writes the pairs of {@link #getPairs(File, File, int, float)} to a file
+	 * while they are extracted, as {@link #storePairs(ArrayList, File)} does,
+	 * but without keeping them in memory.
+	 * 
+	 * @param trueList
+	 * @param completeList
+	 * @param amountTrue
+	 * @param ratioFalse
+	 * @param filename
+	 * @throws IOException
+	 */
+	void writePairs(File trueList, File completeList, int amountTrue,
+			float ratioFalse, File filename) throws IOException {
+		LOGGER.debug("writePairs()");
+		try (FileWriter fw = new FileWriter(filename)) {
+			BufferedReader fileIn = new BufferedReader(new FileReader(trueList));
+			String text;
+			int counter = 1;
+			int written = 0;
+
+			LOGGER.debug("writePairs() - writing positive training examples ...");
+			while ((text = fileIn.readLine()) != null && counter <= amountTrue) {
+				writePair(text.split("\t"), fw);
+				++written;
+				++counter;
+			}
+			fileIn.close();
+
+			if (amountTrue != written) {
+				amountTrue = written;
+				LOGGER.warn("writePairs() - Only " + amountTrue
+						+ " entries available!");
+			}
+
+			int fillUp = (int) (amountTrue * ratioFalse);
+			try {
+				findFalse(completeList, fillUp, pair -> {
+					try {
+						writePair(pair, fw);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	private void writePair(String[] l, Writer out) throws IOException {
+		StringBuffer pair = new StringBuffer();
+		for (int j = 0; j < l.length; j++) {
+			pair.append(l[j] + "\t");
+		}
+		out.write(pair.toString() + "\n");
+	}
+
 	/**
 	 * TODO: comment!
 	 * 
@@ -141,6 +197,19 @@ public class MaxEntScorerPairExtractor {
 	 */
 	ArrayList<String[]> findFalse(File entities, int amount) {
 		ArrayList<String[]> pairs = new ArrayList<String[]>();
+		findFalse(entities, amount, pairs::add);
+		return pairs;
+	}
+
+	/**
+	 * as {@link #findFalse(File, int)} but hands each pair to
+	 * <tt>consumer</tt> as soon as it is found
+	 * 
+	 * @param entities
+	 * @param amount
+	 * @param consumer
+	 */
+	void findFalse(File entities, int amount, Consumer<String[]> consumer) {
 		LOGGER.debug("findFalse() - getting negative training examples ...");
 		try {
 			BufferedReader fileIn = new BufferedReader(new FileReader(entities));
@@ -172,7 +241,7 @@ public class MaxEntScorerPairExtractor {
 						// example (if xid not same)
 						String second = rows.get(j)[0];
 						if (addPair(first, second, OVERLAP_RATIO, MAXSYN_LENGTH)) {
-							pairs.add(new String[] { first, second, "FALSE" });
+							consumer.accept(new String[] { first, second, "FALSE" });
 							++counter;
 							++internalCounter;
 							// show status
@@ -192,11 +261,10 @@ public class MaxEntScorerPairExtractor {
 			}
 			long time2 = System.currentTimeMillis();
 			LOGGER.debug("findFalse() - result: duration: " + (time2 - time)
-					+ " ms; pairs: " + pairs.size() + "; counter: " + counter);
+					+ " ms; counter: " + counter);
 		} catch (IOException io) {
 			io.printStackTrace();
 		}
-		return pairs;
 	}
 
 
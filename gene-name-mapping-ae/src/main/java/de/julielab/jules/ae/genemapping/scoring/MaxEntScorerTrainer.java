@@ -0,0 +1,253 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cc.mallet.classify.Classifier;
+import cc.mallet.classify.Trial;
+import cc.mallet.pipe.Pipe;
+import cc.mallet.pipe.SerialPipes;
+import cc.mallet.pipe.Token2FeatureVector;
+import cc.mallet.types.Instance;
+import cc.mallet.types.InstanceList;
+import cc.mallet.types.InstanceList.CrossValidationIterator;
+import cc.mallet.types.LabelAlphabet;
+
+/**
+ * <p>
+ * Trains and cross-validates the models of the {@link MaxEntScorer} on
+ * multiple threads.
+ * </p>
+ * <p>
+ * The training pairs - the two normalized terms and their label - are piped
+ * in chunks of {@link #CHUNK_SIZE}. A pair list file is read chunk by chunk,
+ * so only the instances are held in memory, not the pairs. The features of
+ * the pairs of a chunk are computed in parallel by the
+ * {@link MaxEntScorerFeaturePipe}. The feature vectors are then created in
+ * the order of the pairs, thus the alphabets, the instances and the trained
+ * models are the same as those of {@link MaxEntScorerML}.
+ * </p>
+ * <p>
+ * The folds of a cross-validation are trained and evaluated concurrently.
+ * </p>
+ * <p>
+ * The threads of a trainer are stopped when it is closed.
+ * </p>
+ */
+public class MaxEntScorerTrainer implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MaxEntScorerTrainer.class);
+
+	/**
+	 * the number of pairs that are piped at once
+	 */
+	public static final int CHUNK_SIZE = 10000;
+
+	/**
+	 * the number of pairs up to which a part of a chunk is not split further
+	 */
+	private static final int FEATURE_TASK_SIZE = 250;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Uses as many threads as there are processors.
+	 */
+	public MaxEntScorerTrainer() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism
+	 *            the number of threads for piping and for the folds of a
+	 *            cross-validation
+	 */
+	public MaxEntScorerTrainer(int parallelism) {
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Makes the instances for a file of tab-separated pairs and labels, as
+	 * read by <tt>MaxEntScorerPairExtractor#readList(File)</tt>, with a new
+	 * pipe.
+	 *
+	 * @param pairList
+	 * @return the instances
+	 * @throws IOException
+	 */
+	public InstanceList makeInstances(File pairList) throws IOException {
+		return makeInstances(pairList, newPipe());
+	}
+
+	/**
+	 * Makes the instances for a file of tab-separated pairs and labels with
+	 * the given pipe, e.g. the instance pipe of a trained model.
+	 *
+	 * @param pairList
+	 * @param pipe
+	 * @return the instances
+	 * @throws IOException
+	 */
+	public InstanceList makeInstances(File pairList, Pipe pipe) throws IOException {
+		LOGGER.debug("makeInstances() - making instances for the pairs in {} ...", pairList);
+		InstanceList iList = new InstanceList(pipe);
+		try (BufferedReader fileIn = new BufferedReader(new FileReader(pairList))) {
+			addThruPipe(fileIn.lines().map(line -> line.split("\t")).iterator(), iList);
+		}
+		return iList;
+	}
+
+	/**
+	 * Makes the instances for pairs and labels with a new pipe.
+	 *
+	 * @param pairs
+	 * @return the instances
+	 */
+	public InstanceList makeInstances(List<String[]> pairs) {
+		InstanceList iList = new InstanceList(newPipe());
+		addThruPipe(pairs.iterator(), iList);
+		return iList;
+	}
+
+	/**
+	 * Trains a model on a file of tab-separated pairs and labels.
+	 *
+	 * @param pairList
+	 * @return the classifier
+	 * @throws IOException
+	 */
+	public Classifier train(File pairList) throws IOException {
+		return new MaxEntScorerML().train(makeInstances(pairList));
+	}
+
+	/**
+	 * Trains and tests a model for each fold of a cross-validation. The folds
+	 * are the same as those of <tt>InstanceList#crossValidationIterator</tt>
+	 * for the same seed.
+	 *
+	 * @param iList
+	 * @param folds
+	 * @param seed
+	 * @return the trial of each fold
+	 */
+	public Trial[] crossValidate(InstanceList iList, int folds, int seed) {
+		CrossValidationIterator cross = iList.crossValidationIterator(folds, seed);
+		List<ForkJoinTask<Trial>> rounds = new ArrayList<>(folds);
+		while (cross.hasNext()) {
+			InstanceList[] crossLists = cross.nextSplit();
+			rounds.add(pool.submit(() -> {
+				Classifier model = new MaxEntScorerML().train(crossLists[0]);
+				return new Trial(model, crossLists[1]);
+			}));
+		}
+		Trial[] trials = new Trial[rounds.size()];
+		for (int i = 0; i < trials.length; i++) {
+			trials[i] = rounds.get(i).join();
+		}
+		return trials;
+	}
+
+	/**
+	 * Shuts down the threads of the trainer. Tasks that have already been
+	 * submitted are completed.
+	 */
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * the pipe of {@link MaxEntScorerML#makeInstances(ArrayList)}
+	 */
+	private SerialPipes newPipe() {
+		return new SerialPipes(new Pipe[] { new MaxEntScorerFeaturePipe(), new Token2FeatureVector() });
+	}
+
+	private void addThruPipe(Iterator<String[]> pairs, InstanceList iList) {
+		List<String[]> chunk = new ArrayList<>(CHUNK_SIZE);
+		while (pairs.hasNext()) {
+			chunk.add(pairs.next());
+			if (chunk.size() == CHUNK_SIZE || !pairs.hasNext()) {
+				addChunkThruPipe(chunk, iList);
+				chunk.clear();
+			}
+		}
+	}
+
+	private void addChunkThruPipe(List<String[]> chunk, InstanceList iList) {
+		Pipe pipe = iList.getPipe();
+		if (!(pipe instanceof SerialPipes) || ((SerialPipes) pipe).size() != 2
+				|| !(((SerialPipes) pipe).getPipe(0) instanceof MaxEntScorerFeaturePipe)) {
+			for (String[] pair : chunk) {
+				iList.addThruPipe(new Instance(pair, "", "", ""));
+			}
+			return;
+		}
+		MaxEntScorerFeaturePipe featurePipe = (MaxEntScorerFeaturePipe) ((SerialPipes) pipe).getPipe(0);
+		Pipe vectorPipe = ((SerialPipes) pipe).getPipe(1);
+		// the feature pipe adds new labels to the target alphabet which must
+		// neither happen concurrently nor in another order
+		LabelAlphabet labels = (LabelAlphabet) featurePipe.getTargetAlphabet();
+		for (String[] pair : chunk) {
+			labels.lookupLabel(pair[2]);
+		}
+		Instance[] instances = new Instance[chunk.size()];
+		pool.invoke(new FeatureTask(featurePipe, chunk, instances, 0, instances.length));
+		// the vector pipe adds the features to the data alphabet
+		for (Instance instance : instances) {
+			iList.add(vectorPipe.pipe(instance));
+		}
+	}
+
+	/**
+	 * Computes the features of a range of pairs. Apart from the target
+	 * alphabet, the feature pipe has no state but the stateless
+	 * {@link TokenJaroSimilarity} it creates on first use.
+	 */
+	private static class FeatureTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final MaxEntScorerFeaturePipe featurePipe;
+		private final List<String[]> pairs;
+		private final Instance[] instances;
+		private final int from;
+		private final int to;
+
+		private FeatureTask(MaxEntScorerFeaturePipe featurePipe, List<String[]> pairs, Instance[] instances, int from,
+				int to) {
+			this.featurePipe = featurePipe;
+			this.pairs = pairs;
+			this.instances = instances;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= FEATURE_TASK_SIZE) {
+				for (int i = from; i < to; i++) {
+					instances[i] = featurePipe.pipe(new Instance(pairs.get(i), "", "", ""));
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new FeatureTask(featurePipe, pairs, instances, from, middle),
+						new FeatureTask(featurePipe, pairs, instances, middle, to));
+			}
+		}
+	}
+}
@@ -17,29 +17,118 @@
 
 package de.julielab.jules.ae.genemapping.scoring;
 
+import java.util.List;
+
 public abstract class Scorer {
 
 	public static final double PERFECT_SCORE = 9999;
 
 	/**
-	 * checks wether we have a perfect match TODO Seems to have an awful
-	 * performance footprint. With (j)visualvm, this method was among the top 3
-	 * CPU usage methods. It is obviously called very often, make it quicker.
+	 * checks wether we have a perfect match, i.e. whether the terms are equal
+	 * after trimming them and replacing all whitespace sequences with a single
+	 * space. The terms are compared in place since this method is called for
+	 * each candidate.
 	 */
 	public boolean isPerfectMatch(String term1, String term2) {
 		if (null == term1 || null == term2)
 			return false;
-		term1 = term1.trim().replaceAll("[\\s ]+", " ");
-		term2 = term2.trim().replaceAll("[\\s ]+", " ");
-		if (term1.equals(term2)) {
-			return true;
-		} else {
-			return false;
+		int end1 = trimmedEnd(term1);
+		int end2 = trimmedEnd(term2);
+		int i = trimmedStart(term1, end1);
+		int j = trimmedStart(term2, end2);
+		while (i < end1 && j < end2) {
+			char c1 = term1.charAt(i);
+			char c2 = term2.charAt(j);
+			boolean whitespace1 = isWhitespace(c1);
+			if (whitespace1 != isWhitespace(c2) || (!whitespace1 && c1 != c2))
+				return false;
+			if (whitespace1) {
+				while (i < end1 && isWhitespace(term1.charAt(i)))
+					i++;
+				while (j < end2 && isWhitespace(term2.charAt(j)))
+					j++;
+			} else {
+				i++;
+				j++;
+			}
 		}
+		return i == end1 && j == end2;
+	}
+
+	/**
+	 * @return Whether the character is matched by the regular expression
+	 *         <tt>\s</tt>.
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	private static int trimmedStart(String term, int end) {
+		int start = 0;
+		while (start < end && term.charAt(start) <= ' ')
+			start++;
+		return start;
+	}
+
+	private static int trimmedEnd(String term) {
+		int end = term.length();
+		while (end > 0 && term.charAt(end - 1) <= ' ')
+			end--;
+		return end;
 	}
 
 	public abstract double getScore(String term1, String term2) throws RuntimeException;
 
+	/**
+	 * Scores the mention against each of the candidates, i.e. sets
+	 * <tt>scores[i]</tt> to <tt>getScore(mention, candidates.get(i))</tt>.
+	 * Subclasses override this method to prepare the mention only once for all
+	 * candidates.
+	 * 
+	 * @param mention
+	 *            the mention term (needs to be normalized!)
+	 * @param candidates
+	 *            the candidate terms (need to be normalized!)
+	 * @param scores
+	 *            receives the scores, must have at least the size of
+	 *            <tt>candidates</tt>
+	 */
+	public void scoreAll(String mention, List<String> candidates, double[] scores) throws RuntimeException {
+		for (int i = 0; i < candidates.size(); i++) {
+			scores[i] = getScore(mention, candidates.get(i));
+		}
+	}
+
+	/**
+	 * Like {@link #scoreAll(String, List, double[])} with the token IDs of the
+	 * terms as given by the <tt>TokenDictionary</tt> of the mention index.
+	 * Token-based scorers override this method to compare the token IDs
+	 * instead of the token strings; all other scorers ignore the IDs.
+	 * 
+	 * @param mention
+	 *            the mention term (needs to be normalized!)
+	 * @param mentionTokenIds
+	 *            the token IDs of the mention
+	 * @param candidates
+	 *            the candidate terms (need to be normalized!)
+	 * @param tokenIds
+	 *            the token IDs of the candidates, e.g. the shared array of
+	 *            the <tt>TokenDictionary</tt>; must not be modified
+	 * @param candidateBegins
+	 *            the position of the first token ID of each candidate in
+	 *            <tt>tokenIds</tt>
+	 * @param candidateEnds
+	 *            the position after the last token ID of each candidate in
+	 *            <tt>tokenIds</tt>
+	 * @param scores
+	 *            receives the scores, must have at least the size of
+	 *            <tt>candidates</tt>
+	 */
+	public void scoreAll(String mention, int[] mentionTokenIds, List<String> candidates, int[] tokenIds,
+			int[] candidateBegins, int[] candidateEnds, double[] scores) throws RuntimeException {
+		scoreAll(mention, candidates, scores);
+	}
+
 	public abstract String info();
 
 	public abstract int getScorerType();
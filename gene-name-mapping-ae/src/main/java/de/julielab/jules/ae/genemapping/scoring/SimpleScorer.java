@@ -17,6 +17,11 @@
 
 package de.julielab.jules.ae.genemapping.scoring;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.TreeSet;
 
 import de.julielab.jules.ae.genemapping.GeneMapping;
@@ -64,6 +69,92 @@ public class SimpleScorer extends Scorer {
 	}
 	
 	
+	/**
+	 * the tokens of the mention are collected only once
+	 */
+	@Override
+	public void scoreAll(String mention, List<String> candidates, double[] scores) {
+		Set<String> mentionSet = new HashSet<String>(Arrays.asList(mention.split(" ")));
+		Set<String> candidateSet = new HashSet<String>();
+		for (int i = 0; i < candidates.size(); i++) {
+			String candidate = candidates.get(i);
+			if (isPerfectMatch(mention, candidate)) {
+				scores[i] = PERFECT_SCORE;
+				continue;
+			}
+			candidateSet.clear();
+			Collections.addAll(candidateSet, candidate.split(" "));
+			int intersectionSize = 0;
+			for (String token : candidateSet) {
+				if (mentionSet.contains(token))
+					intersectionSize++;
+			}
+			scores[i] = (intersectionSize / (double) mentionSet.size())
+					* (intersectionSize / (double) candidateSet.size());
+		}
+	}
+
+	/**
+	 * the token sets are intersected by their token IDs; candidates without
+	 * tokens are scored by their strings
+	 */
+	@Override
+	public void scoreAll(String mention, int[] mentionTokenIds, List<String> candidates, int[] tokenIds,
+			int[] candidateBegins, int[] candidateEnds, double[] scores) {
+		if (mentionTokenIds.length == 0) {
+			scoreAll(mention, candidates, scores);
+			return;
+		}
+		int[] mentionSet = distinct(mentionTokenIds);
+		int[] candidateSet = new int[8];
+		for (int i = 0; i < candidates.size(); i++) {
+			if (isPerfectMatch(mention, candidates.get(i))) {
+				scores[i] = PERFECT_SCORE;
+				continue;
+			}
+			int begin = candidateBegins[i];
+			int end = candidateEnds[i];
+			if (begin == end) {
+				// the string split yields the empty token, which the token
+				// IDs do not have
+				scores[i] = getScore(mention, candidates.get(i));
+				continue;
+			}
+			if (candidateSet.length < end - begin)
+				candidateSet = new int[end - begin];
+			int candidateSize = 0;
+			int intersectionSize = 0;
+			for (int j = begin; j < end; j++) {
+				int tokenId = tokenIds[j];
+				if (indexOf(candidateSet, candidateSize, tokenId) < 0) {
+					candidateSet[candidateSize++] = tokenId;
+					if (indexOf(mentionSet, mentionSet.length, tokenId) >= 0)
+						intersectionSize++;
+				}
+			}
+			scores[i] = (intersectionSize / (double) mentionSet.length)
+					* (intersectionSize / (double) candidateSize);
+		}
+	}
+
+	private static int[] distinct(int[] tokenIds) {
+		int[] distinct = new int[tokenIds.length];
+		int size = 0;
+		for (int tokenId : tokenIds) {
+			if (indexOf(distinct, size, tokenId) < 0)
+				distinct[size++] = tokenId;
+		}
+		return Arrays.copyOf(distinct, size);
+	}
+
+	private static int indexOf(int[] tokenIds, int size, int tokenId) {
+		for (int i = 0; i < size; i++) {
+			if (tokenIds[i] == tokenId)
+				return i;
+		}
+		return -1;
+	}
+
 	public double getMaxLenDiffScore(String term1, String term2) {
 		//System.out.println("[SimpleScorer] comparing: " + term1 + " <-> " + term2);
 		
@@ -19,6 +19,7 @@
 package de.julielab.jules.ae.genemapping.scoring;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import com.wcohen.ss.AbstractStringDistance;
@@ -46,44 +47,244 @@ public class TokenJaroSimilarity extends AbstractStringDistance implements Seria
 
 	
 	public double tokenScore(String first, String second) {
-		int replacement = 0;
-		
-		HashMap<String,Integer> map = new HashMap<String,Integer>();
-		String[] firstArray = first.split(" ");
-		String[] secondArray = second.split(" ");
-		
-		StringBuffer term1 = new StringBuffer();
-		StringBuffer term2 = new StringBuffer();
-		term1.append("0");
-		term2.append("0");
-		for (int i = 0; i < firstArray.length; i++) {
-			String token = firstArray[i];
-			if (map.containsKey(token)) {
-				term1.append(map.get(token).toString());
-			} else {
-				replacement++;
-				term1.append(replacement);
-				map.put(token, replacement);
+		return prepareTokenScore(first).tokenScore(second);
+	}
+
+	/**
+	 * Assigns the token IDs of the first term of
+	 * {@link #tokenScore(String, String)} once for scoring it against many
+	 * second terms.
+	 * 
+	 * @param first
+	 * @return the prepared first term
+	 */
+	public TokenScoreQuery prepareTokenScore(String first) {
+		return new TokenScoreQuery(first);
+	}
+
+	/**
+	 * The first term of {@link #tokenScore(String, String)} with the IDs of its
+	 * tokens.
+	 */
+	public class TokenScoreQuery {
+		private final HashMap<String, Integer> map = new HashMap<String, Integer>();
+		private final int replacement;
+		private final StringWrapper preparedFirst;
+
+		private TokenScoreQuery(String first) {
+			int replacement = 0;
+			String[] firstArray = first.split(" ");
+			StringBuffer term1 = new StringBuffer();
+			term1.append("0");
+			for (int i = 0; i < firstArray.length; i++) {
+				String token = firstArray[i];
+				if (map.containsKey(token)) {
+					term1.append(map.get(token).toString());
+				} else {
+					replacement++;
+					term1.append(replacement);
+					map.put(token, replacement);
+				}
 			}
+			this.replacement = replacement;
+			preparedFirst = prepare(term1.toString().trim());
 		}
-		
-		for (int i = 0; i < secondArray.length; i++) {
-			String token = secondArray[i];
-			if (map.containsKey(token)) {
-				term2.append(map.get(token).toString());
-			} else {
-				replacement++;
-				term2.append(replacement);
-				map.put(token, replacement);
+
+		public double tokenScore(String second) {
+			int replacement = this.replacement;
+			// the IDs of the tokens that only occur in the second term
+			HashMap<String, Integer> secondMap = new HashMap<String, Integer>();
+			String[] secondArray = second.split(" ");
+
+			StringBuffer term2 = new StringBuffer();
+			term2.append("0");
+			for (int i = 0; i < secondArray.length; i++) {
+				String token = secondArray[i];
+				Integer id = map.get(token);
+				if (id == null) {
+					id = secondMap.get(token);
+				}
+				if (id != null) {
+					term2.append(id.toString());
+				} else {
+					replacement++;
+					term2.append(replacement);
+					secondMap.put(token, replacement);
+				}
+			}
+
+			//System.out.println("term2:" + term2.toString().trim());
+
+			String s2 = term2.toString().trim();
+			return score(preparedFirst, prepare(s2));
+		}
+	}
+
+	/**
+	 * Like {@link #tokenScore(String, String)} for terms given as token IDs,
+	 * e.g. of the <tt>TokenDictionary</tt>. Equal tokens must have equal IDs,
+	 * different tokens different IDs.
+	 * 
+	 * @param first
+	 * @param second
+	 * @return the same score as {@link #tokenScore(String, String)} for the
+	 *         terms of the token IDs
+	 */
+	public double tokenScore(int[] first, int[] second) {
+		return prepareTokenScore(first).tokenScore(second);
+	}
+
+	/**
+	 * Assigns the replacement IDs of the first term of
+	 * {@link #tokenScore(int[], int[])} once for scoring it against many second
+	 * terms.
+	 * 
+	 * @param first
+	 * @return the prepared first term
+	 */
+	public TokenIdScoreQuery prepareTokenScore(int[] first) {
+		return new TokenIdScoreQuery(first);
+	}
+
+	/**
+	 * The first term of {@link #tokenScore(int[], int[])}. Builds the same
+	 * replacement strings as {@link TokenScoreQuery} in reused character
+	 * buffers, thus a query must not be used by multiple threads at the same
+	 * time.
+	 */
+	public static class TokenIdScoreQuery {
+		/**
+		 * the distinct token IDs of the first term; the replacement of a token
+		 * is its position plus one
+		 */
+		private final int[] firstIds;
+		private final int numFirstIds;
+		private final char[] firstChars;
+		private final int firstLength;
+		private int[] secondIds = new int[8];
+		private char[] secondChars = new char[16];
+		private boolean[] matched = new boolean[16];
+		private char[] common1 = new char[16];
+		private char[] common2 = new char[16];
+
+		private TokenIdScoreQuery(int[] first) {
+			firstIds = new int[first.length];
+			int numFirstIds = 0;
+			char[] chars = new char[16];
+			int length = append(chars, 0, 0);
+			for (int tokenId : first) {
+				int replacement = indexOf(firstIds, numFirstIds, tokenId) + 1;
+				if (replacement == 0) {
+					firstIds[numFirstIds++] = tokenId;
+					replacement = numFirstIds;
+				}
+				chars = ensureCapacity(chars, length + 11);
+				length = append(chars, length, replacement);
 			}
+			this.numFirstIds = numFirstIds;
+			this.firstChars = chars;
+			this.firstLength = length;
+		}
+
+		public double tokenScore(int[] second) {
+			return tokenScore(second, 0, second.length);
+		}
+
+		/**
+		 * @param ids
+		 *            an array containing the token IDs of the second term
+		 * @param begin
+		 *            the position of the first token ID of the second term
+		 * @param end
+		 *            the position after the last token ID of the second term
+		 * @return the score of the second term
+		 */
+		public double tokenScore(int[] ids, int begin, int end) {
+			int numSecondIds = 0;
+			secondChars = ensureCapacity(secondChars, 1 + 11 * (end - begin));
+			int length = append(secondChars, 0, 0);
+			for (int i = begin; i < end; i++) {
+				int tokenId = ids[i];
+				int replacement = indexOf(firstIds, numFirstIds, tokenId) + 1;
+				if (replacement == 0) {
+					replacement = indexOf(secondIds, numSecondIds, tokenId) + 1;
+					if (replacement == 0) {
+						if (numSecondIds == secondIds.length)
+							secondIds = Arrays.copyOf(secondIds, secondIds.length * 2);
+						secondIds[numSecondIds++] = tokenId;
+						replacement = numSecondIds;
+					}
+					replacement += numFirstIds;
+				}
+				length = append(secondChars, length, replacement);
+			}
+			return score(firstChars, firstLength, secondChars, length);
+		}
+
+		/**
+		 * The Jaro similarity of {@link TokenJaroSimilarity#score(StringWrapper, StringWrapper)}.
+		 */
+		private double score(char[] str1, int length1, char[] str2, int length2) {
+			int halflen = (length1 > length2) ? length2 / 2 + 1 : length1 / 2 + 1;
+			int commonLength1 = commonChars(str1, length1, str2, length2, halflen, common1 = ensureCapacity(common1, length1));
+			int commonLength2 = commonChars(str2, length2, str1, length1, halflen, common2 = ensureCapacity(common2, length2));
+			if (commonLength1 != commonLength2)
+				return 0;
+			if (commonLength1 == 0)
+				return 0;
+			int transpositions = 0;
+			for (int i = 0; i < commonLength1; i++) {
+				if (common1[i] != common2[i])
+					transpositions++;
+			}
+			transpositions /= 2;
+			return (commonLength1 / ((double) length1) + commonLength2 / ((double) length2)
+					+ (commonLength1 - transpositions) / ((double) commonLength1)) / 3.0;
+		}
+
+		private int commonChars(char[] s, int sLength, char[] t, int tLength, int halflen, char[] common) {
+			if (matched.length < tLength)
+				matched = new boolean[Math.max(tLength, matched.length * 2)];
+			Arrays.fill(matched, 0, tLength, false);
+			int commonLength = 0;
+			for (int i = 0; i < sLength; i++) {
+				char ch = s[i];
+				for (int j = Math.max(0, i - halflen); j < Math.min(i + halflen, tLength); j++) {
+					if (!matched[j] && t[j] == ch) {
+						matched[j] = true;
+						common[commonLength++] = ch;
+						break;
+					}
+				}
+			}
+			return commonLength;
+		}
+
+		private static int indexOf(int[] ids, int numIds, int id) {
+			for (int i = 0; i < numIds; i++) {
+				if (ids[i] == id)
+					return i;
+			}
+			return -1;
+		}
+
+		private static char[] ensureCapacity(char[] chars, int capacity) {
+			return chars.length >= capacity ? chars : Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+		}
+
+		/**
+		 * Appends the decimal digits of the non-negative number.
+		 */
+		private static int append(char[] chars, int length, int number) {
+			int numDigits = 1;
+			for (int n = number / 10; n > 0; n /= 10)
+				numDigits++;
+			for (int i = length + numDigits - 1; i >= length; i--) {
+				chars[i] = (char) ('0' + number % 10);
+				number /= 10;
+			}
+			return length + numDigits;
 		}
-	
-		//System.out.println("term1:" + term1.toString().trim());
-		//System.out.println("term2:" + term2.toString().trim());
-		
-		String s1=term1.toString().trim();
-		String s2=term2.toString().trim();
-		return score(prepare(s1),prepare(s2));
 	}
 
 	
@@ -17,6 +17,8 @@
 
 package de.julielab.jules.ae.genemapping.scoring;
 
+import java.util.List;
+
 import de.julielab.jules.ae.genemapping.GeneMapping;
 
 public class TokenJaroSimilarityScorer extends Scorer {
@@ -36,6 +38,41 @@ public class TokenJaroSimilarityScorer extends Scorer {
 		
 	}
 
+	/**
+	 * the token IDs of the mention are assigned only once
+	 */
+	@Override
+	public void scoreAll(String mention, List<String> candidates, double[] scores) {
+		TokenJaroSimilarity.TokenScoreQuery query = jaro.prepareTokenScore(mention);
+		for (int i = 0; i < candidates.size(); i++) {
+			String candidate = candidates.get(i);
+			scores[i] = isPerfectMatch(mention, candidate) ? PERFECT_SCORE : query.tokenScore(candidate);
+		}
+	}
+
+	/**
+	 * the replacement strings are built from the token IDs
+	 */
+	@Override
+	public void scoreAll(String mention, int[] mentionTokenIds, List<String> candidates, int[] tokenIds,
+			int[] candidateBegins, int[] candidateEnds, double[] scores) {
+		if (mentionTokenIds.length == 0) {
+			scoreAll(mention, candidates, scores);
+			return;
+		}
+		TokenJaroSimilarity.TokenIdScoreQuery query = jaro.prepareTokenScore(mentionTokenIds);
+		for (int i = 0; i < candidates.size(); i++) {
+			if (isPerfectMatch(mention, candidates.get(i)))
+				scores[i] = PERFECT_SCORE;
+			else if (candidateBegins[i] == candidateEnds[i])
+				// the string split yields the empty token, which the token
+				// IDs do not have
+				scores[i] = jaro.tokenScore(mention, candidates.get(i));
+			else
+				scores[i] = query.tokenScore(tokenIds, candidateBegins[i], candidateEnds[i]);
+		}
+	}
+
 	public String info() {
 		return "TokenJaroWinklerScorer";
 	}
@@ -0,0 +1,48 @@
+package de.julielab.jules.ae.genemapping.stats;
+
+/**
+ * The stages of the gene mapping process whose latencies are recorded by {@link MappingStatistics}.
+ */
+public enum MappingStage {
+    /**
+     * The normalization of a gene name and the generation of its normalized variants.
+     */
+    NORMALIZATION,
+    /**
+     * The creation of the Lucene queries for candidate retrieval.
+     */
+    QUERY_CONSTRUCTION,
+    /**
+     * The execution of the Lucene queries against the mention index.
+     */
+    LUCENE_SEARCH,
+    /**
+     * Reading the synonyms, gene IDs and taxonomy IDs of the search hits from the index.
+     */
+    HIT_MATERIALIZATION,
+    /**
+     * Scoring the search hits against the gene name.
+     */
+    SCORING,
+    /**
+     * The complete retrieval of the candidates of a gene mention or a document, including cache lookups.
+     */
+    CANDIDATE_RETRIEVAL,
+    /**
+     * Scanning the normalized gene names for dictionary synonyms in a single pass, see
+     * {@link de.julielab.jules.ae.genemapping.mappingcores.AhoCorasickMappingCore}.
+     */
+    DICTIONARY_SCAN,
+    /**
+     * Filtering out candidates by the rules of the {@link de.julielab.jules.ae.genemapping.CandidateFilter}.
+     */
+    FILTERING,
+    /**
+     * Selecting the best-scoring candidates compatible with the mapping constraints, e.g. taxonomy IDs.
+     */
+    CANDIDATE_SELECTION,
+    /**
+     * The disambiguation of the candidates of a document.
+     */
+    DISAMBIGUATION
+}
@@ -0,0 +1,218 @@
+package de.julielab.jules.ae.genemapping.stats;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>JVM-wide latency histograms for the {@link MappingStage}s and statistics of the JVM-wide caches of the gene
+ * mapping components.</p>
+ * <p>The components record the time spent in a stage with
+ * <pre>
+ * long time = MappingStatistics.start();
+ * ...
+ * MappingStatistics.record(MappingStage.SCORING, time);
+ * </pre>
+ * and register their caches - which must have been built with {@link com.google.common.cache.CacheBuilder#recordStats()} -
+ * with {@link #registerCache(String, Cache)}. Everything is exposed through the {@link MappingStatisticsMXBean}
+ * registered by {@link #registerMBean()}.</p>
+ */
+public class MappingStatistics {
+    public static final String OBJECT_NAME = "de.julielab.jules.ae.genemapping:type=MappingStatistics";
+    private static final Logger log = LoggerFactory.getLogger(MappingStatistics.class);
+    private static final EnumMap<MappingStage, LatencyHistogram> histograms = new EnumMap<>(MappingStage.class);
+    private static final Map<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+    /**
+     * The cache statistics at the time of the last reset; Guava's cache statistics cannot be reset.
+     */
+    private static final Map<String, CacheStats> cacheStatsBaselines = new ConcurrentHashMap<>();
+    private static boolean mbeanRegistered;
+
+    static {
+        for (MappingStage stage : MappingStage.values())
+            histograms.put(stage, new LatencyHistogram());
+    }
+
+    private MappingStatistics() {
+    }
+
+    /**
+     * @return The current time to pass to {@link #record(MappingStage, long)} at the end of the stage.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time from <tt>startNanos</tt> until now for the given stage.
+     *
+     * @param stage      The finished stage.
+     * @param startNanos The value returned by {@link #start()} at the beginning of the stage.
+     * @return The recorded duration in nanoseconds.
+     */
+    public static long record(MappingStage stage, long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        histograms.get(stage).record(duration);
+        return duration;
+    }
+
+    public static LatencyHistogram getHistogram(MappingStage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * Adds a cache to the statistics. Registering another cache with the same name replaces the former.
+     *
+     * @param name  A name identifying the cache, e.g. its purpose and the index it caches.
+     * @param cache The cache. It must record statistics, otherwise all its counts are 0.
+     */
+    public static void registerCache(String name, Cache<?, ?> cache) {
+        caches.put(name, cache);
+        cacheStatsBaselines.remove(name);
+    }
+
+    public static void unregisterCache(String name) {
+        caches.remove(name);
+        cacheStatsBaselines.remove(name);
+    }
+
+    public static CacheStats getCacheStats(String name) {
+        Cache<?, ?> cache = caches.get(name);
+        if (cache == null)
+            return null;
+        CacheStats baseline = cacheStatsBaselines.get(name);
+        return baseline != null ? cache.stats().minus(baseline) : cache.stats();
+    }
+
+    public static void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        caches.forEach((name, cache) -> cacheStatsBaselines.put(name, cache.stats()));
+    }
+
+    /**
+     * Registers the {@link MappingStatisticsMXBean} with the platform MBean server under {@link #OBJECT_NAME}.
+     * Subsequent calls have no effect.
+     */
+    public static synchronized void registerMBean() {
+        if (mbeanRegistered)
+            return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(new Bean(), name);
+            mbeanRegistered = true;
+        } catch (JMException e) {
+            log.warn("Could not register the gene mapping statistics MBean", e);
+        }
+    }
+
+    private static <T> Map<String, T> perStage(Function<LatencyHistogram, T> f) {
+        Map<String, T> values = new LinkedHashMap<>();
+        histograms.forEach((stage, histogram) -> values.put(stage.name(), f.apply(histogram)));
+        return values;
+    }
+
+    private static Map<String, Double> perStageMicros(ToLongFunction<LatencyHistogram> f) {
+        return perStage(h -> f.applyAsLong(h) / 1000d);
+    }
+
+    private static <T> Map<String, T> perCache(Function<String, T> f) {
+        Map<String, T> values = new TreeMap<>();
+        caches.keySet().forEach(name -> values.put(name, f.apply(name)));
+        return values;
+    }
+
+    private static Map<String, Long> perCacheStat(ToLongFunction<CacheStats> f) {
+        return perCache(name -> f.applyAsLong(getCacheStats(name)));
+    }
+
+    private static Map<String, Double> perCacheStatDouble(ToDoubleFunction<CacheStats> f) {
+        return perCache(name -> f.applyAsDouble(getCacheStats(name)));
+    }
+
+    private static class Bean implements MappingStatisticsMXBean {
+        @Override
+        public Map<String, Long> getStageCounts() {
+            return perStage(LatencyHistogram::getCount);
+        }
+
+        @Override
+        public Map<String, Double> getStageTotalMillis() {
+            return perStage(h -> h.getTotalNanos() / 1000000d);
+        }
+
+        @Override
+        public Map<String, Double> getStageMeanMicros() {
+            return perStage(h -> h.getMeanNanos() / 1000d);
+        }
+
+        @Override
+        public Map<String, Double> getStageMedianMicros() {
+            return perStageMicros(h -> h.getPercentileNanos(50));
+        }
+
+        @Override
+        public Map<String, Double> getStage99thPercentileMicros() {
+            return perStageMicros(h -> h.getPercentileNanos(99));
+        }
+
+        @Override
+        public Map<String, Double> getStageMaxMicros() {
+            return perStageMicros(LatencyHistogram::getMaxNanos);
+        }
+
+        @Override
+        public Map<String, Long> getCacheHitCounts() {
+            return perCacheStat(CacheStats::hitCount);
+        }
+
+        @Override
+        public Map<String, Long> getCacheMissCounts() {
+            return perCacheStat(CacheStats::missCount);
+        }
+
+        @Override
+        public Map<String, Long> getCacheEvictionCounts() {
+            return perCacheStat(CacheStats::evictionCount);
+        }
+
+        @Override
+        public Map<String, Double> getCacheHitRates() {
+            return perCacheStatDouble(CacheStats::hitRate);
+        }
+
+        @Override
+        public Map<String, Long> getCacheSizes() {
+            return perCache(name -> caches.get(name).size());
+        }
+
+        @Override
+        public String getReport() {
+            StringBuilder sb = new StringBuilder();
+            histograms.forEach((stage, h) -> sb.append(String.format("%-20s count=%d total=%.1fms mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus%n",
+                    stage, h.getCount(), h.getTotalNanos() / 1000000d, h.getMeanNanos() / 1000d, h.getPercentileNanos(50) / 1000d,
+                    h.getPercentileNanos(99) / 1000d, h.getMaxNanos() / 1000d)));
+            perCache(name -> name).keySet().forEach(name -> {
+                CacheStats stats = getCacheStats(name);
+                sb.append(String.format("cache %s: size=%d hits=%d misses=%d evictions=%d hitRate=%.3f%n", name,
+                        caches.get(name).size(), stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate()));
+            });
+            return sb.toString();
+        }
+
+        @Override
+        public void reset() {
+            MappingStatistics.reset();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package de.julielab.jules.ae.genemapping.stats;
+
+import java.util.Map;
+
+/**
+ * The JMX view on {@link MappingStatistics}. Latencies are given in microseconds. The maps are keyed by
+ * {@link MappingStage} name or by cache name, respectively.
+ */
+public interface MappingStatisticsMXBean {
+    Map<String, Long> getStageCounts();
+
+    Map<String, Double> getStageTotalMillis();
+
+    Map<String, Double> getStageMeanMicros();
+
+    Map<String, Double> getStageMedianMicros();
+
+    Map<String, Double> getStage99thPercentileMicros();
+
+    Map<String, Double> getStageMaxMicros();
+
+    Map<String, Long> getCacheHitCounts();
+
+    Map<String, Long> getCacheMissCounts();
+
+    Map<String, Long> getCacheEvictionCounts();
+
+    Map<String, Double> getCacheHitRates();
+
+    Map<String, Long> getCacheSizes();
+
+    /**
+     * @return A human-readable summary of all statistics.
+     */
+    String getReport();
+
+    /**
+     * Resets all latency histograms and the cache statistics.
+     */
+    void reset();
+}
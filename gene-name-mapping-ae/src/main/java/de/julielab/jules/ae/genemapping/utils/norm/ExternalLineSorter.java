@@ -0,0 +1,137 @@
+package de.julielab.jules.ae.genemapping.utils.norm;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>Sorts and deduplicates more lines than fit into memory. The lines are added as sorted runs that are written to
+ * temporary files. {@link #merge(Writer)} then performs a k-way merge of the runs that writes each distinct line
+ * once, in ascending order of {@link String#compareTo(String)}.</p>
+ * <p>When the number of runs reaches {@link #MAX_MERGE_FAN_IN}, they are merged into a single run so that the number
+ * of simultaneously open files is bounded.</p>
+ */
+class ExternalLineSorter implements Closeable {
+    static final int MAX_MERGE_FAN_IN = 128;
+    private final File tempDir;
+    private final List<File> runs = new ArrayList<>();
+    private int runCounter;
+
+    /**
+     * @param parentDir The directory in which a temporary directory for the runs is created.
+     * @throws IOException If the temporary directory cannot be created.
+     */
+    ExternalLineSorter(File parentDir) throws IOException {
+        tempDir = Files.createTempDirectory(parentDir.toPath(), "sortedruns").toFile();
+    }
+
+    /**
+     * Writes the given lines as a new run.
+     *
+     * @param sortedLines Lines in ascending order, duplicates are allowed.
+     * @throws IOException If writing the run fails.
+     */
+    void addRun(String[] sortedLines) throws IOException {
+        final File run = newRunFile();
+        try (BufferedWriter bw = newRunWriter(run)) {
+            String last = null;
+            for (String line : sortedLines) {
+                if (!line.equals(last))
+                    writeLine(bw, line);
+                last = line;
+            }
+        }
+        runs.add(run);
+        if (runs.size() >= MAX_MERGE_FAN_IN) {
+            final File mergedRun = newRunFile();
+            try (BufferedWriter bw = newRunWriter(mergedRun)) {
+                merge(bw);
+            }
+            runs.add(mergedRun);
+        }
+    }
+
+    /**
+     * Merges all runs into the given writer, writing each distinct line once, and deletes the run files.
+     *
+     * @param writer The output writer.
+     * @throws IOException If reading the runs or writing the output fails.
+     */
+    void merge(Writer writer) throws IOException {
+        final PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, runs.size()), Comparator.comparing(r -> r.line));
+        try {
+            for (File run : runs) {
+                final RunReader reader = new RunReader(run);
+                if (reader.next())
+                    queue.add(reader);
+                else
+                    reader.close();
+            }
+            String last = null;
+            while (!queue.isEmpty()) {
+                final RunReader reader = queue.poll();
+                if (!reader.line.equals(last))
+                    writeLine(writer, reader.line);
+                last = reader.line;
+                if (reader.next())
+                    queue.add(reader);
+                else
+                    reader.close();
+            }
+        } finally {
+            for (RunReader reader : queue)
+                reader.close();
+            for (File run : runs)
+                Files.deleteIfExists(run.toPath());
+            runs.clear();
+        }
+    }
+
+    int getNumRuns() {
+        return runs.size();
+    }
+
+    private File newRunFile() {
+        return new File(tempDir, "run" + runCounter++);
+    }
+
+    private BufferedWriter newRunWriter(File run) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(run), StandardCharsets.UTF_8));
+    }
+
+    private void writeLine(Writer writer, String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (File run : runs)
+            Files.deleteIfExists(run.toPath());
+        runs.clear();
+        Files.deleteIfExists(tempDir.toPath());
+    }
+
+    private static class RunReader implements Closeable {
+        private final BufferedReader reader;
+        private String line;
+
+        private RunReader(File run) throws IOException {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(run), StandardCharsets.UTF_8));
+        }
+
+        private boolean next() throws IOException {
+            line = reader.readLine();
+            return line != null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package de.julielab.jules.ae.genemapping.utils.norm;
+
+import de.julielab.jules.ae.genemapping.AhoCorasickLongestMatchCallback;
+import org.apache.commons.lang3.Range;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>A {@link TermNormalizer} whose {@link #normalizeUncached(String)} returns the same output as the one of
+ * {@link TermNormalizer} but works in a single pass over the characters of the term, driven by character classes,
+ * instead of running regular expressions over token lists until a fixpoint is reached.</p>
+ * <p>The rules of the original normalization are implemented as follows:
+ * <ol>
+ * <li>If the term has more than one space separated token, the stopword tokens are removed.</li>
+ * <li>All characters except ASCII letters, digits and dots separate tokens. In addition, the last dot of each
+ * space separated token that follows a letter and precedes a letter or digit separates tokens.</li>
+ * <li>Tokens are split between a lower case letter and an upper case letter or digit, between an upper case letter
+ * and a digit, between a digit and a letter and between two upper case letters and a lower case letter. This is the
+ * fixpoint of the number and token split loop of the original.</li>
+ * <li>Greek letters and the words 'high' and 'low' are split away from longer tokens, including the peculiarities
+ * of the original: a single character after the last match is dropped and the token following a split token is not
+ * checked for such words.</li>
+ * <li>If there is more than one token, the upper case roman numbers I to IV are replaced by arabic numbers.</li>
+ * <li>The tokens are lower cased and joined by single spaces.</li>
+ * </ol>
+ * </p>
+ * <p>Lower casing is done for ASCII letters, independently of the default locale. Thus, the output differs from the
+ * original only for default locales with special lower casing rules for ASCII letters, i.e. Turkish and Azeri.</p>
+ * <p>Each thread works on its own reusable buffers so that instances may be shared between threads.</p>
+ */
+public class FastTermNormalizer extends TermNormalizer {
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private static boolean isLower(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return isLower(c) || isUpper(c);
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return isLetter(c) || isDigit(c);
+    }
+
+    private static char toLower(char c) {
+        return isUpper(c) ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * @param before2 The second last character of the current token or 0.
+     * @param before  The last character of the current token or 0.
+     * @param c       The next character.
+     * @return Whether the token is split in front of <tt>c</tt>.
+     */
+    private static boolean isTokenBoundary(char before2, char before, char c) {
+        return (isLower(before) && (isUpper(c) || isDigit(c)))
+                || (isUpper(before) && isDigit(c))
+                || (isDigit(before) && isLetter(c))
+                || (isUpper(before2) && isUpper(before) && isLower(c));
+    }
+
+    /**
+     * @return The arabic number for the upper case roman numbers I to IV, 0 otherwise.
+     */
+    private static char romanToArabic(char[] chars, int start, int end) {
+        switch (end - start) {
+            case 1:
+                return chars[start] == 'I' ? '1' : 0;
+            case 2:
+                if (chars[start] == 'I' && chars[start + 1] == 'I')
+                    return '2';
+                return chars[start] == 'I' && chars[start + 1] == 'V' ? '4' : 0;
+            case 3:
+                return chars[start] == 'I' && chars[start + 1] == 'I' && chars[start + 2] == 'I' ? '3' : 0;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    protected String normalizeUncached(String term) {
+        final Buffers b = buffers.get();
+        b.reset(term.length());
+        splitTokens(term, b);
+        splitAwayCharacterStrings(b);
+        return join(b);
+    }
+
+    /**
+     * Removes stopwords and special characters and splits the tokens at character class changes. The resulting
+     * tokens are written to {@link Buffers#chars}.
+     */
+    private void splitTokens(String term, Buffers b) {
+        // String#split(" ") drops trailing empty tokens
+        int last = term.length() - 1;
+        while (last >= 0 && term.charAt(last) == ' ')
+            --last;
+        // stopwords are kept if the term consists of a single token
+        final boolean removeStopwords = last >= 0 && term.lastIndexOf(' ', last) >= 0;
+        int start = 0;
+        while (start <= last) {
+            int end = term.indexOf(' ', start);
+            if (end < 0 || end > last)
+                end = last + 1;
+            if (!removeStopwords || !isStopword(term, start, end))
+                splitSpaceSeparatedToken(term, start, end, b);
+            start = end + 1;
+        }
+    }
+
+    private boolean isStopword(String term, int start, int end) {
+        for (String stopword : stopwords) {
+            if (stopword.length() == end - start && term.regionMatches(start, stopword, 0, stopword.length()))
+                return true;
+        }
+        return false;
+    }
+
+    private void splitSpaceSeparatedToken(String term, int start, int end, Buffers b) {
+        int separatingDot = -1;
+        for (int i = end - 2; i > start; --i) {
+            if (term.charAt(i) == '.' && isLetter(term.charAt(i - 1)) && isLetterOrDigit(term.charAt(i + 1))) {
+                separatingDot = i;
+                break;
+            }
+        }
+        char before = 0;
+        char before2 = 0;
+        for (int i = start; i < end; ++i) {
+            final char c = term.charAt(i);
+            if (i == separatingDot || (c != '.' && !isLetterOrDigit(c))) {
+                b.endToken();
+                before = before2 = 0;
+                continue;
+            }
+            if (isTokenBoundary(before2, before, c))
+                b.endToken();
+            b.append(c);
+            before2 = before;
+            before = c;
+        }
+        b.endToken();
+    }
+
+    /**
+     * Splits away greek letters and the words 'high' and 'low' from the tokens in {@link Buffers#chars} exactly like
+     * {@link TermNormalizer} does and writes the resulting tokens to {@link Buffers#out}.
+     */
+    private void splitAwayCharacterStrings(Buffers b) {
+        final AhoCorasickLongestMatchCallback callback = b.callback;
+        boolean skipToken = false;
+        for (int t = 0; t < b.numTokens; ++t) {
+            final int start = b.starts[t];
+            final int length = b.ends[t] - start;
+            for (int i = 0; i < length; ++i)
+                b.lower[i] = toLower(b.chars[start + i]);
+            TreeMap<Range<Integer>, String> longestMatches = null;
+            if (!skipToken) {
+                callback.clear();
+                greekAC.match(b.lower, 0, length, callback);
+                longestMatches = callback.getLongestMatches();
+                if (longestMatches.isEmpty() || (longestMatches.size() == 1 && longestMatches.firstEntry().getValue().length() == length))
+                    longestMatches = null;
+            }
+            skipToken = false;
+            if (longestMatches == null) {
+                b.appendOut(b.lower, 0, length, romanToArabic(b.chars, start, b.ends[t]));
+                continue;
+            }
+            int currentPos = 0;
+            for (Map.Entry<Range<Integer>, String> match : longestMatches.entrySet()) {
+                final int matchStart = match.getKey().getMinimum();
+                final int beforeStart = Math.min(currentPos, matchStart);
+                final int beforeEnd = Math.max(currentPos, matchStart);
+                if (beforeEnd > beforeStart)
+                    b.appendOut(b.lower, beforeStart, beforeEnd - beforeStart, (char) 0);
+                b.appendOut(match.getValue());
+                currentPos = match.getKey().getMaximum() + 1;
+            }
+            // the original only keeps a rest of at least two characters and then skips the token following the
+            // split token
+            if (currentPos < length - 1)
+                b.appendOut(b.lower, currentPos, length - currentPos, (char) 0);
+            else
+                skipToken = true;
+        }
+    }
+
+    /**
+     * Replaces the roman numbers if there are multiple tokens and joins the tokens in {@link Buffers#out}.
+     */
+    private String join(Buffers b) {
+        final boolean replaceRomanNumbers = b.numOutTokens > 1;
+        int length = 0;
+        for (int t = 0; t < b.numOutTokens; ++t) {
+            if (t > 0)
+                b.out[length++] = ' ';
+            if (replaceRomanNumbers && b.arabicNumbers[t] != 0) {
+                b.out[length++] = b.arabicNumbers[t];
+            } else {
+                final int start = b.outStarts[t];
+                final int tokenLength = b.outEnds[t] - start;
+                // the output only moves to the left
+                System.arraycopy(b.out, start, b.out, length, tokenLength);
+                length += tokenLength;
+            }
+        }
+        return new String(b.out, 0, length);
+    }
+
+    /**
+     * The per-thread working memory of {@link #normalizeUncached(String)}.
+     */
+    private static class Buffers {
+        private final AhoCorasickLongestMatchCallback callback = new AhoCorasickLongestMatchCallback();
+        /**
+         * The tokens after {@link #splitTokens(String, Buffers)}, without separators.
+         */
+        private char[] chars = new char[64];
+        private int length;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int numTokens;
+        private int tokenStart = -1;
+        /**
+         * The lower cased current token during {@link #splitAwayCharacterStrings(Buffers)}.
+         */
+        private char[] lower = new char[64];
+        /**
+         * The tokens after {@link #splitAwayCharacterStrings(Buffers)}, without separators.
+         */
+        private char[] out = new char[128];
+        private int outLength;
+        private int[] outStarts = new int[16];
+        private int[] outEnds = new int[16];
+        /**
+         * For each output token, the arabic number replacing it if it is a roman number, 0 otherwise.
+         */
+        private char[] arabicNumbers = new char[16];
+        private int numOutTokens;
+
+        private void reset(int termLength) {
+            if (chars.length < termLength) {
+                chars = new char[termLength];
+                lower = new char[termLength];
+            }
+            length = 0;
+            numTokens = 0;
+            tokenStart = -1;
+            outLength = 0;
+            numOutTokens = 0;
+        }
+
+        private void append(char c) {
+            if (tokenStart < 0)
+                tokenStart = length;
+            chars[length++] = c;
+        }
+
+        private void endToken() {
+            if (tokenStart < 0)
+                return;
+            if (numTokens == starts.length) {
+                starts = Arrays.copyOf(starts, numTokens * 2);
+                ends = Arrays.copyOf(ends, numTokens * 2);
+            }
+            starts[numTokens] = tokenStart;
+            ends[numTokens] = length;
+            ++numTokens;
+            tokenStart = -1;
+        }
+
+        private void appendOut(char[] source, int from, int tokenLength, char arabicNumber) {
+            reserveOut(tokenLength);
+            System.arraycopy(source, from, out, outLength, tokenLength);
+            endOutToken(tokenLength, arabicNumber);
+        }
+
+        private void appendOut(String token) {
+            reserveOut(token.length());
+            token.getChars(0, token.length(), out, outLength);
+            endOutToken(token.length(), (char) 0);
+        }
+
+        private void reserveOut(int tokenLength) {
+            // reserve the space for a separator so that the joined tokens fit into the array
+            if (out.length < outLength + tokenLength + 1)
+                out = Arrays.copyOf(out, Math.max(out.length * 2, outLength + tokenLength + 1));
+            if (numOutTokens == outStarts.length) {
+                outStarts = Arrays.copyOf(outStarts, numOutTokens * 2);
+                outEnds = Arrays.copyOf(outEnds, numOutTokens * 2);
+                arabicNumbers = Arrays.copyOf(arabicNumbers, numOutTokens * 2);
+            }
+        }
+
+        private void endOutToken(int tokenLength, char arabicNumber) {
+            outStarts[numOutTokens] = outLength;
+            outLength += tokenLength;
+            outEnds[numOutTokens] = outLength;
+            arabicNumbers[numOutTokens] = arabicNumber;
+            ++numOutTokens;
+            // the separator slot
+            ++outLength;
+        }
+    }
+}
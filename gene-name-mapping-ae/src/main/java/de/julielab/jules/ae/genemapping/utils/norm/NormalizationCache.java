@@ -0,0 +1,159 @@
+package de.julielab.jules.ae.genemapping.utils.norm;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import de.julielab.jules.ae.genemapping.stats.MappingStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <p>A JVM-wide cache of normalized texts and normalized text variants, keyed by the normalization and the raw text.
+ * It is consulted by {@link TermNormalizer#normalize(String)} and {@link TermNormalizer#normalizeVariants(String)} and
+ * thus by all {@link de.julielab.jules.ae.genemapping.genemodel.GeneName} instances.</p>
+ * <p>Gene names follow a heavy Zipf distribution: a few surface forms make up most of the mentions in a document
+ * collection. Without the cache, each new gene name normalizes its text and its variants again, even if the same
+ * text has been seen in thousands of documents before. The cache is shared by all normalizer instances. Their
+ * entries are told apart by {@link TermNormalizer#getNormalizationIdentity()} so that normalizers that normalize
+ * differently never see the results of each other.</p>
+ * <p>The size is set once via {@link de.julielab.jules.ae.genemapping.GeneMappingConfiguration#NORMALIZATION_CACHE_SIZE}
+ * by the first configuration that creates a {@link de.julielab.jules.ae.genemapping.LuceneCandidateRetrieval};
+ * a size of 0 disables the cache. Until then, the cache has the {@link #DEFAULT_MAXIMUM_SIZE}.</p>
+ */
+public class NormalizationCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 100000;
+    private static final Logger log = LoggerFactory.getLogger(NormalizationCache.class);
+    private static volatile Cache<Key, String> normalizedTexts;
+    private static volatile Cache<Key, List<String>> normalizedVariants;
+    private static long maximumSize = -1;
+    private static boolean configured;
+
+    static {
+        setMaximumSize(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    private NormalizationCache() {
+    }
+
+    /**
+     * Sets the size of the caches on the first call; later calls with a different size are ignored since the caches
+     * are shared by all mapping configurations in the JVM.
+     *
+     * @param size The maximum number of texts for each of the normalized texts and the normalized variants cache. 0
+     *             disables caching.
+     */
+    public static synchronized void configureMaximumSize(long size) {
+        if (!configured) {
+            configured = true;
+            setMaximumSize(size);
+        } else if (size != maximumSize) {
+            log.warn("The normalization cache size has already been configured to {}, the size {} is ignored.", maximumSize, size);
+        }
+    }
+
+    /**
+     * Replaces the caches by caches of the given size unless they already have this size. The entries of the
+     * current caches are kept as far as they fit.
+     *
+     * @param size The maximum number of texts for each of the normalized texts and the normalized variants cache. 0
+     *             disables caching.
+     */
+    public static synchronized void setMaximumSize(long size) {
+        if (size == maximumSize)
+            return;
+        maximumSize = size;
+        if (size > 0) {
+            normalizedTexts = resize(normalizedTexts, size);
+            normalizedVariants = resize(normalizedVariants, size);
+            MappingStatistics.registerCache("normalizedTexts", normalizedTexts);
+            MappingStatistics.registerCache("normalizedVariants", normalizedVariants);
+        } else {
+            normalizedTexts = null;
+            normalizedVariants = null;
+            MappingStatistics.unregisterCache("normalizedTexts");
+            MappingStatistics.unregisterCache("normalizedVariants");
+        }
+    }
+
+    private static <V> Cache<Key, V> resize(Cache<Key, V> cache, long size) {
+        Cache<Key, V> resized = CacheBuilder.newBuilder().maximumSize(size).recordStats().build();
+        if (cache != null)
+            resized.putAll(cache.asMap());
+        return resized;
+    }
+
+    public static synchronized long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public static void invalidateAll() {
+        Cache<Key, String> texts = normalizedTexts;
+        Cache<Key, List<String>> variants = normalizedVariants;
+        if (texts != null)
+            texts.invalidateAll();
+        if (variants != null)
+            variants.invalidateAll();
+    }
+
+    /**
+     * @param normalization The identity of the normalization, see {@link TermNormalizer#getNormalizationIdentity()}.
+     * @param text          The raw text.
+     * @param normalizer    Creates the normalized text.
+     * @return The cached or newly created normalized text.
+     */
+    static String getNormalizedText(Object normalization, String text, Function<String, String> normalizer) {
+        return get(normalizedTexts, normalization, text, normalizer);
+    }
+
+    /**
+     * @param normalization The identity of the normalization, see {@link TermNormalizer#getNormalizationIdentity()}.
+     * @param text          The raw text.
+     * @param normalizer    Creates the normalized variants of the text, must return an unmodifiable list.
+     * @return The cached or newly created normalized variants.
+     */
+    static List<String> getNormalizedVariants(Object normalization, String text, Function<String, List<String>> normalizer) {
+        return get(normalizedVariants, normalization, text, normalizer);
+    }
+
+    private static <V> V get(Cache<Key, V> cache, Object normalization, String text, Function<String, V> normalizer) {
+        if (cache == null)
+            return normalizer.apply(text);
+        Key key = new Key(normalization, text);
+        V value = cache.getIfPresent(key);
+        if (value == null) {
+            // concurrent misses for the same text may compute the value twice, which is cheaper than locking
+            value = normalizer.apply(text);
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    private static final class Key {
+        private final Object normalization;
+        private final String text;
+        private final int hashCode;
+
+        private Key(Object normalization, String text) {
+            this.normalization = normalization;
+            this.text = text;
+            this.hashCode = 31 * normalization.hashCode() + text.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return hashCode == key.hashCode && text.equals(key.text) && normalization.equals(key.normalization);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
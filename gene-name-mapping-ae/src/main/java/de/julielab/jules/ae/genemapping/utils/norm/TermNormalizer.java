@@ -20,6 +20,7 @@
 package de.julielab.jules.ae.genemapping.utils.norm;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -33,7 +34,7 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import com.lahodiuk.ahocorasick.AhoCorasickOptimized;
+import com.lahodiuk.ahocorasick.AhoCorasickDoubleArray;
 import de.julielab.jules.ae.genemapping.AhoCorasickLongestMatchCallback;
 import org.apache.commons.lang3.Range;
 import org.apache.commons.lang3.StringUtils;
@@ -43,9 +44,29 @@ import de.julielab.jules.ae.genemapping.CandidateFilter;
 
 import static java.util.stream.Collectors.joining;
 
+/**
+ * <p>Normalizes gene names and creates their variants.</p>
+ * <p>Instances are thread-safe and meant to be shared between all threads of a
+ * pipeline: the compiled patterns, the word lists and the greek letter
+ * automaton are not modified after construction and the only stateful
+ * component, the stemmer, exists once per thread. No method acquires a lock.
+ * Subclasses must keep this guarantee.</p>
+ */
 public class TermNormalizer {
 
-    private final String NON_DESCRIPTIVES_FILE = "/non_descriptives";
+    private static final String NON_DESCRIPTIVES_FILE = "/non_descriptives";
+
+    /**
+     * The word lists and the greek letter automaton never change and are thus
+     * created once per JVM instead of once per instance.
+     */
+    private static final Set<String> NON_DESCRIPTIVES = readNonDescriptives();
+
+    private static final Set<String> STOPWORDS = createStopwords();
+
+    private static final AhoCorasickDoubleArray GREEK_AUTOMATON = createGreekAutomaton();
+
+    private static final Pattern LAT_NUM_PATTERN = Pattern.compile(CandidateFilter.LAT_NUM_REGEX);
 
     private final String NUMBERPATTERN = "([A-Za-z]+)([0-9]+)";
 
@@ -59,27 +80,30 @@ public class TermNormalizer {
 
     private final String DOTREMOVAL = "(.*)([a-zA-Z])\\.([a-zA-Z0-9])(.*)";
 
-    private TreeSet<String> nonDescriptives;
+    private final Set<String> nonDescriptives = NON_DESCRIPTIVES;
 
-    private TreeSet<String> stopwords;
+    final Set<String> stopwords = STOPWORDS;
 
     private HashMap<String, String> plurals;
 
-    private Pattern numberPattern;
+    private final Pattern numberPattern;
 
-    private Pattern shortFormPattern;
+    private final Pattern shortFormPattern;
 
-    private Pattern shortFormEndWithNumberPattern;
+    private final Pattern shortFormEndWithNumberPattern;
 
-    private Pattern shortFormEndNoNumberPattern;
+    private final Pattern shortFormEndNoNumberPattern;
 
-    private Pattern tokenSplitPattern;
+    private final Pattern tokenSplitPattern;
 
-    private Pattern dotRemovalPattern;
+    private final Pattern dotRemovalPattern;
 
-    private AhoCorasickOptimized greekAC;
+    final AhoCorasickDoubleArray greekAC = GREEK_AUTOMATON;
 
-    private SnowballProgram stemmer;
+    /**
+     * Snowball stemmers keep the current word, thus each thread gets its own.
+     */
+    private final ThreadLocal<SnowballProgram> stemmers = ThreadLocal.withInitial(TermNormalizer::createStemmer);
 
     public TermNormalizer() {
 
@@ -89,17 +113,22 @@ public class TermNormalizer {
         dotRemovalPattern = Pattern.compile(DOTREMOVAL);
         shortFormEndWithNumberPattern = Pattern.compile(SHORTFORMEND_WITH_NUMBER_PATTERN);
         shortFormEndNoNumberPattern = Pattern.compile(SHORTFORMEND_NO_NUMBER_PATTERN);
+        // initPlurals();
+        // fail early if the stemmer is not available
+        stemmers.get();
+    }
+
+    private static AhoCorasickDoubleArray createGreekAutomaton() {
         final List<String> patterns = Arrays.stream(CandidateFilter.GREEK).collect(Collectors.toList());
         patterns.add("high");
         patterns.add("low");
-        greekAC = new AhoCorasickOptimized(patterns);
-        initStopwords();
-        // initPlurals();
-        initNonDescriptives();
+        return new AhoCorasickDoubleArray(patterns);
+    }
 
+    private static SnowballProgram createStemmer() {
         try {
             Class<?> stemClass = Class.forName("org.tartarus.snowball.ext.EnglishStemmer");
-            stemmer = (SnowballProgram) stemClass.newInstance();
+            return (SnowballProgram) stemClass.newInstance();
         } catch (ReflectiveOperationException e) {
             throw new RuntimeException(e.toString());
         }
@@ -117,19 +146,62 @@ public class TermNormalizer {
             File outputFile = new File(args[1]);
             (new TermNormalizer()).normalizeFile(unnormalizedFile, outputFile);
 
+        } else if (args.length == 3) {
+            File unnormalizedFile = new File(args[0]);
+            File outputFile = new File(args[1]);
+            long memoryBudget = Long.parseLong(args[2]) * 1024 * 1024;
+            (new TermNormalizer()).normalizeFile(unnormalizedFile, outputFile, memoryBudget);
+
         } else {
-            System.err.println("usage:\nTermNormalizer <inputFil> <outputFile>");
+            System.err.println("usage:\nTermNormalizer <inputFil> <outputFile> [memory budget in MB]");
             System.exit(-1);
         }
     }
 
     /**
-     * normalize a single synonym
+     * normalize a single synonym; the result is looked up in and added to the
+     * {@link NormalizationCache}
      *
      * @param term
      * @return
      */
     public String normalize(String term) {
+        return NormalizationCache.getNormalizedText(getNormalizationIdentity(), term, this::normalizeUncached);
+    }
+
+    /**
+     * Returns the distinct normalized variants of the term as created by
+     * {@link #generateVariants(String)} and {@link #normalize(String)}. Equal
+     * variants are normalized only once. The result is looked up in and added
+     * to the {@link NormalizationCache}.
+     *
+     * @param term
+     * @return An unmodifiable list of the normalized variants.
+     */
+    public List<String> normalizeVariants(String term) {
+        return NormalizationCache.getNormalizedVariants(getNormalizationIdentity(), term, t -> Collections.unmodifiableList(generateVariants(t).stream().distinct().map(this::normalize).distinct().collect(Collectors.toList())));
+    }
+
+    /**
+     * Identifies the normalization of this instance in the
+     * {@link NormalizationCache}. Instances with equal identities must
+     * normalize each text in the same way; subclasses whose normalization
+     * depends on their configuration must override this method.
+     *
+     * @return The class of this normalizer.
+     */
+    protected Object getNormalizationIdentity() {
+        return getClass();
+    }
+
+    /**
+     * normalize a single synonym without consulting the
+     * {@link NormalizationCache}
+     *
+     * @param term
+     * @return
+     */
+    protected String normalizeUncached(String term) {
 
         ArrayList<String> termOld;
         ArrayList<String> newTerm = removeStopwords(term);
@@ -170,7 +242,32 @@ public class TermNormalizer {
         return term;
     }
 
+    /**
+     * Creates variants of the term: without hyphens between letters, with
+     * roman numbers split away, and with the greek letters alpha to delta
+     * abbreviated to their first letter, once including and once excluding a
+     * preceding whitespace. The list has four elements and contains the term
+     * itself for each variant that does not change it.
+     *
+     * @param term
+     * @return
+     */
     public List<String> generateVariants(String term) {
+        if (VariantGenerator.canGenerate(term))
+            return VariantGenerator.generate(term);
+        return generateVariantsByRegex(term);
+    }
+
+    /**
+     * The regular expression based implementation of
+     * {@link #generateVariants(String)}. It is used for terms with surrogate
+     * characters and serves as reference for the faster
+     * {@link VariantGenerator}.
+     *
+     * @param term
+     * @return
+     */
+    public List<String> generateVariantsByRegex(String term) {
         List<String> ret = new ArrayList<>();
         String variant = term.replaceAll("([^-0-9])\\-([^0-9])", "$1$2");
         ret.add(variant);
@@ -200,6 +297,7 @@ public class TermNormalizer {
     public String stemNameTokens(String normalizedTerm) throws IOException {
         String[] split = normalizedTerm.split("\\s+");
         List<String> stemmedTokens = new ArrayList<>(split.length);
+        SnowballProgram stemmer = stemmers.get();
         for (String token : split) {
             stemmer.setCurrent(token);
             stemmer.stem();
@@ -211,53 +309,58 @@ public class TermNormalizer {
     /**
      * normalize all synonyms in a file (biothesaurus) where the first column is
      * the synonym and the second column is id. all other columns are ignored.
-     * columns have to be tab-separated.
+     * columns have to be tab-separated. Uses a quarter of the maximum heap size
+     * as memory budget.
      *
      * @param inputFile  the input file (biothesaurus)
      * @param outputFile output file for normalized synonyms
+     * @see #normalizeFile(File, File, long)
      */
     public void normalizeFile(File inputFile, File outputFile) {
+        normalizeFile(inputFile, outputFile, Runtime.getRuntime().maxMemory() / 4);
+    }
 
-        System.out.println("Normalizing file " + inputFile.getAbsolutePath() + " and writing the result to " + outputFile.getAbsolutePath());
+    /**
+     * <p>Normalizes all synonyms in a file (biothesaurus) where the first column
+     * is the synonym and the second column is id. All other columns are
+     * ignored. Columns have to be tab-separated. For each synonym, the
+     * normalized synonym and its normalized variants are written to the
+     * output file.</p>
+     * <p>The input is read in chunks whose output is estimated to fit into the
+     * given memory budget. The lines of a chunk are normalized in parallel,
+     * sorted and written to a temporary file next to the output file. The
+     * sorted chunks are then merged into the output file, removing duplicate
+     * lines. Thus, the output is sorted - and grouped by synonym - independently
+     * of the number of threads and the memory budget.</p>
+     *
+     * @param inputFile    the input file (biothesaurus)
+     * @param outputFile   output file for normalized synonyms
+     * @param memoryBudget the approximate number of bytes the normalized lines of a chunk may occupy on the heap
+     */
+    public void normalizeFile(File inputFile, File outputFile, long memoryBudget) {
+
+        System.out.println("Normalizing file " + inputFile.getAbsolutePath() + " and writing the result to " + outputFile.getAbsolutePath() + " with a memory budget of " + memoryBudget / (1024 * 1024) + "MB");
         final AtomicInteger ignoredLines = new AtomicInteger(0);
-        try (BufferedReader br = new BufferedReader(new FileReader(inputFile)); FileWriter fileOut = new FileWriter(outputFile)) {
-            br.lines()
-                    .parallel()
-                    .map(line -> line.split("\t"))
-                    .filter(split -> {
-                        if (split.length != 3) {
-                            ignoredLines.incrementAndGet();
-                            System.err.println("wrong line format, ignoring line: " + Arrays.toString(split));
-                            return false;
-                        }
-                        return true;
-                    })
-                    .flatMap(split -> {
-                        final Stream.Builder<String> toWrite = Stream.builder();
-                        String normalizedSyn = normalize(split[0]);
-                        if (!normalizedSyn.isEmpty()) {
-                            List<String> variantString = generateVariants(split[0]);
-                            for (int i = 0; i < variantString.size(); ++i)
-                                variantString.set(i, normalize(variantString.get(i)));
-                            toWrite.accept(normalizedSyn + "\t" + split[1] + "\t" + split[2] + "\n");
-                            for (int i = 0; i < variantString.size(); ++i)
-                                toWrite.accept(variantString.get(i) + "\t" + split[1] + "\t" + split[2] + "\n");
-                        }
-                        return toWrite.build();
-                    })
-                    .unordered()
-                    .distinct()
-                    .forEach(line -> {
-                try {
-                    synchronized (fileOut) {
-                        fileOut.write(line);
-                    }
-                } catch (IOException e) {
-                    System.err.println("Could not write line: " + line);
-                    e.printStackTrace();
+        try (BufferedReader br = new BufferedReader(new FileReader(inputFile));
+             ExternalLineSorter sorter = new ExternalLineSorter(outputFile.getAbsoluteFile().getParentFile())) {
+            List<String> chunk = new ArrayList<>();
+            long chunkSize = 0;
+            String line;
+            while ((line = br.readLine()) != null) {
+                chunk.add(line);
+                chunkSize += estimateNormalizedSize(line);
+                if (chunkSize >= memoryBudget) {
+                    sorter.addRun(normalizeChunk(chunk, ignoredLines));
+                    chunk.clear();
+                    chunkSize = 0;
                 }
-            });
-
+            }
+            if (!chunk.isEmpty())
+                sorter.addRun(normalizeChunk(chunk, ignoredLines));
+            System.out.println("Merging " + sorter.getNumRuns() + " sorted chunks");
+            try (BufferedWriter bw = new BufferedWriter(new FileWriter(outputFile))) {
+                sorter.merge(bw);
+            }
         } catch (IOException io) {
             io.printStackTrace();
         }
@@ -266,6 +369,43 @@ public class TermNormalizer {
         System.out.println("number of ignored lines (due to wrong format): " + ignoredLines);
     }
 
+    /**
+     * A conservative estimate of the heap bytes taken by the input line and the
+     * normalized synonym and variant lines created from it.
+     */
+    private long estimateNormalizedSize(String line) {
+        // the line itself, the normalized synonym and four variants, each with
+        // two bytes per character and the String and array headers
+        return 6 * (2L * line.length() + 64);
+    }
+
+    private String[] normalizeChunk(List<String> lines, AtomicInteger ignoredLines) {
+        final String[] normalizedLines = lines.parallelStream()
+                .map(line -> line.split("\t"))
+                .filter(split -> {
+                    if (split.length != 3) {
+                        ignoredLines.incrementAndGet();
+                        System.err.println("wrong line format, ignoring line: " + Arrays.toString(split));
+                        return false;
+                    }
+                    return true;
+                })
+                .flatMap(split -> {
+                    final Stream.Builder<String> toWrite = Stream.builder();
+                    // the dictionary entries are mostly unique, so the normalization cache is not used
+                    String normalizedSyn = normalizeUncached(split[0]);
+                    if (!normalizedSyn.isEmpty()) {
+                        toWrite.accept(normalizedSyn + "\t" + split[1] + "\t" + split[2]);
+                        for (String variant : generateVariants(split[0]))
+                            toWrite.accept(normalizeUncached(variant) + "\t" + split[1] + "\t" + split[2]);
+                    }
+                    return toWrite.build();
+                })
+                .toArray(String[]::new);
+        Arrays.parallelSort(normalizedLines);
+        return normalizedLines;
+    }
+
     /**
      * inserts whitespaces at the following positions: [a-z]->[A-Z0-9]
      * [A-z]->[0-9] [0-9]->[a-zA-Z]
@@ -494,7 +634,7 @@ public class TermNormalizer {
         List<String> ret = new ArrayList<>(term);
         for (int i = 0; i < ret.size(); ++i) {
             String token = ret.get(i);
-            Matcher romNumMatcher = Pattern.compile(CandidateFilter.LAT_NUM_REGEX).matcher(token);
+            Matcher romNumMatcher = LAT_NUM_PATTERN.matcher(token);
             while (romNumMatcher.find()) {
                 // check if the match was at the end of the term
                 if (romNumMatcher.start() != 0 && romNumMatcher.end() == token.length()) {
@@ -646,14 +786,15 @@ public class TermNormalizer {
         return nonDescriptives.contains(term);
     }
 
-    private void initStopwords() {
-        stopwords = new TreeSet<String>();
+    private static Set<String> createStopwords() {
+        TreeSet<String> stopwords = new TreeSet<>();
         stopwords.add("of");
         stopwords.add("for");
         stopwords.add("and");
         stopwords.add("or");
         stopwords.add("the");
         // TODO: remove (un-)defined articles; check POS tag!
+        return Collections.unmodifiableSet(stopwords);
     }
 
     private void initPlurals() {
@@ -668,10 +809,9 @@ public class TermNormalizer {
         plurals.put("transcripts", "transcript");
     }
 
-    private void initNonDescriptives() {
-        nonDescriptives = new TreeSet<String>();
-
-        InputStream in = this.getClass().getResourceAsStream(NON_DESCRIPTIVES_FILE);
+    private static Set<String> readNonDescriptives() {
+        TreeSet<String> nonDescriptives = new TreeSet<>();
+        InputStream in = TermNormalizer.class.getResourceAsStream(NON_DESCRIPTIVES_FILE);
         InputStreamReader isr = new InputStreamReader(in);
         BufferedReader nonDescReader = new BufferedReader(isr);
 
@@ -686,6 +826,7 @@ public class TermNormalizer {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return Collections.unmodifiableSet(nonDescriptives);
     }
 
     private String ArrayList2String(ArrayList<String> term) {
@@ -0,0 +1,186 @@
+package de.julielab.jules.ae.genemapping.utils.norm;
+
+import de.julielab.jules.ae.genemapping.CandidateFilter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * <p>Creates the same variants as {@link TermNormalizer#generateVariantsByRegex(String)} by scanning the term with
+ * precomputed tables instead of compiling and applying regular expressions for each term:
+ * <ol>
+ * <li>hyphens between a character that is neither a hyphen nor a digit and a character that is not a digit are
+ * removed,</li>
+ * <li>whitespace sequences are replaced by a single space and roman numbers at the end of tokens are split away,</li>
+ * <li>the greek letters alpha, beta, gamma and delta are replaced by their first letter,</li>
+ * <li>the same as 3. but including a whitespace character in front of the greek letter.</li>
+ * </ol>
+ * A variant that does not differ from the term is the term instance itself.</p>
+ * <p>The regular expressions of the reference implementation work on code points. Terms containing surrogate
+ * characters must thus be handled by the reference implementation, see {@link #canGenerate(String)}.</p>
+ */
+class VariantGenerator {
+    private static final String[] GREEK_NAMES = {"alpha", "beta", "gamma", "delta"};
+    private static final String[] GREEK_ABBREVIATIONS = {"a", "b", "g", "d"};
+    /**
+     * The roman numbers in the order in which the alternatives of {@link CandidateFilter#LAT_NUM_REGEX} are tried.
+     */
+    private static final String[] ROMAN_NUMBERS = Stream.of(CandidateFilter.LAT_NUM).sorted(Comparator.reverseOrder()).toArray(String[]::new);
+
+    private VariantGenerator() {
+    }
+
+    /**
+     * @param term A term.
+     * @return Whether {@link #generate(String)} returns the same variants as the reference implementation for the
+     * term, which is the case for all terms without surrogate characters.
+     */
+    static boolean canGenerate(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isSurrogate(term.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    static List<String> generate(String term) {
+        List<String> variants = new ArrayList<>(4);
+        variants.add(removeHyphens(term));
+        variants.add(splitAwayRomanNumbers(term));
+        variants.add(abbreviateGreekNames(term, false));
+        variants.add(abbreviateGreekNames(term, true));
+        return variants;
+    }
+
+    /**
+     * Equivalent to <tt>term.replaceAll("([^-0-9])\\-([^0-9])", "$1$2")</tt> for terms without surrogates.
+     */
+    private static String removeHyphens(String term) {
+        int hyphen = term.indexOf('-', 1);
+        if (hyphen < 0)
+            return term;
+        StringBuilder sb = null;
+        int copied = 0;
+        // as the regular expression, we continue after the character following a removed hyphen
+        for (int i = hyphen - 1; i + 2 < term.length(); ) {
+            char before = term.charAt(i);
+            char after = term.charAt(i + 2);
+            if (term.charAt(i + 1) == '-' && before != '-' && !isDigit(before) && !isDigit(after)) {
+                if (sb == null)
+                    sb = new StringBuilder(term.length());
+                sb.append(term, copied, i + 1).append(after);
+                copied = i + 3;
+                i += 3;
+            } else {
+                ++i;
+            }
+        }
+        if (sb == null)
+            return term;
+        return sb.append(term, copied, term.length()).toString();
+    }
+
+    /**
+     * Equivalent to splitting the term at <tt>\s+</tt>, applying {@link TermNormalizer#splitAwayRomanNumbers(List)}
+     * and joining the tokens with single spaces.
+     */
+    private static String splitAwayRomanNumbers(String term) {
+        StringBuilder sb = new StringBuilder(term.length() + 2);
+        int i = 0;
+        while (i < term.length() && isRegexWhitespace(term.charAt(i)))
+            ++i;
+        // String#split includes an empty leading token for leading whitespace but drops trailing empty tokens
+        if (i > 0 && i < term.length())
+            sb.append(' ');
+        boolean firstToken = true;
+        while (i < term.length()) {
+            int end = i;
+            while (end < term.length() && !isRegexWhitespace(term.charAt(end)))
+                ++end;
+            if (!firstToken)
+                sb.append(' ');
+            int romanNumberStart = getRomanNumberSplitPosition(term, i, end);
+            if (romanNumberStart > i)
+                sb.append(term, i, romanNumberStart).append(' ').append(term, romanNumberStart, end);
+            else
+                sb.append(term, i, end);
+            firstToken = false;
+            i = end;
+            while (i < term.length() && isRegexWhitespace(term.charAt(i)))
+                ++i;
+        }
+        return sb.length() == term.length() && term.contentEquals(sb) ? term : sb.toString();
+    }
+
+    /**
+     * Finds the roman number at the end of the token <tt>[start, end)</tt> the same way as
+     * {@link TermNormalizer#splitAwayRomanNumbers(List)}: the roman numbers are matched from left to right, the
+     * alternatives tried in the order of {@link CandidateFilter#LAT_NUM_REGEX}. Only the last match can end at the
+     * token end and it begins in the trailing sequence of roman digits.
+     *
+     * @return The start of the roman number that ends the token or <tt>start</tt> if there is none.
+     */
+    private static int getRomanNumberSplitPosition(String term, int start, int end) {
+        int romanDigitsStart = end;
+        while (romanDigitsStart > start && isRomanDigit(term.charAt(romanDigitsStart - 1)))
+            --romanDigitsStart;
+        if (romanDigitsStart == end)
+            return start;
+        int lastMatchStart = romanDigitsStart;
+        int pos = romanDigitsStart;
+        while (pos < end) {
+            lastMatchStart = pos;
+            // each single roman digit is an alternative, thus there always is a match
+            for (String romanNumber : ROMAN_NUMBERS) {
+                if (romanNumber.length() <= end - pos && term.startsWith(romanNumber, pos)) {
+                    pos += romanNumber.length();
+                    break;
+                }
+            }
+        }
+        return lastMatchStart;
+    }
+
+    /**
+     * Equivalent to the successive application of <tt>term.replaceAll("alpha", "a")</tt> etc. or
+     * <tt>term.replaceAll("\\s?alpha", "a")</tt> etc. if <tt>withWhitespace</tt> is set.
+     */
+    private static String abbreviateGreekNames(String term, boolean withWhitespace) {
+        String variant = term;
+        for (int i = 0; i < GREEK_NAMES.length; i++)
+            variant = replace(variant, GREEK_NAMES[i], GREEK_ABBREVIATIONS[i], withWhitespace);
+        return variant;
+    }
+
+    private static String replace(String s, String name, String abbreviation, boolean withWhitespace) {
+        int index = s.indexOf(name);
+        if (index < 0)
+            return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        int copied = 0;
+        while (index >= 0) {
+            int matchStart = withWhitespace && index > copied && isRegexWhitespace(s.charAt(index - 1)) ? index - 1 : index;
+            sb.append(s, copied, matchStart).append(abbreviation);
+            copied = index + name.length();
+            index = s.indexOf(name, copied);
+        }
+        return sb.append(s, copied, s.length()).toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isRomanDigit(char c) {
+        return c == 'I' || c == 'V' || c == 'X';
+    }
+
+    /**
+     * @return Whether the character is matched by <tt>\s</tt>.
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,142 @@
+package com.lahodiuk.ahocorasick;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that {@link AhoCorasickDoubleArray} reports the same matches in the
+ * same order and gives the same {@link AhoCorasick#isEntryPrefix(String)}
+ * results as {@link AhoCorasickOptimized}, also after it has been written to
+ * and read from a file.
+ */
+public class AhoCorasickDoubleArrayTest {
+
+	private static final String[][] PATTERN_SETS = {
+			// the example of Aho and Corasick
+			{ "he", "she", "his", "hers" },
+			// overlapping patterns and patterns that are prefixes or suffixes
+			// of each other
+			{ "a", "aa", "aaa", "ab", "b", "bab", "abab" },
+			// duplicate patterns
+			{ "abc", "abc", "bc", "c", "bc" },
+			// the empty pattern
+			{ "", "x", "xy" },
+			// gene names
+			{ "il 2", "il 2 receptor", "receptor alpha", "tnf alpha", "alpha", "p 53", "tumor protein p 53" },
+			// characters beyond ASCII
+			{ "\u03b1 chain", "\u00e9t\u00e9", "\u4e2d\u6587" },
+			// no patterns at all
+			{} };
+
+	private static final String[] TEXTS = { "", "ushers", "hishershe", "aaaa", "abababab", "babab", "abcbcabc", "xyxxy",
+			"il 2 receptor alpha", "tnf alpha and tumor protein p 53", "the il 2", "\u03b1 chain \u00e9t\u00e9 \u4e2d\u6587",
+			// characters that are not in the alphabet of any pattern set
+			"zzz", "h\u20ace\u20acr", "\uffff", "a\u0000b", "he\ud83d\ude00rs" };
+
+	@Test
+	public void testMatch() {
+		for (String[] patterns : PATTERN_SETS) {
+			AhoCorasickOptimized expected = new AhoCorasickOptimized(patterns);
+			AhoCorasickDoubleArray actual = new AhoCorasickDoubleArray(patterns);
+			for (String text : TEXTS) {
+				String message = Arrays.toString(patterns) + ", '" + text + "'";
+				List<String> expectedMatches = match(expected, text);
+				assertEquals(message, expectedMatches, match(actual, text));
+				assertEquals(message, expectedMatches, matchArray(actual, text));
+				assertEquals(message, expectedMatches, matchPatternIds(actual, text));
+			}
+		}
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testWriteRead() throws IOException {
+		for (String[] patterns : PATTERN_SETS) {
+			AhoCorasickDoubleArray written = new AhoCorasickDoubleArray(patterns);
+			File file = folder.newFile();
+			written.write(file);
+			AhoCorasickDoubleArray read = AhoCorasickDoubleArray.read(file);
+			assertEquals(written.getNumPatterns(), read.getNumPatterns());
+			for (int id = 0; id < patterns.length; id++)
+				assertEquals(patterns[id], read.getPattern(id));
+			for (String text : TEXTS) {
+				String message = Arrays.toString(patterns) + ", '" + text + "'";
+				assertEquals(message, match(written, text), match(read, text));
+				assertEquals(message, matchPatternIds(written, text), matchPatternIds(read, text));
+				assertEquals(message, written.isEntryPrefix(text), read.isEntryPrefix(text));
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadOtherFile() throws IOException {
+		File file = folder.newFile();
+		Files.write(file.toPath(), "this is a text file and not an automaton".getBytes(StandardCharsets.UTF_8));
+		AhoCorasickDoubleArray.read(file);
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadTruncatedFile() throws IOException {
+		File file = folder.newFile();
+		new AhoCorasickDoubleArray(PATTERN_SETS[0]).write(file);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 2));
+		AhoCorasickDoubleArray.read(file);
+	}
+
+	@Test
+	public void testIsEntryPrefix() {
+		for (String[] patterns : PATTERN_SETS) {
+			AhoCorasickOptimized expected = new AhoCorasickOptimized(patterns);
+			AhoCorasickDoubleArray actual = new AhoCorasickDoubleArray(patterns);
+			List<String> texts = new ArrayList<>(Arrays.asList(TEXTS));
+			for (String pattern : patterns) {
+				for (int i = 0; i <= pattern.length(); i++) {
+					texts.add(pattern.substring(0, i));
+					texts.add(pattern.substring(i));
+				}
+				texts.add(pattern + "z");
+			}
+			for (String text : texts) {
+				assertEquals(Arrays.toString(patterns) + ", '" + text + "'", expected.isEntryPrefix(text),
+						actual.isEntryPrefix(text));
+			}
+		}
+	}
+
+	static List<String> match(AhoCorasick automaton, String text) {
+		List<String> matches = new ArrayList<>();
+		automaton.match(text, (begin, end, matched) -> matches.add(begin + "-" + end + ":" + matched));
+		return matches;
+	}
+
+	/**
+	 * matches the text embedded into a larger array
+	 */
+	private static List<String> matchArray(AhoCorasick automaton, String text) {
+		char[] array = ("he" + text + "rs").toCharArray();
+		List<String> matches = new ArrayList<>();
+		automaton.match(array, 2, text.length(), (begin, end, matched) -> matches.add(begin + "-" + end + ":" + matched));
+		return matches;
+	}
+
+	private static List<String> matchPatternIds(AhoCorasickDoubleArray automaton, String text) {
+		List<String> matches = new ArrayList<>();
+		automaton.matchPatternIds(text,
+				(begin, end, id) -> matches.add(begin + "-" + end + ":" + automaton.getPattern(id)));
+		return matches;
+	}
+}
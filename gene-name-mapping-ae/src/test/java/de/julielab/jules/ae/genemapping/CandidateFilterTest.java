@@ -0,0 +1,99 @@
+package de.julielab.jules.ae.genemapping;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks the result of {@link CandidateFilter#filterOut(String, String)} for
+ * each of its rules on pairs of normalized search and found terms.
+ */
+public class CandidateFilterTest {
+
+	private static CandidateFilter filter;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		filter = new CandidateFilter();
+	}
+
+	@Test
+	public void testOverlapOnlyNumbers() {
+		assertFilterOut(true, "interleukin 2", "cd 2");
+		assertFilterOut(true, "p 53", "mdm 53 binding");
+		// without any common word, all words of the overlap are numbers
+		assertFilterOut(true, "tnf", "interleukin");
+		assertFilterOut(false, "interleukin 2", "interleukin 2 receptor");
+		assertFilterOut(false, "il 2", "il 2");
+	}
+
+	@Test
+	public void testOverlapOnlySingleCharacters() {
+		assertFilterOut(true, "protein kinase c", "c reactive");
+		assertFilterOut(true, "cyclin d 1", "d 1 dopamine");
+		assertFilterOut(false, "protein kinase c", "kinase c");
+	}
+
+	@Test
+	public void testOverlapOnlySpecialWords() {
+		assertFilterOut(true, "tnf alpha", "alpha actinin");
+		assertFilterOut(true, "growth factor", "factor viii");
+		assertFilterOut(true, "tumor protein", "protein kinase");
+		assertFilterOut(false, "tnf alpha", "tnf alpha actinin");
+	}
+
+	@Test
+	public void testOneDifferentNumberOrGreek() {
+		assertFilterOut(true, "il 2", "il 6");
+		assertFilterOut(true, "il 2 receptor", "il 6 receptor");
+		assertFilterOut(true, "tnf alpha", "tnf beta");
+		assertFilterOut(true, "hif 1 alpha", "hif 1 beta");
+		// the terms differ in more than the number
+		assertFilterOut(false, "il 2 receptor", "il 6");
+		// two numbers in each term
+		assertFilterOut(false, "hsp 70 1", "hsp 70 2");
+	}
+
+	@Test
+	public void testAdditionalNumber() {
+		assertFilterOut(true, "fgf 2", "fgf");
+		assertFilterOut(true, "fgf 12", "fgf");
+		assertFilterOut(false, "fgf 1", "fgf");
+		// the found term has the additional number
+		assertFilterOut(false, "fgf", "fgf 2");
+	}
+
+	@Test
+	public void testAdditionalSubGreek() {
+		assertFilterOut(true, "pkc beta", "pkc");
+		assertFilterOut(true, "pkc gamma", "pkc");
+		assertFilterOut(false, "pkc alpha", "pkc");
+		assertFilterOut(false, "pkc", "pkc beta");
+	}
+
+	@Test
+	public void testAdditionalModifier() {
+		assertFilterOut(true, "il 2 receptor", "il 2");
+		assertFilterOut(true, "insulin receptors", "insulin");
+		// non-descriptive words are no modifiers
+		assertFilterOut(false, "il 2 precursor", "il 2");
+		assertFilterOut(false, "il 2", "il 2 receptor");
+	}
+
+	@Test
+	public void testWhitespace() {
+		// the additional modifier is found in tokens split at any whitespace
+		assertFilterOut(true, "il 2\treceptor", "il 2");
+		assertFilterOut(true, "il  2 receptor", "il 2");
+		// the expression of the different number only allows single spaces
+		assertFilterOut(false, "il  2", "il 6");
+		assertFilterOut(false, "il 2\tdomain", "il 6\tdomain");
+	}
+
+	private static void assertFilterOut(boolean expected, String searchTerm, String foundTerm) {
+		assertEquals("'" + searchTerm + "', '" + foundTerm + "'", expected, filter.filterOut(searchTerm, foundTerm));
+	}
+}
@@ -0,0 +1,48 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import cc.mallet.classify.Classifier;
+import cc.mallet.types.Instance;
+
+/**
+ * Checks that {@link MaxEntScorerCompiledModel} returns the same
+ * probabilities as the Mallet path of {@link MaxEntScorer}, i.e. classifying
+ * the instance created by the instance pipe of the model.
+ */
+public class MaxEntScorerCompiledModelTest {
+
+	@Test
+	public void testProbabilities() {
+		MaxEntScorerML ml = new MaxEntScorerML();
+		Classifier model = ml.train(ml.makeInstances(new ArrayList<>(MaxEntTestPairs.createTrainingPairs())));
+		// as in MaxEntScorer#loadModel
+		model.getInstancePipe().getDataAlphabet().stopGrowth();
+		MaxEntScorerCompiledModel compiledModel = MaxEntScorerCompiledModel.compile(model);
+		assertNotNull(compiledModel);
+
+		SimpleScorer perfectMatchChecker = new SimpleScorer();
+		List<String> names = MaxEntTestPairs.getNames();
+		double[] probabilities = new double[names.size()];
+		for (String name1 : names) {
+			compiledModel.getTrueProbabilities(name1, names, probabilities);
+			for (int i = 0; i < names.size(); i++) {
+				String name2 = names.get(i);
+				if (perfectMatchChecker.isPerfectMatch(name1, name2))
+					continue;
+				Instance instance = model.getInstancePipe()
+						.instanceFrom(new Instance(new String[] { name1, name2, "FALSE" }, "", "", ""));
+				double expected = ml.predict(instance, model);
+				String pair = "'" + name1 + "', '" + name2 + "'";
+				assertEquals(pair, expected, compiledModel.getTrueProbability(name1, name2), 0);
+				assertEquals(pair, expected, probabilities[i], 0);
+			}
+		}
+	}
+}
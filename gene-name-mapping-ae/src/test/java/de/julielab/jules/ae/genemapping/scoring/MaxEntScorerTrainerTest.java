@@ -0,0 +1,104 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cc.mallet.classify.MaxEnt;
+import cc.mallet.classify.Trial;
+import cc.mallet.types.FeatureVector;
+import cc.mallet.types.Instance;
+import cc.mallet.types.InstanceList;
+import cc.mallet.types.Label;
+
+/**
+ * Checks that {@link MaxEntScorerTrainer} creates the same instances and
+ * trains the same model as {@link MaxEntScorerML}, and that its concurrent
+ * cross-validation gives the same accuracies as a sequential one.
+ */
+public class MaxEntScorerTrainerTest {
+
+	private static final int PARALLELISM = 4;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * @return The training pairs, repeated so that the features are computed
+	 *         in more than one task.
+	 */
+	private static List<String[]> createPairs() {
+		List<String[]> pairs = new ArrayList<>();
+		for (int i = 0; i < 5; i++)
+			pairs.addAll(MaxEntTestPairs.createTrainingPairs());
+		return pairs;
+	}
+
+	@Test
+	public void testMakeInstances() throws IOException {
+		List<String[]> pairs = createPairs();
+		InstanceList expected = new MaxEntScorerML().makeInstances(new ArrayList<>(pairs));
+		InstanceList actual;
+		try (MaxEntScorerTrainer trainer = new MaxEntScorerTrainer(PARALLELISM)) {
+			actual = trainer.makeInstances(writePairList(pairs));
+		}
+		assertArrayEquals(expected.getDataAlphabet().toArray(), actual.getDataAlphabet().toArray());
+		assertArrayEquals(expected.getTargetAlphabet().toArray(), actual.getTargetAlphabet().toArray());
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+			assertInstanceEquals("'" + pairs.get(i)[0] + "', '" + pairs.get(i)[1] + "'", expected.get(i),
+					actual.get(i));
+
+		MaxEntScorerML ml = new MaxEntScorerML();
+		assertArrayEquals(((MaxEnt) ml.train(expected)).getParameters(),
+				((MaxEnt) ml.train(actual)).getParameters(), 0);
+	}
+
+	@Test
+	public void testCrossValidate() {
+		InstanceList instances = new MaxEntScorerML().makeInstances(new ArrayList<>(createPairs()));
+		Trial[] sequentialTrials;
+		try (MaxEntScorerTrainer trainer = new MaxEntScorerTrainer(1)) {
+			sequentialTrials = trainer.crossValidate(instances, 5, 42);
+		}
+		Trial[] concurrentTrials;
+		try (MaxEntScorerTrainer trainer = new MaxEntScorerTrainer(PARALLELISM)) {
+			concurrentTrials = trainer.crossValidate(instances, 5, 42);
+		}
+		assertEquals(sequentialTrials.length, concurrentTrials.length);
+		for (int i = 0; i < sequentialTrials.length; i++)
+			assertEquals("fold " + i, sequentialTrials[i].getAccuracy(), concurrentTrials[i].getAccuracy(), 0);
+	}
+
+	private File writePairList(List<String[]> pairs) throws IOException {
+		File pairList = folder.newFile("pairs.txt");
+		try (BufferedWriter bw = Files.newBufferedWriter(pairList.toPath())) {
+			for (String[] pair : pairs) {
+				bw.write(String.join("\t", pair));
+				bw.newLine();
+			}
+		}
+		return pairList;
+	}
+
+	private static void assertInstanceEquals(String message, Instance expected, Instance actual) {
+		FeatureVector expectedVector = (FeatureVector) expected.getData();
+		FeatureVector actualVector = (FeatureVector) actual.getData();
+		assertEquals(message, ((Label) expected.getTarget()).getIndex(), ((Label) actual.getTarget()).getIndex());
+		assertEquals(message, expectedVector.numLocations(), actualVector.numLocations());
+		for (int i = 0; i < expectedVector.numLocations(); i++) {
+			assertEquals(message, expectedVector.indexAtLocation(i), actualVector.indexAtLocation(i));
+			assertEquals(message, expectedVector.valueAtLocation(i), actualVector.valueAtLocation(i), 0);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalized synonyms of a few genes and the labeled synonym pairs the
+ * MaxEnt tests train on.
+ */
+class MaxEntTestPairs {
+
+	static final String[][] GENES = {
+			{ "il 2", "interleukin 2", "il 2 precursor", "t cell growth factor", "tcgf" },
+			{ "il 2 receptor alpha", "il 2 r alpha", "cd 25", "il 2 ra", "p 55" },
+			{ "tnf alpha", "tumor necrosis factor alpha", "tnf", "cachectin", "tnfa" },
+			{ "p 53", "tp 53", "tumor protein p 53", "cellular tumor antigen p 53", "lfs 1" },
+			{ "hsp 70", "heat shock 70 kda protein", "hsp 70 1", "hspa 1 a", "hsp 72" },
+			{ "tgf beta 1", "transforming growth factor beta 1", "tgfb 1", "tgf b 1", "ced" },
+			{ "nf kappa b p 65", "rela", "v rel reticuloendotheliosis viral oncogene homolog a", "p 65", "nfkb 3" },
+			{ "collagen type iv alpha 1", "col 4 a 1", "collagen iv alpha 1 chain", "arng", "type iv collagen" },
+			{ "protein kinase c beta", "pkc beta", "prkcb", "pkcb", "prkcb 1" },
+			{ "estrogen receptor", "esr 1", "er alpha", "nr 3 a 1", "estrogen receptor alpha" } };
+
+	/**
+	 * Names that do not occur in the training pairs.
+	 */
+	static final String[] UNSEEN = { "kinase", "il 2 receptor beta", "70 kda heat shock protein",
+			"alpha 1 antitrypsin", "putative protein" };
+
+	private MaxEntTestPairs() {
+	}
+
+	/**
+	 * @return The pairs of synonyms of the same gene, labeled <tt>TRUE</tt>,
+	 *         followed by pairs of synonyms of different genes, labeled
+	 *         <tt>FALSE</tt>.
+	 */
+	static List<String[]> createTrainingPairs() {
+		List<String[]> pairs = new ArrayList<>();
+		for (String[] synonyms : GENES) {
+			for (int i = 0; i < synonyms.length; i++) {
+				for (int j = i + 1; j < synonyms.length; j++)
+					pairs.add(new String[] { synonyms[i], synonyms[j], "TRUE" });
+			}
+		}
+		for (int g = 0; g < GENES.length; g++) {
+			for (int offset : new int[] { 1, 3 }) {
+				String[] otherSynonyms = GENES[(g + offset) % GENES.length];
+				for (int i = 0; i < GENES[g].length; i++)
+					pairs.add(new String[] { GENES[g][i], otherSynonyms[i], "FALSE" });
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * @return All synonyms of the genes followed by the unseen names.
+	 */
+	static List<String> getNames() {
+		List<String> names = new ArrayList<>();
+		for (String[] synonyms : GENES) {
+			for (String synonym : synonyms)
+				names.add(synonym);
+		}
+		for (String name : UNSEEN)
+			names.add(name);
+		return names;
+	}
+}
@@ -0,0 +1,93 @@
+package de.julielab.jules.ae.genemapping.scoring;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.julielab.jules.ae.genemapping.index.TokenDictionary;
+
+/**
+ * Checks that the token-based scorers give the same results for terms given by
+ * the token IDs of a {@link TokenDictionary} as for the token strings.
+ */
+public class TokenIdScoringTest {
+
+	/**
+	 * The synonyms of the "index documents" the dictionary is built from; the
+	 * empty synonym stands for a document without tokens.
+	 */
+	private static final String[] SYNONYMS = { "il 2", "interleukin 2", "il 2 receptor alpha", "il 2 r alpha",
+			"tnf alpha", "tumor necrosis factor alpha", "p 53", "tumor protein p 53", "hsp 70", "hsp 70 1",
+			"heat shock protein 70", "tgf beta 1", "tgf beta 1 tgf", "collagen type iv alpha 1", "cd 25", "alpha",
+			"protein kinase c beta", "pkc beta ii", "estrogen receptor", "estrogen receptor alpha 1", "" };
+
+	/**
+	 * The mentions; some have tokens that the dictionary does not know.
+	 */
+	private static final String[] MENTIONS = { "il 2", "il 2 receptor", "tnf alpha", "tnf tnf alpha", "p 53",
+			"p 63", "hsp 70", "hsp 90 alpha", "tgf beta 2", "collagen iv", "cd 25 antigen", "alpha", "pkc beta",
+			"protein kinase c beta ii", "estrogen receptor beta", "unknown gene x" };
+
+	private static final TokenDictionary DICTIONARY = createDictionary();
+
+	private static TokenDictionary createDictionary() {
+		TokenDictionary.Builder builder = new TokenDictionary.Builder(SYNONYMS.length);
+		for (int i = 0; i < SYNONYMS.length; i++)
+			builder.add(i, SYNONYMS[i]);
+		return builder.build();
+	}
+
+	@Test
+	public void testSimpleScorer() {
+		checkScorer(new SimpleScorer());
+	}
+
+	@Test
+	public void testTokenJaroSimilarityScorer() {
+		checkScorer(new TokenJaroSimilarityScorer());
+	}
+
+	@Test
+	public void testCascadeScorer() {
+		checkScorer(new CascadeScorer(new Scorer[] { new SimpleScorer(), new TokenJaroSimilarityScorer() },
+				new double[] { 0.2 }));
+	}
+
+	@Test
+	public void testCachingScorer() {
+		CachingScorer scorer = new CachingScorer(new SimpleScorer(), 100);
+		checkScorer(scorer);
+		// the second run is served by the cache
+		checkScorer(scorer);
+	}
+
+	private void checkScorer(Scorer scorer) {
+		List<String> candidates = Arrays.asList(SYNONYMS);
+		// score the candidates in reverse document order to check that the
+		// ranges are taken per candidate
+		List<String> reversedCandidates = new ArrayList<>();
+		int[] begins = new int[SYNONYMS.length];
+		int[] ends = new int[SYNONYMS.length];
+		for (int i = 0; i < SYNONYMS.length; i++) {
+			int docID = SYNONYMS.length - 1 - i;
+			reversedCandidates.add(SYNONYMS[docID]);
+			begins[i] = DICTIONARY.getSynonymTokenIdsBegin(docID);
+			ends[i] = DICTIONARY.getSynonymTokenIdsEnd(docID);
+		}
+		for (String mention : MENTIONS) {
+			double[] expected = new double[candidates.size()];
+			double[] actual = new double[candidates.size()];
+			scorer.scoreAll(mention, candidates, expected);
+			scorer.scoreAll(mention, DICTIONARY.encode(mention), reversedCandidates, DICTIONARY.getSynonymTokenIds(),
+					begins, ends, actual);
+			for (int i = 0; i < SYNONYMS.length; i++) {
+				assertEquals(scorer.info() + ": '" + mention + "', '" + SYNONYMS[i] + "'", expected[i],
+						actual[SYNONYMS.length - 1 - i], 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package de.julielab.jules.ae.genemapping.utils.norm;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the external sort of {@link TermNormalizer#normalizeFile(File, File, long)} gives the same output for
+ * a memory budget that makes each input line a run of its own - and thus requires intermediate merges of
+ * {@link ExternalLineSorter#MAX_MERGE_FAN_IN} runs - as for a budget that fits all lines into a single run.
+ */
+public class ExternalLineSorterTest {
+
+    private static final String[] SYNONYMS = {"IL-2", "interleukin 2", "IL2", "TNFalpha", "tumor necrosis factor alpha",
+            "p53", "tumor protein p53", "Hsp70", "heat shock protein 70", "TGF-beta1", "type IV collagen",
+            "protein kinase C beta II", "estrogen receptor", "CD25", "the"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNormalizeFile() throws IOException {
+        // more lines than two times the fan-in, with duplicates and a malformed line
+        List<String> lines = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 3 * ExternalLineSorter.MAX_MERGE_FAN_IN; i++)
+            lines.add(SYNONYMS[random.nextInt(SYNONYMS.length)] + "\t" + random.nextInt(20) + "\t" + random.nextInt(3));
+        lines.add("malformed line");
+        File inputFile = folder.newFile("dictionary.txt");
+        Files.write(inputFile.toPath(), lines, StandardCharsets.UTF_8);
+
+        TermNormalizer normalizer = new TermNormalizer();
+        File singleRunOutput = new File(folder.getRoot(), "single-run.txt");
+        normalizer.normalizeFile(inputFile, singleRunOutput, Long.MAX_VALUE);
+        File manyRunsOutput = new File(folder.getRoot(), "many-runs.txt");
+        normalizer.normalizeFile(inputFile, manyRunsOutput, 1);
+
+        List<String> expected = Files.readAllLines(singleRunOutput.toPath(), StandardCharsets.UTF_8);
+        assertTrue(expected.size() > SYNONYMS.length);
+        assertEquals(new ArrayList<>(new TreeSet<>(expected)), expected);
+        assertEquals(expected, Files.readAllLines(manyRunsOutput.toPath(), StandardCharsets.UTF_8));
+        // the temporary directories of the runs have been removed
+        String[] files = folder.getRoot().list();
+        Arrays.sort(files);
+        assertArrayEquals(new String[]{"dictionary.txt", "many-runs.txt", "single-run.txt"}, files);
+    }
+
+    @Test
+    public void testMerge() throws IOException {
+        TreeSet<String> expected = new TreeSet<>();
+        Random random = new Random(2);
+        try (ExternalLineSorter sorter = new ExternalLineSorter(folder.getRoot())) {
+            for (int i = 0; i < 2 * ExternalLineSorter.MAX_MERGE_FAN_IN + 1; i++) {
+                String[] run = new String[random.nextInt(5)];
+                for (int j = 0; j < run.length; j++)
+                    run[j] = String.valueOf(random.nextInt(300));
+                Arrays.sort(run);
+                expected.addAll(Arrays.asList(run));
+                sorter.addRun(run);
+                assertTrue(sorter.getNumRuns() < ExternalLineSorter.MAX_MERGE_FAN_IN);
+            }
+            StringWriter writer = new StringWriter();
+            sorter.merge(writer);
+            StringBuilder expectedOutput = new StringBuilder();
+            for (String line : expected)
+                expectedOutput.append(line).append('\n');
+            assertEquals(expectedOutput.toString(), writer.toString());
+            assertEquals(0, sorter.getNumRuns());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package de.julielab.jules.ae.genemapping.utils.norm;
+
+import de.julielab.java.utilities.FileUtilities;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeNotNull;
+
+/**
+ * Checks that {@link FastTermNormalizer} normalizes gene names exactly like {@link TermNormalizer}. The names cover
+ * each rule listed in the documentation of {@link FastTermNormalizer}. Additionally, all synonyms of a gene dictionary
+ * like <tt>gene.dict.eg</tt> are compared if the dictionary is given by the system property
+ * {@link #DICTIONARY_PROPERTY}, e.g. <tt>mvn test -Dgene.dictionary=/path/to/gene.dict.eg</tt>.
+ */
+public class FastTermNormalizerTest {
+
+    /**
+     * The system property that points to a gene dictionary whose synonyms - the first tab-separated column - are
+     * compared.
+     */
+    public static final String DICTIONARY_PROPERTY = "gene.dictionary";
+
+    private static final String[] NAMES = {
+            // stopwords
+            "protein of the cell", "the", "and", "protein and kinase",
+            // special characters and dots
+            "IL-2", "IL-2R alpha", "c-myc", "p53/TP53", "HLA-DR(B1)", "Na+/K+ ATPase", "Ig.kappa", "alpha.1", "p.53",
+            "A.B.C", "T.cell", "3.4.1.2", "ABC.", ".ABC", "a..b", "  spaced   name ", "", "-", "tab\tseparated",
+            // case and number splits
+            "IL2", "IL2RA", "TNFalpha", "HLADRB1", "CD4", "p53", "Cdk2", "NFkappaB", "NFKBia", "mTOR", "ABCa", "ABCDe",
+            "aB1", "12ab", "Hsp70kDa", "GATA3", "hGH", "IFNgamma2",
+            // greek letters, high and low
+            "alphabeta", "TGFbeta1", "betaglycan", "PKCalpha", "alphaalpha", "highmobility", "lowdensity", "HMGhigh",
+            "gammaX", "Ialpha b", "tau", "kappaB alpha",
+            // roman numbers
+            "type I", "type II collagen", "Factor III", "IV", "collagen IV alpha 1", "class II", "II", "VI", "IIa",
+            // mixed
+            "Interleukin-1 beta (IL-1beta)", "MAP kinase kinase 4", "HIF-1alpha", "Bcl-xL", "NF-kappa-B p65 subunit",
+            "T-cell receptor alpha", "14-3-3 protein zeta/delta", "ErbB2/HER2", "GLUT4", "Cyp2d22"
+    };
+
+    @Test
+    public void testNormalize() {
+        TermNormalizer normalizer = new TermNormalizer();
+        TermNormalizer fastNormalizer = new FastTermNormalizer();
+        for (String name : NAMES) {
+            assertEquals(name, normalizer.normalizeUncached(name), fastNormalizer.normalizeUncached(name));
+            for (String variant : normalizer.generateVariants(name))
+                assertEquals(variant, normalizer.normalizeUncached(variant), fastNormalizer.normalizeUncached(variant));
+        }
+    }
+
+    @Test
+    public void testGenerateVariants() {
+        TermNormalizer normalizer = new TermNormalizer();
+        for (String name : NAMES)
+            assertEquals(name, normalizer.generateVariantsByRegex(name), normalizer.generateVariants(name));
+    }
+
+    @Test
+    public void testDictionary() throws IOException {
+        String dictionary = System.getProperty(DICTIONARY_PROPERTY);
+        assumeNotNull(dictionary);
+        TermNormalizer normalizer = new TermNormalizer();
+        TermNormalizer fastNormalizer = new FastTermNormalizer();
+        try (BufferedReader br = FileUtilities.getReaderFromFile(new File(dictionary))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                String synonym = tab < 0 ? line : line.substring(0, tab);
+                assertEquals(synonym, normalizer.normalizeUncached(synonym), fastNormalizer.normalizeUncached(synonym));
+                assertEquals(synonym, normalizer.generateVariantsByRegex(synonym), normalizer.generateVariants(synonym));
+                for (String variant : normalizer.generateVariants(synonym))
+                    assertEquals(variant, normalizer.normalizeUncached(variant), fastNormalizer.normalizeUncached(variant));
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package de.julielab.jules.ae.genemapping.utils.norm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NormalizationCacheTest {
+
+    @Test
+    public void testNormalizationsDoNotShareEntries() {
+        NormalizationCache.setMaximumSize(NormalizationCache.DEFAULT_MAXIMUM_SIZE);
+        TermNormalizer normalizer = new TermNormalizer();
+        TermNormalizer upperCaseNormalizer = new TermNormalizer() {
+            @Override
+            protected String normalizeUncached(String term) {
+                return term.toUpperCase();
+            }
+        };
+        assertEquals("il 2 receptor", normalizer.normalize("IL2 receptor"));
+        assertEquals("IL2 RECEPTOR", upperCaseNormalizer.normalize("IL2 receptor"));
+        assertEquals("il 2 receptor", normalizer.normalize("IL2 receptor"));
+    }
+
+    @Test
+    public void testEqualNormalizationsShareEntries() {
+        NormalizationCache.setMaximumSize(NormalizationCache.DEFAULT_MAXIMUM_SIZE);
+        NormalizationCache.invalidateAll();
+        String normalized = new TermNormalizer().normalize("IL2 receptor");
+        assertEquals(normalized, NormalizationCache.getNormalizedText(TermNormalizer.class, "IL2 receptor", term -> "not cached"));
+    }
+}
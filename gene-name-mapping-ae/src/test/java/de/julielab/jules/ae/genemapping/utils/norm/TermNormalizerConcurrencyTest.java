@@ -0,0 +1,76 @@
+package de.julielab.jules.ae.genemapping.utils.norm;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Shares a single normalizer between many threads that normalize, create normalized variants of and stem gene
+ * mentions in random order, and compares each result to the result of a single-threaded run. The
+ * {@link NormalizationCache} is bypassed so that the normalizers are really exercised concurrently.
+ */
+public class TermNormalizerConcurrencyTest {
+
+    private static final String[] MENTIONS = {"IL-2 receptor alpha", "TNFalpha", "p53", "HLA-DRB1", "collagen type IV",
+            "NF-kappaB p65", "Hsp70", "protein kinase C beta II", "TGF-beta1", "the insulin receptor", "GATA3",
+            "cyclin-dependent kinase 2", "MAP kinase kinase 4", "Bcl-xL", "HIF-1alpha", "14-3-3 zeta", "interleukin 6",
+            "estrogen receptors", "high mobility group box 1", "low density lipoprotein receptor", "Factor VIII",
+            "T-cell receptor gamma", "mTOR", "ErbB2/HER2", "CD4 antigen"};
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 2000;
+
+    private static String process(TermNormalizer normalizer, String mention) throws IOException {
+        String normalized = normalizer.normalizeUncached(mention);
+        List<String> variants = normalizer.generateVariants(mention).stream().map(normalizer::normalizeUncached).collect(Collectors.toList());
+        return normalized + "|" + variants + "|" + normalizer.stemNameTokens(normalized);
+    }
+
+    @Test
+    public void testTermNormalizer() throws Exception {
+        check(new TermNormalizer());
+    }
+
+    @Test
+    public void testFastTermNormalizer() throws Exception {
+        check(new FastTermNormalizer());
+    }
+
+    private void check(TermNormalizer normalizer) throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (String mention : MENTIONS)
+            expected.add(process(normalizer, mention));
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                long seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    start.await();
+                    for (int i = 0; i < ROUNDS; i++) {
+                        int index = random.nextInt(MENTIONS.length);
+                        assertEquals(MENTIONS[index], expected.get(index), process(normalizer, MENTIONS[index]));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
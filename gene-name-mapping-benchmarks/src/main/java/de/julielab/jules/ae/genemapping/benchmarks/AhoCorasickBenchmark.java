@@ -0,0 +1,101 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import com.lahodiuk.ahocorasick.AhoCorasick;
+import com.lahodiuk.ahocorasick.AhoCorasickDoubleArray;
+import com.lahodiuk.ahocorasick.AhoCorasickOptimized;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Compares {@link AhoCorasickOptimized} and {@link AhoCorasickDoubleArray} on the synonyms of synthetic genes.
+ * <tt>numGenes=100</tt> corresponds to the automaton built by
+ * {@link de.julielab.jules.ae.genemapping.genemodel.GeneDocument#buildGeneNameAutomaton()}, larger values to
+ * dictionary-scale automata. The benchmarks measure matching a text of concatenated gene mentions and building the
+ * automaton.</p>
+ * <p>The {@link #main(String[])} method compares the heap size retained by the automata of both implementations:
+ * <tt>AhoCorasickBenchmark [numGenes...]</tt>.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AhoCorasickBenchmark {
+    @Param({"optimized", "doubleArray"})
+    public String implementation;
+    @Param({"100", "20000"})
+    public int numGenes;
+    private List<String> patterns;
+    private AhoCorasick automaton;
+    private String[] texts;
+    private int cursor;
+    private int matches;
+
+    @Setup
+    public void setup() {
+        final SyntheticGeneNames geneNames = new SyntheticGeneNames(numGenes, 1);
+        patterns = createPatterns(geneNames);
+        automaton = build(implementation, patterns);
+        // texts of the length of a few sentences, each with several gene mentions
+        final List<String> mentions = geneNames.createMentions(4096, 2);
+        texts = new String[mentions.size() / 8];
+        for (int i = 0; i < texts.length; i++)
+            texts[i] = String.join(" binds to the ", mentions.subList(i * 8, i * 8 + 8)) + ".";
+    }
+
+    @Benchmark
+    public int match() {
+        cursor = (cursor + 1) % texts.length;
+        matches = 0;
+        automaton.match(texts[cursor], (start, end, matched) -> ++matches);
+        return matches;
+    }
+
+    @Benchmark
+    public AhoCorasick build() {
+        return build(implementation, patterns);
+    }
+
+    private static List<String> createPatterns(SyntheticGeneNames geneNames) {
+        return geneNames.getGenes().stream().flatMap(g -> g.getSynonyms().stream()).distinct().collect(Collectors.toList());
+    }
+
+    private static AhoCorasick build(String implementation, List<String> patterns) {
+        switch (implementation) {
+            case "optimized":
+                return new AhoCorasickOptimized(patterns);
+            case "doubleArray":
+                return new AhoCorasickDoubleArray(patterns);
+            default:
+                throw new IllegalArgumentException("Unknown implementation: " + implementation);
+        }
+    }
+
+    public static void main(String[] args) {
+        final String[] numGenesValues = args.length > 0 ? args : new String[]{"100", "20000", "100000"};
+        // the automata are kept reachable until their size has been measured
+        final List<AhoCorasick> automata = new ArrayList<>();
+        for (String numGenes : numGenesValues) {
+            final List<String> patterns = createPatterns(new SyntheticGeneNames(Integer.parseInt(numGenes), 1));
+            for (String implementation : new String[]{"optimized", "doubleArray"}) {
+                final long before = usedHeap();
+                automata.add(build(implementation, patterns));
+                final long retained = usedHeap() - before;
+                System.out.printf("%s, %s genes, %d patterns: %d KB%n", implementation, numGenes, patterns.size(), retained / 1024);
+            }
+            automata.clear();
+        }
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
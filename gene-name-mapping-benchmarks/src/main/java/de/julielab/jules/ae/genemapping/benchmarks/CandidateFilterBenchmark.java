@@ -0,0 +1,35 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import de.julielab.jules.ae.genemapping.CandidateFilter;
+import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CandidateFilter#filterOut(String, String)} on pairs of normalized synonyms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandidateFilterBenchmark {
+    private CandidateFilter candidateFilter;
+    private String[][] pairs;
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        candidateFilter = new CandidateFilter();
+        pairs = ScorerBenchmark.createPairs(new SyntheticGeneNames(2000, 1), new TermNormalizer(), 4096, 2).toArray(new String[0][]);
+    }
+
+    @Benchmark
+    public boolean filterOut() {
+        cursor = (cursor + 1) % pairs.length;
+        return candidateFilter.filterOut(pairs[cursor][0], pairs[cursor][1]);
+    }
+}
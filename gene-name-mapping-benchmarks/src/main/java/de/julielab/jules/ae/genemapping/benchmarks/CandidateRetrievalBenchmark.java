@@ -0,0 +1,94 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import de.julielab.jules.ae.genemapping.GeneMappingConfiguration;
+import de.julielab.jules.ae.genemapping.LuceneCandidateRetrieval;
+import de.julielab.jules.ae.genemapping.SynHit;
+import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures {@link LuceneCandidateRetrieval#getCandidates(String)} on a synthetic mention index. The warm
+ * benchmark runs against a candidate cache that already contains all benchmark mentions, the cold benchmark
+ * invalidates the cache before each invocation so that every call searches the index and scores the hits.</p>
+ * <p>With <tt>exactMatchDictionary</tt>, exact matches are served from the in-memory exact synonym dictionary and
+ * only the remaining mentions reach the cache and the index.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandidateRetrievalBenchmark {
+    @Param({"5000"})
+    public int numGenes;
+    @Param({"false", "true"})
+    public boolean exactMatchDictionary;
+    /**
+     * The number of exact or variant hits after which searches terminate; 0 switches early termination off.
+     */
+    @Param({"0", "3"})
+    public int earlyTerminationHits;
+    private SyntheticIndexes indexes;
+    private LuceneCandidateRetrieval candidateRetrieval;
+    private String[] mentions;
+
+    @Setup
+    public void setup() throws IOException, GeneMappingException {
+        final SyntheticGeneNames geneNames = new SyntheticGeneNames(numGenes, 1);
+        indexes = new SyntheticIndexes(geneNames);
+        final GeneMappingConfiguration configuration = indexes.getConfiguration();
+        configuration.setProperty(GeneMappingConfiguration.EXACT_MATCH_DICTIONARY, String.valueOf(exactMatchDictionary));
+        configuration.setProperty(GeneMappingConfiguration.EARLY_TERMINATION_HITS, String.valueOf(earlyTerminationHits));
+        candidateRetrieval = new LuceneCandidateRetrieval(configuration);
+        mentions = geneNames.createMentions(1024, 2).toArray(new String[0]);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        candidateRetrieval.invalidateCandidateCache();
+        indexes.close();
+    }
+
+    @Benchmark
+    public List<SynHit> warmCache(MentionCursor cursor) throws GeneMappingException {
+        return candidateRetrieval.getCandidates(mentions[cursor.next(mentions.length)]);
+    }
+
+    @Benchmark
+    public List<SynHit> coldCache(ColdCache coldCache, MentionCursor cursor) throws GeneMappingException {
+        return candidateRetrieval.getCandidates(mentions[cursor.next(mentions.length)]);
+    }
+
+    /**
+     * Retrieves the candidates of each mention for all taxonomy IDs of the synthetic genes with a cold cache. This is
+     * the case of documents that mention multiple species.
+     */
+    @Benchmark
+    public List<SynHit> coldCacheAllTaxonomies(ColdCache coldCache, MentionCursor cursor) throws GeneMappingException {
+        return candidateRetrieval.getCandidates(mentions[cursor.next(mentions.length)], Arrays.asList(SyntheticGeneNames.TAX_IDS));
+    }
+
+    @State(Scope.Thread)
+    public static class MentionCursor {
+        private int position;
+
+        int next(int length) {
+            position = (position + 1) % length;
+            return position;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+        @Setup(Level.Invocation)
+        public void invalidate(CandidateRetrievalBenchmark benchmark) {
+            benchmark.candidateRetrieval.invalidateCandidateCache();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import de.julielab.jules.ae.genemapping.GeneMapping;
+import de.julielab.jules.ae.genemapping.SynHit;
+import de.julielab.jules.ae.genemapping.disambig.ContextItemsIndex;
+import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ContextItemsIndex#getSynonymRefSeqScoresForTaxIds(SynHit, Set)} on a synthetic context items
+ * index. Each synonym of the synthetic dictionary is looked up for the taxonomy ID of its first gene.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextItemsIndexBenchmark {
+    @Param({"5000"})
+    public int numGenes;
+    private SyntheticIndexes indexes;
+    private ContextItemsIndex contextItemsIndex;
+    private SynHit[] synHits;
+    private List<Set<String>> taxIds;
+
+    @Setup
+    public void setup() throws IOException, GeneMappingException {
+        indexes = new SyntheticIndexes(new SyntheticGeneNames(numGenes, 1));
+        contextItemsIndex = new ContextItemsIndex(indexes.getConfiguration());
+        List<SynHit> hits = new ArrayList<>();
+        taxIds = new ArrayList<>();
+        for (Map.Entry<String, List<String[]>> synonymEntries : indexes.getDictionary().entrySet()) {
+            List<String> ids = new ArrayList<>();
+            List<String> hitTaxIds = new ArrayList<>();
+            for (String[] entry : synonymEntries.getValue()) {
+                ids.add(entry[0]);
+                hitTaxIds.add(entry[2]);
+            }
+            hits.add(new SynHit(synonymEntries.getKey(), 0, ids, GeneMapping.SOURCE_DEFINITION, hitTaxIds));
+            taxIds.add(Collections.singleton(hitTaxIds.get(0)));
+        }
+        synHits = hits.toArray(new SynHit[0]);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        indexes.close();
+    }
+
+    @Benchmark
+    public Map<String, Float> getSynonymRefSeqScoresForTaxIds(HitCursor cursor) throws IOException {
+        int i = cursor.next(synHits.length);
+        return contextItemsIndex.getSynonymRefSeqScoresForTaxIds(synHits[i], taxIds.get(i));
+    }
+
+    @State(Scope.Thread)
+    public static class HitCursor {
+        private int position;
+
+        int next(int length) {
+            position = (position + 1) % length;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import de.julielab.jules.ae.genemapping.DocumentMappingResult;
+import de.julielab.jules.ae.genemapping.GeneMappingConfiguration;
+import de.julielab.jules.ae.genemapping.genemodel.GeneDocument;
+import de.julielab.jules.ae.genemapping.genemodel.GeneMention;
+import de.julielab.jules.ae.genemapping.mappingcores.WeepingTreeMappingCore;
+import de.julielab.jules.ae.genemapping.utils.GeneMappingException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures {@link WeepingTreeMappingCore#map(GeneDocument)} for abstract-sized documents. Each document has
+ * a number of gene mentions of which a part are repetitions of earlier mentions in the same document, as it is
+ * typical for scientific abstracts.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingCoreBenchmark {
+    @Param({"5000"})
+    public int numGenes;
+    @Param({"30"})
+    public int mentionsPerDocument;
+    private SyntheticIndexes indexes;
+    private WeepingTreeMappingCore mappingCore;
+    private GeneDocument templateDocument;
+    private List<List<String>> documentMentions;
+
+    @Setup
+    public void setup() throws IOException, GeneMappingException {
+        SyntheticGeneNames geneNames = new SyntheticGeneNames(numGenes, 1);
+        indexes = new SyntheticIndexes(geneNames);
+        GeneMappingConfiguration configuration = indexes.getConfiguration();
+        configuration.setProperty(WeepingTreeMappingCore.TAX_IDS, SyntheticGeneNames.TAX_IDS[0]);
+        mappingCore = new WeepingTreeMappingCore(configuration);
+        // reads the species resources once; the benchmark documents are copies of this template
+        templateDocument = new GeneDocument("template");
+
+        Random random = new Random(3);
+        documentMentions = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            List<String> distinctMentions = geneNames.createMentions(mentionsPerDocument / 3 + 1, i);
+            List<String> mentions = new ArrayList<>(mentionsPerDocument);
+            for (int j = 0; j < mentionsPerDocument; j++)
+                mentions.add(distinctMentions.get(random.nextInt(distinctMentions.size())));
+            documentMentions.add(mentions);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        indexes.close();
+    }
+
+    @Benchmark
+    public DocumentMappingResult map(DocumentCursor cursor) throws GeneMappingException {
+        List<String> mentions = documentMentions.get(cursor.next(documentMentions.size()));
+        GeneDocument document = new GeneDocument(templateDocument);
+        document.setId("doc" + cursor.position);
+        List<GeneMention> genes = new ArrayList<>(mentions.size());
+        int offset = 0;
+        for (String mention : mentions) {
+            genes.add(new GeneMention(mention, offset, offset + mention.length()));
+            offset += mention.length() + 1;
+        }
+        document.setGenes(genes);
+        document.selectAllGenes();
+        return mappingCore.map(document);
+    }
+
+    @State(Scope.Thread)
+    public static class DocumentCursor {
+        private int position;
+
+        int next(int length) {
+            position = (position + 1) % length;
+            return position;
+        }
+    }
+}
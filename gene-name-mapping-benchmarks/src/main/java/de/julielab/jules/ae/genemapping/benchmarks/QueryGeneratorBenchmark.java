@@ -0,0 +1,49 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import de.julielab.jules.ae.genemapping.CandidateCacheKey;
+import de.julielab.jules.ae.genemapping.QueryGenerator;
+import de.julielab.jules.ae.genemapping.genemodel.GeneName;
+import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
+import org.apache.lucene.search.Query;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link QueryGenerator#makeDisjunctionMaxQuery(CandidateCacheKey, org.apache.lucene.search.spell.SpellChecker)}.
+ * The normalized text and the variants of the gene names are computed in the setup so that only the query
+ * construction itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryGeneratorBenchmark {
+    @Param({"", "9606"})
+    public String taxId;
+    private CandidateCacheKey[] keys;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        TermNormalizer normalizer = new TermNormalizer();
+        final List<String> mentions = new SyntheticGeneNames(2000, 1).createMentions(4096, 2);
+        keys = new CandidateCacheKey[mentions.size()];
+        for (int i = 0; i < mentions.size(); i++) {
+            GeneName geneName = new GeneName(mentions.get(i), normalizer);
+            geneName.getNormalizedText();
+            geneName.getNormalizedTextVariant();
+            keys[i] = new CandidateCacheKey(geneName, taxId);
+        }
+    }
+
+    @Benchmark
+    public Query makeDisjunctionMaxQuery() throws IOException {
+        cursor = (cursor + 1) % keys.length;
+        return QueryGenerator.makeDisjunctionMaxQuery(keys[cursor], null);
+    }
+}
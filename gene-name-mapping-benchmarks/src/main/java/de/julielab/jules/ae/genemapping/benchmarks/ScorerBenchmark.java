@@ -0,0 +1,100 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import cc.mallet.classify.Classifier;
+import de.julielab.jules.ae.genemapping.scoring.*;
+import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures {@link Scorer#getScore(String, String)} for each scorer implementation on pairs of normalized
+ * mentions and normalized synonyms, as they are compared in <tt>LuceneCandidateRetrieval#scoreHits</tt>.</p>
+ * <p>The MaxEnt scorer requires a model. Since the production model is not part of the repository, a small model
+ * is trained on synthetic synonym pairs in the setup.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScorerBenchmark {
+    @Param({"simple", "tokenjaro", "maxent", "jarowinkler", "levenshtein", "cascade"})
+    public String scorerName;
+    private Scorer scorer;
+    private String[][] pairs;
+    private int cursor;
+
+    /**
+     * Creates pairs of normalized synonyms. The first half of the pairs are synonyms of the same gene, the second
+     * half consists of synonyms of two random genes.
+     */
+    public static List<String[]> createPairs(SyntheticGeneNames geneNames, TermNormalizer normalizer, int numPairs, long seed) {
+        Random random = new Random(seed);
+        List<SyntheticGeneNames.Gene> genes = geneNames.getGenes();
+        List<String[]> pairs = new ArrayList<>(numPairs);
+        for (int i = 0; i < numPairs; i++) {
+            SyntheticGeneNames.Gene gene1 = genes.get(random.nextInt(genes.size()));
+            boolean samegene = i < numPairs / 2;
+            SyntheticGeneNames.Gene gene2 = samegene ? gene1 : genes.get(random.nextInt(genes.size()));
+            String synonym1 = gene1.getSynonyms().get(random.nextInt(gene1.getSynonyms().size()));
+            String synonym2 = gene2.getSynonyms().get(random.nextInt(gene2.getSynonyms().size()));
+            pairs.add(new String[]{normalizer.normalize(synonym1), normalizer.normalize(synonym2), samegene ? "TRUE" : "FALSE"});
+        }
+        return pairs;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        TermNormalizer normalizer = new TermNormalizer();
+        SyntheticGeneNames geneNames = new SyntheticGeneNames(2000, 1);
+        pairs = createPairs(geneNames, normalizer, 4096, 2).toArray(new String[0][]);
+        switch (scorerName) {
+            case "simple":
+                scorer = new SimpleScorer();
+                break;
+            case "tokenjaro":
+                scorer = new TokenJaroSimilarityScorer();
+                break;
+            case "maxent":
+                scorer = trainMaxEntScorer(createPairs(geneNames, normalizer, 2000, 3));
+                break;
+            case "jarowinkler":
+                scorer = new JaroWinklerScorer();
+                break;
+            case "levenshtein":
+                scorer = new LevenshteinScorer();
+                break;
+            case "cascade":
+                scorer = new CascadeScorer(new Scorer[]{new LevenshteinScorer(), trainMaxEntScorer(createPairs(geneNames, normalizer, 2000, 3))}, new double[]{0.5});
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scorer " + scorerName);
+        }
+    }
+
+    static MaxEntScorer trainMaxEntScorer(List<String[]> trainingPairs) throws IOException {
+        MaxEntScorerML ml = new MaxEntScorerML();
+        Classifier model = ml.train(ml.makeInstances(new ArrayList<>(trainingPairs)));
+        File modelFile = Files.createTempFile("gene-mapping-benchmark", ".mod").toFile();
+        modelFile.deleteOnExit();
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(modelFile.toPath()))) {
+            oos.writeObject(model);
+        }
+        return new MaxEntScorer(modelFile);
+    }
+
+    @Benchmark
+    public double getScore() {
+        cursor = (cursor + 1) % pairs.length;
+        return scorer.getScore(pairs[cursor][0], pairs[cursor][1]);
+    }
+}
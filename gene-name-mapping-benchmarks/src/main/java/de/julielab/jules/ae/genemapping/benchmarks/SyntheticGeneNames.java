@@ -0,0 +1,126 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import java.util.*;
+
+/**
+ * <p>Generates a reproducible set of artificial genes with gene-name-like synonyms. The names are built from the
+ * typical ingredients of real gene names - symbols with numbers, Greek letters, Roman numerals, hyphens, modifiers
+ * like "receptor" and non-descriptive words like "protein" - so that normalization, variant generation, querying
+ * and scoring run through the same code paths as they do for real NCBI Gene names.</p>
+ * <p>Each gene has an official symbol (priority -1) and a few further synonyms with lower priorities. Synonyms
+ * are shared across genes by chance because the symbol space is intentionally small, which reproduces the
+ * ambiguity of real gene names.</p>
+ */
+public class SyntheticGeneNames {
+    public static final String[] TAX_IDS = {"9606", "10090", "10116"};
+    private static final String[] SYMBOL_PREFIXES = {"IL", "TNF", "CD", "BRCA", "STAT", "JAK", "MAPK", "ERK", "AKT", "TGF", "NF", "HOX", "SOX", "FGF", "EGFR", "CDK", "PKC", "RAS", "WNT", "KRT"};
+    private static final String[] GREEK = {"alpha", "beta", "gamma", "delta", "kappa"};
+    private static final String[] ROMAN = {"I", "II", "III", "IV", "V", "VI"};
+    private static final String[] FULL_NAME_HEADS = {"interleukin", "tumor necrosis factor", "cluster of differentiation", "breast cancer", "signal transducer and activator of transcription", "janus kinase", "mitogen activated protein kinase", "extracellular signal regulated kinase", "protein kinase", "transforming growth factor", "nuclear factor", "homeobox", "sry box", "fibroblast growth factor", "epidermal growth factor receptor", "cyclin dependent kinase", "protein kinase c", "ras oncogene", "wingless type", "keratin"};
+    private static final String[] MODIFIERS = {"receptor", "inhibitor", "activator", "binding protein", "regulator", "ligand"};
+    private static final String[] NON_DESCRIPTIVES = {"protein", "gene", "precursor", "subunit", "isoform"};
+
+    private final List<Gene> genes;
+
+    /**
+     * @param numGenes The number of genes to generate.
+     * @param seed     The random seed; the same seed always yields the same genes.
+     */
+    public SyntheticGeneNames(int numGenes, long seed) {
+        Random random = new Random(seed);
+        genes = new ArrayList<>(numGenes);
+        for (int i = 0; i < numGenes; i++) {
+            int nameIndex = random.nextInt(SYMBOL_PREFIXES.length);
+            int number = 1 + random.nextInt(30);
+            String suffix = random.nextInt(4) == 0 ? String.valueOf((char) ('A' + random.nextInt(4))) : "";
+            String symbol = SYMBOL_PREFIXES[nameIndex] + number + suffix;
+            String fullName = FULL_NAME_HEADS[nameIndex] + " " + number + suffix.toLowerCase();
+
+            List<String> synonyms = new ArrayList<>();
+            List<Integer> priorities = new ArrayList<>();
+            synonyms.add(symbol);
+            priorities.add(-1);
+            synonyms.add(SYMBOL_PREFIXES[nameIndex] + "-" + number + suffix);
+            priorities.add(1);
+            synonyms.add(fullName);
+            priorities.add(2);
+            if (random.nextBoolean()) {
+                synonyms.add(fullName + " " + MODIFIERS[random.nextInt(MODIFIERS.length)] + " " + GREEK[random.nextInt(GREEK.length)]);
+                priorities.add(3);
+            }
+            if (random.nextBoolean()) {
+                synonyms.add(SYMBOL_PREFIXES[nameIndex] + ROMAN[random.nextInt(ROMAN.length)] + " " + NON_DESCRIPTIVES[random.nextInt(NON_DESCRIPTIVES.length)]);
+                priorities.add(4);
+            }
+            genes.add(new Gene(String.valueOf(1000 + i), TAX_IDS[i % TAX_IDS.length], synonyms, priorities));
+        }
+    }
+
+    public List<Gene> getGenes() {
+        return genes;
+    }
+
+    /**
+     * <p>Creates mention texts as a gene tagger would deliver them: mostly exact synonyms, some with altered
+     * spelling and some that do not occur in the dictionary at all.</p>
+     *
+     * @param numMentions The number of mentions to create.
+     * @param seed        The random seed.
+     * @return Mention texts.
+     */
+    public List<String> createMentions(int numMentions, long seed) {
+        Random random = new Random(seed);
+        List<String> mentions = new ArrayList<>(numMentions);
+        for (int i = 0; i < numMentions; i++) {
+            Gene gene = genes.get(random.nextInt(genes.size()));
+            String synonym = gene.getSynonyms().get(random.nextInt(gene.getSynonyms().size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                    mentions.add(synonym.toLowerCase());
+                    break;
+                case 1:
+                    mentions.add(synonym + " " + NON_DESCRIPTIVES[random.nextInt(NON_DESCRIPTIVES.length)]);
+                    break;
+                case 2:
+                    mentions.add(synonym.replace(' ', '-'));
+                    break;
+                case 3:
+                    mentions.add("X" + synonym);
+                    break;
+                default:
+                    mentions.add(synonym);
+            }
+        }
+        return mentions;
+    }
+
+    public static class Gene {
+        private final String id;
+        private final String taxId;
+        private final List<String> synonyms;
+        private final List<Integer> priorities;
+
+        public Gene(String id, String taxId, List<String> synonyms, List<Integer> priorities) {
+            this.id = id;
+            this.taxId = taxId;
+            this.synonyms = synonyms;
+            this.priorities = priorities;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getTaxId() {
+            return taxId;
+        }
+
+        public List<String> getSynonyms() {
+            return synonyms;
+        }
+
+        public List<Integer> getPriorities() {
+            return priorities;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import de.julielab.jules.ae.genemapping.GeneMappingConfiguration;
+import de.julielab.jules.ae.genemapping.LuceneCandidateRetrieval;
+import de.julielab.jules.ae.genemapping.index.ContextIndexFieldNames;
+import de.julielab.jules.ae.genemapping.index.GeneEntriesCodec;
+import de.julielab.jules.ae.genemapping.index.SynonymIndexFieldNames;
+import de.julielab.jules.ae.genemapping.index.TokenDictionary;
+import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * <p>Builds a small mention (synonym) index and a context items index from {@link SyntheticGeneNames} into a
+ * temporary directory. The field layout is the one written by the <tt>NameCentricSynonymIndexGenerator</tt> and the
+ * <tt>SynonymDisambiguationIndexGenerator</tt> of the resource creation module so that the mapping components can
+ * be instantiated on these indexes exactly like on the real ones.</p>
+ * <p>The indexes are deleted by {@link #close()}.</p>
+ */
+public class SyntheticIndexes implements Closeable {
+    private final SyntheticGeneNames geneNames;
+    private final Path baseDir;
+    private final Path mentionIndex;
+    private final Path contextItemsIndex;
+    /**
+     * The normalized synonyms - including the normalized variants - sorted by synonym and mapped to their
+     * [id, priority, taxId] entries, just like the normalized dictionary used for the real index.
+     */
+    private final TreeMap<String, List<String[]>> dictionary = new TreeMap<>();
+
+    public SyntheticIndexes(SyntheticGeneNames geneNames) throws IOException {
+        this.geneNames = geneNames;
+        baseDir = Files.createTempDirectory("gene-mapping-benchmark");
+        mentionIndex = baseDir.resolve("geneSynonymIndex");
+        contextItemsIndex = baseDir.resolve("geneContextItemsIndex");
+        TermNormalizer normalizer = new TermNormalizer();
+        buildDictionary(normalizer);
+        writeMentionIndex();
+        writeContextItemsIndex(normalizer);
+    }
+
+    private void buildDictionary(TermNormalizer normalizer) {
+        for (SyntheticGeneNames.Gene gene : geneNames.getGenes()) {
+            for (int i = 0; i < gene.getSynonyms().size(); i++) {
+                String synonym = gene.getSynonyms().get(i);
+                String priority = String.valueOf(gene.getPriorities().get(i));
+                Set<String> normalizedForms = new LinkedHashSet<>();
+                normalizedForms.add(normalizer.normalize(synonym));
+                for (String variant : normalizer.generateVariants(synonym))
+                    normalizedForms.add(normalizer.normalize(variant));
+                for (String normalizedForm : normalizedForms)
+                    dictionary.computeIfAbsent(normalizedForm, k -> new ArrayList<>()).add(new String[]{gene.getId(), priority, gene.getTaxId()});
+            }
+        }
+    }
+
+    private void writeMentionIndex() throws IOException {
+        IndexWriterConfig iwc = new IndexWriterConfig(new WhitespaceAnalyzer());
+        iwc.setOpenMode(OpenMode.CREATE);
+        iwc.setIndexSort(new Sort(new SortField(SynonymIndexFieldNames.PRIORITY, SortField.Type.INT),
+                new SortField(SynonymIndexFieldNames.SYNONYM_LENGTH, SortField.Type.INT)));
+        try (IndexWriter iw = new IndexWriter(FSDirectory.open(mentionIndex), iwc)) {
+            for (Map.Entry<String, List<String[]>> synonymEntries : dictionary.entrySet()) {
+                Document doc = new Document();
+                doc.add(new TextField(SynonymIndexFieldNames.LOOKUP_SYN_FIELD, synonymEntries.getKey(), Store.YES));
+                List<String> ids = new ArrayList<>();
+                List<Integer> priorities = new ArrayList<>();
+                List<String> taxIds = new ArrayList<>();
+                for (String[] entry : synonymEntries.getValue()) {
+                    doc.add(new StringField(SynonymIndexFieldNames.ID_FIELD, entry[0] + LuceneCandidateRetrieval.NAME_PRIO_DELIMITER + entry[1], Store.YES));
+                    doc.add(new StringField(SynonymIndexFieldNames.TAX_ID_FIELD, entry[2], Store.YES));
+                    doc.add(new SortedSetDocValuesField(SynonymIndexFieldNames.TAX_ID_FIELD, new BytesRef(entry[2])));
+                    ids.add(entry[0]);
+                    priorities.add(Integer.valueOf(entry[1]));
+                    taxIds.add(entry[2]);
+                }
+                doc.add(new BinaryDocValuesField(SynonymIndexFieldNames.LOOKUP_SYN_FIELD, new BytesRef(synonymEntries.getKey())));
+                doc.add(new BinaryDocValuesField(SynonymIndexFieldNames.GENE_ENTRIES, GeneEntriesCodec.encode(ids, priorities, taxIds)));
+                doc.add(new NumericDocValuesField(SynonymIndexFieldNames.PRIORITY, Collections.min(priorities)));
+                doc.add(new NumericDocValuesField(SynonymIndexFieldNames.SYNONYM_LENGTH, synonymEntries.getKey().length()));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        // the token dictionary is written by the index generator, too
+        try (IndexReader reader = DirectoryReader.open(FSDirectory.open(mentionIndex))) {
+            TokenDictionary.fromIndex(reader).write(mentionIndex.resolve(TokenDictionary.SIDECAR_FILE_NAME).toFile());
+        }
+    }
+
+    private void writeContextItemsIndex(TermNormalizer normalizer) throws IOException {
+        IndexWriterConfig iwc = new IndexWriterConfig(new WhitespaceAnalyzer());
+        iwc.setOpenMode(OpenMode.CREATE);
+        Random random = new Random(1);
+        String[] fillers = {"is expressed in", "interacts with", "is required for", "regulates", "is upregulated by", "mediates signaling of", "is a marker for", "binds to"};
+        List<SyntheticGeneNames.Gene> genes = geneNames.getGenes();
+        try (IndexWriter iw = new IndexWriter(FSDirectory.open(contextItemsIndex), iwc)) {
+            for (SyntheticGeneNames.Gene gene : genes) {
+                Document doc = new Document();
+                doc.add(new StringField(ContextIndexFieldNames.LOOKUP_ID_FIELD, gene.getId(), Store.YES));
+                for (String contextField : new String[]{ContextIndexFieldNames.FIELD_GENERIF, ContextIndexFieldNames.FIELD_SUMMARY}) {
+                    for (String synonym : gene.getSynonyms()) {
+                        SyntheticGeneNames.Gene otherGene = genes.get(random.nextInt(genes.size()));
+                        String contextItem = synonym + " " + fillers[random.nextInt(fillers.length)] + " " + otherGene.getSynonyms().get(0);
+                        doc.add(new TextField(contextField, normalizer.normalize(contextItem), Store.NO));
+                    }
+                }
+                iw.addDocument(doc);
+            }
+            iw.forceMerge(1);
+        }
+    }
+
+    /**
+     * @return A configuration pointing to the synthetic indexes and using Lucene scoring for exact and approximate
+     * hits. Callers may change the scorer types or add further properties.
+     */
+    public GeneMappingConfiguration getConfiguration() {
+        GeneMappingConfiguration configuration = new GeneMappingConfiguration();
+        configuration.setProperty(GeneMappingConfiguration.MENTION_INDEX, mentionIndex.toString());
+        configuration.setProperty(GeneMappingConfiguration.CONTEXT_ITEMS_INDEX, contextItemsIndex.toString());
+        configuration.setProperty(GeneMappingConfiguration.EXACT_SCORER_TYPE, String.valueOf(LuceneCandidateRetrieval.LUCENE_SCORER));
+        configuration.setProperty(GeneMappingConfiguration.APPROX_SCORER_TYPE, String.valueOf(LuceneCandidateRetrieval.LUCENE_SCORER));
+        return configuration;
+    }
+
+    public SyntheticGeneNames getGeneNames() {
+        return geneNames;
+    }
+
+    public TreeMap<String, List<String[]>> getDictionary() {
+        return dictionary;
+    }
+
+    public Path getMentionIndex() {
+        return mentionIndex;
+    }
+
+    public Path getContextItemsIndex() {
+        return contextItemsIndex;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> files = Files.walk(baseDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
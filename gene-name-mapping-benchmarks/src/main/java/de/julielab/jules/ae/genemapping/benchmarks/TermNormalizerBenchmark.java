@@ -0,0 +1,58 @@
+package de.julielab.jules.ae.genemapping.benchmarks;
+
+import de.julielab.jules.ae.genemapping.utils.norm.FastTermNormalizer;
+import de.julielab.jules.ae.genemapping.utils.norm.NormalizationCache;
+import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TermNormalizer#normalize(String)} and {@link TermNormalizer#generateVariants(String)} on
+ * synthetic gene mentions. The <tt>fast</tt> parameter switches to the {@link FastTermNormalizer}, the
+ * <tt>normalizationCache</tt> parameter enables the {@link NormalizationCache}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TermNormalizerBenchmark {
+    @Param({"false", "true"})
+    public boolean fast;
+    @Param({"false", "true"})
+    public boolean normalizationCache;
+    private TermNormalizer normalizer;
+    private String[] mentions;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        NormalizationCache.setMaximumSize(normalizationCache ? NormalizationCache.DEFAULT_MAXIMUM_SIZE : 0);
+        normalizer = fast ? new FastTermNormalizer() : new TermNormalizer();
+        final List<String> mentionList = new SyntheticGeneNames(2000, 1).createMentions(4096, 2);
+        mentions = mentionList.toArray(new String[0]);
+    }
+
+    private String nextMention() {
+        cursor = (cursor + 1) % mentions.length;
+        return mentions[cursor];
+    }
+
+    @Benchmark
+    public String normalize() {
+        return normalizer.normalize(nextMention());
+    }
+
+    @Benchmark
+    public List<String> generateVariants() {
+        return normalizer.generateVariants(nextMention());
+    }
+
+    @Benchmark
+    public List<String> normalizeVariants() {
+        return normalizer.normalizeVariants(nextMention());
+    }
+}
@@ -3,15 +3,22 @@ package de.julielab.jules.ae.genemapping.resources;
 import de.julielab.java.utilities.FileUtilities;
 import de.julielab.jules.ae.genemapping.CandidateFilter;
 import de.julielab.jules.ae.genemapping.LuceneCandidateRetrieval;
+import de.julielab.jules.ae.genemapping.index.ExactSynonymDictionary;
+import de.julielab.jules.ae.genemapping.index.GeneEntriesCodec;
 import de.julielab.jules.ae.genemapping.index.SynonymIndexFieldNames;
+import de.julielab.jules.ae.genemapping.index.TokenDictionary;
+import de.julielab.jules.ae.genemapping.mappingcores.AhoCorasickMappingCore;
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
 import org.apache.lucene.document.*;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,15 +42,19 @@ public class NameCentricSynonymIndexGenerator {
     private static final Logger log = LoggerFactory.getLogger(NameCentricSynonymIndexGenerator.class);
 
     private static final Boolean OMIT_FILTERED = true;
-
     Map<String, String> id2tax;
 
     Directory indexDirectory;
+    private File indexFile;
     /**
      * A file containing gene or protein names / synonyms and their respective NCBI
      * Gene or UniProt ID. No term normalization is expected for this dictionary.
      */
     private File dictFile;
+    /**
+     * Whether the synonym automaton of the {@link AhoCorasickMappingCore} is written into the index directory.
+     */
+    private boolean writeSynonymAutomaton;
 
     /**
      * @param dictFile  A file containing gene or protein names / synonyms and their
@@ -56,6 +67,7 @@ public class NameCentricSynonymIndexGenerator {
     public NameCentricSynonymIndexGenerator(File dictFile, File indexFile) throws FileNotFoundException, IOException {
         System.out.println("Building synonym index from dictionary " + dictFile.getAbsolutePath());
         this.dictFile = dictFile;
+        this.indexFile = indexFile;
         indexDirectory = createIndexDirectory(indexFile);
 
     }
@@ -63,7 +75,8 @@ public class NameCentricSynonymIndexGenerator {
     /**
      * To execute the ContextIndexGenerator start it with the following command-line
      * arguments:<br>
-     * arg0: path to resources directory arg1: path to synonym indices directory
+     * arg0: path to resources directory arg1: gene_info file name arg2: path to synonym indices directory
+     * arg3 (optional): <tt>true</tt> to also write the synonym automaton of the {@link AhoCorasickMappingCore}
      *
      * @param args
      */
@@ -71,9 +84,9 @@ public class NameCentricSynonymIndexGenerator {
 
         long s1 = System.currentTimeMillis();
 
-        if (args.length != 3) {
+        if (args.length != 3 && args.length != 4) {
             System.err.println(
-                    "Usage: SynonymIndexGenerator <resourcesDirectory> <gene_info file name> <geneSynonymIndicesDirectory>");
+                    "Usage: SynonymIndexGenerator <resourcesDirectory> <gene_info file name> <geneSynonymIndicesDirectory> [writeSynonymAutomaton]");
             System.exit(1);
         }
 
@@ -117,6 +130,7 @@ public class NameCentricSynonymIndexGenerator {
             // indexGenerator.readUpTaxMap(upTaxMap);
             // indexGenerator.createIndex();
             indexGenerator = new NameCentricSynonymIndexGenerator(egDictFile, geneIndexDir);
+            indexGenerator.setWriteSynonymAutomaton(args.length > 3 && Boolean.parseBoolean(args[3]));
             indexGenerator.readEgTaxMap(egTaxMap);
             indexGenerator.createIndex();
         } catch (IOException e) {
@@ -132,6 +146,16 @@ public class NameCentricSynonymIndexGenerator {
             throw new IllegalArgumentException("File \"" + file.getAbsolutePath() + "\" could not be found.");
     }
 
+    /**
+     * @param writeSynonymAutomaton Whether the synonym automaton of the {@link AhoCorasickMappingCore} should be
+     *                              compiled and written into the index directory. Only needed for the
+     *                              {@link AhoCorasickMappingCore} which otherwise compiles the automaton at startup.
+     *                              Defaults to <tt>false</tt>.
+     */
+    public void setWriteSynonymAutomaton(boolean writeSynonymAutomaton) {
+        this.writeSynonymAutomaton = writeSynonymAutomaton;
+    }
+
     /**
      * Creates the synonym index. Each unique synonym is indexed in a document of its own. Each such document
      * has a number of fields for each gene that has the current synonym and lists the gene ID, its tax ID (if the
@@ -148,6 +172,7 @@ public class NameCentricSynonymIndexGenerator {
         WhitespaceAnalyzer wsAnalyzer = new WhitespaceAnalyzer();
         IndexWriterConfig iwc = new IndexWriterConfig(wsAnalyzer);
         iwc.setOpenMode(OpenMode.CREATE);
+        iwc.setIndexSort(LuceneCandidateRetrieval.MENTION_INDEX_SORT);
 
         log.info(
                 "Generating index now. This may take quite a while (up to several hours when input files are large) ...");
@@ -207,6 +232,35 @@ public class NameCentricSynonymIndexGenerator {
             log.info("Committing all index additions.");
             iw.commit();
         }
+        writeSidecarFiles();
+    }
+
+    /**
+     * Writes the files derived from the finished index into the index directory. The {@link ExactSynonymDictionary}
+     * is read by the candidate retrieval instead of creating it from the index at startup. If
+     * {@link #setWriteSynonymAutomaton(boolean)} is set, the synonym automaton of the {@link AhoCorasickMappingCore}
+     * is compiled from the dictionary and written next to it for the same reason. Finally, the
+     * {@link TokenDictionary} of the index is written which gives the scorers the token IDs of the synonyms.
+     *
+     * @throws IOException If reading the index or writing the dictionaries or the automaton fails.
+     */
+    private void writeSidecarFiles() throws IOException {
+        try (IndexReader reader = DirectoryReader.open(indexDirectory)) {
+            File dictionaryFile = new File(indexFile, ExactSynonymDictionary.SIDECAR_FILE_NAME);
+            log.info("Writing the exact synonym dictionary to {}", dictionaryFile);
+            ExactSynonymDictionary dictionary = ExactSynonymDictionary.fromIndex(reader);
+            dictionary.write(dictionaryFile);
+            File automatonFile = new File(indexFile, AhoCorasickMappingCore.AUTOMATON_FILE_NAME);
+            if (writeSynonymAutomaton) {
+                log.info("Writing the synonym automaton to {}", automatonFile);
+                AhoCorasickMappingCore.createAutomaton(dictionary).write(automatonFile);
+            } else if (automatonFile.delete()) {
+                log.info("Deleted the synonym automaton {} of a previous index", automatonFile);
+            }
+            File tokenDictionaryFile = new File(indexFile, TokenDictionary.SIDECAR_FILE_NAME);
+            log.info("Writing the token dictionary to {}", tokenDictionaryFile);
+            TokenDictionary.fromIndex(reader).write(tokenDictionaryFile);
+        }
     }
 
     /**
@@ -229,6 +283,10 @@ public class NameCentricSynonymIndexGenerator {
                 Store.YES);
         doc.add(lookupSynField);
         List<Field> fields = new ArrayList<>();
+        List<String> entryIds = new ArrayList<>();
+        List<Integer> entryPriorities = new ArrayList<>();
+        int bestPriority = Integer.MAX_VALUE;
+        List<String> entryTaxIds = new ArrayList<>();
         for (String[] geneEntry : entriesForCurrentSynonym) {
             String id = geneEntry[1];
             Integer priority = Integer.parseInt(geneEntry[2]);
@@ -250,6 +308,7 @@ public class NameCentricSynonymIndexGenerator {
 
             Field idField = new StringField(SynonymIndexFieldNames.ID_FIELD, id + LuceneCandidateRetrieval.NAME_PRIO_DELIMITER + priority, Store.YES);
             Field taxField = new StringField(SynonymIndexFieldNames.TAX_ID_FIELD, tax, Store.YES);
+            Field taxDocValuesField = new SortedSetDocValuesField(SynonymIndexFieldNames.TAX_ID_FIELD, new BytesRef(tax));
             if (!OMIT_FILTERED) {
                 IntPoint filteredField = new IntPoint(SynonymIndexFieldNames.FILTERED, filtered ? 1 : 0);
                 StoredField storedFilteredField = new StoredField(SynonymIndexFieldNames.FILTERED,
@@ -259,11 +318,21 @@ public class NameCentricSynonymIndexGenerator {
             }
             fields.add(idField);
             fields.add(taxField);
+            fields.add(taxDocValuesField);
+            bestPriority = Math.min(bestPriority, priority);
+            entryIds.add(id);
+            entryPriorities.add(priority);
+            entryTaxIds.add(tax);
 
         }
         if (!fields.isEmpty()) {
             for (Field f : fields)
                 doc.add(f);
+            // column-stride copies of the stored values that are read for each search hit
+            doc.add(new BinaryDocValuesField(SynonymIndexFieldNames.LOOKUP_SYN_FIELD, new BytesRef(currentSynonym)));
+            doc.add(new BinaryDocValuesField(SynonymIndexFieldNames.GENE_ENTRIES, GeneEntriesCodec.encode(entryIds, entryPriorities, entryTaxIds)));
+            doc.add(new NumericDocValuesField(SynonymIndexFieldNames.PRIORITY, bestPriority));
+            doc.add(new NumericDocValuesField(SynonymIndexFieldNames.SYNONYM_LENGTH, currentSynonym.length()));
 
             iw.addDocument(doc);
         }
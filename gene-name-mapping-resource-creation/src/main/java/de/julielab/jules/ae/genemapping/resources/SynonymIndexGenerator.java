@@ -36,6 +36,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,10 +46,13 @@ import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
@@ -57,10 +61,13 @@ import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.julielab.jules.ae.genemapping.CandidateFilter;
+import de.julielab.jules.ae.genemapping.LuceneCandidateRetrieval;
+import de.julielab.jules.ae.genemapping.index.GeneEntriesCodec;
 import de.julielab.jules.ae.genemapping.index.SynonymIndexFieldNames;
 import de.julielab.jules.ae.genemapping.utils.norm.TermNormalizer;
 
@@ -199,6 +206,7 @@ public class SynonymIndexGenerator {
 		WhitespaceAnalyzer wsAnalyzer = new WhitespaceAnalyzer();
 		IndexWriterConfig iwc = new IndexWriterConfig(wsAnalyzer);
 		iwc.setOpenMode(OpenMode.CREATE);
+		iwc.setIndexSort(LuceneCandidateRetrieval.MENTION_INDEX_SORT);
 		IndexWriter iw = new IndexWriter(indexDirectory, iwc);
 
 		TermNormalizer normalizer = new TermNormalizer();
@@ -276,6 +284,8 @@ public class SynonymIndexGenerator {
 				Field taxField = new StringField(SynonymIndexFieldNames.TAX_ID_FIELD, tax, Field.Store.YES);
 				IntPoint priorityField = new IntPoint(SynonymIndexFieldNames.PRIORITY, priority);
 				StoredField storedPriorityField = new StoredField(SynonymIndexFieldNames.PRIORITY, priority);
+				NumericDocValuesField priorityDocValuesField = new NumericDocValuesField(SynonymIndexFieldNames.PRIORITY, priority);
+				NumericDocValuesField lengthDocValuesField = new NumericDocValuesField(SynonymIndexFieldNames.SYNONYM_LENGTH, normalizedName.length());
 				if (!OMIT_FILTERED) {
 					IntPoint filteredField = new IntPoint(SynonymIndexFieldNames.FILTERED, filtered ? 1 : 0);
 					StoredField storedFilteredField = new StoredField(SynonymIndexFieldNames.FILTERED,
@@ -289,6 +299,14 @@ public class SynonymIndexGenerator {
 				fields.add(taxField);
 				fields.add(priorityField);
 				fields.add(storedPriorityField);
+				fields.add(priorityDocValuesField);
+				fields.add(lengthDocValuesField);
+				// the DocValues the candidate retrieval reads the search hits from, as written by the
+				// NameCentricSynonymIndexGenerator; each document has a single gene entry
+				fields.add(new SortedSetDocValuesField(SynonymIndexFieldNames.TAX_ID_FIELD, new BytesRef(tax)));
+				fields.add(new BinaryDocValuesField(SynonymIndexFieldNames.LOOKUP_SYN_FIELD, new BytesRef(normalizedName)));
+				fields.add(new BinaryDocValuesField(SynonymIndexFieldNames.GENE_ENTRIES, GeneEntriesCodec.encode(
+						Collections.singletonList(id), Collections.singletonList(priority), Collections.singletonList(tax))));
 				for (int i = 0; i < normalizedNameVariant.size(); ++i)
 					fields.add(new TextField(SynonymIndexFieldNames.VARIANT_NAME, normalizedNameVariant.get(i),
 							Store.YES));